@@ -38,7 +38,10 @@ public class ORIPA {
 	public static void main(final String[] args) {
 
 		if (args.length > 0) {
-			new CommandLineInterfaceMain().run(args);
+			var status = new CommandLineInterfaceMain().run(args);
+			if (status != 0) {
+				System.exit(status);
+			}
 			return;
 		}
 
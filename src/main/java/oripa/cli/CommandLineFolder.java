@@ -18,7 +18,10 @@
  */
 package oripa.cli;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,7 +34,7 @@ import oripa.domain.fold.TestedOrigamiModelFactory;
 import oripa.domain.fold.halfedge.OrigamiModel;
 import oripa.persistence.doc.Doc;
 import oripa.persistence.entity.FoldedModelEntity;
-import oripa.persistence.entity.exporter.FoldedModelAllExporterFOLD;
+import oripa.persistence.entity.exporter.FoldedModelFrameWriterFOLD;
 import oripa.persistence.entity.exporter.FoldedModelSingleExporterFOLD;
 
 /**
@@ -57,27 +60,14 @@ public class CommandLineFolder {
 		}
 
 		try {
-			var creasePattern = creasePatternFileAccess.loadFile(inputFilePath).get().getCreasePattern();
-			var modelFactory = new TestedOrigamiModelFactory();
-
-			List<OrigamiModel> origamiModels = modelFactory.createOrigamiModels(creasePattern, pointEps);
-
-			if (origamiModels.size() > 1) {
-				throw new IllegalArgumentException("Input should be a single model.");
-			}
-
-			var origamiModel = origamiModels.get(0);
-
-			if (!origamiModel.isLocallyFlatFoldable()) {
-				throw new IllegalArgumentException("Input crease pattern is not locally flat foldable.");
-			}
+			var origamiModel = createOrigamiModel(inputFilePath, pointEps);
 
 			var folder = new FolderFactory().create(origamiModel.getModelType());
-			var foldedModel = any
-					? folder.fold(origamiModel, pointEps, Folder.EstimationType.FIRST_ONLY).foldedModel()
-					: folder.fold(origamiModel, pointEps, Folder.EstimationType.FULL).foldedModel();
+			var estimationType = any ? Folder.EstimationType.FIRST_ONLY : Folder.EstimationType.FULL;
 
 			if (split) {
+				var foldedModel = folder.fold(origamiModel, pointEps, estimationType).foldedModel();
+
 				var digitLength = Integer.toString(foldedModel.getFoldablePatternCount()).length();
 				for (int i = 0; i < foldedModel.getFoldablePatternCount(); i++) {
 					var paddedNumber = "0".repeat(digitLength - Integer.toString(i).length()) + i;
@@ -88,13 +78,67 @@ public class CommandLineFolder {
 							new FoldedModelEntity(foldedModel, i), outputName, null);
 				}
 			} else {
-				var foldedModelExporter = new FoldedModelAllExporterFOLD();
-				foldedModelExporter.export(
-						new FoldedModelEntity(foldedModel), outputFilePath, null);
+				// write each answer as soon as it is found to avoid holding all
+				// answers in memory.
+				try (var writer = new FoldedModelFrameWriterFOLD(origamiModel, outputFilePath)) {
+					folder.fold(origamiModel, pointEps, estimationType, overlapRelation -> {
+						try {
+							writer.write(overlapRelation);
+						} catch (IOException e) {
+							throw new UncheckedIOException(e);
+						}
+					});
+					logger.info("{} folded states are written.", writer.getFrameCount());
+				}
 			}
 
 		} catch (Exception e) {
 			logger.error("folding error", e);
 		}
 	}
+
+	/**
+	 * Folds the given crease pattern and counts the folded states without
+	 * holding them.
+	 *
+	 * @param inputFilePath
+	 *            crease pattern file (opx, fold, cp).
+	 * @param pointEps
+	 *            error upper-bound for point equality.
+	 * @return the number of folded states. -1 if something is wrong.
+	 */
+	public int count(final String inputFilePath, final double pointEps) {
+		try {
+			var origamiModel = createOrigamiModel(inputFilePath, pointEps);
+
+			var folder = new FolderFactory().create(origamiModel.getModelType());
+
+			var count = new AtomicInteger();
+			folder.fold(origamiModel, pointEps, Folder.EstimationType.FULL, overlapRelation -> count.incrementAndGet());
+
+			return count.get();
+		} catch (Exception e) {
+			logger.error("count error", e);
+		}
+		return -1;
+	}
+
+	private OrigamiModel createOrigamiModel(final String inputFilePath, final double pointEps) {
+		var creasePattern = creasePatternFileAccess.loadFile(inputFilePath).get().getCreasePattern();
+		var modelFactory = new TestedOrigamiModelFactory();
+
+		List<OrigamiModel> origamiModels = modelFactory.createOrigamiModels(creasePattern, pointEps);
+
+		if (origamiModels.size() > 1) {
+			throw new IllegalArgumentException("Input should be a single model.");
+		}
+
+		var origamiModel = origamiModels.get(0);
+
+		if (!origamiModel.isLocallyFlatFoldable()) {
+			throw new IllegalArgumentException("Input crease pattern is not locally flat foldable.");
+		}
+
+		return origamiModel;
+	}
 }
@@ -27,6 +27,7 @@ import com.google.inject.Guice;
 
 import oripa.geom.GeomUtil;
 import oripa.inject.FileAccessServiceModule;
+import oripa.persistence.entity.exporter.FoldedModelPictureConfig;
 
 /**
  * @author OUCHI Koji
@@ -38,6 +39,7 @@ public class CommandLineInterfaceMain {
 	private static final String IMAGE = "image";
 	private static final String INDEX = "index";
 	private static final String REVERSE = "reverse";
+	private static final String SIZE = "size";
 	private static final String SPLIT = "split";
 	private static final String FOLD = "fold";
 	private static final String ANY = "any";
@@ -48,8 +50,13 @@ public class CommandLineInterfaceMain {
 	private static final String IMAGE_FILE = "image-file";
 	private static final String FOLD_FILE = "fold-file";
 	private static final String FRAME_INDEX = "frame-index";
+	private static final String PIXELS = "pixels";
 
-	public void run(final String[] args) {
+	/**
+	 *
+	 * @return the exit status. 0 if the command succeeds.
+	 */
+	public int run(final String[] args) {
 		Options options = new Options();
 
 		var convertOption = Option.builder("c")
@@ -75,7 +82,11 @@ public class CommandLineInterfaceMain {
 				.longOpt(INDEX)
 				.hasArg()
 				.argName(FRAME_INDEX)
-				.desc("0-start Index of face order matrices. This option is to be used with --" + IMAGE + " option.")
+				.desc("0-start Index of face order matrices. This option is to be used with --" + IMAGE + " option. "
+						+ "Multiple frames can be given by \"" + FoldedModelImageExporter.ALL_INDICES
+						+ "\" or comma-separated indices and ranges such as \"0,3,10-20\". "
+						+ "Then the frames are rendered one by one and index will be inserted into file name "
+						+ "as \"givenName.123.png\".")
 				.build();
 		options.addOption(indexOption);
 
@@ -85,6 +96,15 @@ public class CommandLineInterfaceMain {
 				.build();
 		options.addOption(reverseOption);
 
+		var sizeOption = Option.builder("z")
+				.longOpt(SIZE)
+				.hasArg()
+				.argName(PIXELS)
+				.desc("Width and height of the output image of --" + IMAGE + " option in pixels. "
+						+ "Default is " + FoldedModelPictureConfig.DEFAULT_SIZE + ". SVG ignores this option.")
+				.build();
+		options.addOption(sizeOption);
+
 		var splitOption = Option.builder("s")
 				.longOpt(SPLIT)
 				.desc("Put this option if the output of --" + FOLD + " should be single frame FOLD files.")
@@ -110,7 +130,9 @@ public class CommandLineInterfaceMain {
 
 		var countOption = Option.builder("C")
 				.longOpt(COUNT)
-				.desc("Count the folded models in the given FOLD format file and print it. -1 if something is wrong.")
+				.desc("Count the folded models in the given FOLD format file and print it. "
+						+ "If the input is a crease pattern file (opx, cp), the crease pattern is folded "
+						+ "and the folded models are counted without holding them. -1 if something is wrong.")
 				.build();
 		options.addOption(countOption);
 
@@ -137,7 +159,7 @@ public class CommandLineInterfaceMain {
 				formatter.printHelp(System.lineSeparator() +
 						"  command line: java -jar oripa-x.yz.jar inputFilePath [options]" + System.lineSeparator()
 						+ "  GUI: java -jar oripa-x.yz.jar", options);
-				return;
+				return 0;
 			}
 
 			var pathArgList = line.getArgList();
@@ -157,10 +179,16 @@ public class CommandLineInterfaceMain {
 					throw new IllegalArgumentException("Need --" + indexOption.getLongOpt() + " option.");
 				}
 				var outputFilePath = line.getOptionValue(imageOption);
-				var index = Integer.parseInt(line.getOptionValue(indexOption));
+				var indices = line.getOptionValue(indexOption);
 				var reverse = line.hasOption(reverseOption);
+				var size = line.hasOption(sizeOption)
+						? Integer.parseInt(line.getOptionValue(sizeOption))
+						: FoldedModelPictureConfig.DEFAULT_SIZE;
 				var converter = new FoldedModelImageExporter();
-				converter.export(inputFilePath, index, reverse, outputFilePath, pointEps);
+				if (!converter.export(inputFilePath, indices, reverse, outputFilePath, pointEps, size)) {
+					System.err.println("Some images are not written.");
+					return 1;
+				}
 
 			} else if (line.hasOption(foldOption)) {
 				var outputFilePath = line.getOptionValue(foldOption);
@@ -170,8 +198,13 @@ public class CommandLineInterfaceMain {
 				folder.fold(inputFilePath, any, split, outputFilePath, pointEps);
 
 			} else if (line.hasOption(countOption)) {
-				var counter = new FoldedModelCounter();
-				System.out.println(counter.count(inputFilePath));
+				if (inputFilePath.toLowerCase().endsWith(".fold")) {
+					var counter = new FoldedModelCounter();
+					System.out.println(counter.count(inputFilePath));
+				} else {
+					var folder = injector.getInstance(CommandLineFolder.class);
+					System.out.println(folder.count(inputFilePath, pointEps));
+				}
 
 			} else if (line.getOptions().length == 0) {
 				throw new IllegalArgumentException("No option is given. Hint: see help by -" + helpOption.getOpt());
@@ -179,6 +212,9 @@ public class CommandLineInterfaceMain {
 
 		} catch (Exception ex) {
 			System.err.println("command line error: " + ex);
+			return 1;
 		}
+
+		return 0;
 	}
 }
@@ -19,17 +19,25 @@
 package oripa.cli;
 
 import java.awt.Color;
+import java.io.IOException;
 import java.util.List;
+import java.util.function.IntFunction;
 import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import oripa.domain.fold.FoldedModel;
+import oripa.domain.fold.halfedge.OrigamiModel;
+import oripa.domain.fold.origeom.OverlapRelation;
 import oripa.persistence.entity.FoldedModelEntity;
 import oripa.persistence.entity.exporter.FoldedModelExporterSVG;
 import oripa.persistence.entity.exporter.FoldedModelPictureConfig;
 import oripa.persistence.entity.exporter.FoldedModelPictureExporter;
-import oripa.persistence.entity.loader.FoldedModelLoaderFOLD;
+import oripa.persistence.entity.loader.FoldedModelFrameIndexFOLD;
+import oripa.persistence.entity.loader.FoldedModelFrameReaderFOLD;
+import oripa.persistence.filetool.WrongDataFormatException;
 
 /**
  * @author OUCHI Koji
@@ -44,8 +52,44 @@ public class FoldedModelImageExporter {
 
 	static final List<String> AVAILABLE_EXTENSIONS = List.of(SVG_EXTENSION, JPG_EXTENSION, PNG_EXTENSION);
 
-	public void export(final String inputFilePath, final int index, final boolean reverse,
+	static final String ALL_INDICES = "all";
+
+	private static final Pattern SINGLE_INDEX_PATTERN = Pattern.compile("\\d+");
+	private static final Pattern RANGE_PATTERN = Pattern.compile("(\\d+)(?:-(\\d+))?");
+
+	public boolean export(final String inputFilePath, final int index, final boolean reverse,
 			final String outputFilePath, final double eps) {
+		return export(inputFilePath, index, reverse, outputFilePath, eps, FoldedModelPictureConfig.DEFAULT_SIZE);
+	}
+
+	/**
+	 *
+	 * @param size
+	 *            width and height of the image in pixels. Ignored for SVG.
+	 * @return true if the image is written.
+	 */
+	public boolean export(final String inputFilePath, final int index, final boolean reverse,
+			final String outputFilePath, final double eps, final int size) {
+		return export(inputFilePath, Integer.toString(index), reverse, outputFilePath, eps, size);
+	}
+
+	/**
+	 * Exports the images of the selected frames. The model is loaded once and
+	 * the frames are rendered one by one, each of which is rendered in
+	 * parallel by the renderer.
+	 *
+	 * @param indices
+	 *            a 0-start index, {@value #ALL_INDICES}, or comma-separated
+	 *            indices and inclusive ranges such as "0,3,10-20". For a
+	 *            single index the image is written to the output file path as
+	 *            is. Otherwise the index of each frame is inserted into the
+	 *            file name as "givenName.123.png".
+	 * @param size
+	 *            width and height of the image in pixels. Ignored for SVG.
+	 * @return true if all images of the selected frames are written.
+	 */
+	public boolean export(final String inputFilePath, final String indices, final boolean reverse,
+			final String outputFilePath, final double eps, final int size) {
 
 		final var lowerInputFilePath = inputFilePath.toLowerCase();
 		final var lowerOutputFilePath = outputFilePath.toLowerCase();
@@ -59,35 +103,139 @@ public class FoldedModelImageExporter {
 					+ String.join(",", AVAILABLE_EXTENSIONS));
 		}
 
-		var inputFileLoader = new FoldedModelLoaderFOLD();
-
 		var outputExtension = findExtension(outputFilePath);
 
-		var outputFileExporter = switch (outputExtension) {
-		case (SVG_EXTENSION) -> new FoldedModelExporterSVG(reverse);
-		default -> new FoldedModelPictureExporter();
-		};
-
 		try {
-			var inputModelEntityOpt = inputFileLoader.load(inputFilePath);
-
-			var entity = new FoldedModelEntity(inputModelEntityOpt.orElseThrow().toFoldedModel(), index);
-
-			Object config = switch (outputExtension) {
-			case (SVG_EXTENSION) -> null;
-			default -> new FoldedModelPictureConfig()
-					.setAmbientOcclusion(false)
-					.setColors(Color.GRAY.brighter(), Color.WHITE)
-					.setDrawEdges(true)
-					.setFaceOrderFlipped(reverse)
-					.setFillFaces(true)
-					.setEps(eps);
-			};
-			outputFileExporter.export(entity, outputFilePath, config);
+			var frameIndex = FoldedModelFrameIndexFOLD.load(inputFilePath);
+			var relationCount = frameIndex.getRelationCount();
+
+			var frames = parseIndices(indices, relationCount);
 
+			try (var reader = new FoldedModelFrameReaderFOLD(inputFilePath, frameIndex)) {
+				var frameExporter = createFrameExporter(reader.getOrigamiModel(), outputExtension, reverse, eps,
+						size);
+
+				if (SINGLE_INDEX_PATTERN.matcher(indices.trim()).matches()) {
+					frameExporter.export(reader.read(frames[0]), outputFilePath);
+					return true;
+				}
+
+				var baseName = outputFilePath.substring(0, outputFilePath.length() - outputExtension.length());
+				var extension = outputFilePath.substring(baseName.length());
+				var digitLength = Integer.toString(relationCount).length();
+
+				var exportedCount = exportFrames(reader, frames, frameExporter, index -> {
+					var paddedNumber = "0".repeat(digitLength - Integer.toString(index).length()) + index;
+					return baseName + "." + paddedNumber + extension;
+				});
+
+				return exportedCount == frames.length;
+			}
 		} catch (Exception e) {
 			logger.error("image error", e);
+			return false;
+		}
+	}
+
+	@FunctionalInterface
+	private interface FrameExporter {
+		void export(OverlapRelation overlapRelation, String outputFilePath) throws IOException;
+	}
+
+	/**
+	 * Creates the exporter of the frames of the given model. For the pictures,
+	 * the distortion of the faces is computed here and shared by all frames.
+	 */
+	private FrameExporter createFrameExporter(final OrigamiModel origamiModel, final String outputExtension,
+			final boolean reverse, final double eps, final int size) {
+
+		if (outputExtension.equals(SVG_EXTENSION)) {
+			// SVG exporter holds the state of each export.
+			return (overlapRelation, outputFilePath) -> new FoldedModelExporterSVG(reverse).export(
+					new FoldedModelEntity(new FoldedModel(origamiModel, List.of(overlapRelation), List.of()), 0),
+					outputFilePath, null);
 		}
+
+		var config = new FoldedModelPictureConfig()
+				.setAmbientOcclusion(true)
+				.setColors(Color.GRAY.brighter(), Color.WHITE)
+				.setDrawEdges(true)
+				.setFaceOrderFlipped(reverse)
+				.setFillFaces(true)
+				.setEps(eps)
+				.setSize(size, size);
+
+		var exporter = new FoldedModelPictureExporter();
+		var distortedModel = exporter.prepare(origamiModel, config);
+
+		return (overlapRelation, outputFilePath) -> exporter.export(distortedModel, overlapRelation,
+				outputFilePath, config);
+	}
+
+	/**
+	 * Reads and exports the frames one by one so that the memory use doesn't
+	 * depend on the number of the frames. A frame which fails to be exported
+	 * is logged and skipped.
+	 *
+	 * @return the number of the written images.
+	 */
+	private int exportFrames(final FoldedModelFrameReaderFOLD reader, final int[] frames,
+			final FrameExporter frameExporter, final IntFunction<String> createOutputFilePath)
+			throws IOException, WrongDataFormatException {
+
+		int exportedCount = 0;
+
+		for (var index : frames) {
+			var overlapRelation = reader.read(index);
+			try {
+				frameExporter.export(overlapRelation, createOutputFilePath.apply(index));
+				exportedCount++;
+			} catch (Exception e) {
+				logger.error("image error at frame {}", index, e);
+			}
+		}
+
+		logger.info("{} of {} images are written.", exportedCount, frames.length);
+
+		return exportedCount;
+	}
+
+	/**
+	 * Parses the selection of frames.
+	 *
+	 * @param indices
+	 *            {@value #ALL_INDICES} or comma-separated indices and
+	 *            inclusive ranges such as "0,3,10-20".
+	 * @param relationCount
+	 *            the number of the frames.
+	 * @return selected indices in the given order without duplication.
+	 * @throws IllegalArgumentException
+	 *             if the text is malformed or an index is out of range.
+	 */
+	int[] parseIndices(final String indices, final int relationCount) throws IllegalArgumentException {
+		if (indices.trim().equalsIgnoreCase(ALL_INDICES)) {
+			return IntStream.range(0, relationCount).toArray();
+		}
+
+		var builder = IntStream.builder();
+
+		for (var item : indices.split(",")) {
+			var matcher = RANGE_PATTERN.matcher(item.trim());
+			if (!matcher.matches()) {
+				throw new IllegalArgumentException("Wrong index: " + item);
+			}
+			var first = Integer.parseInt(matcher.group(1));
+			var last = matcher.group(2) == null ? first : Integer.parseInt(matcher.group(2));
+
+			if (first > last || last >= relationCount) {
+				throw new IllegalArgumentException(
+						"Index out of range: " + item + " (the number of the frames is " + relationCount + ")");
+			}
+
+			IntStream.rangeClosed(first, last).forEach(builder::add);
+		}
+
+		return builder.build().distinct().toArray();
 	}
 
 	private String findExtension(final String filePath) {
@@ -43,6 +43,22 @@ import oripa.vecmath.Vector2d;
 public class CrossingLineSplitter {
 	private static Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+	/**
+	 * inputs smaller than this are swept at once.
+	 */
+	static final int PARTITION_THRESHOLD = 4000;
+
+	/**
+	 * strips make each sweep faster even on a single core.
+	 */
+	private static final int MIN_STRIP_COUNT = 4;
+
+	/**
+	 * minimum gap between end points to put a strip boundary, relative to
+	 * eps.
+	 */
+	private static final double STRIP_GAP_EPS_RATIO = 8;
+
 	private double eps;
 
 	private static class EventPoint implements Comparable<EventPoint> {
@@ -261,9 +277,10 @@ public class CrossingLineSplitter {
 					getAndAdd(new OriPoint(x1, y1), foundPoints, foundXs, foundYs, eps),
 					Type.MOUNTAIN);
 
-			fixedLines.add(fixedLine);
+			// split() walks cross points from p0 in the order of points.
+			var canonical = fixedLine.createCanonical();
 
-			var canonical = new OriLine(fixedLine.getP0(), fixedLine.getP1(), Type.MOUNTAIN).createCanonical();
+			fixedLines.add(canonical);
 
 			points.addAll(EventPoint.create(canonical));
 		}
@@ -317,6 +334,213 @@ public class CrossingLineSplitter {
 	private TreeSet<StatusElementSegment> sweepStatus;
 	private TreeSet<EventPoint> events;
 
+	/**
+	 * Splits the given lines at the cross points. Large inputs are divided
+	 * into vertical strips which are swept in parallel.
+	 *
+	 * @param inputLines
+	 * @param eps
+	 * @return split lines whose types are all mountain.
+	 */
+	public Collection<OriLine> splitIgnoringType(
+			final Collection<OriLine> inputLines, final double eps) {
+		var stripCount = inputLines.size() < PARTITION_THRESHOLD
+				? 1
+				: Math.max(Runtime.getRuntime().availableProcessors(), MIN_STRIP_COUNT);
+
+		return splitIgnoringType(inputLines, eps, stripCount);
+	}
+
+	/**
+	 * Partitioned version of {@link #splitIgnoringType(Collection, double)}.
+	 * The lines are clipped into at most {@code stripCount} vertical strips,
+	 * each strip is swept on its own, and then the pieces cut at the strip
+	 * boundaries are joined again.
+	 */
+	Collection<OriLine> splitIgnoringType(
+			final Collection<OriLine> inputLines, final double eps, final int stripCount) {
+
+		var boundaries = computeStripBoundaries(inputLines, eps, stripCount);
+
+		if (boundaries.length == 0) {
+			return new CrossingLineSplitter().sweep(inputLines, eps);
+		}
+
+		var strips = new ArrayList<List<OriLine>>();
+		for (int i = 0; i <= boundaries.length; i++) {
+			strips.add(new ArrayList<>());
+		}
+
+		for (var line : inputLines) {
+			var canonical = line.createCanonical();
+			var x0 = canonical.getP0().getX();
+			var x1 = canonical.getP1().getX();
+
+			var first = stripIndexOf(x0, boundaries);
+			var last = stripIndexOf(x1, boundaries);
+
+			if (first == last) {
+				strips.get(first).add(line);
+				continue;
+			}
+
+			for (int i = first; i <= last; i++) {
+				var left = i == first ? x0 : boundaries[i - 1];
+				var right = i == last ? x1 : boundaries[i];
+				strips.get(i).add(new OriLine(
+						i == first ? canonical.getP0() : new Vector2d(left, canonical.getAffineYValueAt(left)),
+						i == last ? canonical.getP1() : new Vector2d(right, canonical.getAffineYValueAt(right)),
+						Type.MOUNTAIN));
+			}
+		}
+
+		logger.debug("strip sizes {}", strips.stream().map(List::size).toList());
+
+		var splitStrips = strips.parallelStream()
+				.map(strip -> new CrossingLineSplitter().sweep(strip, eps))
+				.toList();
+
+		return stitch(splitStrips, boundaries, eps);
+	}
+
+	/**
+	 * Chooses x-coordinates of strip boundaries so that each strip has
+	 * almost the same number of end points. A boundary is put in the middle of
+	 * a gap between end points so that no end point and no vertical line lie
+	 * on it.
+	 *
+	 * @return strictly increasing boundaries. Empty if the lines should not be
+	 *         partitioned.
+	 */
+	private double[] computeStripBoundaries(final Collection<OriLine> inputLines, final double eps,
+			final int stripCount) {
+		if (stripCount <= 1) {
+			return new double[0];
+		}
+
+		var xs = inputLines.stream()
+				.flatMap(OriLine::pointStream)
+				.mapToDouble(Vector2d::getX)
+				.sorted()
+				.toArray();
+
+		var boundaries = new double[stripCount - 1];
+		var boundaryCount = 0;
+
+		for (int k = 1; k < stripCount; k++) {
+			var i = Math.max(k * xs.length / stripCount - 1, 0);
+
+			while (i + 1 < xs.length && xs[i + 1] - xs[i] < STRIP_GAP_EPS_RATIO * eps) {
+				i++;
+			}
+			if (i + 1 >= xs.length) {
+				break;
+			}
+
+			var boundary = (xs[i] + xs[i + 1]) / 2;
+			if (boundaryCount == 0 || boundaries[boundaryCount - 1] < boundary) {
+				boundaries[boundaryCount++] = boundary;
+			}
+		}
+
+		return Arrays.copyOf(boundaries, boundaryCount);
+	}
+
+	private int stripIndexOf(final double x, final double[] boundaries) {
+		var index = Arrays.binarySearch(boundaries, x);
+		// x never equals to a boundary.
+		return index < 0 ? -index - 1 : index;
+	}
+
+	/**
+	 * Joins the pieces cut at the strip boundaries. A point on a boundary is
+	 * kept only if it is a true cross point, i.e., more than one piece meets
+	 * there on either side.
+	 */
+	private Collection<OriLine> stitch(final List<Collection<OriLine>> splitStrips, final double[] boundaries,
+			final double eps) {
+		var splits = new HashSet<OriLine>();
+
+		// pieces in the previous strip which end at the left boundary.
+		List<OriLine> carried = List.of();
+
+		for (int i = 0; i < splitStrips.size(); i++) {
+			var pieces = new ArrayList<OriLine>(splitStrips.get(i).stream()
+					.map(OriLine::createCanonical)
+					.toList());
+
+			if (i > 0) {
+				joinAtBoundary(carried, pieces, boundaries[i - 1], eps);
+			}
+
+			if (i == boundaries.length) {
+				splits.addAll(pieces);
+				break;
+			}
+
+			var boundary = boundaries[i];
+			carried = pieces.stream()
+					.filter(piece -> Math.abs(piece.getP1().getX() - boundary) < eps)
+					.toList();
+			pieces.stream()
+					.filter(piece -> Math.abs(piece.getP1().getX() - boundary) >= eps)
+					.forEach(splits::add);
+		}
+
+		return splits;
+	}
+
+	/**
+	 * Replaces each piece in {@code rights} starting at the boundary with the
+	 * joined one if exactly one piece from each side meets at the point. The
+	 * other pieces in {@code lefts} are left as they are.
+	 */
+	private void joinAtBoundary(final List<OriLine> lefts, final List<OriLine> rights,
+			final double boundary, final double eps) {
+
+		record End(OriLine line, boolean isLeft, int index) {
+			double y() {
+				return isLeft ? line.getP1().getY() : line.getP0().getY();
+			}
+		}
+
+		var ends = new ArrayList<End>();
+		lefts.forEach(line -> ends.add(new End(line, true, -1)));
+		for (int j = 0; j < rights.size(); j++) {
+			var line = rights.get(j);
+			if (Math.abs(line.getP0().getX() - boundary) < eps) {
+				ends.add(new End(line, false, j));
+			}
+		}
+		ends.sort(Comparator.comparing(End::y));
+
+		var joined = new HashSet<OriLine>();
+		int begin = 0;
+		while (begin < ends.size()) {
+			var end = begin + 1;
+			while (end < ends.size() && ends.get(end).y() - ends.get(end - 1).y() < eps) {
+				end++;
+			}
+
+			var cluster = ends.subList(begin, end);
+			var leftEnds = cluster.stream().filter(End::isLeft).toList();
+			var rightEnds = cluster.stream().filter(e -> !e.isLeft()).toList();
+
+			if (leftEnds.size() == 1 && rightEnds.size() == 1) {
+				var left = leftEnds.get(0).line();
+				var right = rightEnds.get(0);
+				rights.set(right.index(), new OriLine(left.getP0(), right.line().getP1(), Type.MOUNTAIN));
+				joined.add(left);
+			}
+
+			begin = end;
+		}
+
+		lefts.stream()
+				.filter(Predicate.not(joined::contains))
+				.forEach(rights::add);
+	}
+
 	/**
 	 * sweep line algorithm from de Berg, Mark; van Kreveld, Marc; Overmars,
 	 * Mark; Schwarzkopf, Otfried, "Chapter 2: Line segment intersection",
@@ -326,7 +550,7 @@ public class CrossingLineSplitter {
 	 * @param eps
 	 * @return
 	 */
-	public Collection<OriLine> splitIgnoringType(
+	private Collection<OriLine> sweep(
 			final Collection<OriLine> inputLines, final double eps) {
 		this.eps = eps;
 		foundPoints = new TreeSet<>();
@@ -734,12 +958,23 @@ public class CrossingLineSplitter {
 	private HashSet<StatusElementSegment> getAffinePoints(final EventPoint event) {
 		var statusSegments = sweepStatus
 				.stream()
+				// cheap test by bounding box before the exact one.
+				.filter(s -> isInBoundingBox(event.getPoint(), s.line))
 				// event point should be on the line
 				.filter(s -> GeomUtil.distancePointToSegment(event.getPoint(), s.line) < eps).toList();
 
 		return new HashSet<>(statusSegments);
 	}
 
+	private boolean isInBoundingBox(final Vector2d p, final OriLine line) {
+		var p0 = line.getP0();
+		var p1 = line.getP1();
+		return Math.min(p0.getX(), p1.getX()) - eps <= p.getX()
+				&& p.getX() <= Math.max(p0.getX(), p1.getX()) + eps
+				&& Math.min(p0.getY(), p1.getY()) - eps <= p.getY()
+				&& p.getY() <= Math.max(p0.getY(), p1.getY()) + eps;
+	}
+
 	private Optional<OriLine> getLower(
 			final EventPoint event,
 			final OriLine target) {
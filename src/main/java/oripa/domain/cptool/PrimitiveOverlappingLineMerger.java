@@ -0,0 +1,330 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.cptool;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import oripa.util.MathUtil;
+import oripa.value.OriLine;
+import oripa.value.OriLine.Type;
+
+/**
+ * An {@link OverlappingLineMerger} which keeps the sweep state in primitive
+ * arrays instead of event objects. The end points, angles and sweep keys of
+ * the lines are stored column by column and the lines are handled through
+ * their indices, which are ordered by radix sort on the keys. Lines are
+ * grouped by angle, then by the signed distance from the origin, and the
+ * overlapping intervals of each collinear group are merged in one pass.
+ *
+ * The result is the same as {@link AnalyticOverlappingLineMerger}: a line
+ * which overlaps with nothing is returned as is and a merged line has
+ * {@link Type#MOUNTAIN}.
+ */
+public class PrimitiveOverlappingLineMerger implements OverlappingLineMerger {
+
+	private static final int INSERTION_SORT_THRESHOLD = 32;
+
+	private static final int RADIX_BITS = 8;
+	private static final int RADIX = 1 << RADIX_BITS;
+	private static final int RADIX_MASK = RADIX - 1;
+
+	/**
+	 * Columns of the lines. Index {@code i} of each array describes
+	 * {@code lines[i]}. The end points are swapped so that {@code (x0, y0)}
+	 * comes first along the direction of the angle group.
+	 */
+	private static class LineTable {
+		final OriLine[] lines;
+		final double[] x0, y0, x1, y1;
+		final double[] angles;
+
+		/** start and end positions along the direction of the angle group. */
+		final double[] t0, t1;
+
+		/** sort key, reused for angle, offset and position. */
+		final double[] keys;
+
+		final int[] order;
+
+		int size;
+
+		LineTable(final int capacity) {
+			lines = new OriLine[capacity];
+			x0 = new double[capacity];
+			y0 = new double[capacity];
+			x1 = new double[capacity];
+			y1 = new double[capacity];
+			angles = new double[capacity];
+			t0 = new double[capacity];
+			t1 = new double[capacity];
+			keys = new double[capacity];
+			order = new int[capacity];
+		}
+
+		void add(final OriLine line) {
+			var p0 = line.getP0();
+			var p1 = line.getP1();
+
+			lines[size] = line;
+			x0[size] = p0.getX();
+			y0[size] = p0.getY();
+			x1[size] = p1.getX();
+			y1[size] = p1.getY();
+			angles[size] = line.getAngle();
+			order[size] = size;
+			size++;
+		}
+
+		void swapEndPoints(final int i) {
+			var x = x0[i];
+			var y = y0[i];
+			x0[i] = x1[i];
+			y0[i] = y1[i];
+			x1[i] = x;
+			y1[i] = y;
+		}
+	}
+
+	@Override
+	public Collection<OriLine> mergeIgnoringType(final Collection<OriLine> inputLines, final double eps) {
+		var table = new LineTable(inputLines.size());
+
+		for (var line : inputLines) {
+			if (line.length() < eps) {
+				continue;
+			}
+			table.add(line);
+		}
+
+		var results = new ArrayList<OriLine>();
+		var sorter = new KeySorter(table.size);
+		var order = table.order;
+		var angleEps = MathUtil.angleRadianEps();
+
+		System.arraycopy(table.angles, 0, table.keys, 0, table.size);
+		sorter.sort(order, 0, table.size, table.keys);
+
+		int start = 0;
+		while (start < table.size) {
+			var angle = table.angles[order[start]];
+			int end = start + 1;
+			while (end < table.size && table.angles[order[end]] - angle <= angleEps) {
+				end++;
+			}
+			mergeParallel(table, start, end, angle, sorter, eps, results);
+			start = end;
+		}
+
+		return results;
+	}
+
+	/**
+	 * Merges the lines at {@code order[start]} to {@code order[end - 1]},
+	 * which are parallel to the given angle.
+	 */
+	private void mergeParallel(final LineTable table, final int start, final int end, final double angle,
+			final KeySorter sorter, final double eps, final List<OriLine> results) {
+		var order = table.order;
+		var keys = table.keys;
+
+		var cos = Math.cos(angle);
+		var sin = Math.sin(angle);
+
+		for (int k = start; k < end; k++) {
+			var i = order[k];
+
+			var t0 = table.x0[i] * cos + table.y0[i] * sin;
+			var t1 = table.x1[i] * cos + table.y1[i] * sin;
+			if (t0 > t1) {
+				table.swapEndPoints(i);
+				var t = t0;
+				t0 = t1;
+				t1 = t;
+			}
+			table.t0[i] = t0;
+			table.t1[i] = t1;
+
+			// signed distance between the origin and the line.
+			keys[i] = table.y0[i] * cos - table.x0[i] * sin;
+		}
+
+		sorter.sort(order, start, end, keys);
+
+		int groupStart = start;
+		while (groupStart < end) {
+			var offset = keys[order[groupStart]];
+			int groupEnd = groupStart + 1;
+			while (groupEnd < end && keys[order[groupEnd]] - offset <= eps) {
+				groupEnd++;
+			}
+			mergeCollinear(table, groupStart, groupEnd, sorter, eps, results);
+			groupStart = groupEnd;
+		}
+	}
+
+	/**
+	 * Merges the lines at {@code order[start]} to {@code order[end - 1]},
+	 * which are on the same line, by sweeping them along the line.
+	 */
+	private void mergeCollinear(final LineTable table, final int start, final int end,
+			final KeySorter sorter, final double eps, final List<OriLine> results) {
+		var order = table.order;
+
+		if (end - start == 1) {
+			results.add(table.lines[order[start]]);
+			return;
+		}
+
+		for (int k = start; k < end; k++) {
+			table.keys[order[k]] = table.t0[order[k]];
+		}
+		sorter.sort(order, start, end, table.keys);
+
+		var first = order[start];
+		var last = first;
+		var count = 1;
+
+		for (int k = start + 1; k < end; k++) {
+			var i = order[k];
+			if (table.t0[i] <= table.t1[last] + eps) {
+				count++;
+				if (table.t1[i] > table.t1[last]) {
+					last = i;
+				}
+				continue;
+			}
+			results.add(createMerged(table, first, last, count));
+			first = i;
+			last = i;
+			count = 1;
+		}
+		results.add(createMerged(table, first, last, count));
+	}
+
+	private OriLine createMerged(final LineTable table, final int first, final int last, final int count) {
+		if (count == 1) {
+			return table.lines[first];
+		}
+		return new OriLine(table.x0[first], table.y0[first], table.x1[last], table.y1[last], Type.MOUNTAIN);
+	}
+
+	/**
+	 * Sorts a range of indices by the keys they point to. Short ranges are
+	 * sorted by insertion sort and others by LSD radix sort on the bit
+	 * patterns of the keys. The buffers are allocated once and reused.
+	 */
+	private static class KeySorter {
+		private final long[] bits;
+		private final long[] bitsBuffer;
+		private final int[] indices;
+		private final int[] indicesBuffer;
+		private final int[] counts = new int[RADIX];
+
+		KeySorter(final int capacity) {
+			bits = new long[capacity];
+			bitsBuffer = new long[capacity];
+			indices = new int[capacity];
+			indicesBuffer = new int[capacity];
+		}
+
+		void sort(final int[] order, final int from, final int to, final double[] keys) {
+			var length = to - from;
+
+			if (length < INSERTION_SORT_THRESHOLD) {
+				insertionSort(order, from, to, keys);
+				return;
+			}
+
+			for (int j = 0; j < length; j++) {
+				var i = order[from + j];
+				indices[j] = i;
+				bits[j] = toSortableBits(keys[i]);
+			}
+
+			var srcBits = bits;
+			var srcIndices = indices;
+			var dstBits = bitsBuffer;
+			var dstIndices = indicesBuffer;
+
+			for (int shift = 0; shift < Long.SIZE; shift += RADIX_BITS) {
+				Arrays.fill(counts, 0);
+				for (int j = 0; j < length; j++) {
+					counts[digit(srcBits[j], shift)]++;
+				}
+
+				// all keys share this digit.
+				if (counts[digit(srcBits[0], shift)] == length) {
+					continue;
+				}
+
+				int position = 0;
+				for (int d = 0; d < RADIX; d++) {
+					var count = counts[d];
+					counts[d] = position;
+					position += count;
+				}
+
+				for (int j = 0; j < length; j++) {
+					var p = counts[digit(srcBits[j], shift)]++;
+					dstBits[p] = srcBits[j];
+					dstIndices[p] = srcIndices[j];
+				}
+
+				var tmpBits = srcBits;
+				srcBits = dstBits;
+				dstBits = tmpBits;
+
+				var tmpIndices = srcIndices;
+				srcIndices = dstIndices;
+				dstIndices = tmpIndices;
+			}
+
+			System.arraycopy(srcIndices, 0, order, from, length);
+		}
+
+		private void insertionSort(final int[] order, final int from, final int to, final double[] keys) {
+			for (int k = from + 1; k < to; k++) {
+				var i = order[k];
+				var key = keys[i];
+				int j = k - 1;
+				while (j >= from && keys[order[j]] > key) {
+					order[j + 1] = order[j];
+					j--;
+				}
+				order[j + 1] = i;
+			}
+		}
+
+		private static int digit(final long bits, final int shift) {
+			return (int) (bits >>> shift) & RADIX_MASK;
+		}
+
+		/**
+		 * @return bits whose unsigned order is the same as the order of the
+		 *         given value.
+		 */
+		private static long toSortableBits(final double value) {
+			var bits = Double.doubleToLongBits(value);
+			return bits ^ ((bits >> 63) | Long.MIN_VALUE);
+		}
+	}
+}
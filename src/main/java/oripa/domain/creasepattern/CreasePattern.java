@@ -52,4 +52,12 @@ public interface CreasePattern
 	void refresh(double pointEps);
 
 	boolean cleanDuplicatedLines(final double pointEps);
+
+	/**
+	 * Returns an immutable crease pattern with the current lines in O(1).
+	 * Later changes of this crease pattern are not reflected to the snapshot.
+	 *
+	 * @return snapshot of this crease pattern.
+	 */
+	CreasePattern snapshot();
 }
\ No newline at end of file
@@ -80,7 +80,7 @@ class CreasePatternImpl implements CreasePattern {
 	public CreasePatternImpl(final RectangleDomain paperDomain) {
 		lines = new LineManager();
 		vertices = new VerticesManager(paperDomain);
-		clip = new OriLineClip(paperDomain);
+		clip = new OriLineClip();
 	}
 
 	@Override
@@ -108,12 +108,6 @@ class CreasePatternImpl implements CreasePattern {
 		if (lines.add(e)) {
 			vertices.add(e.getP0());
 			vertices.add(e.getP1());
-
-			if (!getPaperDomain().contains(e)) {
-				clip = OriLineClip.createWithMargin(this);
-				logger.info("recreate clip");
-			}
-
 			clip.add(e);
 			return true;
 		}
@@ -248,7 +242,16 @@ class CreasePatternImpl implements CreasePattern {
 	@Override
 	public void replaceWith(final Collection<OriLine> lines) {
 		clear();
-		addAll(lines);
+
+		for (var line : lines) {
+			if (this.lines.add(line)) {
+				vertices.add(line.getP0());
+				vertices.add(line.getP1());
+			}
+		}
+
+		// bulk loading builds a better index than adding one by one.
+		clip = new OriLineClip(this.lines);
 	}
 
 	@Override
@@ -261,7 +264,6 @@ class CreasePatternImpl implements CreasePattern {
 			clear();
 
 			vertices = new VerticesManager(currentDomain);
-			clip = new OriLineClip(currentDomain);
 			addAll(lines);
 		}
 	}
@@ -286,6 +288,11 @@ class CreasePatternImpl implements CreasePattern {
 		return true;
 	}
 
+	@Override
+	public CreasePattern snapshot() {
+		return new CreasePatternSnapshot(lines.snapshot(), getPaperDomain());
+	}
+
 	@Override
 	public String toString() {
 		return lines.toString();
@@ -0,0 +1,138 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.creasepattern;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+
+import oripa.geom.RectangleDomain;
+import oripa.util.collection.PersistentHashSet;
+import oripa.value.OriLine;
+import oripa.vecmath.Vector2d;
+
+/**
+ * Immutable crease pattern which shares the line set with the crease pattern
+ * it is taken from. Taking a snapshot is O(1) and later edits of the original
+ * do not affect the snapshot, so it can be read by other threads without a
+ * copy. The indices for vertex search and clipping are built on first use.
+ *
+ * Note that the selection of a line is shared with the original since
+ * {@link OriLine} is mutable only in that point.
+ *
+ * Methods which modify the crease pattern throw
+ * {@link UnsupportedOperationException}.
+ */
+public final class CreasePatternSnapshot extends AbstractSet<OriLine> implements CreasePattern {
+
+	private final PersistentHashSet<OriLine> lines;
+	private final RectangleDomain paperDomain;
+
+	private VerticesManager vertices;
+	private OriLineClip clip;
+
+	CreasePatternSnapshot(final PersistentHashSet<OriLine> lines, final RectangleDomain paperDomain) {
+		this.lines = lines;
+		this.paperDomain = new RectangleDomain(paperDomain);
+	}
+
+	@Override
+	public Iterator<OriLine> iterator() {
+		return lines.iterator();
+	}
+
+	@Override
+	public int size() {
+		return lines.size();
+	}
+
+	@Override
+	public boolean contains(final Object o) {
+		return lines.contains(o);
+	}
+
+	@Override
+	public double getPaperSize() {
+		return paperDomain.maxWidthHeight();
+	}
+
+	@Override
+	public RectangleDomain getPaperDomain() {
+		return new RectangleDomain(paperDomain);
+	}
+
+	@Override
+	public CreasePattern snapshot() {
+		return this;
+	}
+
+	private synchronized VerticesManager getVertices() {
+		if (vertices == null) {
+			vertices = new VerticesManager(paperDomain);
+			lines.forEach(line -> {
+				vertices.add(line.getP0());
+				vertices.add(line.getP1());
+			});
+		}
+		return vertices;
+	}
+
+	private synchronized OriLineClip getClip() {
+		if (clip == null) {
+			clip = new OriLineClip(lines);
+		}
+		return clip;
+	}
+
+	@Override
+	public Collection<Vector2d> getVerticesAround(final Vector2d v) {
+		return getVertices().getVerticesAround(v);
+	}
+
+	@Override
+	public Collection<Collection<Vector2d>> getVerticesInArea(final double x, final double y,
+			final double distance) {
+		return getVertices().getVerticesInArea(x, y, distance);
+	}
+
+	@Override
+	public Collection<OriLine> clip(final RectangleDomain domain, final double pointEps) {
+		return getClip().clip(domain, pointEps);
+	}
+
+	@Override
+	public Collection<OriLine> clipAlong(final OriLine line, final double eps) {
+		return getClip().clipAlong(line, eps);
+	}
+
+	@Override
+	public void replaceWith(final Collection<OriLine> lines) {
+		throw new UnsupportedOperationException("snapshot is immutable.");
+	}
+
+	@Override
+	public void refresh(final double pointEps) {
+		throw new UnsupportedOperationException("snapshot is immutable.");
+	}
+
+	@Override
+	public boolean cleanDuplicatedLines(final double pointEps) {
+		throw new UnsupportedOperationException("snapshot is immutable.");
+	}
+}
@@ -4,11 +4,13 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.Set;
 
-import oripa.util.collection.CollectionUtil;
+import oripa.util.collection.PersistentHashSet;
 import oripa.value.OriLine;
 
 /**
- * Manager of all lines.
+ * Manager of all lines. The lines are held in a persistent set which is
+ * replaced on each change, so {@link #snapshot()} is O(1) and an iterator
+ * walks over the lines at the time of its creation.
  *
  * @author Koji
  *
@@ -19,7 +21,42 @@ class LineManager implements Set<OriLine> {
 	// HashSet is fast to access but does not guarantee that the order is always
 	// same.
 
-	private final Set<OriLine> lines = CollectionUtil.newConcurrentHashSet();
+	private volatile PersistentHashSet<OriLine> lines = PersistentHashSet.empty();
+
+	/**
+	 * Iterator on a snapshot. Removal is applied to the current lines.
+	 */
+	private class LineIterator implements Iterator<OriLine> {
+		private final Iterator<OriLine> snapshotIterator = lines.iterator();
+		private OriLine current;
+
+		@Override
+		public boolean hasNext() {
+			return snapshotIterator.hasNext();
+		}
+
+		@Override
+		public OriLine next() {
+			current = snapshotIterator.next();
+			return current;
+		}
+
+		@Override
+		public void remove() {
+			if (current == null) {
+				throw new IllegalStateException();
+			}
+			LineManager.this.remove(current);
+			current = null;
+		}
+	}
+
+	/**
+	 * @return immutable set of the current lines.
+	 */
+	public PersistentHashSet<OriLine> snapshot() {
+		return lines;
+	}
 
 	@Override
 	public boolean contains(final Object o) {
@@ -32,18 +69,22 @@ class LineManager implements Set<OriLine> {
 	}
 
 	@Override
-	public boolean add(final OriLine e) {
-		return lines.add(e);
+	public synchronized boolean add(final OriLine e) {
+		var current = lines;
+		lines = current.with(e);
+		return lines != current;
 	}
 
 	@Override
-	public boolean remove(final Object o) {
-		return lines.remove(o);
+	public synchronized boolean remove(final Object o) {
+		var current = lines;
+		lines = current.without(o);
+		return lines != current;
 	}
 
 	@Override
-	public void clear() {
-		lines.clear();
+	public synchronized void clear() {
+		lines = PersistentHashSet.empty();
 	}
 
 	@Override
@@ -63,7 +104,7 @@ class LineManager implements Set<OriLine> {
 
 	@Override
 	public Iterator<OriLine> iterator() {
-		return lines.iterator();
+		return new LineIterator();
 	}
 
 	@Override
@@ -72,21 +113,26 @@ class LineManager implements Set<OriLine> {
 	}
 
 	@Override
-	public boolean addAll(final Collection<? extends OriLine> c) {
-
-		return lines.addAll(c);
+	public synchronized boolean addAll(final Collection<? extends OriLine> c) {
+		var current = lines;
+		lines = current.withAll(c);
+		return lines != current;
 	}
 
 	@Override
-	public boolean removeAll(final Collection<?> c) {
-
-		return lines.removeAll(c);
+	public synchronized boolean removeAll(final Collection<?> c) {
+		var current = lines;
+		lines = current.withoutAll(c);
+		return lines != current;
 	}
 
 	@Override
-	public boolean retainAll(final Collection<?> c) {
-
-		return lines.retainAll(c);
+	public synchronized boolean retainAll(final Collection<?> c) {
+		var current = lines;
+		lines = current.withoutAll(current.stream()
+				.filter(line -> !c.contains(line))
+				.toList());
+		return lines != current;
 	}
 
 	@Override
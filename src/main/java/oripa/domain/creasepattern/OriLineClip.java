@@ -18,233 +18,66 @@
  */
 package oripa.domain.creasepattern;
 
-import java.lang.invoke.MethodHandles;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.function.BiConsumer;
-
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import oripa.geom.RectangleDomain;
-import oripa.util.collection.CollectionUtil;
+import oripa.geom.SegmentRTree;
 import oripa.value.OriLine;
 
 /**
+ * Spatial index of lines for clipping. The lines are held in an R-tree so
+ * that clipping stays fast on dense patterns and for lines out of the paper.
+ *
  * @author OUCHI Koji
  *
  */
 public class OriLineClip implements Clippable<OriLine> {
-	private static Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
-
-	private static final int divNum = 16;
-	private final double interval;
-	private final double domainSize;
-
-	private final double minX, minY;
-
-	private final Set<OriLine>[][] areas;
-
-	/**
-	 * the index of divided paper area. A given point is converted to the index
-	 * it should belongs to.
-	 *
-	 * @author Koji
-	 *
-	 */
-	private class AreaPosition {
-		public final int x, y;
 
-		/**
-		 * doubles point to index
-		 */
-		public AreaPosition(final double x, final double y) {
-			this.x = toDiv(x, minX);
-			this.y = toDiv(y, minY);
-		}
+	private final SegmentRTree<OriLine> tree;
 
-		public AreaPosition(final int xDiv, final int yDiv) {
-			x = xDiv;
-			y = yDiv;
-		}
+	public OriLineClip() {
+		tree = new SegmentRTree<>();
 	}
 
 	/**
-	 * Computes a index on one axis.
-	 *
-	 * @param p
-	 * @return
+	 * Bulk loads the given lines, which is faster than adding them one by
+	 * one.
 	 */
-	private int toDiv(final double p, final double p0) {
-		int div = (int) ((p - p0) / interval);
-
-		if (div < 0) {
-			return 0;
-		}
-
-		if (div >= divNum) {
-			return divNum - 1;
-		}
-
-		return div;
-	}
-
-	public static OriLineClip create(final Collection<OriLine> lines) {
-		var clip = new OriLineClip(RectangleDomain.createFromSegments(lines));
-
-		lines.forEach(line -> clip.add(line));
-
-		return clip;
-	}
-
-	public static OriLineClip createWithMargin(final Collection<OriLine> lines) {
-		var domain = RectangleDomain.createFromSegments(lines);
-		domain.enlarge(0.1 * domain.maxWidthHeight() / divNum);
-		var clip = new OriLineClip(domain);
-
-		lines.forEach(line -> clip.add(line));
-
-		return clip;
-
-	}
-
-	@SuppressWarnings("unchecked")
-	public OriLineClip(final RectangleDomain domain) {
-		this.domainSize = domain.maxWidthHeight();
-		this.minX = domain.getLeft();
-		this.minY = domain.getTop();
-
-		this.interval = domainSize / divNum;
-
-		areas = new Set[divNum][divNum];
-		for (int i = 0; i < divNum; i++) {
-			for (int j = 0; j < divNum; j++) {
-				areas[i][j] = CollectionUtil.newConcurrentHashSet();
-			}
-		}
-	}
-
 	public OriLineClip(final Collection<OriLine> lines) {
-		this(RectangleDomain.createFromSegments(lines));
-
+		tree = new SegmentRTree<>(lines);
 	}
 
-	public void add(final OriLine line) {
-		apply(line, (position, line_) -> areas[position.x][position.y].add(line));
+	public synchronized void add(final OriLine line) {
+		tree.add(line);
 	}
 
-	public void remove(final OriLine line) {
-		apply(line, (position, line_) -> areas[position.x][position.y].remove(line));
-	}
-
-	private void apply(final OriLine line, final BiConsumer<AreaPosition, OriLine> action) {
-		var canonical = line.createCanonical();
-		var x0 = canonical.getP0().getX();
-		var y0 = canonical.getP0().getY();
-		var x1 = canonical.getP1().getX();
-		var y1 = canonical.getP1().getY();
-
-		logger.trace("p0:{},{}", x0, y0);
-		logger.trace("p1:{},{}", x1, y1);
-		logger.trace("interval:{}", interval);
-		var p0Div = new AreaPosition(x0, y0);
-		var p1Div = new AreaPosition(x1, y1);
-
-		var xDiv = p0Div.x;
-		var prevYDiv = p0Div.y;
-
-		logger.trace("p0Div:{},{}", p0Div.x, p0Div.y);
-		logger.trace("p1Div:{},{}", p1Div.x, p1Div.y);
-
-		if (p0Div.x == p1Div.x) {
-			applyForYDivs(xDiv, p0Div.y, p1Div.y, line, action);
-		} else {
-
-			for (var nextXDiv = p0Div.x; nextXDiv <= p1Div.x; nextXDiv++) {
-				var x = nextXDiv == p0Div.x ? x0 : (minX + nextXDiv * interval);
-				var yDiv = toDiv(line.getAffineYValueAt(x), minY);
-
-				applyForYDivs(xDiv, prevYDiv, yDiv, line, action);
-
-				xDiv = nextXDiv;
-				prevYDiv = yDiv;
-			}
-
-			applyForYDivs(xDiv, prevYDiv, p1Div.y, line, action);
-		}
-	}
-
-	private void applyForYDivs(final int xDiv, final int prevYDiv, final int yDiv,
-			final OriLine line,
-			final BiConsumer<AreaPosition, OriLine> action) {
-		var minYDiv = Math.min(prevYDiv, yDiv);
-		var maxYDiv = Math.max(prevYDiv, yDiv);
-
-		for (int yDiv_ = minYDiv; yDiv_ <= maxYDiv; yDiv_++) {
-			logger.trace("accept div:{},{}", xDiv, yDiv_);
-			action.accept(new AreaPosition(xDiv, yDiv_), line);
-		}
+	public synchronized void remove(final OriLine line) {
+		tree.remove(line);
 	}
 
 	/**
-	 * O(k^2 n) for n lines in the domain and k * k areas.
+	 * O(log n + k) for n lines and k lines to be returned.
 	 *
 	 * @param domain
-	 * @return
+	 * @return lines whose bounding boxes intersect the domain enlarged by
+	 *         pointEps. The boundary is inclusive.
 	 */
 	@Override
-	public Collection<OriLine> clip(final RectangleDomain domain, final double pointEps) {
-		var p0Div = new AreaPosition(domain.getLeft() - pointEps, domain.getTop() - pointEps);
-		var p1Div = new AreaPosition(domain.getRight() + pointEps, domain.getBottom() + pointEps);
-
-		var lines = new HashSet<OriLine>();
-
-		for (var xDiv = p0Div.x; xDiv <= p1Div.x; xDiv++) {
-			for (var yDiv = p0Div.y; yDiv <= p1Div.y; yDiv++) {
-				logger.trace("get div:{},{}", xDiv, yDiv);
-				lines.addAll(areas[xDiv][yDiv]);
-			}
-		}
-
-		return lines;
+	public synchronized Collection<OriLine> clip(final RectangleDomain domain, final double pointEps) {
+		return tree.search(
+				domain.getLeft() - pointEps, domain.getTop() - pointEps,
+				domain.getRight() + pointEps, domain.getBottom() + pointEps);
 	}
 
+	/**
+	 * @return lines whose bounding boxes come within eps of the given line.
+	 */
 	@Override
-	public Collection<OriLine> clipAlong(final OriLine line, final double eps) {
-
-		var lines = new HashSet<OriLine>();
-
-		var canonical = line.createCanonical();
-
-		var p0Div = new AreaPosition(canonical.getP0().getX(), canonical.getP0().getY());
-		var p1Div = new AreaPosition(canonical.getP1().getX(), canonical.getP1().getY());
-
-		if (p0Div.x < p1Div.x) {
-			for (var xDiv = p0Div.x; xDiv <= p1Div.x; xDiv++) {
-				var x = minX + xDiv * interval;
-				var y = canonical.getAffineYValueAt(x);
-				lines.addAll(clip(new RectangleDomain(x, y, x + interval, y + interval), eps));
-			}
-		} else {
-			var minYDiv = Math.min(p0Div.y, p1Div.y);
-			var maxYDiv = Math.max(p0Div.y, p1Div.y);
-			for (var yDiv = minYDiv; yDiv <= maxYDiv; yDiv++) {
-				var y = minY + yDiv * interval;
-				var x = canonical.getAffineXValueAt(y);
-				lines.addAll(clip(new RectangleDomain(x, y, x + interval, y + interval), eps));
-			}
-
-		}
-
-		return lines;
+	public synchronized Collection<OriLine> clipAlong(final OriLine line, final double eps) {
+		return tree.searchAlong(line, eps);
 	}
 
-	public void clear() {
-		for (int i = 0; i < divNum; i++) {
-			for (int j = 0; j < divNum; j++) {
-				areas[i][j].clear();
-			}
-		}
+	public synchronized void clear() {
+		tree.clear();
 	}
 }
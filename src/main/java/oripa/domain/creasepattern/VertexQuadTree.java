@@ -0,0 +1,258 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.creasepattern;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import oripa.vecmath.Vector2d;
+
+/**
+ * Quadtree of distinct vertices on a square area. Leaves below
+ * {@link #MIN_DEPTH} are never created, so that a leaf is at most as large as
+ * a cell of the uniform grid the tree replaces. A leaf is split when it holds
+ * more than {@link #LEAF_CAPACITY} vertices, which keeps the leaves small on
+ * dense patterns. Points out of the area are routed to the nearest leaf on the
+ * boundary.
+ *
+ * This class is not thread-safe.
+ */
+class VertexQuadTree {
+	static final int MIN_DEPTH = 5;
+	static final int MAX_DEPTH = 24;
+	static final int LEAF_CAPACITY = 16;
+
+	private final double left;
+	private final double top;
+	private final double size;
+
+	private Node root;
+
+	private static class Node {
+		final double left, top, size;
+		final int depth;
+
+		/**
+		 * null if this node is a leaf.
+		 */
+		Node[] children;
+		Set<Vector2d> vertices;
+
+		Node(final double left, final double top, final double size, final int depth) {
+			this.left = left;
+			this.top = top;
+			this.size = size;
+			this.depth = depth;
+		}
+
+		boolean isLeaf() {
+			return children == null;
+		}
+
+		int childIndex(final double x, final double y) {
+			var half = size / 2;
+			return (x < left + half ? 0 : 1) + (y < top + half ? 0 : 2);
+		}
+
+		Node child(final int index) {
+			var half = size / 2;
+			return new Node(
+					left + (index % 2) * half, top + (index / 2) * half,
+					half, depth + 1);
+		}
+
+		boolean intersects(final double minX, final double minY, final double maxX, final double maxY) {
+			return left <= maxX && minX <= left + size
+					&& top <= maxY && minY <= top + size;
+		}
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param left
+	 *            min x of the area
+	 * @param top
+	 *            min y of the area
+	 * @param size
+	 *            side length of the area
+	 */
+	public VertexQuadTree(final double left, final double top, final double size) {
+		this.left = left;
+		this.top = top;
+		this.size = size;
+
+		clear();
+	}
+
+	/**
+	 *
+	 * @return side length of the largest leaf.
+	 */
+	public double getMaxLeafSize() {
+		return size / (1 << MIN_DEPTH);
+	}
+
+	public void clear() {
+		root = new Node(left, top, size, 0);
+		root.children = new Node[4];
+	}
+
+	private double clampX(final double x) {
+		return Math.min(Math.max(x, left), left + size);
+	}
+
+	private double clampY(final double y) {
+		return Math.min(Math.max(y, top), top + size);
+	}
+
+	/**
+	 * Adds the given vertex.
+	 *
+	 * @return true if the vertex is new to this tree.
+	 */
+	public boolean add(final Vector2d v) {
+		var x = clampX(v.getX());
+		var y = clampY(v.getY());
+
+		var node = root;
+		while (!node.isLeaf()) {
+			var index = node.childIndex(x, y);
+			if (node.children[index] == null) {
+				node.children[index] = createLeafOrBranch(node.child(index));
+			}
+			node = node.children[index];
+		}
+
+		if (!node.vertices.add(v)) {
+			return false;
+		}
+		if (node.vertices.size() > LEAF_CAPACITY && node.depth < MAX_DEPTH) {
+			split(node);
+		}
+		return true;
+	}
+
+	private Node createLeafOrBranch(final Node node) {
+		if (node.depth < MIN_DEPTH) {
+			node.children = new Node[4];
+		} else {
+			node.vertices = new HashSet<>();
+		}
+		return node;
+	}
+
+	private void split(final Node leaf) {
+		var vertices = leaf.vertices;
+		leaf.vertices = null;
+		leaf.children = new Node[4];
+		for (int i = 0; i < 4; i++) {
+			leaf.children[i] = leaf.child(i);
+			leaf.children[i].vertices = new HashSet<>();
+		}
+
+		for (var v : vertices) {
+			leaf.children[leaf.childIndex(clampX(v.getX()), clampY(v.getY()))].vertices.add(v);
+		}
+
+		for (var child : leaf.children) {
+			if (child.vertices.size() > LEAF_CAPACITY && child.depth < MAX_DEPTH) {
+				split(child);
+			}
+		}
+	}
+
+	/**
+	 * Removes the given vertex. The tree structure is kept as it is.
+	 *
+	 * @return true if the vertex was in this tree.
+	 */
+	public boolean remove(final Vector2d v) {
+		var leaf = findLeaf(v);
+		return leaf != null && leaf.vertices.remove(v);
+	}
+
+	private Node findLeaf(final Vector2d v) {
+		var x = clampX(v.getX());
+		var y = clampY(v.getY());
+
+		var node = root;
+		while (node != null && !node.isLeaf()) {
+			node = node.children[node.childIndex(x, y)];
+		}
+		return node;
+	}
+
+	/**
+	 * Collects the vertices in the leaf which the given vertex belongs to and
+	 * in the leaves around it. The result includes all vertices closer to the
+	 * given vertex than the side length of its leaf, so that a vertex just
+	 * across the leaf boundary is not missed.
+	 *
+	 * @return copies of the vertices near the given vertex.
+	 */
+	public Collection<Vector2d> getVerticesAround(final Vector2d v) {
+		var x = clampX(v.getX());
+		var y = clampY(v.getY());
+
+		var node = root;
+		while (!node.isLeaf() && node.children[node.childIndex(x, y)] != null) {
+			node = node.children[node.childIndex(x, y)];
+		}
+		// a missing child would be split down to the largest leaf.
+		var distance = node.isLeaf() ? node.size : getMaxLeafSize();
+
+		var result = new ArrayList<Vector2d>();
+		getLeafVerticesInArea(x - distance, y - distance, x + distance, y + distance)
+				.forEach(result::addAll);
+		return result;
+	}
+
+	/**
+	 *
+	 * @return copies of the vertices in the leaves intersecting the given
+	 *         rectangle.
+	 */
+	public Collection<Collection<Vector2d>> getLeafVerticesInArea(
+			final double minX, final double minY, final double maxX, final double maxY) {
+		var result = new ArrayList<Collection<Vector2d>>();
+		collect(root, clampX(minX), clampY(minY), clampX(maxX), clampY(maxY), result);
+		return result;
+	}
+
+	private void collect(final Node node,
+			final double minX, final double minY, final double maxX, final double maxY,
+			final List<Collection<Vector2d>> result) {
+		if (node == null || !node.intersects(minX, minY, maxX, maxY)) {
+			return;
+		}
+		if (node.isLeaf()) {
+			if (!node.vertices.isEmpty()) {
+				result.add(List.copyOf(node.vertices));
+			}
+			return;
+		}
+		for (var child : node.children) {
+			collect(child, minX, minY, maxX, maxY, result);
+		}
+	}
+}
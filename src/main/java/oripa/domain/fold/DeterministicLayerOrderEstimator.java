@@ -36,6 +36,11 @@ import oripa.domain.fold.subface.SubFace;
 import oripa.util.StopWatch;
 
 /**
+ * Determines overlap relations by necessary conditions. The conditions are
+ * applied by {@link LayerOrderPropagator}, which examines only the face pairs
+ * whose relation has been changed. Full scan of the conditions is done only
+ * for reporting the violation when the model is unfoldable.
+ *
  * @author OUCHI Koji
  *
  */
@@ -47,6 +52,10 @@ class DeterministicLayerOrderEstimator {
 	private final List<Integer>[][] overlappingFaceIndexIntersections;
 	private final Map<OriHalfedge, Set<Integer>> faceIndicesOnHalfedge;
 	private final List<StackConditionOf4Faces> condition4s;
+	private final LayerOrderPropagator propagator;
+	private final SubfaceTransitiveClosure transitiveClosure;
+
+	private LayerOrderPropagator.Statistics statistics;
 
 	/**
 	 *
@@ -57,6 +66,8 @@ class DeterministicLayerOrderEstimator {
 	 * @param faceIndicesOnHalfEdge
 	 *            Key: halfedge, value: set of indices of faces that are on the
 	 *            halfedge.
+	 * @param propagator
+	 *            should be created from the same arguments.
 	 *
 	 */
 	public DeterministicLayerOrderEstimator(
@@ -64,12 +75,15 @@ class DeterministicLayerOrderEstimator {
 			final List<SubFace> subFaces,
 			final List<Integer>[][] overlappingFaceIndexIntersections,
 			final Map<OriHalfedge, Set<Integer>> faceIndicesOnHalfedge,
-			final List<StackConditionOf4Faces> condition4s) {
+			final List<StackConditionOf4Faces> condition4s,
+			final LayerOrderPropagator propagator) {
 		this.faces = faces;
 		this.subfaces = subFaces;
 		this.overlappingFaceIndexIntersections = overlappingFaceIndexIntersections;
 		this.faceIndicesOnHalfedge = faceIndicesOnHalfedge;
 		this.condition4s = condition4s;
+		this.propagator = propagator;
+		transitiveClosure = new SubfaceTransitiveClosure(subFaces);
 	}
 
 	/**
@@ -82,6 +96,52 @@ class DeterministicLayerOrderEstimator {
 			final OverlapRelation overlapRelation,
 			final double eps) {
 
+		var watch = new StopWatch(true);
+
+		logger.trace("initial state" + System.lineSeparator() + overlapRelation.toString());
+
+		statistics = new LayerOrderPropagator.Statistics();
+		int mark = overlapRelation.mark();
+
+		var propagated = propagator.propagateAll(overlapRelation, statistics);
+
+		logger.debug("propagation: {}", statistics);
+
+		if (propagated == EstimationResult.UNFOLDABLE) {
+			// the propagator stops at the first conflict without its detail.
+			overlapRelation.rollbackTo(mark);
+			overlapRelation.stopJournal();
+			return estimateByFullScan(overlapRelation);
+		}
+		// later writes, e.g. by the full search, shouldn't pay for recording.
+		overlapRelation.stopJournal();
+
+		var result = checkCorrectness(overlapRelation);
+		if (result.isUnfoldable()) {
+			logger.debug("correctness check" + System.lineSeparator() + overlapRelation.toString());
+			return result;
+		}
+
+		logger.debug("estimation time {}[ms]", watch.getMilliSec());
+
+		return new EstimationResultRules(propagated);
+	}
+
+	/**
+	 *
+	 * @return the counts and the time of each rule at the last
+	 *         {@link #estimate(OverlapRelation, double)}.
+	 */
+	public LayerOrderPropagator.Statistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * Applies all conditions to all faces repeatedly until nothing changes.
+	 */
+	private EstimationResultRules estimateByFullScan(
+			final OverlapRelation overlapRelation) {
+
 		int estimationLoopCount = 0;
 
 		var watch = new StopWatch(true);
@@ -361,71 +421,7 @@ class DeterministicLayerOrderEstimator {
 		var changed = EstimationResult.NOT_CHANGED;
 
 		for (StackConditionOf4Faces cond : condition4s) {
-
-			// if: lower1 > upper2, then: upper1 > upper2, upper1 > lower2,
-			// lower1 > lower2
-			if (overlapRelation.isLower(cond.lower1(), cond.upper2())) {
-				var result = overlapRelation.setLowerIfPossible(cond.upper1(), cond.upper2());
-				changed = result.or(changed);
-
-				result = overlapRelation.setLowerIfPossible(cond.upper1(), cond.lower2());
-				changed = result.or(changed);
-
-				result = overlapRelation.setLowerIfPossible(cond.lower1(), cond.lower2());
-				changed = result.or(changed);
-			}
-			// if: lower2 > upper1, then: upper2 > upper1, upper2 > lower1,
-			// lower2 > lower1
-			if (overlapRelation.isLower(cond.lower2(), cond.upper1())) {
-				var result = overlapRelation.setLowerIfPossible(cond.upper2(), cond.upper1());
-				changed = result.or(changed);
-
-				result = overlapRelation.setLowerIfPossible(cond.upper2(), cond.lower1());
-				changed = result.or(changed);
-
-				result = overlapRelation.setLowerIfPossible(cond.lower2(), cond.lower1());
-				changed = result.or(changed);
-			}
-			// if: upper1 > upper2 > lower1, then: upper1 > lower2, lower2 >
-			// lower1
-			if (overlapRelation.isLower(cond.upper1(), cond.upper2())
-					&& overlapRelation.isLower(cond.upper2(), cond.lower1())) {
-				var result = overlapRelation.setLowerIfPossible(cond.upper1(), cond.lower2());
-				changed = result.or(changed);
-
-				result = overlapRelation.setLowerIfPossible(cond.lower2(), cond.lower1());
-				changed = result.or(changed);
-			}
-			// if: upper1 > lower2 > lower1, then: upper1 > upper2, upper2 >
-			// lower1
-			if (overlapRelation.isLower(cond.upper1(), cond.lower2())
-					&& overlapRelation.isLower(cond.lower2(), cond.lower1())) {
-				var result = overlapRelation.setLowerIfPossible(cond.upper1(), cond.upper2());
-				changed = result.or(changed);
-
-				result = overlapRelation.setLowerIfPossible(cond.upper2(), cond.lower1());
-				changed = result.or(changed);
-			}
-			// if: upper2 > upper1 > lower2, then: upper2 > lower1, lower1 >
-			// lower2
-			if (overlapRelation.isLower(cond.upper2(), cond.upper1())
-					&& overlapRelation.isLower(cond.upper1(), cond.lower2())) {
-				var result = overlapRelation.setLowerIfPossible(cond.upper2(), cond.lower1());
-				changed = result.or(changed);
-
-				result = overlapRelation.setLowerIfPossible(cond.lower1(), cond.lower2());
-				changed = result.or(changed);
-			}
-			// if: upper2 > lower1 > lower2, then: upper2 > upper1, upper1 >
-			// lower2
-			if (overlapRelation.isLower(cond.upper2(), cond.lower1())
-					&& overlapRelation.isLower(cond.lower1(), cond.lower2())) {
-				var result = overlapRelation.setLowerIfPossible(cond.upper2(), cond.upper1());
-				changed = result.or(changed);
-
-				result = overlapRelation.setLowerIfPossible(cond.upper1(), cond.lower2());
-				changed = result.or(changed);
-			}
+			changed = LayerOrderPropagator.applyStackConditionOf4Faces(cond, overlapRelation).or(changed);
 
 			if (changed == EstimationResult.UNFOLDABLE) {
 				var result = new EstimationResultRules(EstimationResult.UNFOLDABLE);
@@ -440,7 +436,8 @@ class DeterministicLayerOrderEstimator {
 	}
 
 	/**
-	 * If the subface a>b and b>c then a>c
+	 * If the subface a>b and b>c then a>c. See
+	 * {@link SubfaceTransitiveClosure}.
 	 *
 	 * @param overlapRelation
 	 *            overlap-relation matrix
@@ -448,73 +445,13 @@ class DeterministicLayerOrderEstimator {
 	 *         unfoldable.
 	 */
 	private EstimationResultRules estimateBy3FaceTransitiveRelation(final OverlapRelation overlapRelation) {
-		var changed = new EstimationResultRules(EstimationResult.NOT_CHANGED);
-
-		for (SubFace sub : subfaces) {
-			while (true) {
-				changed = updateOverlapRelationBy3FaceTransitiveRelation(sub, overlapRelation);
-				if (changed.getEstimationResult() != EstimationResult.CHANGED) {
-					break;
-				}
-			}
-			if (changed.isUnfoldable()) {
-				return changed;
-			}
-		}
-		return changed;
-	}
-
-	/**
-	 * Updates {@code overlapRelation} by 3-face stack condition.
-	 *
-	 * @param sub
-	 *            subface.
-	 * @param overlapRelation
-	 *            overlap relation matrix.
-	 * @return true if an update happens.
-	 */
-	private EstimationResultRules updateOverlapRelationBy3FaceTransitiveRelation(final SubFace sub,
-			final OverlapRelation overlapRelation) {
-
-		for (int i = 0; i < sub.getParentFaceCount(); i++) {
-			for (int j = i + 1; j < sub.getParentFaceCount(); j++) {
-
-				// search for undetermined relations
-				int index_i = sub.getParentFace(i).getFaceID();
-				int index_j = sub.getParentFace(j).getFaceID();
-
-				if (overlapRelation.isNoOverlap(index_i, index_j)) {
-					continue;
-				}
-
-				// Find the middle face
-				for (int k = 0; k < sub.getParentFaceCount(); k++) {
-					if (k == i || k == j) {
-						continue;
-					}
+		var closureResult = transitiveClosure.apply(overlapRelation);
 
-					int index_k = sub.getParentFace(k).getFaceID();
-
-					if (overlapRelation.isUpper(index_i, index_k)
-							&& overlapRelation.isUpper(index_k, index_j)) {
-						var result = new EstimationResultRules(overlapRelation.setUpperIfPossible(index_i, index_j));
-						if (result.isUnfoldable()) {
-							result.addTransitivityViolation(toFaces(List.of(index_i, index_k, index_j)));
-						}
-						return result;
-					}
-					if (overlapRelation.isLower(index_i, index_k)
-							&& overlapRelation.isLower(index_k, index_j)) {
-						var result = new EstimationResultRules(overlapRelation.setLowerIfPossible(index_i, index_j));
-						if (result.isUnfoldable()) {
-							result.addTransitivityViolation(toFaces(List.of(index_i, index_k, index_j)));
-						}
-						return result;
-					}
-				}
-			}
+		var result = new EstimationResultRules(closureResult.estimationResult());
+		if (result.isUnfoldable()) {
+			result.addTransitivityViolation(toFaces(closureResult.violatingFaceIDs()));
 		}
-		return new EstimationResultRules();
+		return result;
 	}
 
 	/**
@@ -19,8 +19,10 @@
 package oripa.domain.fold;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import oripa.domain.fold.halfedge.OrigamiModel;
+import oripa.domain.fold.origeom.OverlapRelation;
 
 /**
  * @author OUCHI Koji
@@ -38,7 +40,8 @@ class ErrorAllowedFolder implements Folder {
 	}
 
 	@Override
-	public Result fold(final OrigamiModel origamiModel, final double eps, final EstimationType estimationType) {
+	public Result fold(final OrigamiModel origamiModel, final double eps, final EstimationType estimationType,
+			final Consumer<OverlapRelation> answerConsumer) {
 		simpleFolder.foldWithoutLineType(origamiModel, eps);
 		faceDisplayModifier.setCurrentPositionsToDisplayPositions(origamiModel);
 
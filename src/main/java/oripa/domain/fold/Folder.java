@@ -18,7 +18,12 @@
  */
 package oripa.domain.fold;
 
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
 import oripa.domain.fold.halfedge.OrigamiModel;
+import oripa.domain.fold.origeom.OverlapRelation;
 
 /**
  * @author OUCHI Koji
@@ -58,5 +63,37 @@ public interface Folder {
 	 * @return folded model whose {@link FoldedModel#getOrigamiModel()} returns
 	 *         the given {@code origamiModel}.
 	 */
-	Result fold(OrigamiModel origamiModel, double eps, EstimationType estimationType);
+	default Result fold(final OrigamiModel origamiModel, final double eps, final EstimationType estimationType) {
+		var overlapRelations = new ConcurrentLinkedQueue<OverlapRelation>();
+
+		var result = fold(origamiModel, eps, estimationType, overlapRelations::add);
+		var foldedModel = result.foldedModel();
+
+		return new Result(
+				new FoldedModel(foldedModel.origamiModel(), new ArrayList<>(overlapRelations),
+						foldedModel.subfaces()),
+				result.estimationRules());
+	}
+
+	/**
+	 * Computes folded states and passes each overlap relation to the given
+	 * consumer as soon as it is found. The folded states are not kept in the
+	 * returned folded model, which enables to handle a huge number of states
+	 * without holding all of them in memory.
+	 *
+	 * @param origamiModel
+	 *            half-edge based data structure before folding. It will be
+	 *            affected by this method.
+	 * @param eps
+	 *            error upper-bound for point equality measured by distance.
+	 * @param estimationType
+	 *            Specify the algorithm.
+	 * @param answerConsumer
+	 *            receives each overlap relation of folded state. It can be
+	 *            called from multiple threads concurrently.
+	 * @return folded model whose {@link FoldedModel#overlapRelations()} is
+	 *         empty.
+	 */
+	Result fold(OrigamiModel origamiModel, double eps, EstimationType estimationType,
+			Consumer<OverlapRelation> answerConsumer);
 }
\ No newline at end of file
@@ -22,7 +22,9 @@ import oripa.domain.cptool.AnalyticOverlappingLineMerger;
 import oripa.domain.cptool.CrossingLineSplitter;
 import oripa.domain.cptool.ElementRemover;
 import oripa.domain.cptool.LineAdder;
+import oripa.domain.cptool.OverlappingLineMerger;
 import oripa.domain.cptool.PointsMerger;
+import oripa.domain.cptool.PrimitiveOverlappingLineMerger;
 import oripa.domain.creasepattern.CreasePatternFactory;
 import oripa.domain.fold.halfedge.ModelType;
 import oripa.domain.fold.halfedge.OrigamiModel;
@@ -40,6 +42,36 @@ import oripa.domain.fold.subface.SubFacesFactory;
  */
 public class FolderFactory {
 
+	/**
+	 * Implementation of {@link OverlappingLineMerger} used in subface
+	 * construction.
+	 */
+	public enum LineMergerType {
+		/** {@link AnalyticOverlappingLineMerger} */
+		ANALYTIC,
+		/** {@link PrimitiveOverlappingLineMerger} */
+		PRIMITIVE;
+	}
+
+	private final LineMergerType lineMergerType;
+
+	/**
+	 * Uses {@link LineMergerType#ANALYTIC}.
+	 */
+	public FolderFactory() {
+		this(LineMergerType.ANALYTIC);
+	}
+
+	/**
+	 *
+	 * @param lineMergerType
+	 *            {@link LineMergerType#PRIMITIVE} to merge the overlapping
+	 *            lines in the subface construction by the primitive merger.
+	 */
+	public FolderFactory(final LineMergerType lineMergerType) {
+		this.lineMergerType = lineMergerType;
+	}
+
 	/**
 	 *
 	 * @param type
@@ -68,7 +100,7 @@ public class FolderFactory {
 						new CrossingLineSplitter(),
 						new ElementRemover(),
 						new PointsMerger(lineAdder),
-						new AnalyticOverlappingLineMerger()),
+						createOverlappingLineMerger()),
 				new OrigamiModelFactory(),
 				new SplitFacesToSubFacesConverter(),
 				new ParentFacesCollector());
@@ -86,7 +118,7 @@ public class FolderFactory {
 						new CrossingLineSplitter(),
 						new ElementRemover(),
 						new PointsMerger(lineAdder),
-						new AnalyticOverlappingLineMerger()),
+						createOverlappingLineMerger()),
 				new OrigamiModelFactory(),
 				new SplitFacesToSubFacesConverter(),
 				new ParentFacesCollector());
@@ -96,6 +128,13 @@ public class FolderFactory {
 				new LayerOrderEnumerator(subfacesFactory, false));
 	}
 
+	private OverlappingLineMerger createOverlappingLineMerger() {
+		return switch (lineMergerType) {
+		case ANALYTIC -> new AnalyticOverlappingLineMerger();
+		case PRIMITIVE -> new PrimitiveOverlappingLineMerger();
+		};
+	}
+
 	private Folder createErrorContaining() {
 		return new ErrorAllowedFolder(new SimpleFolder());
 	}
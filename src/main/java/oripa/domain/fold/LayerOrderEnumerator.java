@@ -19,27 +19,23 @@
 package oripa.domain.fold;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import oripa.domain.fold.condfac.StackConditionFactoryFacade;
-import oripa.domain.fold.halfedge.OriFace;
 import oripa.domain.fold.halfedge.OrigamiModel;
-import oripa.domain.fold.origeom.EstimationResult;
 import oripa.domain.fold.origeom.OverlapRelation;
 import oripa.domain.fold.stackcond.StackConditionOf3Faces;
 import oripa.domain.fold.stackcond.StackConditionOf4Faces;
 import oripa.domain.fold.subface.SubFace;
 import oripa.domain.fold.subface.SubFacesFactory;
 import oripa.util.IntPair;
-import oripa.util.Pair;
 import oripa.util.StopWatch;
 
 /**
@@ -49,19 +45,23 @@ import oripa.util.StopWatch;
 class LayerOrderEnumerator {
 
 	public static class Result {
-		private final List<OverlapRelation> overlapRelations;
+		private final int answerCount;
 		private final List<SubFace> subfaces;
 		private final EstimationResultRules rules;
 
-		private Result(final List<OverlapRelation> overlapRelations, final List<SubFace> subfaces,
+		private Result(final int answerCount, final List<SubFace> subfaces,
 				final EstimationResultRules rules) {
-			this.overlapRelations = overlapRelations;
+			this.answerCount = answerCount;
 			this.subfaces = subfaces;
 			this.rules = rules;
 		}
 
-		public List<OverlapRelation> getOverlapRelations() {
-			return overlapRelations;
+		/**
+		 *
+		 * @return the number of answers passed to the consumer.
+		 */
+		public int getAnswerCount() {
+			return answerCount;
 		}
 
 		public List<SubFace> getSubfaces() {
@@ -73,40 +73,54 @@ class LayerOrderEnumerator {
 		}
 
 		public boolean isEmpty() {
-			return overlapRelations.isEmpty();
+			return answerCount == 0;
 		}
 	}
 
 	private final static Logger logger = LoggerFactory.getLogger(LayerOrderEnumerator.class);
 
-	private AtomicInteger callCount;
-	private AtomicInteger localLayerOrderCount;
-
 	private final SubFacesFactory subfacesFactory;
 
 	private final boolean shouldLogStats;
 
-	private boolean firstOnly;
+	private final int forkDepthLimit;
 
 	public LayerOrderEnumerator(final SubFacesFactory subfacesFactory, final boolean shouldLogStats) {
+		this(subfacesFactory, shouldLogStats, LayerOrderSearcher.DEFAULT_FORK_DEPTH_LIMIT);
+	}
+
+	/**
+	 *
+	 * @param forkDepthLimit
+	 *            see {@link LayerOrderSearcher}. 0 for sequential search.
+	 */
+	LayerOrderEnumerator(final SubFacesFactory subfacesFactory, final boolean shouldLogStats,
+			final int forkDepthLimit) {
 		this.subfacesFactory = subfacesFactory;
 		this.shouldLogStats = shouldLogStats;
+		this.forkDepthLimit = forkDepthLimit;
 	}
 
 	/**
+	 * Each answer is passed to the given consumer as soon as it is found. This
+	 * method doesn't hold any answer.
+	 *
 	 * @param origamiModel
 	 *            half-edge based data for origami model after moving faces.
 	 * @param eps
 	 *            max value of computation error.
 	 * @param firstOnly
 	 *            true for only one state.
+	 * @param answerConsumer
+	 *            receives each answer. The given overlap relation is a copy
+	 *            which the consumer can keep. It can be called from multiple
+	 *            threads concurrently.
 	 */
-	public Result enumerate(final OrigamiModel origamiModel, final double eps, final boolean firstOnly) {
+	public Result enumerate(final OrigamiModel origamiModel, final double eps, final boolean firstOnly,
+			final Consumer<OverlapRelation> answerConsumer) {
 		var faces = origamiModel.getFaces();
 		var edges = origamiModel.getEdges();
 
-		this.firstOnly = firstOnly;
-
 		// construct the subfaces
 		final double paperSize = origamiModel.getPaperSize();
 		var subfaces = subfacesFactory.createSubFaces(faces, paperSize, eps);
@@ -123,7 +137,7 @@ class LayerOrderEnumerator {
 		var rules = result.getRules();
 
 		if (rules.isUnfoldable()) {
-			return new Result(List.of(), List.of(), rules);
+			return new Result(0, List.of(), rules);
 		}
 
 		var watch = new StopWatch(true);
@@ -141,16 +155,23 @@ class LayerOrderEnumerator {
 		var condition4s = conditionFactory.create4FaceCondtions();
 		setConditionOf4facesToSubfaces(condition4s, subfaces);
 
-		var estimator = new DeterministicLayerOrderEstimator(
+		var propagator = new LayerOrderPropagator(
 				faces, subfaces,
 				overlappingFaceIndexIntersections,
 				faceIndicesOnHalfedge,
 				condition4s);
+
+		var estimator = new DeterministicLayerOrderEstimator(
+				faces, subfaces,
+				overlappingFaceIndexIntersections,
+				faceIndicesOnHalfedge,
+				condition4s,
+				propagator);
 		var estimationResult = estimator.estimate(overlapRelation, eps);
 
 		if (estimationResult.isUnfoldable()) {
 			logger.info("found unfoldable before searching.");
-			return new Result(List.of(), List.of(), estimationResult);
+			return new Result(0, List.of(), estimationResult);
 		}
 
 		var undefinedRelationCount = countUndefinedRelations(overlapRelation);
@@ -180,24 +201,22 @@ class LayerOrderEnumerator {
 				.toList();
 		logger.debug("subface ordering = {}[ms]", watch.getMilliSec());
 
-		var overlapRelations = new ConcurrentLinkedQueue<OverlapRelation>();
-
 		watch.start();
 
-		callCount = new AtomicInteger();
-		localLayerOrderCount = new AtomicInteger();
-		findAnswer(faces, sortedSubfaces, overlapRelation, overlapRelations);
+		var searcher = new LayerOrderSearcher(faces, propagator, firstOnly, answerConsumer, forkDepthLimit);
+		var answerCount = searcher.search(sortedSubfaces, overlapRelation);
 		var time = watch.getMilliSec();
 
-		logger.debug("#call = {}", callCount);
-		logger.debug("#LLO = {}", localLayerOrderCount);
+		logger.debug("#call = {}", searcher.getCallCount());
+		logger.debug("#LLO = {}", searcher.getLocalLayerOrderCount());
+		logger.debug("#answer = {}", answerCount);
 		logger.debug("time = {}[ms]", time);
 
 		if (shouldLogStats) {
 			logStats(sortedSubfaces, overlapRelation);
 		}
 
-		return new Result(new ArrayList<>(overlapRelations), sortedSubfaces,
+		return new Result(answerCount, sortedSubfaces,
 				new EstimationResultRules());
 	}
 
@@ -216,102 +235,6 @@ class LayerOrderEnumerator {
 		return count;
 	}
 
-	/**
-	 * Determines overlap relations which are left uncertain after using
-	 * necessary conditions.
-	 *
-	 * @param faces
-	 *            all faces of the origami model.
-	 * @param subfaces
-	 *            the subfaces to be used.
-	 * @param overlapRelation
-	 *            overlap relation matrix.
-	 * @param overlapRelations
-	 *            an object to store the result.
-	 */
-	private int findAnswer(
-			final List<OriFace> faces,
-			final List<SubFace> subfaces,
-			final OverlapRelation overlapRelation,
-			final Collection<OverlapRelation> overlapRelations) {
-		callCount.incrementAndGet();
-
-		if (firstOnly && !overlapRelations.isEmpty()) {
-			return 0;
-		}
-
-		if (subfaces.isEmpty()) {
-			var answer = overlapRelation.clone();
-			overlapRelations.add(answer);
-
-			return 1;
-		}
-
-		SubFace sub = subfaces.get(0);
-
-		var localLayerOrders = sub.createLocalLayerOrders(faces, overlapRelation, false);
-
-		if (localLayerOrders == null) {
-			var nextSubfaces = popAndSort(subfaces);
-			return findAnswer(faces, nextSubfaces, overlapRelation, overlapRelations);
-		}
-
-		localLayerOrderCount.addAndGet(localLayerOrders.size());
-
-		var successCount = new AtomicInteger();
-
-		// Parallel search. It is fast but can exceed memory for
-		// complex model because of copying overlapRelation (a large matrix).
-		localLayerOrders.parallelStream().forEach(localLayerOrder -> {
-			int size = localLayerOrder.size();
-			var nextSubfaces = popAndSort(subfaces);
-			var nextOverlapRelation = overlapRelation.clone();
-
-			// determine overlap relations according to local layer order
-			for (int i = 0; i < size; i++) {
-				int index_i = localLayerOrder.get(i).getFaceID();
-				for (int j = i + 1; j < size; j++) {
-					int index_j = localLayerOrder.get(j).getFaceID();
-					// if index on local layer order is 0, the face is at
-					// the top of layer order (looking down the folded model
-					// on a table).
-					// therefore a face with smaller index i on local layer
-					// order should be UPPER than a face with index j on local
-					// layer order.
-					var result = nextOverlapRelation.setUpperIfPossible(index_i, index_j);
-					if (result == EstimationResult.UNFOLDABLE) {
-						return;
-					}
-				}
-			}
-
-			sub.incrementCallCount();
-			successCount.addAndGet(findAnswer(faces, nextSubfaces, nextOverlapRelation, overlapRelations));
-		});
-
-		sub.addSuccessCount(successCount.get());
-
-		return successCount.get();
-	}
-
-	private List<SubFace> popAndSort(final List<SubFace> subfaces) {
-		return subfaces.subList(1, subfaces.size()).stream()
-				// parallel processing causes different score values on the same
-				// subface.
-				// copy the pairs of subface and score to the temporary to fix
-				// the score.
-				.map(subface -> new Pair<Double, SubFace>(score(subface), subface))
-				// sort sublist for speeding up
-				.sorted(Comparator.comparing((final Pair<Double, SubFace> pair) -> pair.v1())
-						.reversed())
-				.map(Pair::v2)
-				.toList();
-	}
-
-	private double score(final SubFace subface) {
-		return subface.getSuccessRate();
-	}
-
 	private void setConditionOf3facesToSubfaces(
 			final List<StackConditionOf3Faces> conditions,
 			final List<SubFace> subfaces) {
@@ -0,0 +1,557 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import oripa.domain.fold.halfedge.OriFace;
+import oripa.domain.fold.halfedge.OriHalfedge;
+import oripa.domain.fold.origeom.EstimationResult;
+import oripa.domain.fold.origeom.OverlapRelation;
+import oripa.domain.fold.stackcond.StackConditionOf4Faces;
+import oripa.domain.fold.subface.SubFace;
+
+/**
+ * Incremental version of the rules in {@link DeterministicLayerOrderEstimator}
+ * (transitive relation on subface, 3-face cover and 4-face stack condition).
+ * The rules are applied only to the face pairs whose relation has been
+ * changed. The changes are read from the journal of overlap relation, so the
+ * changes made by this class are propagated as well until nothing changes.
+ *
+ * The first pass of {@link #propagateAll(OverlapRelation, Statistics)}
+ * closes the transitive relation of all subfaces at once by
+ * {@link SubfaceTransitiveClosure}. The changes of the closure are checked
+ * again for the transitivity since a subface can be closed before the
+ * changes on the other subfaces reach it. The later steps apply the transitivity
+ * cell by cell since the bit rows would have to follow every write and
+ * rollback of the relation, and each search state would need its own n x n
+ * bit matrices.
+ *
+ * Instances are immutable after construction and can be shared among
+ * threads.
+ */
+class LayerOrderPropagator {
+
+	/**
+	 * [subface index] = parent face IDs of the subface.
+	 */
+	private final int[][] parentFaceIDs;
+
+	/**
+	 * [subface index] = parent face IDs of the subface as bit set.
+	 */
+	private final BitSet[] parentFaceSets;
+
+	/**
+	 * [face ID] = indices of subfaces whose parent includes the face.
+	 */
+	private final int[][] subfaceIndicesOfFace;
+
+	/**
+	 * [face ID i] = flattened pairs (j, k) such that the faces i and j share a
+	 * crease covered by the face k.
+	 */
+	private final int[][] coverPairsOfFace;
+
+	private final List<StackConditionOf4Faces> condition4s;
+
+	/**
+	 * [face ID] = indices of 4-face conditions which include the face.
+	 */
+	private final int[][] condition4IndicesOfFace;
+
+	private final SubfaceTransitiveClosure transitiveClosure;
+
+	/**
+	 *
+	 * @param faces
+	 *            all faces of the model.
+	 * @param subfaces
+	 *            subfaces of the model.
+	 * @param overlappingFaceIndexIntersections
+	 *            [FaceID1][FaceID2]
+	 * @param faceIndicesOnHalfedge
+	 *            Key: halfedge, value: set of indices of faces that are on the
+	 *            halfedge.
+	 * @param condition4s
+	 *            4-face stack conditions.
+	 */
+	public LayerOrderPropagator(
+			final List<OriFace> faces,
+			final List<SubFace> subfaces,
+			final List<Integer>[][] overlappingFaceIndexIntersections,
+			final Map<OriHalfedge, Set<Integer>> faceIndicesOnHalfedge,
+			final List<StackConditionOf4Faces> condition4s) {
+
+		var faceCount = faces.size();
+
+		parentFaceIDs = new int[subfaces.size()][];
+		parentFaceSets = new BitSet[subfaces.size()];
+		var subfaceIndexLists = createLists(faceCount);
+		for (int s = 0; s < subfaces.size(); s++) {
+			var indices = subfaces.get(s).getParentFaceIndices();
+			parentFaceIDs[s] = indices.stream().mapToInt(Integer::intValue).toArray();
+			parentFaceSets[s] = new BitSet(faceCount);
+			for (var id : parentFaceIDs[s]) {
+				parentFaceSets[s].set(id);
+				subfaceIndexLists.get(id).add(s);
+			}
+		}
+		subfaceIndicesOfFace = toArrays(subfaceIndexLists);
+
+		var coverPairLists = createLists(faceCount);
+		for (var face : faces) {
+			int i = face.getFaceID();
+			for (var he : face.halfedgeIterable()) {
+				var pairOpt = he.getPair();
+				if (pairOpt.isEmpty()) {
+					continue;
+				}
+				int j = pairOpt.get().getFace().getFaceID();
+				var facesOnHalfedge = faceIndicesOnHalfedge.get(he);
+
+				for (var k : overlappingFaceIndexIntersections[i][j]) {
+					if (i == k || j == k || !facesOnHalfedge.contains(k)) {
+						continue;
+					}
+					coverPairLists.get(i).add(j);
+					coverPairLists.get(i).add(k);
+					coverPairLists.get(j).add(i);
+					coverPairLists.get(j).add(k);
+				}
+			}
+		}
+		coverPairsOfFace = toArrays(coverPairLists);
+
+		this.condition4s = condition4s;
+		var condition4IndexLists = createLists(faceCount);
+		for (int c = 0; c < condition4s.size(); c++) {
+			var cond = condition4s.get(c);
+			condition4IndexLists.get(cond.upper1()).add(c);
+			condition4IndexLists.get(cond.lower1()).add(c);
+			condition4IndexLists.get(cond.upper2()).add(c);
+			condition4IndexLists.get(cond.lower2()).add(c);
+		}
+		condition4IndicesOfFace = toArrays(condition4IndexLists);
+
+		transitiveClosure = new SubfaceTransitiveClosure(subfaces);
+	}
+
+	private List<List<Integer>> createLists(final int count) {
+		var lists = new ArrayList<List<Integer>>();
+		for (int i = 0; i < count; i++) {
+			lists.add(new ArrayList<>());
+		}
+		return lists;
+	}
+
+	private int[][] toArrays(final List<List<Integer>> lists) {
+		return lists.stream()
+				.map(list -> list.stream().mapToInt(Integer::intValue).toArray())
+				.toArray(int[][]::new);
+	}
+
+	/**
+	 * Kinds of the rules applied by this class.
+	 */
+	enum Rule {
+		TRANSITIVITY, COVER_3_FACES, STACK_4_FACES
+	}
+
+	/**
+	 * Counts the changes and accumulates the time for each rule. Not thread
+	 * safe.
+	 */
+	static class Statistics {
+		private final int[] changeCounts = new int[Rule.values().length];
+		private final long[] nanoTimes = new long[Rule.values().length];
+		private int pairCount;
+
+		private void add(final Rule rule, final int changeCount, final long nanoTime) {
+			changeCounts[rule.ordinal()] += changeCount;
+			nanoTimes[rule.ordinal()] += nanoTime;
+		}
+
+		/**
+		 *
+		 * @return the number of face pairs taken from the worklist.
+		 */
+		public int getPairCount() {
+			return pairCount;
+		}
+
+		/**
+		 *
+		 * @return the number of relations determined by the rule.
+		 */
+		public int getChangeCount(final Rule rule) {
+			return changeCounts[rule.ordinal()];
+		}
+
+		/**
+		 *
+		 * @return the time consumed by the rule.
+		 */
+		public long getMilliSec(final Rule rule) {
+			return TimeUnit.NANOSECONDS.toMillis(nanoTimes[rule.ordinal()]);
+		}
+
+		@Override
+		public String toString() {
+			return "#pair = " + pairCount + ", " + String.join(", ",
+					Stream.of(Rule.values())
+							.map(rule -> rule + ": #change = " + getChangeCount(rule)
+									+ ", time = " + getMilliSec(rule) + "[ms]")
+							.toList());
+		}
+	}
+
+	/**
+	 * Applies the rules to all determined face pairs and to the consequent
+	 * changes until nothing changes. This method starts the journal of the
+	 * given relation.
+	 *
+	 * @param overlapRelation
+	 *            overlap relation matrix.
+	 * @param statistics
+	 *            receives the counts and the time of each rule. Can be null.
+	 * @return {@link EstimationResult#UNFOLDABLE} if a contradiction is found,
+	 *         {@link EstimationResult#CHANGED} if some relation is determined
+	 *         by this method, otherwise {@link EstimationResult#NOT_CHANGED}.
+	 */
+	public EstimationResult propagateAll(final OverlapRelation overlapRelation, final Statistics statistics) {
+		int mark = overlapRelation.mark();
+		var size = overlapRelation.getSize();
+
+		var time = System.nanoTime();
+		var closed = transitiveClosure.apply(overlapRelation).estimationResult();
+		if (statistics != null) {
+			statistics.add(Rule.TRANSITIVITY, overlapRelation.getChangeCount() - mark, System.nanoTime() - time);
+		}
+		if (closed == EstimationResult.UNFOLDABLE) {
+			return closed;
+		}
+
+		// the changes by the closure need only the other rules.
+		int closedMark = overlapRelation.getChangeCount();
+
+		for (int i = 0; i < size; i++) {
+			for (int j = i + 1; j < size; j++) {
+				if (propagate(overlapRelation, i, j, false, statistics) == EstimationResult.UNFOLDABLE) {
+					return EstimationResult.UNFOLDABLE;
+				}
+			}
+		}
+
+		// the closure visits the subfaces once, so a change on a subface can
+		// enable the transitivity on another subface visited before.
+		for (int k = mark; k < closedMark; k++) {
+			int i = overlapRelation.getChangedRow(k);
+			int j = overlapRelation.getChangedColumn(k);
+
+			if (propagateTransitivity(overlapRelation, i, j, statistics) == EstimationResult.UNFOLDABLE) {
+				return EstimationResult.UNFOLDABLE;
+			}
+		}
+
+		var result = propagate(overlapRelation, closedMark, statistics);
+		if (result == EstimationResult.UNFOLDABLE) {
+			return result;
+		}
+
+		return overlapRelation.getChangeCount() > mark
+				? EstimationResult.CHANGED
+				: EstimationResult.NOT_CHANGED;
+	}
+
+	/**
+	 * Applies the rules to the face pairs changed after the given mark until
+	 * nothing changes. The overlap relation should have started its journal
+	 * by {@link OverlapRelation#mark()}. This method doesn't allocate any
+	 * object.
+	 *
+	 * @param overlapRelation
+	 *            overlap relation matrix.
+	 * @param mark
+	 *            the journal position to start with.
+	 * @return {@link EstimationResult#UNFOLDABLE} if a contradiction is found,
+	 *         {@link EstimationResult#CHANGED} if some relation is determined
+	 *         by this method, otherwise {@link EstimationResult#NOT_CHANGED}.
+	 */
+	public EstimationResult propagate(final OverlapRelation overlapRelation, final int mark) {
+		return propagate(overlapRelation, mark, null);
+	}
+
+	private EstimationResult propagate(final OverlapRelation overlapRelation, final int mark,
+			final Statistics statistics) {
+		int initialChangeCount = overlapRelation.getChangeCount();
+
+		for (int k = mark; k < overlapRelation.getChangeCount(); k++) {
+			int i = overlapRelation.getChangedRow(k);
+			int j = overlapRelation.getChangedColumn(k);
+
+			if (propagate(overlapRelation, i, j, true, statistics) == EstimationResult.UNFOLDABLE) {
+				return EstimationResult.UNFOLDABLE;
+			}
+		}
+
+		return overlapRelation.getChangeCount() > initialChangeCount
+				? EstimationResult.CHANGED
+				: EstimationResult.NOT_CHANGED;
+	}
+
+	private EstimationResult propagate(final OverlapRelation overlapRelation, final int i, final int j,
+			final boolean appliesTransitivity, final Statistics statistics) {
+		int upper, lower;
+		if (overlapRelation.isUpper(i, j)) {
+			upper = i;
+			lower = j;
+		} else if (overlapRelation.isLower(i, j)) {
+			upper = j;
+			lower = i;
+		} else {
+			return EstimationResult.NOT_CHANGED;
+		}
+
+		if (statistics == null) {
+			if (appliesTransitivity
+					&& propagateTransitivity(overlapRelation, upper, lower) == EstimationResult.UNFOLDABLE) {
+				return EstimationResult.UNFOLDABLE;
+			}
+			if (propagate3FaceCover(overlapRelation, upper, lower) == EstimationResult.UNFOLDABLE) {
+				return EstimationResult.UNFOLDABLE;
+			}
+			if (propagate3FaceCover(overlapRelation, lower, upper) == EstimationResult.UNFOLDABLE) {
+				return EstimationResult.UNFOLDABLE;
+			}
+			return propagate4FaceStackCondition(overlapRelation, upper, lower);
+		}
+
+		statistics.pairCount++;
+
+		if (appliesTransitivity) {
+			var changeCount = overlapRelation.getChangeCount();
+			var time = System.nanoTime();
+			var result = propagateTransitivity(overlapRelation, upper, lower);
+			statistics.add(Rule.TRANSITIVITY, overlapRelation.getChangeCount() - changeCount,
+					System.nanoTime() - time);
+			if (result == EstimationResult.UNFOLDABLE) {
+				return result;
+			}
+		}
+
+		var changeCount = overlapRelation.getChangeCount();
+		var time = System.nanoTime();
+		var result = propagate3FaceCover(overlapRelation, upper, lower);
+		if (result != EstimationResult.UNFOLDABLE) {
+			result = propagate3FaceCover(overlapRelation, lower, upper);
+		}
+		statistics.add(Rule.COVER_3_FACES, overlapRelation.getChangeCount() - changeCount,
+				System.nanoTime() - time);
+		if (result == EstimationResult.UNFOLDABLE) {
+			return result;
+		}
+
+		changeCount = overlapRelation.getChangeCount();
+		time = System.nanoTime();
+		result = propagate4FaceStackCondition(overlapRelation, upper, lower);
+		statistics.add(Rule.STACK_4_FACES, overlapRelation.getChangeCount() - changeCount,
+				System.nanoTime() - time);
+
+		return result;
+	}
+
+	private EstimationResult propagateTransitivity(final OverlapRelation overlapRelation, final int i, final int j,
+			final Statistics statistics) {
+		int upper = overlapRelation.isUpper(i, j) ? i : j;
+		int lower = upper == i ? j : i;
+
+		if (statistics == null) {
+			return propagateTransitivity(overlapRelation, upper, lower);
+		}
+
+		statistics.pairCount++;
+
+		var changeCount = overlapRelation.getChangeCount();
+		var time = System.nanoTime();
+		var result = propagateTransitivity(overlapRelation, upper, lower);
+		statistics.add(Rule.TRANSITIVITY, overlapRelation.getChangeCount() - changeCount,
+				System.nanoTime() - time);
+
+		return result;
+	}
+
+	/**
+	 * If upper > lower > k then upper > k. If k > upper > lower then k >
+	 * lower. All faces should be on the same subface.
+	 */
+	private EstimationResult propagateTransitivity(final OverlapRelation overlapRelation,
+			final int upper, final int lower) {
+		var changed = EstimationResult.NOT_CHANGED;
+
+		for (var s : subfaceIndicesOfFace[upper]) {
+			if (!parentFaceSets[s].get(lower)) {
+				continue;
+			}
+			for (var k : parentFaceIDs[s]) {
+				if (k == upper || k == lower) {
+					continue;
+				}
+				if (overlapRelation.isUpper(lower, k)) {
+					changed = overlapRelation.setUpperIfPossible(upper, k).or(changed);
+				}
+				if (overlapRelation.isUpper(k, upper)) {
+					changed = overlapRelation.setUpperIfPossible(k, lower).or(changed);
+				}
+				if (changed == EstimationResult.UNFOLDABLE) {
+					return changed;
+				}
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * If face[i] and face[j] touching edge are covered by face[k] then
+	 * overlapRelation[i][k] = overlapRelation[j][k].
+	 */
+	private EstimationResult propagate3FaceCover(final OverlapRelation overlapRelation,
+			final int i, final int k) {
+		var changed = EstimationResult.NOT_CHANGED;
+
+		var pairs = coverPairsOfFace[i];
+		for (int p = 0; p < pairs.length; p += 2) {
+			if (pairs[p + 1] != k) {
+				continue;
+			}
+			int j = pairs[p];
+			changed = overlapRelation.setIfPossible(j, k, overlapRelation.get(i, k)).or(changed);
+			if (changed == EstimationResult.UNFOLDABLE) {
+				return changed;
+			}
+		}
+		return changed;
+	}
+
+	private EstimationResult propagate4FaceStackCondition(final OverlapRelation overlapRelation,
+			final int upper, final int lower) {
+		var changed = EstimationResult.NOT_CHANGED;
+
+		for (var c : condition4IndicesOfFace[upper]) {
+			var cond = condition4s.get(c);
+			if (!contains(cond, lower)) {
+				continue;
+			}
+			changed = applyStackConditionOf4Faces(cond, overlapRelation).or(changed);
+			if (changed == EstimationResult.UNFOLDABLE) {
+				return changed;
+			}
+		}
+		return changed;
+	}
+
+	private boolean contains(final StackConditionOf4Faces cond, final int faceID) {
+		return cond.upper1() == faceID || cond.lower1() == faceID
+				|| cond.upper2() == faceID || cond.lower2() == faceID;
+	}
+
+	/**
+	 * Determines overlap relation using the given 4-face condition.
+	 *
+	 * @return whether overlapRelation is changed or not, or the model is
+	 *         unfoldable.
+	 */
+	static EstimationResult applyStackConditionOf4Faces(final StackConditionOf4Faces cond,
+			final OverlapRelation overlapRelation) {
+		var changed = EstimationResult.NOT_CHANGED;
+
+		// if: lower1 > upper2, then: upper1 > upper2, upper1 > lower2,
+		// lower1 > lower2
+		if (overlapRelation.isLower(cond.lower1(), cond.upper2())) {
+			var result = overlapRelation.setLowerIfPossible(cond.upper1(), cond.upper2());
+			changed = result.or(changed);
+
+			result = overlapRelation.setLowerIfPossible(cond.upper1(), cond.lower2());
+			changed = result.or(changed);
+
+			result = overlapRelation.setLowerIfPossible(cond.lower1(), cond.lower2());
+			changed = result.or(changed);
+		}
+		// if: lower2 > upper1, then: upper2 > upper1, upper2 > lower1,
+		// lower2 > lower1
+		if (overlapRelation.isLower(cond.lower2(), cond.upper1())) {
+			var result = overlapRelation.setLowerIfPossible(cond.upper2(), cond.upper1());
+			changed = result.or(changed);
+
+			result = overlapRelation.setLowerIfPossible(cond.upper2(), cond.lower1());
+			changed = result.or(changed);
+
+			result = overlapRelation.setLowerIfPossible(cond.lower2(), cond.lower1());
+			changed = result.or(changed);
+		}
+		// if: upper1 > upper2 > lower1, then: upper1 > lower2, lower2 >
+		// lower1
+		if (overlapRelation.isLower(cond.upper1(), cond.upper2())
+				&& overlapRelation.isLower(cond.upper2(), cond.lower1())) {
+			var result = overlapRelation.setLowerIfPossible(cond.upper1(), cond.lower2());
+			changed = result.or(changed);
+
+			result = overlapRelation.setLowerIfPossible(cond.lower2(), cond.lower1());
+			changed = result.or(changed);
+		}
+		// if: upper1 > lower2 > lower1, then: upper1 > upper2, upper2 >
+		// lower1
+		if (overlapRelation.isLower(cond.upper1(), cond.lower2())
+				&& overlapRelation.isLower(cond.lower2(), cond.lower1())) {
+			var result = overlapRelation.setLowerIfPossible(cond.upper1(), cond.upper2());
+			changed = result.or(changed);
+
+			result = overlapRelation.setLowerIfPossible(cond.upper2(), cond.lower1());
+			changed = result.or(changed);
+		}
+		// if: upper2 > upper1 > lower2, then: upper2 > lower1, lower1 >
+		// lower2
+		if (overlapRelation.isLower(cond.upper2(), cond.upper1())
+				&& overlapRelation.isLower(cond.upper1(), cond.lower2())) {
+			var result = overlapRelation.setLowerIfPossible(cond.upper2(), cond.lower1());
+			changed = result.or(changed);
+
+			result = overlapRelation.setLowerIfPossible(cond.lower1(), cond.lower2());
+			changed = result.or(changed);
+		}
+		// if: upper2 > lower1 > lower2, then: upper2 > upper1, upper1 >
+		// lower2
+		if (overlapRelation.isLower(cond.upper2(), cond.lower1())
+				&& overlapRelation.isLower(cond.lower1(), cond.lower2())) {
+			var result = overlapRelation.setLowerIfPossible(cond.upper2(), cond.upper1());
+			changed = result.or(changed);
+
+			result = overlapRelation.setLowerIfPossible(cond.upper1(), cond.lower2());
+			changed = result.or(changed);
+		}
+
+		return changed;
+	}
+}
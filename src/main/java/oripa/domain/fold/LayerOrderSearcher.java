@@ -0,0 +1,338 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import oripa.domain.fold.halfedge.OriFace;
+import oripa.domain.fold.origeom.EstimationResult;
+import oripa.domain.fold.origeom.OverlapRelation;
+import oripa.domain.fold.subface.SubFace;
+import oripa.util.DeltaByteMatrix;
+import oripa.util.Pair;
+
+/**
+ * Depth-first search of layer orders on fork/join framework. The search forks
+ * the branches only near the top of the search tree and runs sequentially
+ * below there, where the overlap relation is restored by
+ * {@link OverlapRelation#rollbackTo(int)} instead of copying the matrix.
+ * Forked tasks reuse the matrices released by finished tasks. As a result,
+ * the number of living matrices is bounded by (the number of workers) x (fork
+ * depth limit).
+ *
+ * After each local layer order is applied, the consequences are propagated by
+ * {@link LayerOrderPropagator} so that contradicting branches are pruned
+ * early.
+ */
+class LayerOrderSearcher {
+	/**
+	 * Branches deeper than this value are searched sequentially.
+	 */
+	static final int DEFAULT_FORK_DEPTH_LIMIT = 6;
+
+	/**
+	 * The search doesn't fork if the current worker has more queued tasks than
+	 * this value since other workers can steal them.
+	 */
+	private static final int SURPLUS_TASK_LIMIT = 2;
+
+	private final List<OriFace> faces;
+	private final LayerOrderPropagator propagator;
+	private final boolean firstOnly;
+	private final Consumer<OverlapRelation> answerConsumer;
+	private final int forkDepthLimit;
+
+	/**
+	 * The relation before the search. Answers are stored as the difference
+	 * from this base.
+	 */
+	private DeltaByteMatrix.Base answerBase;
+
+	private final ConcurrentLinkedDeque<OverlapRelation> spareRelations = new ConcurrentLinkedDeque<>();
+
+	private final AtomicInteger callCount = new AtomicInteger();
+	private final AtomicInteger localLayerOrderCount = new AtomicInteger();
+	private final AtomicInteger answerCount = new AtomicInteger();
+
+	/**
+	 *
+	 * @param faces
+	 *            all faces of the origami model.
+	 * @param propagator
+	 *            applies the rules to the changes made by local layer orders.
+	 * @param firstOnly
+	 *            true if the search should stop at the first answer.
+	 * @param answerConsumer
+	 *            receives a compact copy of each answer, see
+	 *            {@link OverlapRelation#compressAgainst(DeltaByteMatrix.Base)}.
+	 *            It can be called from multiple threads concurrently.
+	 */
+	public LayerOrderSearcher(final List<OriFace> faces, final LayerOrderPropagator propagator,
+			final boolean firstOnly, final Consumer<OverlapRelation> answerConsumer) {
+		this(faces, propagator, firstOnly, answerConsumer, DEFAULT_FORK_DEPTH_LIMIT);
+	}
+
+	public LayerOrderSearcher(final List<OriFace> faces, final LayerOrderPropagator propagator,
+			final boolean firstOnly, final Consumer<OverlapRelation> answerConsumer, final int forkDepthLimit) {
+		this.faces = faces;
+		this.propagator = propagator;
+		this.firstOnly = firstOnly;
+		this.answerConsumer = answerConsumer;
+		this.forkDepthLimit = forkDepthLimit;
+	}
+
+	/**
+	 * Determines overlap relations which are left uncertain after using
+	 * necessary conditions. The search runs in the fork/join pool of the
+	 * calling thread, or in the common pool if the caller is not a worker.
+	 *
+	 * @param subfaces
+	 *            the subfaces to be used.
+	 * @param overlapRelation
+	 *            overlap relation matrix. The values are restored when this
+	 *            method finishes.
+	 * @return the number of answers.
+	 */
+	public int search(final List<SubFace> subfaces, final OverlapRelation overlapRelation) {
+		answerBase = overlapRelation.createDeltaBase();
+
+		var task = new RecursiveTask<Integer>() {
+			private static final long serialVersionUID = -2846079563188523460L;
+
+			@Override
+			protected Integer compute() {
+				return findAnswer(subfaces, overlapRelation, 0);
+			}
+		};
+
+		// stays in the pool of the caller if any.
+		return ForkJoinTask.inForkJoinPool()
+				? task.invoke()
+				: ForkJoinPool.commonPool().invoke(task);
+	}
+
+	public int getCallCount() {
+		return callCount.get();
+	}
+
+	public int getLocalLayerOrderCount() {
+		return localLayerOrderCount.get();
+	}
+
+	public int getAnswerCount() {
+		return answerCount.get();
+	}
+
+	private int findAnswer(
+			final List<SubFace> subfaces,
+			final OverlapRelation overlapRelation,
+			final int depth) {
+		callCount.incrementAndGet();
+
+		if (firstOnly && answerCount.get() > 0) {
+			return 0;
+		}
+
+		if (subfaces.isEmpty()) {
+			return acceptAnswer(overlapRelation);
+		}
+
+		SubFace sub = subfaces.get(0);
+
+		var localLayerOrders = sub.createLocalLayerOrders(faces, overlapRelation, false);
+
+		if (localLayerOrders == null) {
+			return findAnswer(popAndSort(subfaces), overlapRelation, depth);
+		}
+
+		localLayerOrderCount.addAndGet(localLayerOrders.size());
+
+		int successCount = shouldFork(depth, localLayerOrders.size())
+				? forkSearch(subfaces, overlapRelation, localLayerOrders, depth)
+				: sequentialSearch(subfaces, overlapRelation, localLayerOrders, depth);
+
+		sub.addSuccessCount(successCount);
+
+		return successCount;
+	}
+
+	private int acceptAnswer(final OverlapRelation overlapRelation) {
+		if (firstOnly) {
+			// other thread may have found an answer.
+			if (!answerCount.compareAndSet(0, 1)) {
+				return 0;
+			}
+		} else {
+			answerCount.incrementAndGet();
+		}
+		answerConsumer.accept(overlapRelation.compressAgainst(answerBase));
+
+		return 1;
+	}
+
+	private boolean shouldFork(final int depth, final int branchCount) {
+		return branchCount > 1
+				&& depth < forkDepthLimit
+				&& ForkJoinTask.inForkJoinPool()
+				&& ForkJoinTask.getSurplusQueuedTaskCount() <= SURPLUS_TASK_LIMIT;
+	}
+
+	private int sequentialSearch(
+			final List<SubFace> subfaces,
+			final OverlapRelation overlapRelation,
+			final List<List<OriFace>> localLayerOrders,
+			final int depth) {
+		var sub = subfaces.get(0);
+		int successCount = 0;
+
+		for (var localLayerOrder : localLayerOrders) {
+			int mark = overlapRelation.mark();
+
+			if (applyLocalLayerOrder(localLayerOrder, overlapRelation, mark)) {
+				sub.incrementCallCount();
+				successCount += findAnswer(popAndSort(subfaces), overlapRelation, depth + 1);
+			}
+
+			overlapRelation.rollbackTo(mark);
+		}
+
+		return successCount;
+	}
+
+	private int forkSearch(
+			final List<SubFace> subfaces,
+			final OverlapRelation overlapRelation,
+			final List<List<OriFace>> localLayerOrders,
+			final int depth) {
+
+		// overlapRelation is not modified until all tasks finish.
+		var tasks = localLayerOrders.stream()
+				.map(localLayerOrder -> new SearchTask(subfaces, overlapRelation, localLayerOrder, depth))
+				.toList();
+
+		return ForkJoinTask.invokeAll(tasks).stream()
+				.mapToInt(SearchTask::join)
+				.sum();
+	}
+
+	/**
+	 * Searches the branch for a local layer order on a matrix owned by this
+	 * task.
+	 */
+	private class SearchTask extends RecursiveTask<Integer> {
+		private static final long serialVersionUID = 7361594218437052187L;
+
+		private final List<SubFace> subfaces;
+		private final OverlapRelation parentRelation;
+		private final List<OriFace> localLayerOrder;
+		private final int depth;
+
+		SearchTask(final List<SubFace> subfaces, final OverlapRelation parentRelation,
+				final List<OriFace> localLayerOrder, final int depth) {
+			this.subfaces = subfaces;
+			this.parentRelation = parentRelation;
+			this.localLayerOrder = localLayerOrder;
+			this.depth = depth;
+		}
+
+		@Override
+		protected Integer compute() {
+			if (firstOnly && answerCount.get() > 0) {
+				return 0;
+			}
+
+			var overlapRelation = borrowRelation(parentRelation);
+			try {
+				int mark = overlapRelation.mark();
+				if (!applyLocalLayerOrder(localLayerOrder, overlapRelation, mark)) {
+					return 0;
+				}
+				subfaces.get(0).incrementCallCount();
+
+				return findAnswer(popAndSort(subfaces), overlapRelation, depth + 1);
+			} finally {
+				spareRelations.push(overlapRelation);
+			}
+		}
+	}
+
+	private OverlapRelation borrowRelation(final OverlapRelation source) {
+		var relation = spareRelations.poll();
+		if (relation == null) {
+			return source.clone();
+		}
+		source.copyTo(relation);
+		return relation;
+	}
+
+	/**
+	 * Determines overlap relations according to local layer order and
+	 * propagates the changes after the given mark.
+	 *
+	 * @return false if the local layer order conflicts with the overlap
+	 *         relation. The changes are not reverted even in such case.
+	 */
+	private boolean applyLocalLayerOrder(final List<OriFace> localLayerOrder,
+			final OverlapRelation overlapRelation, final int mark) {
+		int size = localLayerOrder.size();
+
+		for (int i = 0; i < size; i++) {
+			int index_i = localLayerOrder.get(i).getFaceID();
+			for (int j = i + 1; j < size; j++) {
+				int index_j = localLayerOrder.get(j).getFaceID();
+				// if index on local layer order is 0, the face is at
+				// the top of layer order (looking down the folded model
+				// on a table).
+				// therefore a face with smaller index i on local layer
+				// order should be UPPER than a face with index j on local
+				// layer order.
+				var result = overlapRelation.setUpperIfPossible(index_i, index_j);
+				if (result == EstimationResult.UNFOLDABLE) {
+					return false;
+				}
+			}
+		}
+		return propagator.propagate(overlapRelation, mark) != EstimationResult.UNFOLDABLE;
+	}
+
+	private List<SubFace> popAndSort(final List<SubFace> subfaces) {
+		return subfaces.subList(1, subfaces.size()).stream()
+				// parallel processing causes different score values on the same
+				// subface.
+				// copy the pairs of subface and score to the temporary to fix
+				// the score.
+				.map(subface -> new Pair<Double, SubFace>(score(subface), subface))
+				// sort sublist for speeding up
+				.sorted(Comparator.comparing((final Pair<Double, SubFace> pair) -> pair.v1())
+						.reversed())
+				.map(Pair::v2)
+				.toList();
+	}
+
+	private double score(final SubFace subface) {
+		return subface.getSuccessRate();
+	}
+}
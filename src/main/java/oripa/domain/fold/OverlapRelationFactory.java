@@ -28,6 +28,9 @@ import oripa.domain.fold.halfedge.OriHalfedge;
 import oripa.domain.fold.origeom.EstimationResult;
 import oripa.domain.fold.origeom.OriGeomUtil;
 import oripa.domain.fold.origeom.OverlapRelation;
+import oripa.geom.RectangleDomain;
+import oripa.geom.SweepAndPrune;
+import oripa.util.BitRowMatrix;
 
 /**
  * @author OUCHI Koji
@@ -36,6 +39,22 @@ import oripa.domain.fold.origeom.OverlapRelation;
 class OverlapRelationFactory {
 	private static final Logger logger = LoggerFactory.getLogger(OverlapRelationFactory.class);
 
+	private final boolean parallel;
+
+	public OverlapRelationFactory() {
+		this(true);
+	}
+
+	/**
+	 *
+	 * @param parallel
+	 *            true if the exact overlap tests of face pairs should run in
+	 *            parallel.
+	 */
+	public OverlapRelationFactory(final boolean parallel) {
+		this.parallel = parallel;
+	}
+
 	static class Result {
 		private final OverlapRelation overlapRelation;
 		private final EstimationResultRules rules;
@@ -117,29 +136,38 @@ class OverlapRelationFactory {
 			final List<OriFace> faces, final double eps) {
 
 		int size = faces.size();
-		OverlapRelation overlapRelation = new OverlapRelation(size);
 
-		int countOfZeros = 0;
-		for (int i = 0; i < size; i++) {
-			overlapRelation.setNoOverlap(i, i);
-			countOfZeros++;
-			for (int j = i + 1; j < size; j++) {
-				if (OriGeomUtil.isFaceOverlap(faces.get(i), faces.get(j), eps)) {
-					overlapRelation.setUndefined(i, j);
-				} else {
-					overlapRelation.setNoOverlap(i, j);
-					countOfZeros += 2;
-				}
-			}
+		// broad phase
+		var domains = faces.stream()
+				.map(face -> RectangleDomain.createFromPoints(
+						face.halfedgeStream().map(OriHalfedge::getPosition).toList()))
+				.toList();
+		var candidates = new SweepAndPrune().findIntersectingPairs(domains, eps);
+
+		logger.debug("#candidate pairs = {}/{}", candidates.size(), size * (size - 1) / 2);
+
+		// narrow phase
+		// builds the polygons beforehand since it is not thread safe.
+		faces.forEach(face -> face.getInnerPoints(eps));
+
+		var stream = parallel ? candidates.parallelStream() : candidates.stream();
+		var overlappingPairList = stream
+				.filter(pair -> OriGeomUtil.isFaceOverlap(faces.get(pair.v1()), faces.get(pair.v2()), eps))
+				.toList();
+
+		var overlappingPairs = new BitRowMatrix(size);
+		for (var pair : overlappingPairList) {
+			overlappingPairs.set(pair.v1(), pair.v2());
 		}
 
-		double rate = ((double) countOfZeros) / (size * size);
-		logger.debug("sparsity of overlap relation matrix = {}", rate);
-		// One element in dictionary of keys for byte value needs at least 16
-		// bytes.
-		if (rate > 0.99) {
-			logger.debug("use sparse matrix for overlap relation.");
-			overlapRelation.switchToSparseMatrix();
+		var overlapRelation = new OverlapRelation(overlappingPairs);
+		logger.debug("use sparse matrix for overlap relation: {}", overlapRelation.isSparse());
+
+		for (int i = 0; i < size; i++) {
+			for (int j = overlappingPairs.nextSetColumn(i, i + 1); j >= 0; j = overlappingPairs
+					.nextSetColumn(i, j + 1)) {
+				overlapRelation.setUndefined(i, j);
+			}
 		}
 
 		return overlapRelation;
@@ -0,0 +1,118 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold;
+
+import java.util.Arrays;
+import java.util.List;
+
+import oripa.domain.fold.origeom.EstimationResult;
+import oripa.domain.fold.origeom.OverlapRelation;
+import oripa.domain.fold.subface.SubFace;
+import oripa.util.BitRowMatrix;
+
+/**
+ * Applies the transitive relation on each subface at once: if a > b and b > c
+ * on a subface then a > c. The closure is computed on the bit rows of the
+ * upper sets, which handles 64 faces per word operation.
+ *
+ * Instances are immutable after construction and can be shared among
+ * threads.
+ */
+class SubfaceTransitiveClosure {
+	/**
+	 * Result of {@link SubfaceTransitiveClosure#apply(OverlapRelation)}.
+	 *
+	 * @param estimationResult
+	 *            {@link EstimationResult#UNFOLDABLE} if a cycle is found.
+	 * @param violatingFaceIDs
+	 *            IDs of the faces on the found cycle. Empty if no cycle is
+	 *            found.
+	 */
+	record Result(EstimationResult estimationResult, List<Integer> violatingFaceIDs) {
+	}
+
+	/**
+	 * [subface index] = parent face IDs of the subface.
+	 */
+	private final int[][] parentFaceIDs;
+
+	public SubfaceTransitiveClosure(final List<SubFace> subfaces) {
+		parentFaceIDs = subfaces.stream()
+				.map(sub -> sub.getParentFaceIndices().stream().mapToInt(Integer::intValue).toArray())
+				.toArray(int[][]::new);
+	}
+
+	/**
+	 * Sets the upper relation for all pairs in the transitive closure of
+	 * each subface.
+	 *
+	 * @param overlapRelation
+	 *            overlap relation matrix.
+	 * @return the result with the faces on the cycle if the model is
+	 *         unfoldable.
+	 */
+	public Result apply(final OverlapRelation overlapRelation) {
+		var changed = EstimationResult.NOT_CHANGED;
+
+		var faceCount = overlapRelation.getSize();
+		var upperRows = overlapRelation.createUpperRows();
+		var closure = new BitRowMatrix(faceCount);
+		var parents = new long[BitRowMatrix.wordCount(faceCount)];
+
+		for (var ids : parentFaceIDs) {
+			Arrays.fill(parents, 0);
+			for (var id : ids) {
+				parents[id / 64] |= 1L << id;
+			}
+
+			for (var i : ids) {
+				System.arraycopy(upperRows.row(i), 0, closure.row(i), 0, parents.length);
+				closure.andRow(i, parents);
+			}
+			for (var k : ids) {
+				for (var i : ids) {
+					if (closure.get(i, k)) {
+						closure.orRow(i, k);
+					}
+				}
+			}
+
+			for (var i : ids) {
+				if (closure.get(i, i)) {
+					return new Result(EstimationResult.UNFOLDABLE, Arrays.stream(ids)
+							.filter(j -> closure.get(i, j) && closure.get(j, i))
+							.boxed()
+							.toList());
+				}
+				for (int j = closure.nextSetColumn(i, 0); j >= 0; j = closure.nextSetColumn(i, j + 1)) {
+					if (upperRows.get(i, j)) {
+						continue;
+					}
+					var result = overlapRelation.setUpperIfPossible(i, j);
+					if (result == EstimationResult.UNFOLDABLE) {
+						return new Result(result, List.of(i, j));
+					}
+					upperRows.set(i, j);
+					changed = result.or(changed);
+				}
+			}
+		}
+		return new Result(changed, List.of());
+	}
+}
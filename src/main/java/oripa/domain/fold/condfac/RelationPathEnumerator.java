@@ -19,7 +19,9 @@
 package oripa.domain.fold.condfac;
 
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -27,11 +29,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import oripa.domain.fold.origeom.OverlapRelation;
-import oripa.util.Matrices;
+import oripa.util.BitRowMatrix;
 
 /**
- * Floyd-Warshall algorithm. for indices i and j (i < j) on the obtained path
- * hold isUpper(path[i], path[j]) or isUndefined(path[i], path[j]).
+ * Enumerates paths on the graph whose edge i -> j exists if isUpper(i, j) or
+ * isUndefined(i, j). For indices i and j (i < j) on the obtained path hold
+ * isUpper(path[i], path[j]) or isUndefined(path[i], path[j]).
+ *
+ * The reachability is computed as transitive closure of bit rows, which needs
+ * O(n^2 / 8) bytes and O(n^3 / 64) time. Each path is searched on demand by
+ * breadth first search, so that it is one of the shortest paths.
  *
  * @author OUCHI Koji
  *
@@ -41,61 +48,56 @@ public class RelationPathEnumerator {
 
 	private int faceCount;
 
-	private int infinity() {
-		return faceCount * 2;
-	}
-
-	private int[][] distance;
-	private int[][] prevIndices;
+	private BitRowMatrix edges;
+	private BitRowMatrix reachable;
 
 	public void findPaths(final OverlapRelation overlapRelation) {
 		faceCount = overlapRelation.getSize();
 
-		distance = new int[faceCount][faceCount];
-		prevIndices = new int[faceCount][faceCount];
-
-		for (int i = 0; i < faceCount; i++) {
-			for (int j = 0; j < faceCount; j++) {
-				if (overlapRelation.isUpper(i, j) || overlapRelation.isUndefined(i, j)) {
-					distance[i][j] = 1;
-					prevIndices[i][j] = i;
-				} else {
-					distance[i][j] = infinity();
-					prevIndices[i][j] = -1;
-				}
-			}
-		}
-
+		edges = overlapRelation.createUpperRows();
+		var undefined = overlapRelation.createUndefinedRows();
 		for (int i = 0; i < faceCount; i++) {
-			distance[i][i] = 0;
-			prevIndices[i][i] = i;
+			edges.orRow(i, undefined.row(i));
+			edges.clear(i, i);
 		}
 
-		for (int k = 0; k < faceCount; k++) {
-			for (int i = 0; i < faceCount; i++) {
-				for (int j = 0; j < faceCount; j++) {
-					if (distance[i][j] > distance[i][k] + distance[k][j]) {
-						distance[i][j] = distance[i][k] + distance[k][j];
-						prevIndices[i][j] = prevIndices[k][j];
-					}
-				}
+		reachable = edges.clone();
+		reachable.closeTransitively();
 
-			}
-		}
+		logger.debug("reachability" + System.lineSeparator() + reachable);
+	}
 
-		logger.debug(Matrices.toString(distance));
+	private boolean isReachable(final int i, final int j) {
+		return i == j || reachable.get(i, j);
 	}
 
 	public List<Integer> getPath(final int i, final int j) {
-		if (prevIndices[i][j] == -1) {
+		if (!isReachable(i, j)) {
 			return List.of();
 		}
+
+		var prevIndices = new int[faceCount];
+		Arrays.fill(prevIndices, -1);
+		prevIndices[i] = i;
+
+		var queue = new ArrayDeque<Integer>();
+		queue.add(i);
+		while (prevIndices[j] == -1) {
+			int v = queue.poll();
+			for (int w = edges.nextSetColumn(v, 0); w >= 0; w = edges.nextSetColumn(v, w + 1)) {
+				if (prevIndices[w] == -1) {
+					prevIndices[w] = v;
+					queue.add(w);
+				}
+			}
+		}
+
 		var path = new LinkedList<Integer>();
 		path.add(j);
 
 		int v = j;
 		while (v != i) {
-			v = prevIndices[i][v];
+			v = prevIndices[v];
 			path.addFirst(v);
 		}
 
@@ -103,9 +105,10 @@ public class RelationPathEnumerator {
 	}
 
 	public boolean isOnCycle(final int i, final int j) {
-		if (distance[i][j] < infinity() && distance[j][i] < infinity()) {
+		if (isReachable(i, j) && isReachable(j, i)) {
 
-			if (distance[i][j] + distance[j][i] <= 2) {
+			// the length of the cycle is at most 2.
+			if (i == j || (edges.get(i, j) && edges.get(j, i))) {
 				return false;
 			}
 
@@ -115,7 +118,7 @@ public class RelationPathEnumerator {
 	}
 
 	public List<Integer> getCycle(final int i, final int j) {
-		if (distance[i][j] < infinity() && distance[j][i] < infinity()) {
+		if (isReachable(i, j) && isReachable(j, i)) {
 			var path = getPath(i, j);
 			path.removeLast();
 			path.addAll(getPath(j, i));
@@ -0,0 +1,196 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold.origeom;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Topological sort of faces by overlap relation. The relation is read once
+ * to build the graph of "is lower than" so that the sort costs O(n^2) matrix
+ * lookups for the graph and O(n + m) for the sort itself.
+ *
+ * Among the faces which can be placed next, the one with the smallest index
+ * is taken.
+ */
+public class FaceLayerSorter {
+
+	/**
+	 * Sorts faces from the top to the bottom. Faces on a cycle of the
+	 * relation, which cannot happen for a valid folded state, and the faces
+	 * below them are not included in the result.
+	 *
+	 * @param overlapRelation
+	 *            overlap relation of the faces.
+	 * @return face indices from the top layer to the bottom layer.
+	 */
+	public int[] sortFromTop(final OverlapRelation overlapRelation) {
+		return sort(overlapRelation, true);
+	}
+
+	/**
+	 * Sorts faces from the bottom to the top. Faces on a cycle of the
+	 * relation and the faces above them are not included in the result.
+	 *
+	 * @param overlapRelation
+	 *            overlap relation of the faces.
+	 * @return face indices from the bottom layer to the top layer.
+	 */
+	public int[] sortFromBottom(final OverlapRelation overlapRelation) {
+		return sort(overlapRelation, false);
+	}
+
+	private int[] sort(final OverlapRelation overlapRelation, final boolean fromTop) {
+		var graph = new Graph(overlapRelation, fromTop);
+		var faceCount = overlapRelation.getSize();
+
+		var sorted = new int[faceCount];
+		int sortedCount = graph.sort(sorted, null);
+
+		return sortedCount == faceCount ? sorted : Arrays.copyOf(sorted, sortedCount);
+	}
+
+	/**
+	 * Computes the layer depth of each face, which is the number of faces on
+	 * the longest chain of faces overlapping above (or below) the face. Two
+	 * faces at the same depth never overlap.
+	 *
+	 * @param overlapRelation
+	 *            overlap relation of the faces.
+	 * @param fromTop
+	 *            true if the depth is measured from the top, false for the
+	 *            bottom.
+	 * @return depth of each face. -1 for the faces on a cycle of the
+	 *         relation.
+	 */
+	public int[] computeDepths(final OverlapRelation overlapRelation, final boolean fromTop) {
+		var graph = new Graph(overlapRelation, fromTop);
+		var faceCount = overlapRelation.getSize();
+
+		var depths = new int[faceCount];
+		var sorted = new int[faceCount];
+		int sortedCount = graph.sort(sorted, depths);
+
+		if (sortedCount < faceCount) {
+			var isSorted = new BitSet(faceCount);
+			for (int k = 0; k < sortedCount; k++) {
+				isSorted.set(sorted[k]);
+			}
+			for (int i = isSorted.nextClearBit(0); i < faceCount; i = isSorted.nextClearBit(i + 1)) {
+				depths[i] = -1;
+			}
+		}
+
+		return depths;
+	}
+
+	/**
+	 * Graph whose edge goes from a face to the faces right behind it in the
+	 * compressed row form.
+	 */
+	private static class Graph {
+		private final int faceCount;
+		private final int[] offsets;
+		private final int[] targets;
+		private final int[] sourceCounts;
+
+		Graph(final OverlapRelation overlapRelation, final boolean fromTop) {
+			faceCount = overlapRelation.getSize();
+
+			var targetCounts = new int[faceCount];
+			sourceCounts = new int[faceCount];
+
+			var edgeFrom = new int[Math.max(faceCount, 1)];
+			var edgeTo = new int[Math.max(faceCount, 1)];
+			int edgeCount = 0;
+
+			for (int i = 0; i < faceCount; i++) {
+				for (int j = 0; j < faceCount; j++) {
+					if (i == j || !overlapRelation.isLower(i, j)) {
+						continue;
+					}
+					// i is lower than j.
+					var from = fromTop ? j : i;
+					var to = fromTop ? i : j;
+
+					if (edgeCount == edgeFrom.length) {
+						edgeFrom = Arrays.copyOf(edgeFrom, edgeCount * 2);
+						edgeTo = Arrays.copyOf(edgeTo, edgeCount * 2);
+					}
+					edgeFrom[edgeCount] = from;
+					edgeTo[edgeCount] = to;
+					edgeCount++;
+
+					targetCounts[from]++;
+					sourceCounts[to]++;
+				}
+			}
+
+			offsets = new int[faceCount + 1];
+			for (int i = 0; i < faceCount; i++) {
+				offsets[i + 1] = offsets[i] + targetCounts[i];
+			}
+			targets = new int[edgeCount];
+			var fill = Arrays.copyOf(offsets, faceCount);
+			for (int e = 0; e < edgeCount; e++) {
+				targets[fill[edgeFrom[e]]++] = edgeTo[e];
+			}
+		}
+
+		/**
+		 * Kahn's algorithm.
+		 *
+		 * @param sorted
+		 *            receives the sorted faces.
+		 * @param depths
+		 *            receives the length of the longest path to each face if
+		 *            not null.
+		 * @return the number of sorted faces.
+		 */
+		int sort(final int[] sorted, final int[] depths) {
+			var remains = Arrays.copyOf(sourceCounts, faceCount);
+
+			var ready = new BitSet(faceCount);
+			for (int i = 0; i < faceCount; i++) {
+				if (remains[i] == 0) {
+					ready.set(i);
+				}
+			}
+
+			int sortedCount = 0;
+
+			for (int i = ready.nextSetBit(0); i >= 0; i = ready.nextSetBit(0)) {
+				ready.clear(i);
+				sorted[sortedCount++] = i;
+
+				for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+					var target = targets[k];
+					if (depths != null) {
+						depths[target] = Math.max(depths[target], depths[i] + 1);
+					}
+					if (--remains[target] == 0) {
+						ready.set(target);
+					}
+				}
+			}
+
+			return sortedCount;
+		}
+	}
+}
@@ -18,13 +18,20 @@
  */
 package oripa.domain.fold.origeom;
 
+import java.util.ArrayList;
+
 import oripa.util.AtomicByteDenseMatrix;
-import oripa.util.BitBlockByteMatrix;
+import oripa.util.BitRowMatrix;
 import oripa.util.ByteMatrix;
-import oripa.util.ByteSparseMatrix;
+import oripa.util.CompressedRowByteMatrix;
+import oripa.util.DeltaByteMatrix;
+import oripa.util.IntStack;
+import oripa.util.UpperTriangularByteMatrix;
 
 /**
- * A wrapper of integer matrix for overlap relation operations.
+ * A wrapper of integer matrix for overlap relation operations. Since
+ * [j][i] is always the inversion of [i][j], the matrix stores only the cells
+ * above the diagonal.
  *
  * @author OUCHI Koji
  *
@@ -32,6 +39,21 @@ import oripa.util.ByteSparseMatrix;
 public class OverlapRelation {
 	private ByteMatrix overlapRelation;
 
+	/**
+	 * Sparse storage is used if the ratio of overlapping face pairs is equal
+	 * to or less than this value. Each stored cell costs 2 bits for both
+	 * storages, while the sparse one needs a binary search to access.
+	 */
+	private static final double SPARSE_DENSITY_THRESHOLD = 0.25;
+
+	/**
+	 * Change journal for {@link #rollbackTo(int)}. Each change is recorded as
+	 * (i, j, previous internal value of [i][j]). {@code null} until
+	 * {@link #mark()} is called.
+	 */
+	private IntStack journal;
+	private static final int JOURNAL_ENTRY_SIZE = 3;
+
 	private static final byte NO_OVERLAP = 0;
 	private static final byte UPPER = 1;
 	private static final byte LOWER = 2;
@@ -65,10 +87,46 @@ public class OverlapRelation {
 	 *            the number of faces of the model.
 	 */
 	public OverlapRelation(final int faceCount) {
-		overlapRelation = new BitBlockByteMatrix(faceCount, faceCount, 2);
+		overlapRelation = new UpperTriangularByteMatrix(faceCount, 2);
 //		overlapRelation = new ByteDenseMatrix(faceCount, faceCount);
 	}
 
+	/**
+	 * Creates a matrix whose storage is chosen by the density of overlapping
+	 * face pairs. If the sparse storage is chosen and a value other than
+	 * {@link OverlapRelationValues#NO_OVERLAP} is set to a pair which doesn't
+	 * overlap, the storage is switched to dense one.
+	 *
+	 * @param overlappingPairs
+	 *            [i][j] is true if face i and face j overlap. Only the cells
+	 *            for i < j are used.
+	 */
+	public OverlapRelation(final BitRowMatrix overlappingPairs) {
+		var faceCount = overlappingPairs.size();
+
+		long pairCount = 0;
+		for (int i = 0; i < faceCount; i++) {
+			for (int j = overlappingPairs.nextSetColumn(i, i + 1); j >= 0; j = overlappingPairs
+					.nextSetColumn(i, j + 1)) {
+				pairCount++;
+			}
+		}
+
+		double density = faceCount < 2 ? 1.0 : pairCount / (faceCount * (faceCount - 1) / 2.0);
+		if (density <= SPARSE_DENSITY_THRESHOLD) {
+			overlapRelation = new CompressedRowByteMatrix(overlappingPairs, 2);
+		} else {
+			overlapRelation = new UpperTriangularByteMatrix(faceCount, 2);
+		}
+	}
+
+	/**
+	 * @return true if the storage holds only the overlapping face pairs.
+	 */
+	public boolean isSparse() {
+		return overlapRelation instanceof CompressedRowByteMatrix;
+	}
+
 	private OverlapRelation(final ByteMatrix mat) {
 		overlapRelation = mat.clone();
 	}
@@ -85,6 +143,54 @@ public class OverlapRelation {
 		return new OverlapRelation(overlapRelation);
 	}
 
+	/**
+	 * Creates the base for {@link #compressAgainst(DeltaByteMatrix.Base)}.
+	 * The undefined cells of this relation become the variable cells of the
+	 * base.
+	 *
+	 * @return the base which holds a copy of this relation.
+	 */
+	public DeltaByteMatrix.Base createDeltaBase() {
+		return new DeltaByteMatrix.Base(overlapRelation, UNDEFINED, LOWER, UPPER);
+	}
+
+	/**
+	 * Returns a copy of this relation which holds only one bit for each
+	 * undefined cell of the base. This relation should be derived from the
+	 * relation of the base by determining undefined cells, e.g., an answer of
+	 * layer ordering. Setting a value which doesn't fit the base to the
+	 * returned relation makes it switch to dense storage.
+	 *
+	 * @param base
+	 *            created by {@link #createDeltaBase()} of an ancestor of this
+	 *            relation.
+	 * @return compressed copy, or a plain clone if some cell of this relation
+	 *         is still undefined.
+	 */
+	public OverlapRelation compressAgainst(final DeltaByteMatrix.Base base) {
+		var delta = base.encode(overlapRelation);
+		if (delta == null) {
+			return clone();
+		}
+		var compressed = new OverlapRelation();
+		compressed.overlapRelation = delta;
+		return compressed;
+	}
+
+	/**
+	 * Compact relations such as the answers of layer ordering should be
+	 * materialized before reading many cells, since each read on them
+	 * searches the cell.
+	 *
+	 * @return a copy of this relation on dense storage, which is the fastest
+	 *         to access.
+	 */
+	public OverlapRelation materialize() {
+		var materialized = new OverlapRelation(getSize());
+		overlapRelation.copyTo(materialized.overlapRelation);
+		return materialized;
+	}
+
 	/**
 	 * Returns clone for parallel computing. Incomplete implementation so far:
 	 * returned object doesn't have atomicity for setXXX().
@@ -102,22 +208,95 @@ public class OverlapRelation {
 		return cloned;
 	}
 
+	/**
+	 * Copies all values of this relation to the given one.
+	 *
+	 * @param o
+	 *            should have the same size as this relation.
+	 */
 	public void copyTo(final OverlapRelation o) {
-		for (int i = 0; i < getSize(); i++) {
-			for (int j = i; j < getSize(); j++) {
-				o.set(i, j, get(i, j));
-			}
+		overlapRelation.copyTo(o.overlapRelation);
+		if (o.journal != null) {
+			o.journal.clear();
 		}
 	}
 
-	public void switchToSparseMatrix() {
-		var sparse = new ByteSparseMatrix(overlapRelation.rowCount(), overlapRelation.columnCount());
-		for (int i = 0; i < overlapRelation.rowCount(); i++) {
-			for (int j = 0; j < overlapRelation.columnCount(); j++) {
-				sparse.set(i, j, overlapRelation.get(i, j));
-			}
+	/**
+	 * Returns a mark for {@link #rollbackTo(int)}. This relation records every
+	 * change after the first call of this method. Cloned relations don't
+	 * inherit the record.
+	 *
+	 * @return the mark representing current state, which is the number of the
+	 *         recorded changes.
+	 */
+	public int mark() {
+		if (journal == null) {
+			journal = new IntStack(JOURNAL_ENTRY_SIZE * 64);
+		}
+		return getChangeCount();
+	}
+
+	/**
+	 * Restores the state when the given mark was taken. This method doesn't
+	 * allocate any object.
+	 *
+	 * @param mark
+	 *            a value returned by {@link #mark()}.
+	 */
+	public void rollbackTo(final int mark) {
+		while (journal.size() > mark * JOURNAL_ENTRY_SIZE) {
+			var previous = (byte) journal.pop();
+			int j = journal.pop();
+			int i = journal.pop();
+			setInternal(i, j, previous);
 		}
-		overlapRelation = sparse;
+	}
+
+	/**
+	 * Forgets the recorded changes. The marks taken before become invalid.
+	 */
+	public void clearJournal() {
+		if (journal != null) {
+			journal.clear();
+		}
+	}
+
+	/**
+	 * Stops recording the changes and releases the record. The marks taken
+	 * before become invalid. The next call of {@link #mark()} starts a new
+	 * record.
+	 */
+	public void stopJournal() {
+		journal = null;
+	}
+
+	/**
+	 *
+	 * @return the number of changes recorded after the first call of
+	 *         {@link #mark()}.
+	 */
+	public int getChangeCount() {
+		return journal == null ? 0 : journal.size() / JOURNAL_ENTRY_SIZE;
+	}
+
+	/**
+	 *
+	 * @param k
+	 *            index of recorded change.
+	 * @return row index of k-th change.
+	 */
+	public int getChangedRow(final int k) {
+		return journal.get(k * JOURNAL_ENTRY_SIZE);
+	}
+
+	/**
+	 *
+	 * @param k
+	 *            index of recorded change.
+	 * @return column index of k-th change.
+	 */
+	public int getChangedColumn(final int k) {
+		return journal.get(k * JOURNAL_ENTRY_SIZE + 1);
 	}
 
 	/**
@@ -129,7 +308,26 @@ public class OverlapRelation {
 	 * @return [i][j] value.
 	 */
 	public byte get(final int i, final int j) {
-		return toExternal(overlapRelation.get(i, j));
+		return toExternal(getInternal(i, j));
+	}
+
+	private byte getInternal(final int i, final int j) {
+		if (i < j) {
+			return overlapRelation.get(i, j);
+		}
+		if (i == j) {
+			return NO_OVERLAP;
+		}
+		return invert(overlapRelation.get(j, i));
+	}
+
+	private byte invert(final byte internalValue) {
+		return switch (internalValue) {
+		case UPPER -> LOWER;
+		case LOWER -> UPPER;
+		case UNDEFINED, NO_OVERLAP -> internalValue;
+		default -> throw new IllegalArgumentException("value argument is wrong.");
+		};
 	}
 
 	/**
@@ -154,24 +352,50 @@ public class OverlapRelation {
 	 */
 	public void set(final int i, final int j, final byte value) throws IllegalArgumentException {
 		var internalValue = toInternal(value);
-		overlapRelation.set(i, j, internalValue);
 
-		switch (internalValue) {
-		case LOWER:
-			overlapRelation.set(j, i, UPPER);
-			break;
-		case UPPER:
-			overlapRelation.set(j, i, LOWER);
-			break;
-		case UNDEFINED, NO_OVERLAP:
-			overlapRelation.set(j, i, internalValue);
-			break;
-
-		default:
-			throw new IllegalArgumentException("value argument is wrong.");
+		if (journal != null) {
+			var previous = getInternal(i, j);
+			if (previous != internalValue) {
+				journal.push(i);
+				journal.push(j);
+				journal.push(previous);
+			}
+		}
+
+		setInternal(i, j, internalValue);
+	}
+
+	private void setInternal(final int i, final int j, final byte internalValue) {
+		if (i < j) {
+			setToStorage(i, j, internalValue);
+		} else if (i > j) {
+			setToStorage(j, i, invert(internalValue));
+		} else if (internalValue != NO_OVERLAP) {
+			throw new IllegalArgumentException("diagonal should be NO_OVERLAP.");
 		}
 	}
 
+	/**
+	 * Sets the value to [i][j] where i < j. Sparse storage is replaced with
+	 * dense one if the cell is out of the sparse storage.
+	 */
+	private void setToStorage(final int i, final int j, final byte internalValue) {
+		if (overlapRelation instanceof CompressedRowByteMatrix sparse
+				&& internalValue != NO_OVERLAP && !sparse.isStorable(i, j)) {
+			switchToDenseMatrix();
+		} else if (overlapRelation instanceof DeltaByteMatrix delta
+				&& !delta.isStorable(i, j, internalValue)) {
+			switchToDenseMatrix();
+		}
+		overlapRelation.set(i, j, internalValue);
+	}
+
+	private void switchToDenseMatrix() {
+		var dense = new UpperTriangularByteMatrix(getSize(), 2);
+		overlapRelation.copyTo(dense);
+		overlapRelation = dense;
+	}
+
 	/**
 	 * Sets {@link OverlapRelationValues#LOWER} to
 	 * {@code overlapRelation[i][j]}. This method sets
@@ -254,7 +478,7 @@ public class OverlapRelation {
 	 *         {@link OverlapRelationValues#LOWER}.
 	 */
 	public boolean isLower(final int i, final int j) {
-		return overlapRelation.get(i, j) == LOWER;
+		return getInternal(i, j) == LOWER;
 	}
 
 	/**
@@ -263,7 +487,7 @@ public class OverlapRelation {
 	 *         {@link OverlapRelationValues#UPPER}.
 	 */
 	public boolean isUpper(final int i, final int j) {
-		return overlapRelation.get(i, j) == UPPER;
+		return getInternal(i, j) == UPPER;
 	}
 
 	/**
@@ -272,7 +496,7 @@ public class OverlapRelation {
 	 *         {@link OverlapRelationValues#UNDEFINED}.
 	 */
 	public boolean isUndefined(final int i, final int j) {
-		return overlapRelation.get(i, j) == UNDEFINED;
+		return getInternal(i, j) == UNDEFINED;
 	}
 
 	/**
@@ -281,7 +505,50 @@ public class OverlapRelation {
 	 *         {@link OverlapRelationValues#NO_OVERLAP}.
 	 */
 	public boolean isNoOverlap(final int i, final int j) {
-		return overlapRelation.get(i, j) == NO_OVERLAP;
+		return getInternal(i, j) == NO_OVERLAP;
+	}
+
+	/**
+	 * Creates the upper sets: [i][j] is true if and only if
+	 * {@link #isUpper(int, int)} holds for i and j.
+	 *
+	 * @return a snapshot which is not updated by this relation.
+	 */
+	public BitRowMatrix createUpperRows() {
+		return createRows(UPPER);
+	}
+
+	/**
+	 * Creates the lower sets: [i][j] is true if and only if
+	 * {@link #isLower(int, int)} holds for i and j.
+	 *
+	 * @return a snapshot which is not updated by this relation.
+	 */
+	public BitRowMatrix createLowerRows() {
+		return createRows(LOWER);
+	}
+
+	/**
+	 * Creates the sets of undetermined pairs: [i][j] is true if and only if
+	 * {@link #isUndefined(int, int)} holds for i and j.
+	 *
+	 * @return a snapshot which is not updated by this relation.
+	 */
+	public BitRowMatrix createUndefinedRows() {
+		return createRows(UNDEFINED);
+	}
+
+	private BitRowMatrix createRows(final byte internalValue) {
+		var size = getSize();
+		var rows = new BitRowMatrix(size);
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				if (getInternal(i, j) == internalValue) {
+					rows.set(i, j);
+				}
+			}
+		}
+		return rows;
 	}
 
 	public EstimationResult setLowerIfPossible(final int i, final int j) {
@@ -311,10 +578,11 @@ public class OverlapRelation {
 		var builder = new StringBuilder();
 
 		for (int i = 0; i < getSize(); i++) {
-			var line = String.join(" ",
-					overlapRelation.getRow(i).stream()
-							.map(b -> b.toString())
-							.toList());
+			var row = new ArrayList<String>();
+			for (int j = 0; j < getSize(); j++) {
+				row.add(Byte.toString(getInternal(i, j)));
+			}
+			var line = String.join(" ", row);
 			builder.append(line);
 			builder.append(System.lineSeparator());
 		}
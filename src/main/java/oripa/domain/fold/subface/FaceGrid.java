@@ -0,0 +1,143 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold.subface;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import oripa.domain.fold.halfedge.OriFace;
+import oripa.domain.fold.halfedge.OriHalfedge;
+import oripa.geom.RectangleDomain;
+import oripa.util.IntStack;
+import oripa.vecmath.Vector2d;
+
+/**
+ * Uniform grid of faces keyed on the bounding boxes of the faces after
+ * folding. The number of the cells is about the number of the faces. This
+ * object is immutable and can be shared among threads.
+ */
+public class FaceGrid {
+	private final List<OriFace> faces;
+	private final double left, top;
+	private final double cellWidth, cellHeight;
+	private final int divisionCount;
+
+	/**
+	 * [cell index] = indices of the faces whose bounding box touches the cell
+	 * in ascending order.
+	 */
+	private final int[][] cells;
+
+	/**
+	 *
+	 * @param faces
+	 *            faces after folding.
+	 * @param eps
+	 *            the bounding boxes are enlarged by this value.
+	 */
+	public FaceGrid(final List<OriFace> faces, final double eps) {
+		this.faces = faces;
+
+		var domains = faces.stream()
+				.map(face -> RectangleDomain.createFromPoints(
+						face.halfedgeStream().map(OriHalfedge::getPosition).toList()))
+				.toList();
+
+		var whole = RectangleDomain.createFromPoints(domains.stream()
+				.filter(domain -> !domain.isVoid())
+				.flatMap(domain -> List.of(domain.getLeftTop(), domain.getRightBottom()).stream())
+				.toList());
+
+		divisionCount = Math.max(1, (int) Math.ceil(Math.sqrt(faces.size())));
+		if (whole.isVoid()) {
+			left = top = 0;
+			cellWidth = cellHeight = 1;
+		} else {
+			left = whole.getLeft();
+			top = whole.getTop();
+			cellWidth = Math.max(whole.getWidth() / divisionCount, eps);
+			cellHeight = Math.max(whole.getHeight() / divisionCount, eps);
+		}
+
+		var cellLists = new ArrayList<IntStack>();
+		for (int c = 0; c < divisionCount * divisionCount; c++) {
+			cellLists.add(new IntStack());
+		}
+		for (int k = 0; k < domains.size(); k++) {
+			var domain = domains.get(k);
+			if (domain.isVoid()) {
+				continue;
+			}
+			int x0 = toCellX(domain.getLeft() - eps);
+			int x1 = toCellX(domain.getRight() + eps);
+			int y0 = toCellY(domain.getTop() - eps);
+			int y1 = toCellY(domain.getBottom() + eps);
+			for (int y = y0; y <= y1; y++) {
+				for (int x = x0; x <= x1; x++) {
+					cellLists.get(y * divisionCount + x).push(k);
+				}
+			}
+		}
+
+		cells = cellLists.stream()
+				.map(list -> {
+					var array = new int[list.size()];
+					for (int i = 0; i < array.length; i++) {
+						array[i] = list.get(i);
+					}
+					return array;
+				})
+				.toArray(int[][]::new);
+	}
+
+	private int toCellX(final double x) {
+		return clamp((int) Math.floor((x - left) / cellWidth));
+	}
+
+	private int toCellY(final double y) {
+		return clamp((int) Math.floor((y - top) / cellHeight));
+	}
+
+	private int clamp(final int index) {
+		return Math.min(Math.max(index, 0), divisionCount - 1);
+	}
+
+	public List<OriFace> getFaces() {
+		return faces;
+	}
+
+	/**
+	 * Collects the indices of faces whose bounding box may contain the given
+	 * points.
+	 *
+	 * @param points
+	 *            query points.
+	 * @return indices on {@link #getFaces()}.
+	 */
+	public BitSet findCandidates(final List<Vector2d> points) {
+		var candidates = new BitSet(faces.size());
+		for (var point : points) {
+			for (var k : cells[toCellY(point.getY()) * divisionCount + toCellX(point.getX())]) {
+				candidates.set(k);
+			}
+		}
+		return candidates;
+	}
+}
@@ -35,4 +35,24 @@ public class ParentFacesCollector {
 				.filter(face -> innerPoints.stream().anyMatch(innerPoint -> face.includesExclusively(innerPoint, eps)))
 				.toList();
 	}
+
+	/**
+	 * Collects the parent faces among the faces whose bounding box contains
+	 * an inner point of the subface. This method is thread safe if the
+	 * polygons of the faces have been triangulated.
+	 *
+	 * @param grid
+	 *            spatial index of the faces.
+	 * @return parent faces in the order of {@link FaceGrid#getFaces()}.
+	 */
+	public List<OriFace> collect(final FaceGrid grid, final SubFace sub,
+			final double eps) {
+		var innerPoints = sub.getInnerPoints(eps);
+		var faces = grid.getFaces();
+
+		return grid.findCandidates(innerPoints).stream()
+				.mapToObj(faces::get)
+				.filter(face -> innerPoints.stream().anyMatch(innerPoint -> face.includesExclusively(innerPoint, eps)))
+				.toList();
+	}
 }
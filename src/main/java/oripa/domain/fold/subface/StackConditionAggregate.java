@@ -21,7 +21,6 @@ package oripa.domain.fold.subface;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import oripa.domain.fold.halfedge.OriFace;
@@ -141,12 +140,14 @@ class StackConditionAggregate {
 	boolean satisfiesConditionsOf2Faces(
 			final boolean[] alreadyInLocalLayerOrder,
 			final OriFace f) {
-		if (stackConditionsOf2Faces.get(f).stream()
-				.allMatch(i -> alreadyInLocalLayerOrder[i])) {
-			return true;
+		var conditions = stackConditionsOf2Faces.get(f);
+		for (int k = 0; k < conditions.size(); k++) {
+			if (!alreadyInLocalLayerOrder[conditions.get(k)]) {
+				failureCountOf2Faces.incrementAndGet();
+				return false;
+			}
 		}
-		failureCountOf2Faces.incrementAndGet();
-		return false;
+		return true;
 	}
 
 	/**
@@ -163,10 +164,13 @@ class StackConditionAggregate {
 	boolean satisfiesConditionsOf3Faces(
 			final boolean[] alreadyInLocalLayerOrder,
 			final OriFace face) {
-		if (stackConditionsOf3Faces.get(face).stream().anyMatch(cond -> alreadyInLocalLayerOrder[cond.lower()]
-				&& !alreadyInLocalLayerOrder[cond.upper()])) {
-			failureCountOf3Faces.incrementAndGet();
-			return false;
+		var conditions = stackConditionsOf3Faces.get(face);
+		for (int k = 0; k < conditions.size(); k++) {
+			var cond = conditions.get(k);
+			if (alreadyInLocalLayerOrder[cond.lower()] && !alreadyInLocalLayerOrder[cond.upper()]) {
+				failureCountOf3Faces.incrementAndGet();
+				return false;
+			}
 		}
 
 		return true;
@@ -176,21 +180,19 @@ class StackConditionAggregate {
 	 * Test whether the given face can be put at the last position of the
 	 * ordering.
 	 *
-	 * @param modelFaces
-	 *            all faces of origami model.
 	 * @param alreadyInLocalLayerOrder
 	 *            a boolean array where [i] is whether a face with face ID i has
 	 *            been used in local layer order.
 	 * @param indexOnOrdering
-	 *            a mapping face to index on local layer order.
+	 *            an array where [i] is the index of a face with face ID i on
+	 *            local layer order.
 	 * @param f
 	 *            a face to be tested.
 	 * @return {@code true} if {@code f} satisfies the condition of 2 faces.
 	 */
 	boolean satisfiesConditionsOf4Faces(
-			final List<OriFace> modelFaces,
 			final boolean[] alreadyInLocalLayerOrder,
-			final Map<OriFace, Integer> indexOnOrdering,
+			final int[] indexOnOrdering,
 			final OriFace face) {
 		// check condition4
 		// aabb or abba or baab are good, but aba or bab are impossible
@@ -200,24 +202,27 @@ class StackConditionAggregate {
 		// stack lower1 < lower2, without upper2 being stacked, dont stack
 		// upper1
 
-		if (stackConditionsOf4Faces.get(face).stream().anyMatch(cond -> face.getFaceID() == cond.upper2()
-				&& alreadyInLocalLayerOrder[cond.lower2()]
-				&& alreadyInLocalLayerOrder[cond.lower1()]
-				&& !alreadyInLocalLayerOrder[cond.upper1()]
-				&& indexOnOrdering.get(modelFaces.get(cond.lower2())) < indexOnOrdering
-						.get(modelFaces.get(cond.lower1())))) {
-			failureCountOf4Faces.incrementAndGet();
-			return false;
-		}
+		var faceID = face.getFaceID();
+		var conditions = stackConditionsOf4Faces.get(face);
+		for (int k = 0; k < conditions.size(); k++) {
+			var cond = conditions.get(k);
+			if (!alreadyInLocalLayerOrder[cond.lower2()] || !alreadyInLocalLayerOrder[cond.lower1()]) {
+				continue;
+			}
+
+			if (faceID == cond.upper2()
+					&& !alreadyInLocalLayerOrder[cond.upper1()]
+					&& indexOnOrdering[cond.lower2()] < indexOnOrdering[cond.lower1()]) {
+				failureCountOf4Faces.incrementAndGet();
+				return false;
+			}
 
-		if (stackConditionsOf4Faces.get(face).stream().anyMatch(cond -> face.getFaceID() == cond.upper1()
-				&& alreadyInLocalLayerOrder[cond.lower2()]
-				&& alreadyInLocalLayerOrder[cond.lower1()]
-				&& !alreadyInLocalLayerOrder[cond.upper2()]
-				&& indexOnOrdering.get(modelFaces.get(cond.lower1())) < indexOnOrdering.get(modelFaces
-						.get(cond.lower2())))) {
-			failureCountOf4Faces.incrementAndGet();
-			return false;
+			if (faceID == cond.upper1()
+					&& !alreadyInLocalLayerOrder[cond.upper2()]
+					&& indexOnOrdering[cond.lower1()] < indexOnOrdering[cond.lower2()]) {
+				failureCountOf4Faces.incrementAndGet();
+				return false;
+			}
 		}
 
 		return true;
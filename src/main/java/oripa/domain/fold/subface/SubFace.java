@@ -22,7 +22,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -49,8 +48,6 @@ public class SubFace {
 	private final List<StackConditionOf4Faces> condition4s = new ArrayList<>();
 	private final List<StackConditionOf3Faces> condition3s = new ArrayList<>();
 
-	private List<OriFace> modelFaces;
-
 	private final AtomicInteger callCount = new AtomicInteger(0);
 	private final AtomicInteger successCount = new AtomicInteger(0);
 
@@ -91,8 +88,6 @@ public class SubFace {
 			final OverlapRelation overlapRelation,
 			final boolean parallel) {
 
-		this.modelFaces = modelFaces;
-
 		// Exit if the order is already settled
 		if (isLocalLayerOrderDeterminedByGlobal(overlapRelation)) {
 			return null;
@@ -104,7 +99,7 @@ public class SubFace {
 		var localLayerOrders = Collections.synchronizedList(new ArrayList<List<OriFace>>());
 		var localLayerOrder = new ArrayList<OriFace>();
 		var alreadyInLocalLayerOrder = new boolean[modelFaces.size()];
-		var indexOnOrdering = new HashMap<OriFace, Integer>();
+		var indexOnOrdering = new int[modelFaces.size()];
 		var stackConditionAggregate = new StackConditionAggregate();
 
 		for (int i = 0; i < parentFaces.size(); i++) {
@@ -117,7 +112,7 @@ public class SubFace {
 
 		for (OriFace f : parentFaces) {
 			alreadyInLocalLayerOrder[f.getFaceID()] = false;
-			indexOnOrdering.put(f, -1);
+			indexOnOrdering[f.getFaceID()] = -1;
 		}
 
 		// Heuristic: a face with many stack conditions of 2 faces should be at
@@ -166,12 +161,17 @@ public class SubFace {
 		return true;
 	}
 
+	/**
+	 * Puts faces to the local layer order recursively. The sequential path
+	 * updates and restores the given arrays in place so that it doesn't
+	 * allocate objects except for the answers.
+	 */
 	private void sort(
 			final List<OriFace> candidateFaces,
 			final List<List<OriFace>> localLayerOrders,
 			final List<OriFace> localLayerOrder,
 			final boolean[] alreadyInLocalLayerOrder,
-			final Map<OriFace, Integer> indexOnOrdering,
+			final int[] indexOnOrdering,
 			final StackConditionAggregate stackConditionAggregate,
 			final int index,
 			final boolean parallel) {
@@ -182,68 +182,74 @@ public class SubFace {
 			return;
 		}
 
-		var facesToBePut = candidateFaces.stream()
-				.filter(f -> !alreadyInLocalLayerOrder[f.getFaceID()])
-				.toList();
-		var facesToBePutStream = facesToBePut.stream();
-
 		// Avoids overhead of insane parallelization.
 		final int PARALLELIZATION_LOWER_BOUND = 8;
-		boolean doParallel = parallel && facesToBePut.size() > PARALLELIZATION_LOWER_BOUND;
-		if (doParallel) {
-			facesToBePutStream = facesToBePutStream.parallel();
+		if (parallel && parentFaces.size() - index > PARALLELIZATION_LOWER_BOUND) {
+			candidateFaces.stream()
+					.filter(f -> !alreadyInLocalLayerOrder[f.getFaceID()])
+					.toList()
+					.parallelStream()
+					.forEach(f -> {
+						if (!canPut(f, alreadyInLocalLayerOrder, indexOnOrdering, stackConditionAggregate)) {
+							return;
+						}
+
+						var nextLocalLayerOrder = new ArrayList<OriFace>(localLayerOrder);
+						var nextAlreadyInLocalLayerOrder = alreadyInLocalLayerOrder.clone();
+						var nextIndexOnOrdering = indexOnOrdering.clone();
+
+						nextLocalLayerOrder.set(index, f);
+						nextAlreadyInLocalLayerOrder[f.getFaceID()] = true;
+						nextIndexOnOrdering[f.getFaceID()] = index;
+
+						sort(candidateFaces,
+								localLayerOrders,
+								nextLocalLayerOrder,
+								nextAlreadyInLocalLayerOrder,
+								nextIndexOnOrdering,
+								stackConditionAggregate,
+								index + 1,
+								parallel);
+					});
+			return;
 		}
 
-		facesToBePutStream.forEach(f -> {
-			if (!stackConditionAggregate.satisfiesConditionsOf2Faces(alreadyInLocalLayerOrder, f)) {
-				return;
-			}
+		for (int k = 0; k < candidateFaces.size(); k++) {
+			var f = candidateFaces.get(k);
+			var faceID = f.getFaceID();
 
-			if (!stackConditionAggregate.satisfiesConditionsOf3Faces(alreadyInLocalLayerOrder, f)) {
-				return;
+			if (alreadyInLocalLayerOrder[faceID]) {
+				continue;
 			}
 
-			if (!stackConditionAggregate.satisfiesConditionsOf4Faces(modelFaces, alreadyInLocalLayerOrder,
-					indexOnOrdering, f)) {
-				return;
+			if (!canPut(f, alreadyInLocalLayerOrder, indexOnOrdering, stackConditionAggregate)) {
+				continue;
 			}
 
-			if (doParallel) {
-				var nextLocalLayerOrder = new ArrayList<OriFace>(localLayerOrder);
-				var nextAlreadyInLocalLayerOrder = alreadyInLocalLayerOrder.clone();
-				var nextIndexOnOrdering = new HashMap<OriFace, Integer>(indexOnOrdering);
-
-				nextLocalLayerOrder.set(index, f);
-				nextAlreadyInLocalLayerOrder[f.getFaceID()] = true;
-				nextIndexOnOrdering.put(f, index);
-
-				sort(facesToBePut,
-						localLayerOrders,
-						nextLocalLayerOrder,
-						nextAlreadyInLocalLayerOrder,
-						nextIndexOnOrdering,
-						stackConditionAggregate,
-						index + 1,
-						parallel);
-			} else {
-				localLayerOrder.set(index, f);
-				alreadyInLocalLayerOrder[f.getFaceID()] = true;
-				indexOnOrdering.put(f, index);
-
-				sort(facesToBePut,
-						localLayerOrders,
-						localLayerOrder,
-						alreadyInLocalLayerOrder,
-						indexOnOrdering,
-						stackConditionAggregate,
-						index + 1,
-						parallel);
-
-				alreadyInLocalLayerOrder[localLayerOrder.get(index).getFaceID()] = false;
-				indexOnOrdering.put(localLayerOrder.get(index), -1);
-				localLayerOrder.set(index, null);
-			}
-		});
+			localLayerOrder.set(index, f);
+			alreadyInLocalLayerOrder[faceID] = true;
+			indexOnOrdering[faceID] = index;
+
+			sort(candidateFaces,
+					localLayerOrders,
+					localLayerOrder,
+					alreadyInLocalLayerOrder,
+					indexOnOrdering,
+					stackConditionAggregate,
+					index + 1,
+					parallel);
+
+			alreadyInLocalLayerOrder[faceID] = false;
+			indexOnOrdering[faceID] = -1;
+			localLayerOrder.set(index, null);
+		}
+	}
+
+	private boolean canPut(final OriFace f, final boolean[] alreadyInLocalLayerOrder, final int[] indexOnOrdering,
+			final StackConditionAggregate stackConditionAggregate) {
+		return stackConditionAggregate.satisfiesConditionsOf2Faces(alreadyInLocalLayerOrder, f)
+				&& stackConditionAggregate.satisfiesConditionsOf3Faces(alreadyInLocalLayerOrder, f)
+				&& stackConditionAggregate.satisfiesConditionsOf4Faces(alreadyInLocalLayerOrder, indexOnOrdering, f);
 	}
 
 	/**
@@ -91,10 +91,18 @@ public class SubFacesFactory {
 
 		// Stores the face reference of given crease pattern into the subface
 		// that is contained in the face.
-		int i = 0;
-		for (SubFace sub : subfaces) {
-			sub.addParentFaces(parentCollector.collect(faces, sub, eps));
-			logger.trace("{} {} #parentFace={}", i++, sub.getOutline(), sub.getParentFaceCount());
+		// triangulates the faces beforehand since it is not thread safe.
+		faces.forEach(face -> face.getInnerPoints(eps));
+		var grid = new FaceGrid(faces, eps);
+
+		subfaces.parallelStream()
+				.forEach(sub -> sub.addParentFaces(parentCollector.collect(grid, sub, eps)));
+
+		if (logger.isTraceEnabled()) {
+			for (int i = 0; i < subfaces.size(); i++) {
+				var sub = subfaces.get(i);
+				logger.trace("{} {} #parentFace={}", i, sub.getOutline(), sub.getParentFaceCount());
+			}
 		}
 
 		// extract distinct subfaces by comparing face list's items.
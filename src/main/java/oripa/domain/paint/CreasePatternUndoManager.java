@@ -30,10 +30,26 @@ import oripa.value.OriLine;
  */
 public class CreasePatternUndoManager extends BasicUndoManager<Collection<OriLine>> {
 
+	/**
+	 * Max number of stored lines in the history by default.
+	 */
+	public static final long DEFAULT_STORED_LINE_LIMIT = 4_000_000;
+
 	/**
 	 * Constructor
 	 */
 	public CreasePatternUndoManager() {
-		super(new CreasePatternUndoFactory());
+		this(DEFAULT_STORED_LINE_LIMIT);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param storedLineLimit
+	 *            max number of lines kept in the history. Old steps are
+	 *            discarded when the history exceeds it.
+	 */
+	public CreasePatternUndoManager(final long storedLineLimit) {
+		super(new CreasePatternUndoFactory(), storedLineLimit);
 	}
 }
@@ -0,0 +1,195 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.paint.history;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import oripa.util.history.UndoInfo;
+import oripa.value.OriLine;
+
+/**
+ * Undo info which stores the lines added and removed since the previous info.
+ * A checkpoint, which has no previous info, stores all lines instead. The
+ * whole lines are restored by applying the differences from the nearest
+ * checkpoint.
+ *
+ * The latest state is cached as a map and handed over to the next info so
+ * that successive pushes need no restoration. The stored lines are copies
+ * since the selection of lines is mutable.
+ */
+class CreasePatternDeltaUndoInfo implements UndoInfo<Collection<OriLine>> {
+
+	private CreasePatternDeltaUndoInfo previous;
+
+	/** all lines for checkpoint. {@code null} if this info is a difference. */
+	private List<OriLine> checkpointLines;
+
+	private List<OriLine> addedLines = List.of();
+	private List<OriLine> removedLines = List.of();
+
+	/** the number of differences from the checkpoint. */
+	private int depth;
+
+	/** the sum of difference sizes from the checkpoint. */
+	private long deltaSizeSum;
+
+	/** lines in this state mapped to themselves. */
+	private HashMap<OriLine, OriLine> cachedState;
+
+	/**
+	 * Creates a checkpoint.
+	 */
+	CreasePatternDeltaUndoInfo(final Collection<OriLine> lines) {
+		setInfo(lines);
+	}
+
+	/**
+	 * Creates a difference from {@code previous}, or a checkpoint if the
+	 * difference is too long.
+	 *
+	 * @param lines
+	 *            current lines.
+	 * @param previous
+	 *            the info just before the new one.
+	 * @param checkpointInterval
+	 *            max number of differences between checkpoints.
+	 */
+	CreasePatternDeltaUndoInfo(final Collection<OriLine> lines, final CreasePatternDeltaUndoInfo previous,
+			final int checkpointInterval) {
+		if (previous.depth + 1 >= checkpointInterval) {
+			previous.cachedState = null;
+			setInfo(lines);
+			return;
+		}
+
+		var state = previous.takeState();
+
+		var added = new ArrayList<OriLine>();
+		var removed = new ArrayList<OriLine>();
+		var keptCount = 0;
+		for (var line : lines) {
+			var stored = state.get(line);
+			if (stored != null) {
+				keptCount++;
+				if (stored.isSelected() == line.isSelected()) {
+					continue;
+				}
+				removed.add(stored);
+			}
+			added.add(new OriLine(line));
+		}
+
+		if (keptCount < state.size()) {
+			Set<OriLine> currentLines = lines instanceof Set<OriLine> set ? set : new HashSet<>(lines);
+			state.keySet().stream()
+					.filter(line -> !currentLines.contains(line))
+					.forEach(removed::add);
+		}
+
+		var deltaSize = added.size() + removed.size();
+		if (previous.deltaSizeSum + deltaSize > lines.size()) {
+			// restoring from the differences would cost more than a copy.
+			setInfo(lines);
+			return;
+		}
+
+		removed.forEach(state::remove);
+		added.forEach(line -> state.put(line, line));
+
+		this.previous = previous;
+		addedLines = added;
+		removedLines = removed;
+		depth = previous.depth + 1;
+		deltaSizeSum = previous.deltaSizeSum + deltaSize;
+		cachedState = state;
+	}
+
+	/**
+	 * @return the state of this info. The cache of this info is moved to the
+	 *         caller.
+	 */
+	private HashMap<OriLine, OriLine> takeState() {
+		var state = cachedState != null ? cachedState : restoreState();
+		cachedState = null;
+		return state;
+	}
+
+	private HashMap<OriLine, OriLine> restoreState() {
+		var chain = new ArrayList<CreasePatternDeltaUndoInfo>();
+		for (var info = this; info != null; info = info.previous) {
+			chain.add(info);
+		}
+
+		var checkpoint = chain.getLast();
+		var state = new HashMap<OriLine, OriLine>();
+		checkpoint.checkpointLines.forEach(line -> state.put(line, line));
+
+		for (int i = chain.size() - 2; i >= 0; i--) {
+			var info = chain.get(i);
+			info.removedLines.forEach(state::remove);
+			info.addedLines.forEach(line -> state.put(line, line));
+		}
+
+		return state;
+	}
+
+	@Override
+	public Collection<OriLine> getInfo() {
+		var state = cachedState != null ? cachedState : restoreState();
+
+		// the caller may change the selection of the returned lines.
+		return state.values().stream()
+				.map(OriLine::new)
+				.toList();
+	}
+
+	@Override
+	public void setInfo(final Collection<OriLine> lines) {
+		previous = null;
+		addedLines = List.of();
+		removedLines = List.of();
+		depth = 0;
+		deltaSizeSum = 0;
+
+		checkpointLines = lines.stream()
+				.map(OriLine::new)
+				.toList();
+
+		cachedState = new HashMap<>();
+		checkpointLines.forEach(line -> cachedState.put(line, line));
+	}
+
+	@Override
+	public long getStoredSize() {
+		if (isStandalone()) {
+			return Math.max(1, checkpointLines.size());
+		}
+		return Math.max(1, addedLines.size() + removedLines.size());
+	}
+
+	@Override
+	public boolean isStandalone() {
+		return previous == null;
+	}
+}
@@ -31,6 +31,23 @@ import oripa.value.OriLine;
 public class CreasePatternUndoFactory implements
 		UndoInfoFactory<Collection<OriLine>> {
 
+	private static final int DEFAULT_CHECKPOINT_INTERVAL = 32;
+
+	private final int checkpointInterval;
+
+	public CreasePatternUndoFactory() {
+		this(DEFAULT_CHECKPOINT_INTERVAL);
+	}
+
+	/**
+	 * @param checkpointInterval
+	 *            max number of undo steps stored as differences between two
+	 *            steps which store all lines.
+	 */
+	public CreasePatternUndoFactory(final int checkpointInterval) {
+		this.checkpointInterval = checkpointInterval;
+	}
+
 	/*
 	 * (non Javadoc)
 	 *
@@ -38,7 +55,16 @@ public class CreasePatternUndoFactory implements
 	 */
 	@Override
 	public UndoInfo<Collection<OriLine>> create(final Collection<OriLine> info) {
-		return new CreasePatternUndoInfoImpl(info);
+		return new CreasePatternDeltaUndoInfo(info);
+	}
+
+	@Override
+	public UndoInfo<Collection<OriLine>> create(final Collection<OriLine> info,
+			final UndoInfo<Collection<OriLine>> previous) {
+		if (previous instanceof CreasePatternDeltaUndoInfo deltaInfo) {
+			return new CreasePatternDeltaUndoInfo(info, deltaInfo, checkpointInterval);
+		}
+		return create(info);
 	}
 
 }
@@ -0,0 +1,415 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.geom;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * R-tree of segments keyed by their bounding boxes. The tree can be bulk
+ * loaded by Sort-Tile-Recursive packing and updated by insertion and removal
+ * afterwards. Queries visit only the nodes whose boxes touch the query, so
+ * they take about O(log n + k) time for k results regardless of how long the
+ * stored segments are.
+ *
+ * This class is not thread-safe.
+ * @param <T>
+ *            type of segment
+ */
+public class SegmentRTree<T extends Segment> {
+	static final int MAX_CHILDREN = 16;
+
+	private static class Node<T> {
+		double minX, minY, maxX, maxY;
+		Node<T> parent;
+
+		/**
+		 * null if this node is an entry.
+		 */
+		final List<Node<T>> children;
+		final boolean leaf;
+
+		/**
+		 * non-null only if this node is an entry.
+		 */
+		final T item;
+
+		Node(final boolean leaf) {
+			children = new ArrayList<>(MAX_CHILDREN + 1);
+			this.leaf = leaf;
+			item = null;
+			setVoid();
+		}
+
+		Node(final T item, final Segment segment) {
+			children = null;
+			leaf = false;
+			this.item = item;
+			minX = Math.min(segment.getP0().getX(), segment.getP1().getX());
+			minY = Math.min(segment.getP0().getY(), segment.getP1().getY());
+			maxX = Math.max(segment.getP0().getX(), segment.getP1().getX());
+			maxY = Math.max(segment.getP0().getY(), segment.getP1().getY());
+		}
+
+		void setVoid() {
+			minX = Double.POSITIVE_INFINITY;
+			minY = Double.POSITIVE_INFINITY;
+			maxX = Double.NEGATIVE_INFINITY;
+			maxY = Double.NEGATIVE_INFINITY;
+		}
+
+		void addChild(final Node<T> child) {
+			children.add(child);
+			child.parent = this;
+			include(child);
+		}
+
+		void include(final Node<T> node) {
+			minX = Math.min(minX, node.minX);
+			minY = Math.min(minY, node.minY);
+			maxX = Math.max(maxX, node.maxX);
+			maxY = Math.max(maxY, node.maxY);
+		}
+
+		void recomputeBox() {
+			setVoid();
+			children.forEach(this::include);
+		}
+
+		double centerX() {
+			return (minX + maxX) / 2;
+		}
+
+		double centerY() {
+			return (minY + maxY) / 2;
+		}
+
+		double area() {
+			return (maxX - minX) * (maxY - minY);
+		}
+
+		double enlargedArea(final Node<T> node) {
+			return (Math.max(maxX, node.maxX) - Math.min(minX, node.minX))
+					* (Math.max(maxY, node.maxY) - Math.min(minY, node.minY));
+		}
+
+		boolean intersects(final double minX, final double minY, final double maxX, final double maxY) {
+			return this.minX <= maxX && minX <= this.maxX
+					&& this.minY <= maxY && minY <= this.maxY;
+		}
+
+		boolean contains(final Node<T> node) {
+			return minX <= node.minX && node.maxX <= maxX
+					&& minY <= node.minY && node.maxY <= maxY;
+		}
+
+		/**
+		 * Liang-Barsky test of the segment against this box enlarged by eps.
+		 */
+		boolean intersectsSegment(final double x0, final double y0, final double x1, final double y1,
+				final double eps) {
+			var dx = x1 - x0;
+			var dy = y1 - y0;
+
+			var range = new double[] { 0, 1 };
+			return clipRange(-dx, x0 - (minX - eps), range)
+					&& clipRange(dx, (maxX + eps) - x0, range)
+					&& clipRange(-dy, y0 - (minY - eps), range)
+					&& clipRange(dy, (maxY + eps) - y0, range);
+		}
+
+		private boolean clipRange(final double p, final double q, final double[] range) {
+			if (p == 0) {
+				return q >= 0;
+			}
+			var t = q / p;
+			if (p < 0) {
+				range[0] = Math.max(range[0], t);
+			} else {
+				range[1] = Math.min(range[1], t);
+			}
+			return range[0] <= range[1];
+		}
+	}
+
+	private Node<T> root;
+	private int size;
+
+	/**
+	 * Constructs an empty tree.
+	 */
+	public SegmentRTree() {
+		root = new Node<>(true);
+		size = 0;
+	}
+
+	/**
+	 * Constructs a tree containing the given segments by bulk loading.
+	 */
+	public SegmentRTree(final Collection<? extends T> segments) {
+		var entries = segments.stream()
+				.map(s -> new Node<T>(s, s))
+				.toList();
+
+		size = entries.size();
+
+		if (entries.isEmpty()) {
+			root = new Node<>(true);
+			return;
+		}
+
+		var nodes = pack(entries, true);
+		while (nodes.size() > 1) {
+			nodes = pack(nodes, false);
+		}
+		root = nodes.get(0);
+	}
+
+	/**
+	 * Sort-Tile-Recursive packing of one level.
+	 *
+	 * @return parents of the given nodes.
+	 */
+	private List<Node<T>> pack(final List<Node<T>> nodes, final boolean leaf) {
+		var parentCount = (nodes.size() + MAX_CHILDREN - 1) / MAX_CHILDREN;
+		var sliceCount = (int) Math.ceil(Math.sqrt(parentCount));
+		var sliceSize = sliceCount * MAX_CHILDREN;
+
+		var sortedByX = sort(nodes, Node::centerX);
+
+		var parents = new ArrayList<Node<T>>(parentCount);
+		for (int i = 0; i < sortedByX.size(); i += sliceSize) {
+			var slice = sort(sortedByX.subList(i, Math.min(i + sliceSize, sortedByX.size())),
+					Node::centerY);
+			for (int j = 0; j < slice.size(); j += MAX_CHILDREN) {
+				var parent = new Node<T>(leaf);
+				slice.subList(j, Math.min(j + MAX_CHILDREN, slice.size()))
+						.forEach(parent::addChild);
+				parents.add(parent);
+			}
+		}
+		return parents;
+	}
+
+	private List<Node<T>> sort(final List<Node<T>> nodes, final ToDoubleFunction<Node<T>> key) {
+		var sorted = new ArrayList<>(nodes);
+		sorted.sort(Comparator.comparingDouble(key));
+		return sorted;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		root = new Node<>(true);
+		size = 0;
+	}
+
+	public void add(final T segment) {
+		var entry = new Node<T>(segment, segment);
+
+		var node = root;
+		while (!node.leaf) {
+			node = chooseChild(node, entry);
+		}
+
+		node.addChild(entry);
+		for (var parent = node.parent; parent != null; parent = parent.parent) {
+			parent.include(entry);
+		}
+		size++;
+
+		if (node.children.size() > MAX_CHILDREN) {
+			split(node);
+		}
+	}
+
+	/**
+	 * @return the child needing the least enlargement to include the entry.
+	 */
+	private Node<T> chooseChild(final Node<T> node, final Node<T> entry) {
+		Node<T> chosen = null;
+		var minEnlargement = Double.POSITIVE_INFINITY;
+		var minArea = Double.POSITIVE_INFINITY;
+
+		for (var child : node.children) {
+			var area = child.area();
+			var enlargement = child.enlargedArea(entry) - area;
+			if (enlargement < minEnlargement
+					|| (enlargement == minEnlargement && area < minArea)) {
+				chosen = child;
+				minEnlargement = enlargement;
+				minArea = area;
+			}
+		}
+		return chosen;
+	}
+
+	/**
+	 * Splits the overflowing node into halves along its longer side.
+	 */
+	private void split(final Node<T> node) {
+		var sorted = node.maxX - node.minX >= node.maxY - node.minY
+				? sort(node.children, Node::centerX)
+				: sort(node.children, Node::centerY);
+
+		var half = sorted.size() / 2;
+
+		node.children.clear();
+		node.setVoid();
+		sorted.subList(0, half).forEach(node::addChild);
+
+		var sibling = new Node<T>(node.leaf);
+		sorted.subList(half, sorted.size()).forEach(sibling::addChild);
+
+		var parent = node.parent;
+		if (parent == null) {
+			root = new Node<>(false);
+			root.addChild(node);
+			root.addChild(sibling);
+			return;
+		}
+
+		parent.addChild(sibling);
+		if (parent.children.size() > MAX_CHILDREN) {
+			split(parent);
+		}
+	}
+
+	/**
+	 * Removes the given segment. Segments are compared by
+	 * {@link Object#equals(Object)}.
+	 *
+	 * @return true if the segment was in this tree.
+	 */
+	public boolean remove(final T segment) {
+		var target = new Node<T>(segment, segment);
+		var entry = findEntry(root, target);
+		if (entry == null) {
+			return false;
+		}
+
+		var node = entry.parent;
+		node.children.remove(entry);
+		size--;
+
+		// shrink the boxes and drop empty nodes on the way to the root.
+		while (node != root) {
+			var parent = node.parent;
+			if (node.children.isEmpty()) {
+				parent.children.remove(node);
+			} else {
+				node.recomputeBox();
+			}
+			node = parent;
+		}
+		root.recomputeBox();
+
+		while (!root.leaf && root.children.size() == 1) {
+			root = root.children.get(0);
+			root.parent = null;
+		}
+		if (!root.leaf && root.children.isEmpty()) {
+			clear();
+		}
+
+		return true;
+	}
+
+	private Node<T> findEntry(final Node<T> node, final Node<T> target) {
+		if (!node.contains(target)) {
+			return null;
+		}
+		for (var child : node.children) {
+			if (node.leaf) {
+				if (child.item.equals(target.item)) {
+					return child;
+				}
+				continue;
+			}
+			var entry = findEntry(child, target);
+			if (entry != null) {
+				return entry;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Finds the segments whose bounding boxes intersect the given rectangle.
+	 * The boundary is inclusive.
+	 */
+	public List<T> search(final double minX, final double minY, final double maxX, final double maxY) {
+		var result = new ArrayList<T>();
+		search(root, minX, minY, maxX, maxY, result);
+		return result;
+	}
+
+	private void search(final Node<T> node,
+			final double minX, final double minY, final double maxX, final double maxY,
+			final List<T> result) {
+		if (!node.intersects(minX, minY, maxX, maxY)) {
+			return;
+		}
+		for (var child : node.children) {
+			if (!node.leaf) {
+				search(child, minX, minY, maxX, maxY, result);
+			} else if (child.intersects(minX, minY, maxX, maxY)) {
+				result.add(child.item);
+			}
+		}
+	}
+
+	/**
+	 * Finds the segments whose bounding boxes come within eps of the given
+	 * segment. Unlike a search by the bounding box of the given segment, the
+	 * boxes far from a diagonal segment are not visited.
+	 */
+	public List<T> searchAlong(final Segment segment, final double eps) {
+		var result = new ArrayList<T>();
+		searchAlong(root,
+				segment.getP0().getX(), segment.getP0().getY(),
+				segment.getP1().getX(), segment.getP1().getY(),
+				eps, result);
+		return result;
+	}
+
+	private void searchAlong(final Node<T> node,
+			final double x0, final double y0, final double x1, final double y1, final double eps,
+			final List<T> result) {
+		if (node.children.isEmpty() || !node.intersectsSegment(x0, y0, x1, y1, eps)) {
+			return;
+		}
+		for (var child : node.children) {
+			if (!node.leaf) {
+				searchAlong(child, x0, y0, x1, y1, eps, result);
+			} else if (child.intersectsSegment(x0, y0, x1, y1, eps)) {
+				result.add(child.item);
+			}
+		}
+	}
+}
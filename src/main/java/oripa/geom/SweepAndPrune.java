@@ -0,0 +1,77 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.geom;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import oripa.util.IntPair;
+
+/**
+ * Broad phase of intersection tests. Finds the pairs of rectangle domains
+ * which may intersect by sweeping along x-axis, so that expensive exact tests
+ * are needed only for those pairs. The computation takes O(n log n) time for
+ * sorting and O(m) time per domain for scanning the active list, where m is
+ * the number of domains overlapping it along x-axis. Hence the cost depends on
+ * the x-overlaps rather than on the number of the found pairs, and it degrades
+ * to O(n^2) when the domains are stacked along x-axis.
+ */
+public class SweepAndPrune {
+
+	/**
+	 *
+	 * @param domains
+	 *            bounding boxes of the targets.
+	 * @param eps
+	 *            tolerance. The domains within this distance are treated as
+	 *            intersecting.
+	 * @return index pairs (i, j) with i < j on the given list whose domains
+	 *         intersect. Void domains are ignored.
+	 */
+	public List<IntPair> findIntersectingPairs(final List<RectangleDomain> domains, final double eps) {
+		var sortedIndices = IntStream.range(0, domains.size())
+				.filter(i -> !domains.get(i).isVoid())
+				.boxed()
+				.sorted(Comparator.comparing(i -> domains.get(i).getLeft()))
+				.toList();
+
+		var pairs = new ArrayList<IntPair>();
+		var actives = new ArrayList<Integer>();
+
+		for (var i : sortedIndices) {
+			var domain = domains.get(i);
+
+			actives.removeIf(a -> domains.get(a).getRight() < domain.getLeft() - eps);
+
+			for (var a : actives) {
+				var active = domains.get(a);
+				if (active.getBottom() < domain.getTop() - eps || domain.getBottom() < active.getTop() - eps) {
+					continue;
+				}
+				pairs.add(new IntPair(Math.min(a, i), Math.max(a, i)));
+			}
+
+			actives.add(i);
+		}
+
+		return pairs;
+	}
+}
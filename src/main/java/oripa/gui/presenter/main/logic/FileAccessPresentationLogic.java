@@ -92,7 +92,7 @@ public class FileAccessPresentationLogic {
 	public String saveFile(final String path, final FileType<Doc> type)
 			throws DataAccessException, IllegalArgumentException {
 		try {
-			var doc = Doc.forSaving(paintContextService.getCreasePattern(), project.getProperty());
+			var doc = Doc.forSaving(paintContextService.getCreasePattern().snapshot(), project.getProperty());
 			dataFileAccess.saveFile(doc, path, type);
 
 		} catch (DataAccessException | IllegalArgumentException e) {
@@ -221,36 +221,42 @@ public class ModelComputationFacade {
 	 */
 	public List<OrigamiModel> buildOrigamiModels(final CreasePattern creasePattern) {
 
+		// the editor may change the crease pattern during computation.
+		var snapshot = creasePattern.snapshot();
+
 		OrigamiModel wholeModel = modelFactory.createOrigamiModel(
-				creasePattern, eps);
+				snapshot, eps);
 
 		logger.debug("Building origami model.");
 
 		if (wholeModel.isLocallyFlatFoldable()) {
 			logger.debug("No modification is needed.");
-			return modelFactory.createOrigamiModels(creasePattern, eps);
+			return modelFactory.createOrigamiModels(snapshot, eps);
 		}
 
 		// ask if ORIPA should try to remove duplication.
 		if (!needCleaningUpDuplication.get()) {
 			// the answer is "no."
-			return modelFactory.createOrigamiModels(creasePattern, eps);
+			return modelFactory.createOrigamiModels(snapshot, eps);
 		}
 
 		// clean up the crease pattern
 		if (creasePattern.cleanDuplicatedLines(eps)) {
 			showCleaningUpMessage.run();
 		}
+		snapshot = creasePattern.snapshot();
+
 		// re-create the model data for simplified crease pattern
 		wholeModel = modelFactory
-				.createOrigamiModel(creasePattern, eps);
+				.createOrigamiModel(snapshot, eps);
 
 		if (wholeModel.isLocallyFlatFoldable()) {
-			return modelFactory.createOrigamiModels(creasePattern, eps);
+			return modelFactory.createOrigamiModels(snapshot, eps);
 		}
 
 		showFailureMessage.run();
 
-		return modelFactory.createOrigamiModels(creasePattern, eps);
+		return modelFactory.createOrigamiModels(snapshot, eps);
 	}
+
 }
@@ -37,7 +37,7 @@ public class ExporterORmat implements Exporter<FoldedModelEntity> {
 	public boolean export(final FoldedModelEntity foldedModel, final String filepath, final Object configObj)
 			throws IOException, IllegalArgumentException {
 		OrigamiModel origamiModel = foldedModel.getOrigamiModel();
-		OverlapRelation overlapRelation = foldedModel.getOverlapRelation();
+		OverlapRelation overlapRelation = foldedModel.getOverlapRelation().materialize();
 
 		try (var fw = new FileWriter(filepath);
 				var bw = new BufferedWriter(fw);) {
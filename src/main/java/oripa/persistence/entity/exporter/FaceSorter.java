@@ -21,12 +21,23 @@ package oripa.persistence.entity.exporter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import oripa.domain.fold.halfedge.OriFace;
+import oripa.domain.fold.origeom.FaceLayerSorter;
 import oripa.domain.fold.origeom.OverlapRelation;
 
 public class FaceSorter {
 
+	/**
+	 * Face orders from the top for each overlap relation. The relation
+	 * doesn't override equals() so that the key is the identity of the
+	 * relation, which is not modified after the estimation.
+	 */
+	private static final Map<OverlapRelation, int[]> ORDER_CACHE = Collections
+			.synchronizedMap(new WeakHashMap<>());
+
 	private final List<OriFace> faces;
 	private final OverlapRelation overlapRelation;
 
@@ -36,19 +47,12 @@ public class FaceSorter {
 	}
 
 	public List<OriFace> sortFaces(final boolean faceOrderFlip) {
-		ArrayList<OriFace> sortedFaces = new ArrayList<>();
+		var order = ORDER_CACHE.computeIfAbsent(overlapRelation,
+				relation -> new FaceLayerSorter().sortFromTop(relation.materialize()));
 
-		boolean[] isSorted = new boolean[faces.size()];
-		for (int i = 0; i < faces.size(); i++) {
-			for (int j = 0; j < overlapRelation.getSize(); j++) {
-				if (!isSorted[j]) {
-					if (canAddFace(isSorted, overlapRelation, j)) {
-						isSorted[j] = true;
-						sortedFaces.add(faces.get(j));
-						break;
-					}
-				}
-			}
+		ArrayList<OriFace> sortedFaces = new ArrayList<>(order.length);
+		for (var faceID : order) {
+			sortedFaces.add(faces.get(faceID));
 		}
 
 		if (!faceOrderFlip) {
@@ -57,14 +61,4 @@ public class FaceSorter {
 
 		return sortedFaces;
 	}
-
-	private boolean canAddFace(final boolean[] isSorted, final OverlapRelation overlapRelation, final int j) {
-		for (int k = 0; k < isSorted.length; k++) {
-			if ((!isSorted[k])
-					&& overlapRelation.isLower(j, k)) {
-				return false;
-			}
-		}
-		return true;
-	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,142 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.persistence.entity.exporter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+
+import oripa.domain.fold.halfedge.OrigamiModel;
+import oripa.domain.fold.origeom.OverlapRelation;
+import oripa.persistence.foldformat.FoldedModelElementConverter;
+import oripa.persistence.foldformat.Frame;
+
+/**
+ * Writes multiple frame FOLD file frame by frame. The frames are written as
+ * soon as they are given so that this class doesn't hold the overlap
+ * relations.
+ */
+public class FoldedModelFrameWriterFOLD implements Closeable {
+	private static final String FILE_FRAMES = "file_frames";
+	private static final String FACE_ORDERS = "faceOrders";
+	private static final String FRAME_PARENT = "frame_parent";
+	private static final String FRAME_INHERIT = "frame_inherit";
+
+	private final FoldedModelElementConverter elementConverter = new FoldedModelElementConverter();
+	private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+	private final OrigamiModel origamiModel;
+	private final JsonWriter jsonWriter;
+
+	private int frameCount = 0;
+
+	/**
+	 * Opens the file and writes the model data shared by all frames.
+	 *
+	 * @param origamiModel
+	 *            folded origami model.
+	 * @param filePath
+	 *            output path.
+	 * @throws IOException
+	 */
+	public FoldedModelFrameWriterFOLD(final OrigamiModel origamiModel, final String filePath)
+			throws IOException {
+		this.origamiModel = origamiModel;
+
+		var factory = new FoldedModelFOLDFactory(elementConverter);
+		var foldFormat = factory.createWithoutFaceOrders(origamiModel);
+
+		jsonWriter = gson.newJsonWriter(Files.newBufferedWriter(Path.of(filePath)));
+
+		jsonWriter.beginObject();
+		for (var entry : gson.toJsonTree(foldFormat).getAsJsonObject().entrySet()) {
+			if (entry.getKey().equals(FILE_FRAMES)) {
+				continue;
+			}
+			jsonWriter.name(entry.getKey());
+			gson.toJson(entry.getValue(), jsonWriter);
+		}
+		jsonWriter.name(FILE_FRAMES);
+		jsonWriter.beginArray();
+	}
+
+	/**
+	 * Appends a frame for the given overlap relation. This method is thread
+	 * safe.
+	 *
+	 * @param overlapRelation
+	 *            overlap relation of the folded state.
+	 * @throws IOException
+	 */
+	public void write(final OverlapRelation overlapRelation) throws IOException {
+		var faceOrders = elementConverter.toFaceOrderArray(origamiModel, overlapRelation);
+
+		synchronized (this) {
+			writeFrame(faceOrders);
+			frameCount++;
+		}
+	}
+
+	/**
+	 * Writes the same JSON as {@link Frame} inheriting the key frame without
+	 * building boxed lists.
+	 */
+	private void writeFrame(final int[] faceOrders) throws IOException {
+		jsonWriter.beginObject();
+
+		jsonWriter.name(FACE_ORDERS);
+		jsonWriter.beginArray();
+		for (int k = 0; k < faceOrders.length; k += 3) {
+			jsonWriter.beginArray();
+			jsonWriter.value(faceOrders[k]);
+			jsonWriter.value(faceOrders[k + 1]);
+			jsonWriter.value(faceOrders[k + 2]);
+			jsonWriter.endArray();
+		}
+		jsonWriter.endArray();
+
+		jsonWriter.name(FRAME_PARENT).value(0);
+		jsonWriter.name(FRAME_INHERIT).value(true);
+
+		jsonWriter.endObject();
+	}
+
+	/**
+	 *
+	 * @return the number of frames written so far.
+	 */
+	public synchronized int getFrameCount() {
+		return frameCount;
+	}
+
+	/**
+	 * Closes the frame list and the file.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		jsonWriter.endArray();
+		jsonWriter.endObject();
+		jsonWriter.close();
+	}
+}
@@ -31,8 +31,13 @@ import oripa.vecmath.Vector2d;
  *
  */
 public class FoldedModelPictureConfig {
+	public static final int DEFAULT_SIZE = 600;
+
 	private double eps;
 
+	private int width = DEFAULT_SIZE;
+	private int height = DEFAULT_SIZE;
+
 	private boolean faceOrderFlipped;
 	private boolean fillFaces;
 	private boolean drawEdges;
@@ -55,6 +60,33 @@ public class FoldedModelPictureConfig {
 		return this;
 	}
 
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Sets the size of output image in pixels. The default is
+	 * {@value #DEFAULT_SIZE} x {@value #DEFAULT_SIZE}.
+	 *
+	 * @param width
+	 * @param height
+	 * @return this instance.
+	 * @throws IllegalArgumentException
+	 *             if the size is not positive.
+	 */
+	public FoldedModelPictureConfig setSize(final int width, final int height) {
+		if (width <= 0 || height <= 0) {
+			throw new IllegalArgumentException("image size should be positive.");
+		}
+		this.width = width;
+		this.height = height;
+		return this;
+	}
+
 	public boolean isFaceOrderFlipped() {
 		return faceOrderFlipped;
 	}
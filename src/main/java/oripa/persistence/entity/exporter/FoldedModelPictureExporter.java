@@ -26,6 +26,8 @@ import java.io.IOException;
 
 import javax.imageio.ImageIO;
 
+import oripa.domain.fold.halfedge.OrigamiModel;
+import oripa.domain.fold.origeom.OverlapRelation;
 import oripa.geom.RectangleDomain;
 import oripa.persistence.entity.FoldedModelEntity;
 import oripa.persistence.filetool.Exporter;
@@ -39,8 +41,6 @@ import oripa.swing.view.util.AffineCamera;
  *
  */
 public class FoldedModelPictureExporter implements Exporter<FoldedModelEntity> {
-	private final int WIDTH = 600;
-	private final int HEIGHT = 600;
 
 	/**
 	 * @param configObj
@@ -57,9 +57,45 @@ public class FoldedModelPictureExporter implements Exporter<FoldedModelEntity> {
 		var config = (FoldedModelPictureConfig) configObj;
 
 		var origamiModel = foldedModel.getOrigamiModel();
-		var overlapRelation = foldedModel.getOverlapRelation();
+
+		export(prepare(origamiModel, config), foldedModel.getOverlapRelation(), filePath, config);
+
+		return true;
+	}
+
+	/**
+	 * Distorts the faces of the given model by the config. The result can be
+	 * shared by the exports of the overlap relations of the model.
+	 */
+	public Distortion.DistortedModel prepare(final OrigamiModel origamiModel,
+			final FoldedModelPictureConfig config) {
+		var width = config.getWidth();
+		var height = config.getHeight();
+
 		var modelDomain = origamiModel.createDomainOfFoldedModel();
 
+		var distortion = new Distortion(modelDomain, width, height);
+		var converter = distortion.createCoordinateConverter(config.getDistortionMethod(),
+				config.getDistortionParameter(),
+				computeScale(modelDomain, width, height));
+
+		return distortion.prepare(origamiModel, converter, config.getVertexDepths(), config.getEps());
+	}
+
+	/**
+	 * Renders the given overlap relation of the model and writes the image.
+	 * Thread-safe for the same distorted model.
+	 *
+	 * @param distortedModel
+	 *            the result of {@link #prepare(OrigamiModel, FoldedModelPictureConfig)}
+	 *            for the model of the overlap relation with the same config.
+	 */
+	public void export(final Distortion.DistortedModel distortedModel, final OverlapRelation overlapRelation,
+			final String filePath, final FoldedModelPictureConfig config) throws IOException {
+
+		var width = config.getWidth();
+		var height = config.getHeight();
+
 		var rendererOption = new FoldedModelPixelRenderer.Option()
 				.setAmbientOcclusion(config.isAmbientOcclusion())
 				.setDrawEdges(config.isDrawEdges())
@@ -67,50 +103,42 @@ public class FoldedModelPictureExporter implements Exporter<FoldedModelEntity> {
 				.setFillFace(config.isFillFaces())
 				.setColors(config.getFrontColor(), config.getBackColor());
 
-		var pixelRenderer = new FoldedModelPixelRenderer(WIDTH, HEIGHT);
+		var pixelRenderer = new FoldedModelPixelRenderer(width, height);
 
-		var distortion = new Distortion(modelDomain, WIDTH, HEIGHT);
-		var converter = distortion.createCoordinateConverter(config.getDistortionMethod(),
-				config.getDistortionParameter(),
-				computeScale(modelDomain));
-
-		var distortionResult = distortion.apply(origamiModel, overlapRelation,
-				converter, config.getVertexDepths(), config.getEps());
+		var distortionResult = distortedModel.apply(overlapRelation);
 
 		var faces = distortionResult.faces();
 		var interpolatedOverlapRelation = distortionResult.interpolatedOverlapRelation();
 
-		pixelRenderer.render(faces, interpolatedOverlapRelation, origamiModel.createPaperDomain(),
+		pixelRenderer.render(faces, interpolatedOverlapRelation, distortedModel.getPaperDomain(),
 				rendererOption);
 
 		var camera = new AffineCamera();
 
-		camera.updateCameraPosition(WIDTH / 2, HEIGHT / 2);
-		camera.updateCenterOfPaper(WIDTH / 2, HEIGHT / 2);
+		camera.updateCameraPosition(width / 2, height / 2);
+		camera.updateCenterOfPaper(width / 2, height / 2);
 		camera.updateRotateAngle(config.getRotateAngle());
 		camera.updateScale(1);
 
-		var image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		var image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
 		var g = image.createGraphics();
 		// Clear image
 		g.setTransform(new AffineTransform());
 		g.setColor(Color.WHITE);
-		g.fillRect(0, 0, WIDTH, HEIGHT);
+		g.fillRect(0, 0, width, height);
 
 		g.setTransform(camera.getAffineTransform());
 
 		var drawer = new PixelDrawer();
 
-		drawer.draw(g, pixelRenderer.getPixels(), WIDTH, HEIGHT);
+		drawer.draw(g, pixelRenderer.getPixels(), width, height);
 
 		File file = new File(filePath);
 		ImageIO.write(image, filePath.substring(filePath.lastIndexOf(".") + 1),
 				file);
-
-		return true;
 	}
 
-	private double computeScale(final RectangleDomain modelDomain) {
-		return Math.min(WIDTH / modelDomain.getWidth(), HEIGHT / modelDomain.getHeight()) / 1.5;
+	private double computeScale(final RectangleDomain modelDomain, final int width, final int height) {
+		return Math.min(width / modelDomain.getWidth(), height / modelDomain.getHeight()) / 1.5;
 	}
 }
@@ -0,0 +1,562 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.persistence.entity.loader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import oripa.persistence.filetool.WrongDataFormatException;
+
+/**
+ * Byte offsets of the entries of file_frames in a FOLD file. The index is
+ * built by scanning the bytes of the file without decoding the values and is
+ * cached in a sidecar file (the FOLD file path + {@value #SIDECAR_EXTENSION})
+ * so that the following accesses only read the cache.
+ *
+ * Frame 0 is the key frame, and frame i (i >= 1) is the (i - 1)-th entry of
+ * file_frames. Relation index is the index among the frames which have face
+ * orders by themselves or by inheritance, which is the same index as the
+ * overlap relations loaded by {@link FoldedModelLoaderFOLD}.
+ */
+public class FoldedModelFrameIndexFOLD {
+	private static final Logger logger = LoggerFactory.getLogger(FoldedModelFrameIndexFOLD.class);
+
+	public static final String SIDECAR_EXTENSION = ".index";
+
+	private static final int MAGIC = 0x4F464958;
+	private static final int VERSION = 1;
+
+	private static final byte HAS_FACE_ORDERS = 0x01;
+	private static final byte INHERITS = 0x02;
+
+	private final long fileSize;
+	private final long lastModified;
+
+	private final boolean keyHasFaceOrders;
+
+	/** position of '[' of file_frames. -1 if the file has no frames. */
+	private final long framesStart;
+	/** position next to ']' of file_frames. */
+	private final long framesEnd;
+
+	private final long[] frameStarts;
+	private final long[] frameEnds;
+	private final byte[] frameFlags;
+	private final int[] frameParents;
+
+	/** frame which gives the face orders of each relation. */
+	private final int[] orderSources;
+
+	private FoldedModelFrameIndexFOLD(final long fileSize, final long lastModified,
+			final boolean keyHasFaceOrders, final long framesStart, final long framesEnd,
+			final long[] frameStarts, final long[] frameEnds, final byte[] frameFlags, final int[] frameParents)
+			throws WrongDataFormatException {
+		this.fileSize = fileSize;
+		this.lastModified = lastModified;
+		this.keyHasFaceOrders = keyHasFaceOrders;
+		this.framesStart = framesStart;
+		this.framesEnd = framesEnd;
+		this.frameStarts = frameStarts;
+		this.frameEnds = frameEnds;
+		this.frameFlags = frameFlags;
+		this.frameParents = frameParents;
+
+		orderSources = resolveOrderSources();
+	}
+
+	private int[] resolveOrderSources() throws WrongDataFormatException {
+		var frameCount = frameStarts.length + 1;
+
+		// frame which gives the face orders of each frame or -1.
+		var sources = new int[frameCount];
+		sources[0] = keyHasFaceOrders ? 0 : -1;
+
+		for (int i = 1; i < frameCount; i++) {
+			var flags = frameFlags[i - 1];
+			if ((flags & HAS_FACE_ORDERS) != 0) {
+				sources[i] = i;
+			} else if ((flags & INHERITS) != 0) {
+				var parent = frameParents[i - 1];
+				if (parent < 0 || parent >= i) {
+					throw new WrongDataFormatException("frame " + i + " has wrong frame_parent.");
+				}
+				sources[i] = sources[parent];
+			} else {
+				sources[i] = -1;
+			}
+		}
+
+		return Arrays.stream(sources).filter(source -> source >= 0).toArray();
+	}
+
+	/**
+	 * Reads the cached index of the given file or builds it if the cache
+	 * doesn't exist or is stale. Failing to write the cache is not an error.
+	 *
+	 * @param filePath
+	 *            path of FOLD file.
+	 * @return index of the file.
+	 * @throws IOException
+	 * @throws WrongDataFormatException
+	 *             if the file is not a JSON object or its frames are broken.
+	 */
+	public static FoldedModelFrameIndexFOLD load(final String filePath)
+			throws IOException, WrongDataFormatException {
+		var path = Path.of(filePath);
+		var sidecarPath = Path.of(filePath + SIDECAR_EXTENSION);
+
+		var fileSize = Files.size(path);
+		var lastModified = Files.getLastModifiedTime(path).toMillis();
+
+		if (Files.isRegularFile(sidecarPath)) {
+			try {
+				var index = readSidecar(sidecarPath);
+				if (index.fileSize == fileSize && index.lastModified == lastModified) {
+					return index;
+				}
+			} catch (IOException | WrongDataFormatException e) {
+				logger.debug("frame index cache is broken.", e);
+			}
+		}
+
+		var index = scan(path, fileSize, lastModified);
+
+		try {
+			index.writeSidecar(sidecarPath);
+		} catch (IOException e) {
+			logger.warn("failed to cache frame index: {}", e.getMessage());
+		}
+
+		return index;
+	}
+
+	/**
+	 * Builds the index without using the cache.
+	 *
+	 * @param filePath
+	 *            path of FOLD file.
+	 * @return index of the file.
+	 */
+	public static FoldedModelFrameIndexFOLD scan(final String filePath)
+			throws IOException, WrongDataFormatException {
+		var path = Path.of(filePath);
+		return scan(path, Files.size(path), Files.getLastModifiedTime(path).toMillis());
+	}
+
+	private static FoldedModelFrameIndexFOLD scan(final Path path, final long fileSize, final long lastModified)
+			throws IOException, WrongDataFormatException {
+		var scanner = new Scanner();
+		try (var stream = Files.newInputStream(path)) {
+			scanner.scan(stream);
+		}
+
+		return new FoldedModelFrameIndexFOLD(fileSize, lastModified,
+				scanner.keyHasFaceOrders, scanner.framesStart, scanner.framesEnd,
+				Arrays.copyOf(scanner.frameStarts, scanner.frameCount),
+				Arrays.copyOf(scanner.frameEnds, scanner.frameCount),
+				Arrays.copyOf(scanner.frameFlags, scanner.frameCount),
+				Arrays.copyOf(scanner.frameParents, scanner.frameCount));
+	}
+
+	private static FoldedModelFrameIndexFOLD readSidecar(final Path sidecarPath)
+			throws IOException, WrongDataFormatException {
+		try (var input = new DataInputStream(new BufferedInputStream(Files.newInputStream(sidecarPath)))) {
+			if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+				throw new WrongDataFormatException("unknown frame index format.");
+			}
+			var fileSize = input.readLong();
+			var lastModified = input.readLong();
+			var keyHasFaceOrders = input.readBoolean();
+			var framesStart = input.readLong();
+			var framesEnd = input.readLong();
+
+			var frameCount = input.readInt();
+			var frameStarts = new long[frameCount];
+			var frameEnds = new long[frameCount];
+			var frameFlags = new byte[frameCount];
+			var frameParents = new int[frameCount];
+			for (int i = 0; i < frameCount; i++) {
+				frameStarts[i] = input.readLong();
+				frameEnds[i] = input.readLong();
+				frameFlags[i] = input.readByte();
+				frameParents[i] = input.readInt();
+			}
+
+			return new FoldedModelFrameIndexFOLD(fileSize, lastModified, keyHasFaceOrders,
+					framesStart, framesEnd, frameStarts, frameEnds, frameFlags, frameParents);
+		}
+	}
+
+	/**
+	 * Writes the cache to a temporary file in the same directory and moves it
+	 * to the sidecar path atomically so that a concurrent reader never sees a
+	 * partially written cache.
+	 */
+	private void writeSidecar(final Path sidecarPath) throws IOException {
+		var directory = sidecarPath.toAbsolutePath().getParent();
+		var temporaryPath = Files.createTempFile(directory, sidecarPath.getFileName().toString(), ".tmp");
+		try {
+			writeSidecarContent(temporaryPath);
+			Files.move(temporaryPath, sidecarPath, StandardCopyOption.ATOMIC_MOVE,
+					StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(temporaryPath);
+		}
+	}
+
+	private void writeSidecarContent(final Path path) throws IOException {
+		try (var output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeLong(fileSize);
+			output.writeLong(lastModified);
+			output.writeBoolean(keyHasFaceOrders);
+			output.writeLong(framesStart);
+			output.writeLong(framesEnd);
+
+			output.writeInt(frameStarts.length);
+			for (int i = 0; i < frameStarts.length; i++) {
+				output.writeLong(frameStarts[i]);
+				output.writeLong(frameEnds[i]);
+				output.writeByte(frameFlags[i]);
+				output.writeInt(frameParents[i]);
+			}
+		}
+	}
+
+	/**
+	 *
+	 * @return the number of overlap relations in the file.
+	 */
+	public int getRelationCount() {
+		return orderSources.length;
+	}
+
+	/**
+	 *
+	 * @return the number of frames including the key frame.
+	 */
+	public int getFrameCount() {
+		return frameStarts.length + 1;
+	}
+
+	/**
+	 *
+	 * @param relationIndex
+	 *            index of overlap relation.
+	 * @return the frame whose faceOrders gives the relation. 0 means the key
+	 *         frame.
+	 */
+	public int findOrderSource(final int relationIndex) {
+		return orderSources[relationIndex];
+	}
+
+	/**
+	 * Reads the file with empty file_frames.
+	 *
+	 * @param channel
+	 *            channel of the indexed file.
+	 * @return bytes of the model part.
+	 */
+	byte[] readModel(final FileChannel channel) throws IOException {
+		if (framesStart < 0) {
+			return read(channel, 0, channel.size());
+		}
+		var head = read(channel, 0, framesStart);
+		var tail = read(channel, framesEnd, channel.size());
+
+		var bytes = Arrays.copyOf(head, head.length + 2 + tail.length);
+		bytes[head.length] = '[';
+		bytes[head.length + 1] = ']';
+		System.arraycopy(tail, 0, bytes, head.length + 2, tail.length);
+
+		return bytes;
+	}
+
+	/**
+	 *
+	 * @param channel
+	 *            channel of the indexed file.
+	 * @param frame
+	 *            frame index larger than 0.
+	 * @return bytes of the frame object.
+	 */
+	byte[] readFrame(final FileChannel channel, final int frame) throws IOException {
+		return read(channel, frameStarts[frame - 1], frameEnds[frame - 1]);
+	}
+
+	private byte[] read(final FileChannel channel, final long start, final long end) throws IOException {
+		var buffer = ByteBuffer.allocate(Math.toIntExact(end - start));
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, start + buffer.position()) < 0) {
+				throw new EOFException("the file is shorter than its frame index.");
+			}
+		}
+		return buffer.array();
+	}
+
+	/**
+	 * Finds the structure of FOLD file by looking at JSON structural
+	 * characters. Since UTF-8 never uses ASCII bytes in multibyte sequences,
+	 * the bytes can be scanned without decoding.
+	 */
+	private static class Scanner {
+		private static final byte[] FILE_FRAMES = bytes("file_frames");
+		private static final byte[] FACE_ORDERS = bytes("faceOrders");
+		private static final byte[] FRAME_INHERIT = bytes("frame_inherit");
+		private static final byte[] FRAME_PARENT = bytes("frame_parent");
+
+		private static final int TOP_DEPTH = 1;
+		private static final int FRAME_DEPTH = 3;
+
+		boolean keyHasFaceOrders = false;
+		long framesStart = -1;
+		long framesEnd = -1;
+
+		int frameCount = 0;
+		long[] frameStarts = new long[64];
+		long[] frameEnds = new long[64];
+		byte[] frameFlags = new byte[64];
+		int[] frameParents = new int[64];
+
+		private long position = 0;
+		private int depth = 0;
+		private boolean[] objects = new boolean[16];
+
+		private boolean inString = false;
+		private boolean escaped = false;
+		private boolean expectsKey = false;
+		private boolean inScalar = false;
+		private boolean inFrames = false;
+
+		private final byte[] key = new byte[32];
+		private int keyLength = 0;
+		private boolean capturesKey = false;
+		private boolean valueFollows = false;
+
+		private boolean capturesParent = false;
+		private final StringBuilder parent = new StringBuilder();
+
+		private byte flags;
+		private int parentFrame;
+
+		private static byte[] bytes(final String s) {
+			return s.getBytes(StandardCharsets.US_ASCII);
+		}
+
+		void scan(final InputStream stream) throws IOException, WrongDataFormatException {
+			var buffer = new byte[1 << 16];
+			int length;
+			while ((length = stream.read(buffer)) >= 0) {
+				for (int i = 0; i < length; i++, position++) {
+					accept(buffer[i]);
+				}
+			}
+			if (inScalar) {
+				endScalar();
+			}
+			if (depth != 0 || inString || position == 0) {
+				throw new WrongDataFormatException("The file ends before the end of JSON object.");
+			}
+		}
+
+		private void accept(final byte b) throws WrongDataFormatException {
+			if (inString) {
+				acceptInString(b);
+				return;
+			}
+
+			var whitespace = b == ' ' || b == '\t' || b == '\n' || b == '\r';
+
+			if (inScalar) {
+				if (!whitespace && b != ',' && b != '}' && b != ']') {
+					if (capturesParent) {
+						parent.append((char) b);
+					}
+					return;
+				}
+				endScalar();
+			}
+
+			if (whitespace) {
+				return;
+			}
+
+			if (depth == 0 && b != '{') {
+				throw new WrongDataFormatException("The file does not follow JSON style."
+						+ " Note that FOLD format is based on JSON.");
+			}
+
+			switch (b) {
+			case '"' -> {
+				inString = true;
+				if (expectsKey) {
+					expectsKey = false;
+					capturesKey = true;
+					keyLength = 0;
+				} else {
+					startValue(b);
+				}
+			}
+			case ':' -> valueFollows = true;
+			case ',' -> expectsKey = objects[depth];
+			case '{' -> {
+				startValue(b);
+				push(true);
+				expectsKey = true;
+				if (inFrames && depth == FRAME_DEPTH) {
+					flags = 0;
+					parentFrame = -1;
+					addFrameStart();
+				}
+			}
+			case '[' -> {
+				var framesFollow = valueFollows && depth == TOP_DEPTH && isKey(FILE_FRAMES);
+				startValue(b);
+				push(false);
+				if (framesFollow) {
+					inFrames = true;
+					framesStart = position;
+				}
+			}
+			case '}', ']' -> {
+				if (inFrames && depth == FRAME_DEPTH && b == '}') {
+					frameEnds[frameCount] = position + 1;
+					frameFlags[frameCount] = flags;
+					frameParents[frameCount] = parentFrame;
+					frameCount++;
+				} else if (inFrames && depth == FRAME_DEPTH - 1 && b == ']') {
+					inFrames = false;
+					framesEnd = position + 1;
+				}
+				depth--;
+				expectsKey = false;
+			}
+			default -> {
+				startValue(b);
+				inScalar = true;
+			}
+			}
+		}
+
+		private void acceptInString(final byte b) {
+			if (escaped) {
+				escaped = false;
+			} else if (b == '\\') {
+				escaped = true;
+			} else if (b == '"') {
+				inString = false;
+				capturesKey = false;
+				return;
+			}
+
+			if (capturesKey) {
+				if (keyLength < key.length) {
+					key[keyLength] = b;
+				}
+				keyLength++;
+			}
+		}
+
+		/**
+		 * Called at the first byte of a value.
+		 */
+		private void startValue(final byte b) throws WrongDataFormatException {
+			if (inFrames && depth == FRAME_DEPTH - 1 && b != '{') {
+				throw new WrongDataFormatException("file_frames should be an array of objects.");
+			}
+
+			if (!valueFollows) {
+				return;
+			}
+			valueFollows = false;
+
+			var isNull = b == 'n';
+
+			if (depth == TOP_DEPTH && isKey(FACE_ORDERS)) {
+				keyHasFaceOrders = !isNull;
+			}
+
+			if (!inFrames || depth != FRAME_DEPTH) {
+				return;
+			}
+
+			if (isKey(FACE_ORDERS) && !isNull) {
+				flags |= HAS_FACE_ORDERS;
+			} else if (isKey(FRAME_INHERIT) && b == 't') {
+				flags |= INHERITS;
+			} else if (isKey(FRAME_PARENT) && (b == '-' || Character.isDigit(b))) {
+				capturesParent = true;
+				parent.setLength(0);
+				parent.append((char) b);
+			}
+		}
+
+		private void endScalar() throws WrongDataFormatException {
+			inScalar = false;
+			if (!capturesParent) {
+				return;
+			}
+			capturesParent = false;
+			try {
+				parentFrame = Integer.parseInt(parent.toString());
+			} catch (NumberFormatException e) {
+				throw new WrongDataFormatException("frame_parent should be an integer.", e);
+			}
+		}
+
+		private boolean isKey(final byte[] name) {
+			return keyLength == name.length && Arrays.equals(key, 0, keyLength, name, 0, name.length);
+		}
+
+		private void push(final boolean isObject) {
+			depth++;
+			if (depth == objects.length) {
+				objects = Arrays.copyOf(objects, depth * 2);
+			}
+			objects[depth] = isObject;
+		}
+
+		private void addFrameStart() {
+			if (frameCount == frameStarts.length) {
+				var capacity = frameCount * 2;
+				frameStarts = Arrays.copyOf(frameStarts, capacity);
+				frameEnds = Arrays.copyOf(frameEnds, capacity);
+				frameFlags = Arrays.copyOf(frameFlags, capacity);
+				frameParents = Arrays.copyOf(frameParents, capacity);
+			}
+			frameStarts[frameCount] = position;
+		}
+	}
+}
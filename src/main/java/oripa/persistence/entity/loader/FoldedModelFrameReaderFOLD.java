@@ -0,0 +1,532 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.persistence.entity.loader;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import oripa.domain.fold.halfedge.OriFace;
+import oripa.domain.fold.halfedge.OriVertex;
+import oripa.domain.fold.halfedge.OrigamiModel;
+import oripa.domain.fold.origeom.OverlapRelation;
+import oripa.geom.RectangleDomain;
+import oripa.persistence.filetool.WrongDataFormatException;
+import oripa.persistence.foldformat.FoldedModelElementConverter;
+import oripa.persistence.foldformat.FrameClass;
+import oripa.value.CalculationResource;
+
+/**
+ * Reads multiple frame FOLD file frame by frame. The model data is read at
+ * construction and each overlap relation is restored when it is requested so
+ * that this class doesn't hold all of the overlap relations.
+ *
+ * The file is scanned twice: the first scan reads the model data skipping
+ * file_frames, and the second one reads the frames since FOLD doesn't specify
+ * the order of the properties. If {@link FoldedModelFrameIndexFOLD} is given,
+ * the frames are not scanned but read at random access.
+ */
+public class FoldedModelFrameReaderFOLD implements Closeable {
+	private static final String FILE_FRAMES = "file_frames";
+	private static final String FRAME_CLASSES = "frame_classes";
+	private static final String VERTICES_COORDS = "vertices_coords";
+	private static final String EDGES_VERTICES = "edges_vertices";
+	private static final String EDGES_ASSIGNMENT = "edges_assignment";
+	private static final String FACES_VERTICES = "faces_vertices";
+	private static final String FACE_ORDERS = "faceOrders";
+	private static final String FACES_PRECREASES = "faces_oripa:precreases";
+	private static final String FRAME_PARENT = "frame_parent";
+	private static final String FRAME_INHERIT = "frame_inherit";
+
+	private final FoldedModelElementConverter converter = new FoldedModelElementConverter();
+
+	private final Path path;
+	private final boolean retainsAllFrames;
+
+	private final OrigamiModel origamiModel;
+	private final List<OriFace> faces;
+
+	private final OverlapRelation keyRelation;
+	private boolean keyRelationRead = false;
+
+	/**
+	 * relations of all frames if {@link #retainsAllFrames} is true, otherwise
+	 * the relation of the previous frame only.
+	 */
+	private final List<OverlapRelation> frameRelations = new ArrayList<>();
+
+	private JsonReader frameReader;
+	private int frameNumber = 0;
+
+	/** null if the frames are read sequentially. */
+	private final FoldedModelFrameIndexFOLD frameIndex;
+	private FileChannel channel;
+	private int relationIndex = 0;
+
+	/**
+	 * Opens the file and reads the model data. Inheritance of face orders is
+	 * supported only from the key frame and the previous frame.
+	 *
+	 * @param filePath
+	 *            input path.
+	 * @throws IOException
+	 * @throws WrongDataFormatException
+	 *             if the file is not a folded model.
+	 */
+	public FoldedModelFrameReaderFOLD(final String filePath) throws IOException, WrongDataFormatException {
+		this(filePath, false);
+	}
+
+	/**
+	 *
+	 * @param filePath
+	 *            input path.
+	 * @param retainsAllFrames
+	 *            true if every frame can be the parent of the following
+	 *            frames. The restored relations are kept in this instance.
+	 */
+	FoldedModelFrameReaderFOLD(final String filePath, final boolean retainsAllFrames)
+			throws IOException, WrongDataFormatException {
+		this(filePath, retainsAllFrames, null);
+	}
+
+	/**
+	 * Opens the file for random access to the frames. Only the model part of
+	 * the file is parsed at construction.
+	 *
+	 * @param filePath
+	 *            input path.
+	 * @param frameIndex
+	 *            index of the file.
+	 * @throws IOException
+	 * @throws WrongDataFormatException
+	 *             if the file is not a folded model.
+	 */
+	public FoldedModelFrameReaderFOLD(final String filePath, final FoldedModelFrameIndexFOLD frameIndex)
+			throws IOException, WrongDataFormatException {
+		this(filePath, false, frameIndex);
+	}
+
+	private FoldedModelFrameReaderFOLD(final String filePath, final boolean retainsAllFrames,
+			final FoldedModelFrameIndexFOLD frameIndex)
+			throws IOException, WrongDataFormatException {
+		this.path = Path.of(filePath);
+		this.retainsAllFrames = retainsAllFrames;
+		this.frameIndex = frameIndex;
+
+		var header = new Header();
+		boolean hasFrames;
+		try (var reader = openModelReader()) {
+			hasFrames = header.read(reader);
+			header.validate();
+		} catch (MalformedJsonException | EOFException | IllegalStateException | NumberFormatException e) {
+			closeChannel();
+			throw createSyntaxException(e);
+		} catch (IOException | WrongDataFormatException e) {
+			closeChannel();
+			throw e;
+		}
+
+		var vertices = converter.fromVerticesCoords(header.verticesCoords);
+		var positions = vertices.stream().map(OriVertex::getPosition).toList();
+
+		var domain = RectangleDomain.createFromPoints(positions);
+		var modelSize = domain.maxWidthHeight();
+
+		var edges = converter.fromEdges(header.edgesVertices, header.edgesAssignment, vertices);
+		faces = converter.fromFacesVertices(header.facesVertices, header.edgesVertices,
+				vertices, edges, modelSize * CalculationResource.POINT_EPS);
+
+		if (header.facesPrecreases != null) {
+			converter.restorePrecreases(header.facesPrecreases, edges, faces);
+		}
+
+		// tentative value
+		origamiModel = new OrigamiModel(modelSize * 1.1);
+
+		origamiModel.setVertices(vertices);
+		converter.setVertexIDs(origamiModel);
+		origamiModel.setEdges(edges);
+		origamiModel.setFaces(faces);
+
+		keyRelation = header.faceOrders == null ? null : converter.fromFaceOrders(header.faceOrders, faces);
+
+		if (hasFrames && frameIndex == null) {
+			frameReader = openFrames();
+		}
+	}
+
+	private JsonReader openModelReader() throws IOException {
+		if (frameIndex == null) {
+			return new JsonReader(Files.newBufferedReader(path));
+		}
+		channel = FileChannel.open(path, StandardOpenOption.READ);
+		return createJsonReader(frameIndex.readModel(channel));
+	}
+
+	private JsonReader createJsonReader(final byte[] bytes) {
+		return new JsonReader(new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8));
+	}
+
+	private JsonReader openFrames() throws IOException, WrongDataFormatException {
+		var reader = new JsonReader(Files.newBufferedReader(path));
+		try {
+			reader.beginObject();
+			while (!reader.nextName().equals(FILE_FRAMES)) {
+				reader.skipValue();
+			}
+			reader.beginArray();
+		} catch (MalformedJsonException | EOFException | IllegalStateException e) {
+			reader.close();
+			throw createSyntaxException(e);
+		}
+		return reader;
+	}
+
+	/**
+	 *
+	 * @return the folded model shared by all frames.
+	 */
+	public OrigamiModel getOrigamiModel() {
+		return origamiModel;
+	}
+
+	/**
+	 * Reads the next frame which has face orders. The key frame comes first if
+	 * it has face orders.
+	 *
+	 * @return overlap relation of the next frame. Empty if no frame remains.
+	 * @throws IOException
+	 * @throws WrongDataFormatException
+	 *             if the frame is broken or inherits from a frame which is no
+	 *             longer kept.
+	 */
+	public Optional<OverlapRelation> next() throws IOException, WrongDataFormatException {
+		if (frameIndex != null) {
+			return relationIndex < frameIndex.getRelationCount()
+					? Optional.of(read(relationIndex++))
+					: Optional.empty();
+		}
+
+		if (!keyRelationRead) {
+			keyRelationRead = true;
+			if (keyRelation != null) {
+				return Optional.of(keyRelation);
+			}
+		}
+
+		try {
+			while (frameReader != null && frameReader.hasNext()) {
+				var relation = readFrame(++frameNumber);
+				if (relation != null) {
+					return Optional.of(relation);
+				}
+			}
+		} catch (MalformedJsonException | EOFException | IllegalStateException | NumberFormatException e) {
+			throw createSyntaxException(e);
+		}
+
+		return Optional.empty();
+	}
+
+	private OverlapRelation readFrame(final int index) throws IOException, WrongDataFormatException {
+		int[] faceOrders = null;
+		boolean inherits = false;
+		Integer parent = null;
+
+		frameReader.beginObject();
+		while (frameReader.hasNext()) {
+			var name = frameReader.nextName();
+			if (frameReader.peek() == JsonToken.NULL) {
+				frameReader.nextNull();
+				continue;
+			}
+			switch (name) {
+			case FACE_ORDERS -> faceOrders = readIntTuples(frameReader, 3);
+			case FRAME_INHERIT -> inherits = frameReader.nextBoolean();
+			case FRAME_PARENT -> parent = frameReader.nextInt();
+			default -> frameReader.skipValue();
+			}
+		}
+		frameReader.endObject();
+
+		OverlapRelation relation;
+		if (faceOrders != null) {
+			relation = converter.fromFaceOrders(faceOrders, faces);
+		} else if (inherits) {
+			var parentRelation = findParentRelation(index, parent);
+			relation = parentRelation == null ? null : parentRelation.clone();
+		} else {
+			relation = null;
+		}
+
+		if (!retainsAllFrames) {
+			frameRelations.clear();
+		}
+		frameRelations.add(relation);
+
+		return relation;
+	}
+
+	/**
+	 * Reads the overlap relation at the given index. This method parses only
+	 * the frame which has the face orders of the relation.
+	 *
+	 * @param index
+	 *            index of the relation, which is the same as the index of
+	 *            overlap relations loaded by {@link FoldedModelLoaderFOLD}.
+	 * @return the overlap relation.
+	 * @throws IllegalStateException
+	 *             if this instance is not created with frame index.
+	 */
+	public OverlapRelation read(final int index) throws IOException, WrongDataFormatException {
+		if (frameIndex == null) {
+			throw new IllegalStateException("frame index is not given.");
+		}
+
+		var source = frameIndex.findOrderSource(index);
+		if (source == 0) {
+			return keyRelation.clone();
+		}
+
+		try (var reader = createJsonReader(frameIndex.readFrame(channel, source))) {
+			reader.beginObject();
+			while (reader.hasNext()) {
+				if (reader.nextName().equals(FACE_ORDERS) && reader.peek() != JsonToken.NULL) {
+					return converter.fromFaceOrders(readIntTuples(reader, 3), faces);
+				}
+				reader.skipValue();
+			}
+		} catch (MalformedJsonException | EOFException | IllegalStateException | NumberFormatException e) {
+			throw createSyntaxException(e);
+		}
+
+		throw new WrongDataFormatException("frame " + source + " has no faceOrders.");
+	}
+
+	private OverlapRelation findParentRelation(final int index, final Integer parent)
+			throws WrongDataFormatException {
+		if (parent == null || parent < 0 || parent >= index) {
+			throw new WrongDataFormatException("frame " + index + " has wrong frame_parent.");
+		}
+		if (parent == 0) {
+			return keyRelation;
+		}
+		if (retainsAllFrames) {
+			return frameRelations.get(parent - 1);
+		}
+		if (parent == index - 1) {
+			return frameRelations.get(0);
+		}
+		throw new WrongDataFormatException("frame " + index + " inherits frame " + parent
+				+ ", which is not kept while reading frame by frame.");
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (frameReader != null) {
+			frameReader.close();
+		}
+		closeChannel();
+	}
+
+	/**
+	 * Closes the channel opened for the frame index. This is the only resource
+	 * opened while the model data is read at construction.
+	 */
+	private void closeChannel() throws IOException {
+		if (channel != null) {
+			channel.close();
+		}
+	}
+
+	private WrongDataFormatException createSyntaxException(final Exception e) {
+		return new WrongDataFormatException(
+				"The file does not follow JSON style."
+						+ " Note that FOLD format is based on JSON.",
+				e);
+	}
+
+	/**
+	 * Properties of the key frame in primitive arrays.
+	 */
+	private static class Header {
+		List<String> frameClasses;
+		double[] verticesCoords;
+		int[] edgesVertices;
+		List<String> edgesAssignment;
+		int[][] facesVertices;
+		int[] faceOrders;
+		int[] facesPrecreases;
+
+		/**
+		 * Reads the top level object skipping file_frames.
+		 *
+		 * @return true if the file has file_frames.
+		 */
+		boolean read(final JsonReader reader) throws IOException {
+			boolean hasFrames = false;
+
+			reader.beginObject();
+			while (reader.hasNext()) {
+				var name = reader.nextName();
+				if (reader.peek() == JsonToken.NULL) {
+					reader.nextNull();
+					continue;
+				}
+				switch (name) {
+				case FILE_FRAMES -> {
+					hasFrames = true;
+					reader.skipValue();
+				}
+				case FRAME_CLASSES -> frameClasses = readStrings(reader);
+				case VERTICES_COORDS -> verticesCoords = readCoords(reader);
+				case EDGES_VERTICES -> edgesVertices = readIntTuples(reader, 2);
+				case EDGES_ASSIGNMENT -> edgesAssignment = readStrings(reader);
+				case FACES_VERTICES -> facesVertices = readIntLists(reader);
+				case FACE_ORDERS -> faceOrders = readIntTuples(reader, 3);
+				case FACES_PRECREASES -> facesPrecreases = readIntTuples(reader, 2);
+				default -> reader.skipValue();
+				}
+			}
+			reader.endObject();
+
+			return hasFrames;
+		}
+
+		void validate() throws WrongDataFormatException {
+			if (frameClasses != null && !frameClasses.contains(FrameClass.FOLDED_FORM)) {
+				throw new WrongDataFormatException(
+						"frame_classes does not contain " + FrameClass.FOLDED_FORM + ".");
+			}
+
+			if (edgesVertices == null) {
+				throw new WrongDataFormatException("edges_vertices property is needed in the file.");
+			}
+			if (edgesAssignment == null) {
+				throw new WrongDataFormatException("edges_assignment property is needed in the file.");
+			}
+			if (verticesCoords == null) {
+				throw new WrongDataFormatException("vertices_coords property is needed in the file.");
+			}
+			if (facesVertices == null) {
+				throw new WrongDataFormatException("faces_vertices property is needed in the file.");
+			}
+		}
+	}
+
+	private static List<String> readStrings(final JsonReader reader) throws IOException {
+		var values = new ArrayList<String>();
+		reader.beginArray();
+		while (reader.hasNext()) {
+			values.add(reader.nextString());
+		}
+		reader.endArray();
+		return values;
+	}
+
+	/**
+	 * Reads x and y of each coordinates. The other components are ignored.
+	 *
+	 * @return flat array of x and y values.
+	 */
+	private static double[] readCoords(final JsonReader reader) throws IOException {
+		var values = new double[64];
+		int length = 0;
+
+		reader.beginArray();
+		while (reader.hasNext()) {
+			if (length + 2 > values.length) {
+				values = Arrays.copyOf(values, values.length * 2);
+			}
+			reader.beginArray();
+			values[length++] = reader.nextDouble();
+			values[length++] = reader.nextDouble();
+			while (reader.hasNext()) {
+				reader.skipValue();
+			}
+			reader.endArray();
+		}
+		reader.endArray();
+
+		return Arrays.copyOf(values, length);
+	}
+
+	/**
+	 * Reads an array of fixed length integer arrays.
+	 *
+	 * @return flat array of the tuples.
+	 */
+	private static int[] readIntTuples(final JsonReader reader, final int width) throws IOException {
+		var values = new int[width * 64];
+		int length = 0;
+
+		reader.beginArray();
+		while (reader.hasNext()) {
+			if (length + width > values.length) {
+				values = Arrays.copyOf(values, values.length * 2);
+			}
+			reader.beginArray();
+			for (int i = 0; i < width; i++) {
+				values[length++] = reader.nextInt();
+			}
+			reader.endArray();
+		}
+		reader.endArray();
+
+		return Arrays.copyOf(values, length);
+	}
+
+	private static int[][] readIntLists(final JsonReader reader) throws IOException {
+		var lists = new ArrayList<int[]>();
+		var buffer = new int[16];
+
+		reader.beginArray();
+		while (reader.hasNext()) {
+			int length = 0;
+			reader.beginArray();
+			while (reader.hasNext()) {
+				if (length == buffer.length) {
+					buffer = Arrays.copyOf(buffer, buffer.length * 2);
+				}
+				buffer[length++] = reader.nextInt();
+			}
+			reader.endArray();
+			lists.add(Arrays.copyOf(buffer, length));
+		}
+		reader.endArray();
+
+		return lists.toArray(int[][]::new);
+	}
+}
@@ -19,6 +19,8 @@
 package oripa.persistence.foldformat;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -113,52 +115,92 @@ public class FoldedModelElementConverter {
 	}
 
 	public List<List<Integer>> toFaceOrders(final OrigamiModel origamiModel, final OverlapRelation overlapRelation) {
+		var orderArray = toFaceOrderArray(origamiModel, overlapRelation);
+
+		var orders = new ArrayList<List<Integer>>(orderArray.length / 3);
+		for (int k = 0; k < orderArray.length; k += 3) {
+			orders.add(List.of(orderArray[k], orderArray[k + 1], orderArray[k + 2]));
+		}
+
+		return orders;
+	}
+
+	/**
+	 * Same as {@link #toFaceOrders(OrigamiModel, OverlapRelation)} but the
+	 * orders are flattened into triples of face index, face index and
+	 * direction.
+	 *
+	 * @param origamiModel
+	 * @param overlapRelation
+	 *            materialized before reading the cells.
+	 * @return flat array whose length is 3 * (the number of orders).
+	 */
+	public int[] toFaceOrderArray(final OrigamiModel origamiModel, final OverlapRelation overlapRelation) {
 		var faces = origamiModel.getFaces();
+		var relation = overlapRelation.materialize();
 
-		var orders = new ArrayList<List<Integer>>(faces.size());
+		var orders = new int[Math.max(faces.size(), 1) * 3];
+		int length = 0;
 
 		for (int i = 0; i < faces.size(); i++) {
 			for (int j = i + 1; j < faces.size(); j++) {
-				var g = faces.get(j);
-
-				if (g.isFaceFront()) {
-					if (overlapRelation.isUpper(i, j)) {
-						orders.add(List.of(i, j, 1));
-					} else if (overlapRelation.isLower(i, j)) {
-						orders.add(List.of(i, j, -1));
-					}
+				int direction;
+				if (relation.isUpper(i, j)) {
+					direction = 1;
+				} else if (relation.isLower(i, j)) {
+					direction = -1;
 				} else {
-					if (overlapRelation.isUpper(i, j)) {
-						orders.add(List.of(i, j, -1));
-					} else if (overlapRelation.isLower(i, j)) {
-						orders.add(List.of(i, j, 1));
-					}
+					continue;
+				}
+
+				if (!faces.get(j).isFaceFront()) {
+					direction = -direction;
+				}
+
+				if (length + 3 > orders.length) {
+					orders = Arrays.copyOf(orders, orders.length * 2);
 				}
+				orders[length++] = i;
+				orders[length++] = j;
+				orders[length++] = direction;
 			}
 		}
 
-		return orders;
+		return Arrays.copyOf(orders, length);
 	}
 
-	public List<OriVertex> fromVerticesCoords(final List<List<Double>> verticesCoords) {
-		var vertices = new ArrayList<OriVertex>();
+	/**
+	 *
+	 * @param verticesCoords
+	 *            flat array of x and y values.
+	 * @return vertices in the order of coordinates.
+	 */
+	public List<OriVertex> fromVerticesCoords(final double[] verticesCoords) {
+		var vertices = new ArrayList<OriVertex>(verticesCoords.length / 2);
 
-		verticesCoords.forEach(coords -> {
-			vertices.add(new OriVertex(coords.get(0), coords.get(1)));
-		});
+		for (int i = 0; i < verticesCoords.length; i += 2) {
+			vertices.add(new OriVertex(verticesCoords[i], verticesCoords[i + 1]));
+		}
 
 		return vertices;
 	}
 
-	public List<OriEdge> fromEdges(final List<List<Integer>> edgesVertices, final List<String> edgesAssignment,
+	/**
+	 *
+	 * @param edgesVertices
+	 *            flat array of vertex index pairs.
+	 * @param edgesAssignment
+	 * @param vertices
+	 * @return edges in the order of the pairs.
+	 */
+	public List<OriEdge> fromEdges(final int[] edgesVertices, final List<String> edgesAssignment,
 			final List<OriVertex> vertices) {
-		var edges = new ArrayList<OriEdge>();
+		var edges = new ArrayList<OriEdge>(edgesVertices.length / 2);
 
-		for (int i = 0; i < edgesVertices.size(); i++) {
-			var edgeVertices = edgesVertices.get(i);
+		for (int i = 0; i < edgesVertices.length / 2; i++) {
 			var edge = new OriEdge(
-					vertices.get(edgeVertices.get(0)),
-					vertices.get(edgeVertices.get(1)),
+					vertices.get(edgesVertices[2 * i]),
+					vertices.get(edgesVertices[2 * i + 1]),
 					assignmentConverter.fromFOLD(edgesAssignment.get(i)).toInt());
 			edges.add(edge);
 		}
@@ -166,30 +208,47 @@ public class FoldedModelElementConverter {
 		return edges;
 	}
 
-	public List<OriFace> fromFacesVertices(final List<List<Integer>> facesVertices,
-			final List<List<Integer>> edgesVertices, final List<OriVertex> vertices, final List<OriEdge> edges,
+	/**
+	 *
+	 * @param facesVertices
+	 *            vertex indices of each face.
+	 * @param edgesVertices
+	 *            flat array of vertex index pairs.
+	 * @param vertices
+	 * @param edges
+	 * @param eps
+	 * @return faces in the order of the given face vertices.
+	 */
+	public List<OriFace> fromFacesVertices(final int[][] facesVertices,
+			final int[] edgesVertices, final List<OriVertex> vertices, final List<OriEdge> edges,
 			final double eps) {
-		var faces = new ArrayList<OriFace>();
+		var edgeIndices = new HashMap<Long, Integer>();
+		for (int i = 0; i < edgesVertices.length / 2; i++) {
+			edgeIndices.putIfAbsent(toEdgeKey(edgesVertices[2 * i], edgesVertices[2 * i + 1]), i);
+		}
 
-		for (int i = 0; i < facesVertices.size(); i++) {
+		var faces = new ArrayList<OriFace>(facesVertices.length);
+
+		for (int i = 0; i < facesVertices.length; i++) {
 			var face = new OriFace();
 
-			var faceVertices = facesVertices.get(i);
+			var faceVertices = facesVertices[i];
 
-			faceVertices.forEach(v -> {
+			for (var v : faceVertices) {
 				var halfedge = new OriHalfedge(vertices.get(v), face);
 				face.addHalfedge(halfedge);
-			});
+			}
 			face.makeHalfedgeLoop(eps);
 
-			final int vertexCount = faceVertices.size();
+			final int vertexCount = faceVertices.length;
 			for (int j = 0; j < vertexCount; j++) {
-				var target = List.of(faceVertices.get(j), faceVertices.get((j + 1) % vertexCount));
-				var edgeIndex = edgesVertices.indexOf(target);
-				if (edgeIndex == -1) {
-					edgeIndex = edgesVertices.indexOf(target.reversed());
+				var v0 = faceVertices[j];
+				var v1 = faceVertices[(j + 1) % vertexCount];
+				var edgeIndex = edgeIndices.get(toEdgeKey(v0, v1));
+				if (edgeIndex == null) {
+					edgeIndex = edgeIndices.get(toEdgeKey(v1, v0));
 				}
-				if (edgeIndex == -1) {
+				if (edgeIndex == null) {
 					throw new IllegalArgumentException("no edgeVertices match.");
 				}
 				face.getHalfedge(j).setEdge(edges.get(edgeIndex));
@@ -209,29 +268,36 @@ public class FoldedModelElementConverter {
 		return faces;
 	}
 
-	public OverlapRelation fromFaceOrders(final List<List<Integer>> faceOrders, final List<OriFace> faces) {
+	private long toEdgeKey(final int v0, final int v1) {
+		return ((long) v0 << 32) | (v1 & 0xFFFFFFFFL);
+	}
+
+	/**
+	 *
+	 * @param faceOrders
+	 *            flat array of triples of face index, face index and
+	 *            direction.
+	 * @param faces
+	 * @return overlap relation described by the orders.
+	 */
+	public OverlapRelation fromFaceOrders(final int[] faceOrders, final List<OriFace> faces) {
 		var overlapRelation = new OverlapRelation(faces.size());
 
-		faceOrders.forEach(order -> {
-			var i = order.get(0);
-			var j = order.get(1);
-			var g = faces.get(j);
-			var direction = order.get(2);
-			if (g.isFaceFront()) {
-				if (direction == 1) {
-					overlapRelation.setUpper(i, j);
-				} else if (direction == -1) {
-					overlapRelation.setLower(i, j);
-				}
-			} else {
-				if (direction == 1) {
-					overlapRelation.setLower(i, j);
-				} else if (direction == -1) {
-					overlapRelation.setUpper(i, j);
-				}
+		for (int k = 0; k < faceOrders.length; k += 3) {
+			var i = faceOrders[k];
+			var j = faceOrders[k + 1];
+			var direction = faceOrders[k + 2];
 
+			if (!faces.get(j).isFaceFront()) {
+				direction = -direction;
 			}
-		});
+
+			if (direction == 1) {
+				overlapRelation.setUpper(i, j);
+			} else if (direction == -1) {
+				overlapRelation.setLower(i, j);
+			}
+		}
 
 		return overlapRelation;
 	}
@@ -291,18 +357,32 @@ public class FoldedModelElementConverter {
 		return facesPrecreases;
 	}
 
-	public void restorePrecreases(final List<List<Integer>> facesPrecreases, final List<OriEdge> edges,
+	/**
+	 *
+	 * @param facesPrecreases
+	 *            flat array of pairs of face index and precrease's edge
+	 *            index.
+	 * @param edges
+	 * @param faces
+	 */
+	public void restorePrecreases(final int[] facesPrecreases, final List<OriEdge> edges,
 			final List<OriFace> faces) {
+		var precreases = new ArrayList<List<OriLine>>(faces.size());
+		for (int i = 0; i < faces.size(); i++) {
+			precreases.add(new ArrayList<>());
+		}
+
+		for (int k = 0; k < facesPrecreases.length; k += 2) {
+			var faceID = facesPrecreases[k];
+			if (faceID < 0 || faceID >= faces.size()) {
+				continue;
+			}
+			var edge = edges.get(facesPrecreases[k + 1]);
+			precreases.get(faceID).add(new OriLine(edge.toSegment(), OriLine.Type.AUX));
+		}
+
 		for (int i = 0; i < faces.size(); i++) {
-			var faceID = i;
-			var face = faces.get(i);
-			var precreases = facesPrecreases.stream()
-					.filter(precrease -> precrease.get(0) == faceID)
-					.map(precrease -> edges.get(precrease.get(1)))
-					.map(edge -> new OriLine(edge.toSegment(), OriLine.Type.AUX))
-					.toList();
-
-			face.setPrecreases(precreases);
+			faces.get(i).setPrecreases(precreases.get(i));
 		}
 	}
 }
@@ -0,0 +1,241 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.persistence.xml;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import oripa.DataSet;
+import oripa.OriLineProxy;
+
+/**
+ * Reads {@link DataSet} from the XML written by {@link java.beans.XMLEncoder}
+ * (.opx file) in a single pass of StAX events. Only the elements for the data
+ * set and {@link OriLineProxy} are interpreted, so no DOM tree is built and
+ * each line costs one proxy object.
+ */
+public class DataSetStreamReader {
+	private static final String DATA_SET_CLASS = "oripa.DataSet";
+	private static final String LINE_PROXY_CLASS = "oripa.OriLineProxy";
+
+	/**
+	 * An element on the path from the root to the current position.
+	 */
+	private static class Frame {
+		final String name;
+		final String property;
+		final String method;
+
+		/** name of the field for getField method. */
+		String fieldName;
+
+		OriLineProxy proxy;
+		boolean isDataSet;
+
+		Frame(final XMLStreamReader reader) {
+			name = reader.getLocalName();
+			property = reader.getAttributeValue(null, "property");
+			method = reader.getAttributeValue(null, "method");
+		}
+	}
+
+	private final List<Frame> stack = new ArrayList<>();
+	private final StringBuilder text = new StringBuilder();
+	private boolean inValue;
+
+	private DataSet dataSet;
+	private final List<OriLineProxy> lines = new ArrayList<>();
+
+	/**
+	 * @param input
+	 *            stream of .opx content.
+	 * @return data set in the stream. Empty if the stream has no data set.
+	 * @throws XMLStreamException
+	 *             if the content is not well-formed XML.
+	 * @throws NumberFormatException
+	 *             if a value is not a number.
+	 */
+	public Optional<DataSet> read(final InputStream input) throws XMLStreamException {
+		stack.clear();
+		lines.clear();
+		dataSet = null;
+		inValue = false;
+
+		var factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+		var reader = factory.createXMLStreamReader(input);
+		try {
+			while (reader.hasNext()) {
+				switch (reader.next()) {
+				case XMLStreamConstants.START_ELEMENT -> startElement(reader);
+				case XMLStreamConstants.END_ELEMENT -> endElement();
+				case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA -> {
+					if (inValue) {
+						text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+					}
+				}
+				default -> {
+				}
+				}
+			}
+		} finally {
+			reader.close();
+		}
+
+		if (dataSet == null) {
+			return Optional.empty();
+		}
+
+		dataSet.setLines(lines.toArray(OriLineProxy[]::new));
+
+		return Optional.of(dataSet);
+	}
+
+	private void startElement(final XMLStreamReader reader) {
+		var frame = new Frame(reader);
+
+		switch (frame.name) {
+		case "object" -> {
+			var className = reader.getAttributeValue(null, "class");
+			if (DATA_SET_CLASS.equals(className) && dataSet == null) {
+				dataSet = new DataSet();
+				frame.isDataSet = true;
+			} else if (LINE_PROXY_CLASS.equals(className)) {
+				frame.proxy = new OriLineProxy();
+				lines.add(frame.proxy);
+			}
+		}
+		case "int", "double", "string" -> {
+			text.setLength(0);
+			inValue = true;
+		}
+		case "char" -> {
+			// XMLEncoder writes a character invalid in XML as <char code="#hex"/>.
+			var code = reader.getAttributeValue(null, "code");
+			if (inValue && code != null && code.startsWith("#")) {
+				text.appendCodePoint(Integer.parseInt(code.substring(1), 16));
+			}
+		}
+		default -> {
+		}
+		}
+
+		stack.add(frame);
+	}
+
+	private void endElement() {
+		var frame = stack.removeLast();
+
+		switch (frame.name) {
+		case "int", "double", "string" -> {
+			inValue = false;
+			setValue(frame.name, text.toString());
+		}
+		default -> {
+		}
+		}
+	}
+
+	private Frame getAncestor(final int generation) {
+		var index = stack.size() - generation;
+		return index < 0 ? null : stack.get(index);
+	}
+
+	private void setValue(final String type, final String value) {
+		var parent = getAncestor(1);
+		if (parent == null) {
+			return;
+		}
+
+		if ("getField".equals(parent.method)) {
+			if (parent.fieldName == null) {
+				parent.fieldName = value;
+			}
+			return;
+		}
+
+		if ("set".equals(parent.method)) {
+			var field = getAncestor(2);
+			if (field != null && field.fieldName != null && type.equals("string")) {
+				setField(field.fieldName, value);
+			}
+			return;
+		}
+
+		if (parent.property == null) {
+			return;
+		}
+
+		var owner = getAncestor(2);
+		if (owner == null) {
+			return;
+		}
+		if (owner.proxy != null) {
+			setProxyProperty(owner.proxy, parent.property, value);
+		} else if (owner.isDataSet) {
+			setDataSetProperty(parent.property, value);
+		}
+	}
+
+	private void setField(final String fieldName, final String value) {
+		if (dataSet == null) {
+			return;
+		}
+		switch (fieldName) {
+		case "title" -> dataSet.title = value;
+		case "editorName" -> dataSet.editorName = value;
+		case "originalAuthorName" -> dataSet.originalAuthorName = value;
+		case "reference" -> dataSet.reference = value;
+		case "memo" -> dataSet.memo = value;
+		default -> {
+		}
+		}
+	}
+
+	private void setDataSetProperty(final String property, final String value) {
+		switch (property) {
+		case "mainVersion" -> dataSet.setMainVersion(Integer.parseInt(value));
+		case "subVersion" -> dataSet.setSubVersion(Integer.parseInt(value));
+		case "paperSize" -> dataSet.setPaperSize(Double.parseDouble(value));
+		// written as properties by old versions.
+		default -> setField(property, value);
+		}
+	}
+
+	private void setProxyProperty(final OriLineProxy proxy, final String property, final String value) {
+		switch (property) {
+		case "type" -> proxy.setType(Integer.parseInt(value));
+		case "x0" -> proxy.setX0(Double.parseDouble(value));
+		case "y0" -> proxy.setY0(Double.parseDouble(value));
+		case "x1" -> proxy.setX1(Double.parseDouble(value));
+		case "y1" -> proxy.setY1(Double.parseDouble(value));
+		default -> {
+		}
+		}
+	}
+}
@@ -0,0 +1,269 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.persistence.xml;
+
+import java.io.OutputStream;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import oripa.DataSet;
+import oripa.OriLineProxy;
+
+/**
+ * Writes {@link DataSet} in the same XML as {@link java.beans.XMLEncoder}
+ * does (.opx file), streaming {@link OriLineProxy} entries through StAX
+ * instead of the reflective encoder. As the encoder, properties with default
+ * values are omitted.
+ */
+public class DataSetStreamWriter {
+	private static final String DATA_SET_CLASS = "oripa.DataSet";
+	private static final String LINE_PROXY_CLASS = "oripa.OriLineProxy";
+	private static final String DATA_SET_ID = "DataSet0";
+
+	/** a line break followed by the spaces for the deepest element. */
+	private static final char[] INDENTS = "\n        ".toCharArray();
+
+	private XMLStreamWriter writer;
+
+	/**
+	 * @param dataSet
+	 *            data to be written.
+	 * @param output
+	 *            destination. Not closed by this method.
+	 */
+	public void write(final DataSet dataSet, final OutputStream output) throws XMLStreamException {
+		writer = XMLOutputFactory.newInstance().createXMLStreamWriter(output, "UTF-8");
+
+		try {
+			writer.writeStartDocument("UTF-8", "1.0");
+			newLine(0);
+			writer.writeStartElement("java");
+			writer.writeAttribute("version", System.getProperty("java.version"));
+			writer.writeAttribute("class", "java.beans.XMLDecoder");
+
+			newLine(1);
+			writer.writeStartElement("object");
+			writer.writeAttribute("class", DATA_SET_CLASS);
+			writer.writeAttribute("id", DATA_SET_ID);
+
+			writeLines(dataSet.getLines(), 2);
+
+			writeStringField("title", dataSet.title, 2);
+			writeStringField("editorName", dataSet.editorName, 2);
+			writeStringField("originalAuthorName", dataSet.originalAuthorName, 2);
+			writeStringField("reference", dataSet.reference, 2);
+			writeStringField("memo", dataSet.memo, 2);
+
+			writeIntProperty("mainVersion", dataSet.getMainVersion(), 2);
+			writeDoubleProperty("paperSize", dataSet.getPaperSize(), 2);
+			writeIntProperty("subVersion", dataSet.getSubVersion(), 2);
+
+			newLine(1);
+			writer.writeEndElement();
+			newLine(0);
+			writer.writeEndElement();
+			newLine(0);
+			writer.writeEndDocument();
+			writer.flush();
+		} finally {
+			writer.close();
+		}
+	}
+
+	private void newLine(final int depth) throws XMLStreamException {
+		writer.writeCharacters(INDENTS, 0, depth + 1);
+	}
+
+	private void startField(final String fieldName, final int depth) throws XMLStreamException {
+		newLine(depth);
+		writer.writeStartElement("void");
+		writer.writeAttribute("class", DATA_SET_CLASS);
+		writer.writeAttribute("method", "getField");
+
+		writeValue("string", fieldName, depth + 1);
+
+		newLine(depth + 1);
+		writer.writeStartElement("void");
+		writer.writeAttribute("method", "set");
+
+		newLine(depth + 2);
+		writer.writeEmptyElement("object");
+		writer.writeAttribute("idref", DATA_SET_ID);
+	}
+
+	private void endField(final int depth) throws XMLStreamException {
+		newLine(depth + 1);
+		writer.writeEndElement();
+		newLine(depth);
+		writer.writeEndElement();
+	}
+
+	private void writeLines(final OriLineProxy[] lines, final int depth) throws XMLStreamException {
+		if (lines == null) {
+			return;
+		}
+
+		startField("lines", depth);
+
+		var arrayDepth = depth + 2;
+		newLine(arrayDepth);
+		if (lines.length == 0) {
+			writer.writeEmptyElement("array");
+		} else {
+			writer.writeStartElement("array");
+		}
+		writer.writeAttribute("class", LINE_PROXY_CLASS);
+		writer.writeAttribute("length", Integer.toString(lines.length));
+
+		for (int i = 0; i < lines.length; i++) {
+			newLine(arrayDepth + 1);
+			writer.writeStartElement("void");
+			writer.writeAttribute("index", Integer.toString(i));
+
+			writeLine(lines[i], arrayDepth + 2);
+
+			newLine(arrayDepth + 1);
+			writer.writeEndElement();
+		}
+
+		if (lines.length > 0) {
+			newLine(arrayDepth);
+			writer.writeEndElement();
+		}
+
+		endField(depth);
+	}
+
+	private void writeLine(final OriLineProxy line, final int depth) throws XMLStreamException {
+		newLine(depth);
+
+		if (line.getType() == 0 && isZero(line.getX0()) && isZero(line.getX1())
+				&& isZero(line.getY0()) && isZero(line.getY1())) {
+			writer.writeEmptyElement("object");
+			writer.writeAttribute("class", LINE_PROXY_CLASS);
+			return;
+		}
+
+		writer.writeStartElement("object");
+		writer.writeAttribute("class", LINE_PROXY_CLASS);
+
+		// the encoder writes properties in alphabetical order.
+		writeIntProperty("type", line.getType(), depth + 1);
+		writeDoubleProperty("x0", line.getX0(), depth + 1);
+		writeDoubleProperty("x1", line.getX1(), depth + 1);
+		writeDoubleProperty("y0", line.getY0(), depth + 1);
+		writeDoubleProperty("y1", line.getY1(), depth + 1);
+
+		newLine(depth);
+		writer.writeEndElement();
+	}
+
+	private boolean isZero(final double value) {
+		// -0.0 is not the default value for the encoder.
+		return Double.compare(value, 0.0) == 0;
+	}
+
+	private void writeStringField(final String fieldName, final String value, final int depth)
+			throws XMLStreamException {
+		if (value == null) {
+			return;
+		}
+		startField(fieldName, depth);
+		writeValue("string", value, depth + 2);
+		endField(depth);
+	}
+
+	private void writeIntProperty(final String name, final int value, final int depth)
+			throws XMLStreamException {
+		if (value == 0) {
+			return;
+		}
+		writeProperty(name, "int", Integer.toString(value), depth);
+	}
+
+	private void writeDoubleProperty(final String name, final double value, final int depth)
+			throws XMLStreamException {
+		if (isZero(value)) {
+			return;
+		}
+		writeProperty(name, "double", Double.toString(value), depth);
+	}
+
+	private void writeProperty(final String name, final String type, final String value, final int depth)
+			throws XMLStreamException {
+		newLine(depth);
+		writer.writeStartElement("void");
+		writer.writeAttribute("property", name);
+
+		writeValue(type, value, depth + 1);
+
+		newLine(depth);
+		writer.writeEndElement();
+	}
+
+	private void writeValue(final String type, final String value, final int depth) throws XMLStreamException {
+		newLine(depth);
+		writer.writeStartElement(type);
+
+		int start = 0;
+		for (int i = 0; i < value.length(); i += Character.charCount(value.codePointAt(i))) {
+			var c = value.codePointAt(i);
+			var entity = toEntity(c);
+			if (entity == null && isValidCharacter(c)) {
+				continue;
+			}
+			writer.writeCharacters(value.substring(start, i));
+			if (entity != null) {
+				writer.writeEntityRef(entity);
+			} else {
+				writer.writeEmptyElement("char");
+				writer.writeAttribute("code", "#" + Integer.toString(c, 16));
+			}
+			start = i + Character.charCount(c);
+		}
+		writer.writeCharacters(value.substring(start));
+
+		writer.writeEndElement();
+	}
+
+	/**
+	 * @return the entity which XMLEncoder writes for the character but the
+	 *         stream writer does not. {@code null} for other characters.
+	 */
+	private String toEntity(final int c) {
+		return switch (c) {
+		case '"' -> "quot";
+		case '\'' -> "apos";
+		case '\r' -> "#13";
+		default -> null;
+		};
+	}
+
+	/**
+	 * Same check as XMLEncoder.
+	 */
+	private boolean isValidCharacter(final int c) {
+		return c >= 0x20 && c <= 0xD7FF
+				|| c >= 0xE000 && c <= 0xFFFD
+				|| c >= 0x10000 && c <= 0x10FFFF
+				|| c == '\n' || c == '\r' || c == '\t';
+	}
+}
@@ -96,13 +96,59 @@ public class Distortion {
 			final CoordinateConverter converter,
 			final Map<OriVertex, Integer> vertexDepths, final double eps) {
 
+		return prepare(origamiModel, converter, vertexDepths, eps).apply(overlapRelation);
+	}
+
+	/**
+	 * Distorts the faces of the model, which don't depend on the overlap
+	 * relation. Use this method to apply the same distortion to many overlap
+	 * relations of the model.
+	 *
+	 * @param origamiModel
+	 * @param converter
+	 * @param vertexDepths
+	 *            can be empty map if converter does not use.
+	 * @param eps
+	 * @return distorted model which can be applied to the overlap relations
+	 *         concurrently.
+	 */
+	public DistortedModel prepare(final OrigamiModel origamiModel,
+			final CoordinateConverter converter,
+			final Map<OriVertex, Integer> vertexDepths, final double eps) {
+
 		var factory = new FaceFactory(converter, vertexDepths, eps);
 		var faces = origamiModel.getFaces().stream()
 				.map(face -> factory.create(face, eps))
 				.toList();
 
-		var interpolated = new OverlapRelationInterpolater().interpolate(overlapRelation, faces, eps);
+		return new DistortedModel(faces, new OverlapRelationInterpolater(faces, eps),
+				origamiModel.createPaperDomain());
+	}
+
+	/**
+	 * Faces distorted once for all overlap relations of a model.
+	 */
+	public static class DistortedModel {
+		private final List<Face> faces;
+		private final OverlapRelationInterpolater interpolater;
+		private final RectangleDomain paperDomain;
+
+		private DistortedModel(final List<Face> faces, final OverlapRelationInterpolater interpolater,
+				final RectangleDomain paperDomain) {
+			this.faces = faces;
+			this.interpolater = interpolater;
+			this.paperDomain = paperDomain;
+		}
+
+		/**
+		 * @return domain of the paper before folding.
+		 */
+		public RectangleDomain getPaperDomain() {
+			return paperDomain;
+		}
 
-		return new Result(Collections.unmodifiableList(faces), interpolated);
+		public Result apply(final OverlapRelation overlapRelation) {
+			return new Result(faces, interpolater.interpolate(overlapRelation));
+		}
 	}
 }
@@ -0,0 +1,106 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.renderer.estimation;
+
+import java.util.Arrays;
+
+import oripa.domain.fold.origeom.FaceLayerSorter;
+import oripa.domain.fold.origeom.OverlapRelation;
+import oripa.domain.fold.origeom.OverlapRelationValues;
+
+/**
+ * Order of faces from the viewer for the z-test. The faces are ranked once
+ * so that the overlap relation is not looked up for each pixel.
+ *
+ * A relation with a cycle, e.g., an interpolated one, cannot be ranked
+ * entirely. The faces sorted from the top get the ranks above the rest and
+ * the faces sorted from the bottom get the ranks below the rest. The rest,
+ * which are the faces on a cycle or between cycles, share the middle rank
+ * and are compared by the overlap relation.
+ */
+class FaceDepthOrder {
+	private final OverlapRelation overlapRelation;
+
+	/**
+	 * The value of overlap relation [face on pixel][new face] for which the
+	 * new face is drawn.
+	 */
+	private final byte renderFace;
+
+	private final int[] ranks;
+	private final int middleRank;
+
+	/**
+	 *
+	 * @param overlapRelation
+	 *            overlap relation of the faces.
+	 * @param faceOrderFlipped
+	 *            true if the model is seen from the bottom.
+	 */
+	public FaceDepthOrder(final OverlapRelation overlapRelation, final boolean faceOrderFlipped) {
+		this.overlapRelation = overlapRelation;
+		renderFace = faceOrderFlipped ? OverlapRelationValues.UPPER : OverlapRelationValues.LOWER;
+
+		var faceCount = overlapRelation.getSize();
+		var sorter = new FaceLayerSorter();
+		var fromTop = sorter.sortFromTop(overlapRelation);
+		var fromBottom = sorter.sortFromBottom(overlapRelation);
+
+		// rank from the bottom: [1, faceCount] for the faces sorted from the
+		// bottom, faceCount + 1 for the middle and the larger ones for the
+		// faces sorted from the top.
+		middleRank = faceCount + 1;
+		ranks = new int[faceCount];
+		Arrays.fill(ranks, middleRank);
+		for (int k = 0; k < fromBottom.length; k++) {
+			ranks[fromBottom[k]] = k + 1;
+		}
+		for (int k = 0; k < fromTop.length; k++) {
+			ranks[fromTop[k]] = middleRank + fromTop.length - k;
+		}
+
+		if (faceOrderFlipped) {
+			for (int i = 0; i < faceCount; i++) {
+				ranks[i] = -ranks[i];
+			}
+		}
+	}
+
+	/**
+	 *
+	 * @return rank of the face. Larger is closer to the viewer. Faces on a
+	 *         cycle share the same rank.
+	 */
+	public int getRank(final int faceID) {
+		return ranks[faceID];
+	}
+
+	/**
+	 *
+	 * @return true if the face is closer to the viewer than the other face.
+	 */
+	public boolean isCloser(final int faceID, final int otherFaceID) {
+		int rank = ranks[faceID];
+		int otherRank = ranks[otherFaceID];
+		if (rank != otherRank) {
+			return otherRank < rank;
+		}
+		return overlapRelation.get(otherFaceID, faceID) == renderFace;
+	}
+}
@@ -19,8 +19,11 @@
 package oripa.renderer.estimation;
 
 import java.awt.Color;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.IntStream;
 
+import oripa.domain.fold.origeom.FaceLayerSorter;
 import oripa.domain.fold.origeom.OverlapRelation;
 import oripa.domain.fold.origeom.OverlapRelationValues;
 import oripa.geom.RectangleDomain;
@@ -70,20 +73,16 @@ public class FoldedModelPixelRenderer {
 	public final int width;
 	public final int height;
 
+	private static final int DEFAULT_TILE_SIZE = 64;
+
 	private final int pbuf[]; // 32bit pixel buffer
 	private final int zbuf[]; // 32bit z buffer
-	private final int min[];
-	private final int max[];
-	private final int minr[];
-	private final int maxr[];
-	private final int ming[];
-	private final int maxg[];
-	private final int minb[];
-	private final int maxb[];
-	private final double minu[];
-	private final double maxu[];
-	private final double minv[];
-	private final double maxv[];
+
+	private final int tileSize;
+	private final int tileColumns;
+	private final int tileRows;
+
+	private final ThreadLocal<TriangleRasterizer> rasterizers;
 
 //	private final boolean bUseTexture = false;
 //	private final BufferedImage textureImage = null;
@@ -98,24 +97,30 @@ public class FoldedModelPixelRenderer {
 	 *            of image
 	 */
 	public FoldedModelPixelRenderer(final int width, final int height) {
+		this(width, height, DEFAULT_TILE_SIZE);
+	}
+
+	/**
+	 *
+	 * @param width
+	 *            of image
+	 * @param height
+	 *            of image
+	 * @param tileSize
+	 *            width and height of the tiles drawn in parallel.
+	 */
+	FoldedModelPixelRenderer(final int width, final int height, final int tileSize) {
 
 		this.width = width;
 		this.height = height;
 
 		pbuf = new int[width * height];
 		zbuf = new int[width * height];
-		min = new int[height];
-		max = new int[height];
-		minr = new int[height];
-		maxr = new int[height];
-		ming = new int[height];
-		maxg = new int[height];
-		minb = new int[height];
-		maxb = new int[height];
-		maxu = new double[height];
-		maxv = new double[height];
-		minu = new double[height];
-		minv = new double[height];
+
+		this.tileSize = tileSize;
+		tileColumns = (width + tileSize - 1) / tileSize;
+		tileRows = (height + tileSize - 1) / tileSize;
+		rasterizers = ThreadLocal.withInitial(() -> new TriangleRasterizer(tileSize));
 
 //		if (bUseTexture) {
 //			try {
@@ -142,7 +147,17 @@ public class FoldedModelPixelRenderer {
 
 		clear();
 
-		faces.forEach(face -> drawFace(face, overlapRelation, option, paperDomain));
+		var depthOrder = new FaceDepthOrder(overlapRelation, option.faceOrderFlipped);
+
+		var frontColorFactor = createColorFactor(option.frontColor);
+		var backColorFactor = createColorFactor(option.backColor);
+
+		var triangles = faces.parallelStream()
+				.flatMap(face -> createTriangles(face, frontColorFactor, backColorFactor, option, paperDomain)
+						.stream())
+				.toList();
+
+		drawTriangles(triangles, depthOrder, option);
 
 		if (option.drawEdges) {
 			drawEdges();
@@ -154,16 +169,11 @@ public class FoldedModelPixelRenderer {
 
 	}
 
-	private void drawFace(final Face face, final OverlapRelation overlapRelation,
+	private List<FaceTriangle> createTriangles(final Face face,
+			final List<Double> frontColorFactor, final List<Double> backColorFactor,
 			final Option option,
 			final RectangleDomain paperDomain) {
 
-		List<Double> frontColorFactor;
-		List<Double> backColorFactor;
-
-		frontColorFactor = createColorFactor(option.frontColor);
-		backColorFactor = createColorFactor(option.backColor);
-
 		var vertexColorMapFactory = new VertexColorMapFactory();
 		var colorMap = vertexColorMapFactory.createVertexColors(
 				face.getOriginalFace(),
@@ -175,10 +185,17 @@ public class FoldedModelPixelRenderer {
 		var triangles = triangleFactory.createAll(face);
 		triangles.forEach(triangle -> triangle.prepareColor(colorMap, paperDomain));
 
-		triangles.stream().forEach(tri -> {
-			drawTriangle(tri, face.getFaceID(), overlapRelation, option);
-		});
+		return triangles.stream()
+				.map(triangle -> new FaceTriangle(triangle, face.getFaceID()))
+				.toList();
+	}
+
+	private record FaceTriangle(TriangleFace triangle, int faceID) {
+	}
 
+	@FunctionalInterface
+	private interface TileAction {
+		void accept(int tile, int triangleIndex);
 	}
 
 	private List<Double> createColorFactor(final Color color) {
@@ -195,183 +212,78 @@ public class FoldedModelPixelRenderer {
 	// Polygon drawing
 	//
 	// --------------------------------------------------------------------
-	private void drawTriangle(final TriangleFace tri, final int id, final OverlapRelation overlapRelation,
-			final Option option) {
 
-		// (For speed) set the range of use of the buffer
-		int top = Integer.MAX_VALUE;
-		int btm = Integer.MIN_VALUE;
-		if (top > (int) tri.v[0].p.getY()) {
-			top = (int) tri.v[0].p.getY();
-		}
-		if (top > (int) tri.v[1].p.getY()) {
-			top = (int) tri.v[1].p.getY();
-		}
-		if (top > (int) tri.v[2].p.getY()) {
-			top = (int) tri.v[2].p.getY();
-		}
-		if (btm < (int) tri.v[0].p.getY()) {
-			btm = (int) tri.v[0].p.getY();
-		}
-		if (btm < (int) tri.v[1].p.getY()) {
-			btm = (int) tri.v[1].p.getY();
-		}
-		if (btm < (int) tri.v[2].p.getY()) {
-			btm = (int) tri.v[2].p.getY();
-		}
-		if (top < 0) {
-			top = 0;
-		}
-		if (btm > height) {
-			btm = height;
-		}
+	/**
+	 * Bins the triangles into tiles and draws the tiles in parallel. Each tile
+	 * draws its triangles in the given order, so the result is the same as
+	 * drawing the whole triangles one by one.
+	 */
+	private void drawTriangles(final List<FaceTriangle> triangles, final FaceDepthOrder depthOrder,
+			final Option option) {
+		var tileCount = tileColumns * tileRows;
 
-		// Maximum and minimum buffer initialization
-		for (int i = top; i < btm; i++) {
-			min[i] = Integer.MAX_VALUE;
-			max[i] = Integer.MIN_VALUE;
+		// triangle indices of each tile in compressed row form.
+		var offsets = new int[tileCount + 1];
+		forEachTile(triangles, (tile, t) -> offsets[tile + 1]++);
+		for (int tile = 0; tile < tileCount; tile++) {
+			offsets[tile + 1] += offsets[tile];
 		}
-
-		ScanEdge(tri.v[0], tri.v[1]);
-		ScanEdge(tri.v[1], tri.v[2]);
-		ScanEdge(tri.v[2], tri.v[0]);
-
-		// To be drawn on the basis of the maximum and minimum buffer.
-		for (int y = top; y < btm; y++) {
-
-			// Skip if the buffer is not updated
-			if (min[y] == Integer.MAX_VALUE) {
-				continue;
-			}
-
-			int offset = y * width;
-
-			// Increment calculation
-			int l = (max[y] - min[y]) + 1;
-			int addr = (maxr[y] - minr[y]) / l;
-			int addg = (maxg[y] - ming[y]) / l;
-			int addb = (maxb[y] - minb[y]) / l;
-			double addu = (maxu[y] - minu[y]) / l;
-			double addv = (maxv[y] - minv[y]) / l;
-
-			int r = minr[y];
-			int g = ming[y];
-			int b = minb[y];
-			double u = minu[y];
-			double v = minv[y];
-
-			for (int x = min[y]; x <= max[y]; x++, r += addr, g += addg, b += addb, u += addu, v += addv) {
-
-				if (x < 0 || x >= width) {
-					continue;
-				}
-
-				var faceOrderFlipped = option.faceOrderFlipped;
-				// flattened pixel index
-				int p = offset + x;
-
-				byte renderFace = faceOrderFlipped ? OverlapRelationValues.UPPER
-						: OverlapRelationValues.LOWER;
-
-				if (zbuf[p] == -1 || overlapRelation.get(zbuf[p], id) == renderFace) {
-
-					int tr = r >> 16;
-					int tg = g >> 16;
-					int tb = b >> 16;
-
-					var fillFaces = option.fillFaces;
-
-					if (!fillFaces) {
-						pbuf[p] = 0xffffffff;
-
-					} else {
-//						if (bUseTexture) {
-//							int tx = (int) (textureImage.getWidth() * u);
-//							int ty = (int) (textureImage.getHeight() * v);
-//
-//							tx = tx % textureImage.getWidth();
-//							ty = ty % textureImage.getHeight();
-//							int textureColor = textureImage.getRGB(tx, ty);
-//
-//							if (fillFaces && (tri.isFaceFront() ^ faceOrderFlipped)) {
-//								pbuf[p] = textureColor;
-//							} else {
-//								pbuf[p] = (tr << 16) | (tg << 8) | tb | 0xff000000;
-//
-//							}
-//						} else
-						{
-							pbuf[p] = (tr << 16) | (tg << 8) | tb | 0xff000000;
-						}
-					}
-					zbuf[p] = id;
-				}
+		var tileTriangles = new int[offsets[tileCount]];
+		var fill = Arrays.copyOf(offsets, tileCount);
+		forEachTile(triangles, (tile, t) -> tileTriangles[fill[tile]++] = t);
+
+		IntStream.range(0, tileCount).parallel().forEach(tile -> {
+			var rasterizer = rasterizers.get();
+
+			int left = (tile % tileColumns) * tileSize;
+			int top = (tile / tileColumns) * tileSize;
+			int right = Math.min(left + tileSize, width);
+			int bottom = Math.min(top + tileSize, height);
+
+			for (int k = offsets[tile]; k < offsets[tile + 1]; k++) {
+				var triangle = triangles.get(tileTriangles[k]);
+				rasterizer.drawTriangle(triangle.triangle(), triangle.faceID(), depthOrder, option.fillFaces,
+						left, top, right, bottom, width, pbuf, zbuf);
 			}
-		}
+		});
 	}
 
-	// --------------------------------------------------------------------
-	// ScanEdge
-	//
-	// Vector v1 ...Starting point
-	// Vector v2 ...Starting point
-	// --------------------------------------------------------------------
-	private void ScanEdge(final TriangleVertex v1, final TriangleVertex v2) {
-
-		int l = Math.abs((int) (v2.p.getY() - v1.p.getY())) + 1;
-
-		// Increment calculation
-		int addx = (int) ((v2.p.getX() - v1.p.getX()) * 0xffff) / l;
-		int addy = (int) ((v2.p.getY() - v1.p.getY()) * 0xffff) / l;
-
-		int addr = (int) (255 * 0xffff * (v2.color.getR() - v1.color.getR()) / l);
-		int addg = (int) (255 * 0xffff * (v2.color.getG() - v1.color.getG()) / l);
-		int addb = (int) (255 * 0xffff * (v2.color.getB() - v1.color.getB()) / l);
-
-		double addu = (v2.uv.getX() - v1.uv.getX()) / l;
-		double addv = (v2.uv.getY() - v1.uv.getY()) / l;
-
-		// Initial value setting
-		int x = (int) (v1.p.getX() * 0xffff);
-		int y = (int) (v1.p.getY() * 0xffff);
-		int r = (int) (255 * 0xffff * v1.color.getR());
-		int g = (int) (255 * 0xffff * v1.color.getG());
-		int b = (int) (255 * 0xffff * v1.color.getB());
-		double u = v1.uv.getX();
-		double v = v1.uv.getY();
-
-		// Scan
-		for (int i = 0; i < l; i++, x += addx, y += addy, r += addr, g += addg, b += addb, u += addu, v += addv) {
-			int py = y >> 16;
-			int px = x >> 16;
-
-			if (py < 0 || py >= height) {
-				continue;
+	/**
+	 * Calls the action for each pair of tile and triangle index where the
+	 * bounding box of the triangle overlaps the tile.
+	 */
+	private void forEachTile(final List<FaceTriangle> triangles, final TileAction action) {
+		for (int t = 0; t < triangles.size(); t++) {
+			var tri = triangles.get(t).triangle();
+
+			int top = Math.max(TriangleRasterizer.getTop(tri), 0);
+			int bottom = Math.min(TriangleRasterizer.getBottom(tri), height);
+
+			double minX = Double.MAX_VALUE;
+			double maxX = -Double.MAX_VALUE;
+			for (var v : tri.v) {
+				minX = Math.min(minX, v.p.getX());
+				maxX = Math.max(maxX, v.p.getX());
 			}
+			// one pixel margin for the rounding of fixed point
+			int left = Math.max((int) Math.floor(minX) - 1, 0);
+			int right = Math.min((int) Math.ceil(maxX) + 1, width - 1);
 
-			if (min[py] > px) {
-				min[py] = px;
-				minr[py] = r;
-				ming[py] = g;
-				minb[py] = b;
-				minu[py] = u;
-				minv[py] = v;
+			if (top >= bottom || left > right) {
+				continue;
 			}
 
-			if (max[py] < px) {
-				max[py] = px;
-				maxr[py] = r;
-				maxg[py] = g;
-				maxb[py] = b;
-				maxu[py] = u;
-				maxv[py] = v;
+			for (int row = top / tileSize; row <= (bottom - 1) / tileSize; row++) {
+				for (int column = left / tileSize; column <= right / tileSize; column++) {
+					action.accept(row * tileColumns + column, t);
+				}
 			}
 		}
 	}
 
 	private void drawEdges() {
 		// apply Sobel filter
-		for (int y = 1; y < height - 1; y++) {
+		IntStream.range(1, height - 1).parallel().forEach(y -> {
 			for (int x = 1; x < width - 1; x++) {
 				int val_h = -1 * zbuf[getIndex(x - 1, y - 1)]
 						+ zbuf[getIndex(x + 1, y - 1)]
@@ -390,63 +302,298 @@ public class FoldedModelPixelRenderer {
 					pbuf[getIndex(x, y)] = 0xff888888;
 				}
 			}
-		}
+		});
 	}
 
+	/**
+	 * Darkens each pixel by the number of the pixels within a circle of radius
+	 * r which are closer to the viewer than the pixel itself. The closeness is
+	 * given by the occlusion level of the face so that the overlap relation is
+	 * not looked up for each pair of pixels. Hence a face at a closer level
+	 * darkens the pixel even if the faces do not overlap, e.g., a flap lying
+	 * next to a face behind another flap. Such a shadow stays within the
+	 * radius along the boundary of the faces.
+	 *
+	 * The levels are processed from the closest one: the pixels of each level
+	 * count the pixels added to the rows so far and then are added to the
+	 * rows. A circle is summed up by its 2r + 1 row spans, so the cost does not
+	 * depend on the number of the levels.
+	 */
 	private void applyAmbientOcculusion(final OverlapRelation overlapRelation, final Option option) {
-		byte renderFace = option.faceOrderFlipped ? OverlapRelationValues.UPPER
-				: OverlapRelationValues.LOWER;
 		int r = 10;
 		int s = (int) (r * r * Math.PI);
-		// For every pixel
-		for (int y = 1; y < height - 1; y++) {
-			for (int x = 1; x < width - 1; x++) {
-				int f_id = zbuf[getIndex(x, y)];
-
-				// Within a circle of radius r, Count the pixels of the
-				// surface
-				// that is above their own
-				int cnt = 0;
-				for (int dy = -r; dy <= r; dy++) {
-					for (int dx = -r; dx <= r; dx++) {
-						if (dx * dx + dy * dy > r * r) {
-							continue;
-						}
-						if (y + dy < 0 || y + dy > height - 1) {
+
+		var levels = createOcclusionLevels(overlapRelation, option);
+		int levelCount = levels.background() + 1;
+
+		// half width of the circle for each dy
+		var spans = new int[2 * r + 1];
+		for (int dy = -r; dy <= r; dy++) {
+			int dx = 0;
+			while ((dx + 1) * (dx + 1) + dy * dy <= r * r) {
+				dx++;
+			}
+			spans[dy + r] = dx;
+		}
+
+		// x of the pixels sorted by (level, y, x) in counting sort manner.
+		var offsets = new int[levelCount * height + 1];
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				offsets[getLevel(levels, x, y) * height + y + 1]++;
+			}
+		}
+		for (int k = 0; k < levelCount * height; k++) {
+			offsets[k + 1] += offsets[k];
+		}
+		var pixelXs = new int[width * height];
+		var positions = Arrays.copyOf(offsets, offsets.length - 1);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				pixelXs[positions[getLevel(levels, x, y) * height + y]++] = x;
+			}
+		}
+
+		var renderFace = option.faceOrderFlipped ? OverlapRelationValues.UPPER : OverlapRelationValues.LOWER;
+		var closerPixels = new PixelRows(width, height, spans);
+
+		for (int level = 0; level < levelCount; level++) {
+			final int currentLevel = level;
+
+			// nothing is closer than the level 0 unless it is the middle.
+			if (level > 0 || level == levels.middle()) {
+				IntStream.range(1, height - 1).parallel().forEach(y -> {
+					int bucket = currentLevel * height + y;
+					// the circles of adjacent pixels are counted by sliding.
+					int previousX = -1;
+					int closerCount = 0;
+					for (int k = offsets[bucket]; k < offsets[bucket + 1]; k++) {
+						int x = pixelXs[k];
+						if (x < 1 || x > width - 2) {
 							continue;
 						}
-						if (x + dx < 0 || x + dx > width - 1) {
-							continue;
+
+						closerCount = x == previousX + 1
+								? closerCount + closerPixels.countSlidIn(x, y)
+								: closerPixels.countInCircle(x, y);
+						previousX = x;
+
+						int cnt = closerCount;
+						if (currentLevel == levels.middle()) {
+							cnt += countCloserInMiddle(overlapRelation, levels, renderFace, spans, x, y);
 						}
-						int f_id2 = zbuf[getIndex(x + dx, y + dy)];
-
-						if (f_id == -1 && f_id2 != -1) {
-							cnt++;
-						} else {
-							if (f_id2 != -1 && overlapRelation.get(f_id, f_id2) == renderFace) {
-								cnt++;
-							}
+
+						if (cnt > 0) {
+							darken(getIndex(x, y), 1.0 - ((double) cnt) / s);
 						}
 					}
+				});
+			}
+
+			IntStream.range(0, height).parallel().forEach(y -> {
+				int bucket = currentLevel * height + y;
+				for (int k = offsets[bucket]; k < offsets[bucket + 1]; k++) {
+					closerPixels.add(pixelXs[k], y);
 				}
+			});
+		}
+	}
 
-				if (cnt > 0) {
-					int prev = pbuf[getIndex(x, y)];
-					double ratio = 1.0 - ((double) cnt) / s;
-					int p_r = (int) Math.max(0, ((prev & 0x00ff0000) >> 16) * ratio);
-					int p_g = (int) Math.max(0, ((prev & 0x0000ff00) >> 8) * ratio);
-					int p_b = (int) Math.max(0, (prev & 0x000000ff) * ratio);
+	/**
+	 * The faces at the middle level share the level since they are on a cycle
+	 * or between cycles. The pixels of such faces are compared by the overlap
+	 * relation.
+	 *
+	 * @return the number of the pixels within the circle whose faces are at
+	 *         the middle level and closer than the face at (x, y).
+	 */
+	private int countCloserInMiddle(final OverlapRelation overlapRelation, final OcclusionLevels levels,
+			final byte renderFace, final int[] spans, final int x, final int y) {
+		int r = spans.length / 2;
+		int faceID = zbuf[getIndex(x, y)];
+
+		int cnt = 0;
+		for (int dy = -r; dy <= r; dy++) {
+			if (y + dy < 0 || y + dy > height - 1) {
+				continue;
+			}
+			int spanLeft = Math.max(x - spans[dy + r], 0);
+			int spanRight = Math.min(x + spans[dy + r], width - 1);
+			for (int x2 = spanLeft; x2 <= spanRight; x2++) {
+				int faceID2 = zbuf[getIndex(x2, y + dy)];
+				if (faceID2 != -1 && levels.faces()[faceID2] == levels.middle()
+						&& overlapRelation.get(faceID, faceID2) == renderFace) {
+					cnt++;
+				}
+			}
+		}
+		return cnt;
+	}
 
-					pbuf[getIndex(x, y)] = (p_r << 16) | (p_g << 8) | p_b | 0xff000000;
+	/**
+	 * Occlusion level of each face, which is the layer depth from the viewer,
+	 * and the level of the background.
+	 *
+	 * @param faces
+	 *            level of each face ID.
+	 * @param middle
+	 *            level shared by the faces on a cycle of the relation or
+	 *            between cycles. -1 if there is no such face.
+	 * @param background
+	 *            level of the background, which is behind all faces.
+	 */
+	private record OcclusionLevels(int[] faces, int middle, int background) {
+	}
+
+	/**
+	 * Computes the occlusion level of each face. The faces sorted from the
+	 * viewer get their depths from the viewer, the faces sorted only from the
+	 * other side are put behind the rest by their depths from that side and
+	 * the rest, which are on a cycle or between cycles, share the middle
+	 * level.
+	 */
+	private OcclusionLevels createOcclusionLevels(final OverlapRelation overlapRelation, final Option option) {
+		var sorter = new FaceLayerSorter();
+		var fromViewer = sorter.computeDepths(overlapRelation, !option.faceOrderFlipped);
+		var fromBehind = sorter.computeDepths(overlapRelation, option.faceOrderFlipped);
+
+		int frontLevelCount = Arrays.stream(fromViewer).max().orElse(-1) + 1;
+		int maxDepthFromBehind = Arrays.stream(fromBehind).max().orElse(-1);
+
+		boolean hasMiddle = IntStream.range(0, fromViewer.length)
+				.anyMatch(i -> fromViewer[i] < 0 && fromBehind[i] < 0);
+		int middle = hasMiddle ? frontLevelCount : -1;
+		int behindOffset = frontLevelCount + (hasMiddle ? 1 : 0);
+
+		var levels = new int[fromViewer.length];
+		for (int i = 0; i < levels.length; i++) {
+			if (fromViewer[i] >= 0) {
+				levels[i] = fromViewer[i];
+			} else if (fromBehind[i] >= 0) {
+				levels[i] = behindOffset + maxDepthFromBehind - fromBehind[i];
+			} else {
+				levels[i] = middle;
+			}
+		}
+
+		return new OcclusionLevels(levels, middle, behindOffset + maxDepthFromBehind + 1);
+	}
+
+	private int getLevel(final OcclusionLevels levels, final int x, final int y) {
+		int faceID = zbuf[getIndex(x, y)];
+		return faceID == -1 ? levels.background() : levels.faces()[faceID];
+	}
+
+	/**
+	 * Pixels added so far, which counts the added pixels within a circle given
+	 * by the half width of each row span. The pixels are held twice: a flag
+	 * for each pixel to slide the circle by one pixel and a bit set of each
+	 * row to count a span shorter than 64 pixels with at most two words.
+	 */
+	private static class PixelRows {
+		private final int width;
+		private final int height;
+		private final int[] spans;
+		private final boolean[] added;
+		private final int rowWordCount;
+		private final long[] words;
+
+		PixelRows(final int width, final int height, final int[] spans) {
+			this.width = width;
+			this.height = height;
+			this.spans = spans;
+			added = new boolean[width * height];
+			rowWordCount = (width + 63) / 64;
+			words = new long[rowWordCount * height];
+		}
+
+		/**
+		 * Adds a pixel. Rows can be modified in parallel since a word belongs
+		 * to one row.
+		 */
+		void add(final int x, final int y) {
+			added[y * width + x] = true;
+			words[y * rowWordCount + (x >>> 6)] |= 1L << (x & 63);
+		}
+
+		/**
+		 *
+		 * @return the number of the added pixels within the circle at (x, y).
+		 */
+		int countInCircle(final int x, final int y) {
+			int r = spans.length / 2;
+			int cnt = 0;
+			for (int dy = Math.max(-r, -y); dy <= Math.min(r, height - 1 - y); dy++) {
+				int left = Math.max(x - spans[dy + r], 0);
+				int right = Math.min(x + spans[dy + r], width - 1);
+				cnt += count(y + dy, left, right);
+			}
+			return cnt;
+		}
+
+		/**
+		 *
+		 * @return the difference of the count when the circle moves from (x -
+		 *         1, y) to (x, y).
+		 */
+		int countSlidIn(final int x, final int y) {
+			int r = spans.length / 2;
+			int cnt = 0;
+			for (int dy = Math.max(-r, -y); dy <= Math.min(r, height - 1 - y); dy++) {
+				int offset = (y + dy) * width;
+				int entered = x + spans[dy + r];
+				int left = x - 1 - spans[dy + r];
+				if (entered < width && added[offset + entered]) {
+					cnt++;
+				}
+				if (left >= 0 && added[offset + left]) {
+					cnt--;
+				}
+			}
+			return cnt;
+		}
+
+		private int count(final int y, final int left, final int right) {
+			int offset = y * rowWordCount;
+			int first = left >>> 6;
+			int last = right >>> 6;
+
+			int cnt = 0;
+			for (int w = first; w <= last; w++) {
+				long word = words[offset + w];
+				if (w == first) {
+					word &= -1L << (left & 63);
 				}
+				if (w == last) {
+					word &= -1L >>> (63 - (right & 63));
+				}
+				cnt += Long.bitCount(word);
 			}
+			return cnt;
 		}
 	}
 
+	private void darken(final int index, final double ratio) {
+		int prev = pbuf[index];
+		int p_r = (int) Math.max(0, ((prev & 0x00ff0000) >> 16) * ratio);
+		int p_g = (int) Math.max(0, ((prev & 0x0000ff00) >> 8) * ratio);
+		int p_b = (int) Math.max(0, (prev & 0x000000ff) * ratio);
+
+		pbuf[index] = (p_r << 16) | (p_g << 8) | p_b | 0xff000000;
+	}
+
 	public int[] getPixels() {
 		return pbuf;
 	}
 
+	/**
+	 *
+	 * @return the face ID drawn on each pixel. -1 for the background.
+	 */
+	int[] getFaceIDs() {
+		return zbuf;
+	}
+
 	/*
 	 * Convenience method that returns a scaled instance of the provided {@code
 	 * BufferedImage}.
@@ -19,11 +19,15 @@
 package oripa.renderer.estimation;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.stream.IntStream;
+import java.util.concurrent.ConcurrentHashMap;
 
+import oripa.domain.fold.halfedge.OriHalfedge;
 import oripa.domain.fold.origeom.OriGeomUtil;
 import oripa.domain.fold.origeom.OverlapRelation;
+import oripa.geom.RectangleDomain;
+import oripa.geom.SweepAndPrune;
 import oripa.util.IntPair;
 import oripa.util.collection.CollectionUtil;
 
@@ -32,51 +36,82 @@ import oripa.util.collection.CollectionUtil;
  *
  */
 class OverlapRelationInterpolater {
-	public OverlapRelation interpolate(final OverlapRelation overlapRelation, final List<Face> faces,
-			final double eps) {
-		var interpolatedOverlapRelation = overlapRelation.clone();
-		var changed = false;
-
-		Set<IntPair> newOverlaps = CollectionUtil.newConcurrentHashSet();
+	private final List<Face> faces;
+	private final double eps;
+
+	private final List<IntPair> intersectingPairs;
+
+	/**
+	 * Whether the converted faces of each intersecting pair overlap. Filled
+	 * on demand so that the geometric test is done once for all overlap
+	 * relations of the same faces.
+	 */
+	private final Map<IntPair, Boolean> convertedFaceOverlaps = new ConcurrentHashMap<>();
+
+	/**
+	 * Prepares the faces for the interpolation, which can be shared by the
+	 * overlap relations of the same model.
+	 *
+	 * @param faces
+	 *            distorted faces.
+	 * @param eps
+	 */
+	public OverlapRelationInterpolater(final List<Face> faces, final double eps) {
+		this.faces = faces;
+		this.eps = eps;
 
 		for (var face : faces) {
 			face.getConvertedFace().buildTriangles(eps);
 		}
 
 		// preparation
-		IntStream.range(0, faces.size())
-				.parallel()
-				.forEach(i -> IntStream.range(0, faces.size())
-						.parallel()
-						.forEach(j -> {
-							var face_i = faces.get(i);
-							var index_i = face_i.getFaceID();
-
-							var face_j = faces.get(j);
-							var index_j = face_j.getFaceID();
-
-							// converted faces (= distorted faces) can overlap
-							// even if original faces don't overlap.
-							if (overlapRelation.isNoOverlap(index_i, index_j)) {
-								if (OriGeomUtil.isFaceOverlap(
-										face_i.getConvertedFace(), face_j.getConvertedFace(), eps)) {
-									newOverlaps.add(new IntPair(i, j));
-								}
-							}
-						}));
+		var domains = faces.stream()
+				.map(face -> RectangleDomain.createFromPoints(
+						face.getConvertedFace().halfedgeStream().map(OriHalfedge::getPosition).toList()))
+				.toList();
+
+		intersectingPairs = new SweepAndPrune().findIntersectingPairs(domains, eps);
+	}
+
+	public OverlapRelation interpolate(final OverlapRelation overlapRelation) {
+		// the renderer reads the result for each pixel.
+		var interpolatedOverlapRelation = overlapRelation.materialize();
+		var changed = false;
+
+		Set<IntPair> newOverlaps = CollectionUtil.newConcurrentHashSet();
+
+		intersectingPairs.parallelStream()
+				.forEach(pair -> {
+					int i = pair.v1();
+					int j = pair.v2();
+					var face_i = faces.get(i);
+					var index_i = face_i.getFaceID();
+
+					var face_j = faces.get(j);
+					var index_j = face_j.getFaceID();
+
+					// converted faces (= distorted faces) can overlap
+					// even if original faces don't overlap.
+					if (interpolatedOverlapRelation.isNoOverlap(index_i, index_j)) {
+						if (convertedFaceOverlaps.computeIfAbsent(pair, p -> OriGeomUtil.isFaceOverlap(
+								face_i.getConvertedFace(), face_j.getConvertedFace(), eps))) {
+							newOverlaps.add(new IntPair(i, j));
+							newOverlaps.add(new IntPair(j, i));
+						}
+					}
+				});
 
 		do {
 			// update overlap relation
 			changed = newOverlaps.stream()
-					.anyMatch(pair -> interpolate(interpolatedOverlapRelation, faces,
-							pair.v1(), pair.v2(), eps));
+					.anyMatch(pair -> interpolate(interpolatedOverlapRelation, pair.v1(), pair.v2()));
 		} while (changed);
 
 		return interpolatedOverlapRelation;
 	}
 
-	private boolean interpolate(final OverlapRelation interpolatedOverlapRelation, final List<Face> faces,
-			final int i, final int j, final double eps) {
+	private boolean interpolate(final OverlapRelation interpolatedOverlapRelation,
+			final int i, final int j) {
 		var face_i = faces.get(i);
 		var index_i = face_i.getFaceID();
 
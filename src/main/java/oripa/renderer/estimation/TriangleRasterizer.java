@@ -0,0 +1,280 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.renderer.estimation;
+
+/**
+ * Scanline rasterizer of triangles clipped to a rectangular tile. Each
+ * instance has its own scanline buffers for the rows of a tile so that tiles
+ * can be rendered in parallel with one instance per thread.
+ *
+ * The fixed point arithmetic is the same as drawing the whole triangle at
+ * once: the value at the k-th step is computed as start + k * increment,
+ * which equals the sum of k increments in int arithmetic.
+ */
+class TriangleRasterizer {
+	private final int min[];
+	private final int max[];
+	private final int minr[];
+	private final int maxr[];
+	private final int ming[];
+	private final int maxg[];
+	private final int minb[];
+	private final int maxb[];
+	private final double minu[];
+	private final double maxu[];
+	private final double minv[];
+	private final double maxv[];
+
+	// rows of the triangle in the tile. the end is exclusive.
+	private int rowFrom;
+	private int rowTo;
+
+	/**
+	 *
+	 * @param tileHeight
+	 *            the maximum number of rows of a tile.
+	 */
+	public TriangleRasterizer(final int tileHeight) {
+		min = new int[tileHeight];
+		max = new int[tileHeight];
+		minr = new int[tileHeight];
+		maxr = new int[tileHeight];
+		ming = new int[tileHeight];
+		maxg = new int[tileHeight];
+		minb = new int[tileHeight];
+		maxb = new int[tileHeight];
+		maxu = new double[tileHeight];
+		maxv = new double[tileHeight];
+		minu = new double[tileHeight];
+		minv = new double[tileHeight];
+	}
+
+	/**
+	 *
+	 * @return the first row to be drawn.
+	 */
+	static int getTop(final TriangleFace tri) {
+		int top = Integer.MAX_VALUE;
+		for (var v : tri.v) {
+			top = Math.min(top, (int) v.p.getY());
+		}
+		return top;
+	}
+
+	/**
+	 *
+	 * @return the end of rows to be drawn, exclusive.
+	 */
+	static int getBottom(final TriangleFace tri) {
+		int btm = Integer.MIN_VALUE;
+		for (var v : tri.v) {
+			btm = Math.max(btm, (int) v.p.getY());
+		}
+		return btm;
+	}
+
+	/**
+	 * Draws the part of the triangle in the tile. A pixel is overwritten if
+	 * it is empty or the face on it is farther from the viewer than the given
+	 * one.
+	 *
+	 * @param tri
+	 *            triangle to be drawn.
+	 * @param id
+	 *            face ID of the triangle.
+	 * @param depthOrder
+	 *            order of the faces from the viewer.
+	 * @param fillFaces
+	 *            false if the faces should be white.
+	 * @param left
+	 *            left of the tile.
+	 * @param top
+	 *            top of the tile.
+	 * @param right
+	 *            right of the tile, exclusive.
+	 * @param bottom
+	 *            bottom of the tile, exclusive.
+	 * @param width
+	 *            width of the buffers.
+	 * @param pbuf
+	 *            pixel buffer.
+	 * @param zbuf
+	 *            buffer of face IDs.
+	 */
+	public void drawTriangle(final TriangleFace tri, final int id, final FaceDepthOrder depthOrder,
+			final boolean fillFaces,
+			final int left, final int top, final int right, final int bottom,
+			final int width, final int[] pbuf, final int[] zbuf) {
+
+		// (For speed) set the range of use of the buffer
+		rowFrom = Math.max(top, getTop(tri));
+		rowTo = Math.min(bottom, getBottom(tri));
+		if (rowFrom >= rowTo) {
+			return;
+		}
+
+		// Maximum and minimum buffer initialization
+		for (int i = rowFrom; i < rowTo; i++) {
+			min[i - top] = Integer.MAX_VALUE;
+			max[i - top] = Integer.MIN_VALUE;
+		}
+
+		scanEdge(tri.v[0], tri.v[1], top);
+		scanEdge(tri.v[1], tri.v[2], top);
+		scanEdge(tri.v[2], tri.v[0], top);
+
+		// To be drawn on the basis of the maximum and minimum buffer.
+		for (int y = rowFrom; y < rowTo; y++) {
+			int row = y - top;
+
+			// Skip if the buffer is not updated
+			if (min[row] == Integer.MAX_VALUE) {
+				continue;
+			}
+
+			int offset = y * width;
+
+			// Increment calculation
+			int l = (max[row] - min[row]) + 1;
+			int addr = (maxr[row] - minr[row]) / l;
+			int addg = (maxg[row] - ming[row]) / l;
+			int addb = (maxb[row] - minb[row]) / l;
+			double addu = (maxu[row] - minu[row]) / l;
+			double addv = (maxv[row] - minv[row]) / l;
+
+			int start = Math.max(min[row], left);
+			int end = Math.min(max[row], right - 1);
+			int k = start - min[row];
+
+			int r = minr[row] + k * addr;
+			int g = ming[row] + k * addg;
+			int b = minb[row] + k * addb;
+			double u = minu[row] + k * addu;
+			double v = minv[row] + k * addv;
+
+			for (int x = start; x <= end; x++, r += addr, g += addg, b += addb, u += addu, v += addv) {
+				// flattened pixel index
+				int p = offset + x;
+
+				if (zbuf[p] == -1 || depthOrder.isCloser(id, zbuf[p])) {
+
+					int tr = r >> 16;
+					int tg = g >> 16;
+					int tb = b >> 16;
+
+					if (!fillFaces) {
+						pbuf[p] = 0xffffffff;
+
+					} else {
+						pbuf[p] = (tr << 16) | (tg << 8) | tb | 0xff000000;
+					}
+					zbuf[p] = id;
+				}
+			}
+		}
+	}
+
+	// --------------------------------------------------------------------
+	// ScanEdge
+	//
+	// Vector v1 ...Starting point
+	// Vector v2 ...Starting point
+	// --------------------------------------------------------------------
+	private void scanEdge(final TriangleVertex v1, final TriangleVertex v2, final int top) {
+
+		int l = Math.abs((int) (v2.p.getY() - v1.p.getY())) + 1;
+
+		// Increment calculation
+		int addx = (int) ((v2.p.getX() - v1.p.getX()) * 0xffff) / l;
+		int addy = (int) ((v2.p.getY() - v1.p.getY()) * 0xffff) / l;
+
+		int addr = (int) (255 * 0xffff * (v2.color.getR() - v1.color.getR()) / l);
+		int addg = (int) (255 * 0xffff * (v2.color.getG() - v1.color.getG()) / l);
+		int addb = (int) (255 * 0xffff * (v2.color.getB() - v1.color.getB()) / l);
+
+		double addu = (v2.uv.getX() - v1.uv.getX()) / l;
+		double addv = (v2.uv.getY() - v1.uv.getY()) / l;
+
+		// Initial value setting
+		int x0 = (int) (v1.p.getX() * 0xffff);
+		int y0 = (int) (v1.p.getY() * 0xffff);
+
+		// skip the steps above the tile
+		int first = findFirstStep(y0, addy, l);
+
+		int x = x0 + first * addx;
+		int y = y0 + first * addy;
+		int r = (int) (255 * 0xffff * v1.color.getR()) + first * addr;
+		int g = (int) (255 * 0xffff * v1.color.getG()) + first * addg;
+		int b = (int) (255 * 0xffff * v1.color.getB()) + first * addb;
+		double u = v1.uv.getX() + first * addu;
+		double v = v1.uv.getY() + first * addv;
+
+		// Scan
+		for (int i = first; i < l; i++, x += addx, y += addy, r += addr, g += addg, b += addb, u += addu, v += addv) {
+			int py = y >> 16;
+			int px = x >> 16;
+
+			if (py < rowFrom || py >= rowTo) {
+				if ((addy > 0 && py >= rowTo) || (addy < 0 && py < rowFrom)) {
+					break;
+				}
+				continue;
+			}
+
+			int row = py - top;
+
+			if (min[row] > px) {
+				min[row] = px;
+				minr[row] = r;
+				ming[row] = g;
+				minb[row] = b;
+				minu[row] = u;
+				minv[row] = v;
+			}
+
+			if (max[row] < px) {
+				max[row] = px;
+				maxr[row] = r;
+				maxg[row] = g;
+				maxb[row] = b;
+				maxu[row] = u;
+				maxv[row] = v;
+			}
+		}
+	}
+
+	/**
+	 * Finds a step before the edge enters the rows to be drawn. The result
+	 * can be earlier than the exact one since the caller skips rows outside.
+	 */
+	private int findFirstStep(final int y0, final int addy, final int l) {
+		long target;
+		if (addy > 0) {
+			target = ((long) rowFrom << 16) - y0;
+		} else if (addy < 0) {
+			target = ((long) rowTo << 16) - y0;
+		} else {
+			return 0;
+		}
+		long step = target / addy - 1;
+
+		return (int) Math.max(0, Math.min(step, l));
+	}
+}
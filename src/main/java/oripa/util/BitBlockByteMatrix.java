@@ -70,6 +70,16 @@ public class BitBlockByteMatrix implements ByteMatrix {
 		return c;
 	}
 
+	@Override
+	public void copyTo(final ByteMatrix to) {
+		if (to instanceof BitBlockByteMatrix blockMatrix && blockMatrix.blockLength == blockLength
+				&& blockMatrix.rowCount == rowCount && blockMatrix.columnCount == columnCount) {
+			Matrices.copy(array, blockMatrix.array);
+			return;
+		}
+		ByteMatrix.super.copyTo(to);
+	}
+
 	@Override
 	public int rowCount() {
 		return rowCount;
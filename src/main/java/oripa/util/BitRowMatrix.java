@@ -0,0 +1,205 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.util;
+
+import java.util.Arrays;
+
+/**
+ * Square boolean matrix whose rows are bit sets packed into long words. Row
+ * operations such as union, intersection and transitive closure are
+ * performed 64 columns at a time.
+ */
+public class BitRowMatrix {
+	private static final int WORD_BITS = 64;
+
+	private final long[][] rows;
+	private final int size;
+
+	/**
+	 * Creates n x n matrix filled with false.
+	 *
+	 * @param size
+	 *            n
+	 */
+	public BitRowMatrix(final int size) {
+		this.size = size;
+		rows = new long[size][wordCount(size)];
+	}
+
+	private BitRowMatrix(final BitRowMatrix other) {
+		this(other.size);
+		Matrices.copy(other.rows, rows);
+	}
+
+	/**
+	 * @return the number of long words to store the given number of bits.
+	 */
+	public static int wordCount(final int bitCount) {
+		return (bitCount + WORD_BITS - 1) / WORD_BITS;
+	}
+
+	@Override
+	public BitRowMatrix clone() {
+		return new BitRowMatrix(this);
+	}
+
+	/**
+	 * @return the n of n x n matrix.
+	 */
+	public int size() {
+		return size;
+	}
+
+	public boolean get(final int i, final int j) {
+		return (rows[i][j / WORD_BITS] & (1L << j)) != 0;
+	}
+
+	public void set(final int i, final int j) {
+		rows[i][j / WORD_BITS] |= 1L << j;
+	}
+
+	public void clear(final int i, final int j) {
+		rows[i][j / WORD_BITS] &= ~(1L << j);
+	}
+
+	/**
+	 * Direct access to the words of the row for word-parallel operations.
+	 * Modification of the returned array affects this matrix.
+	 *
+	 * @param i
+	 *            row index
+	 * @return the words of i-th row.
+	 */
+	public long[] row(final int i) {
+		return rows[i];
+	}
+
+	/**
+	 * row[i] |= row[k].
+	 *
+	 * @return true if row[i] is changed.
+	 */
+	public boolean orRow(final int i, final int k) {
+		return orRow(i, rows[k]);
+	}
+
+	/**
+	 * row[i] |= words.
+	 *
+	 * @param words
+	 *            words of the same length as the row.
+	 * @return true if row[i] is changed.
+	 */
+	public boolean orRow(final int i, final long[] words) {
+		var to = rows[i];
+		var from = words;
+		long changed = 0;
+		for (int w = 0; w < to.length; w++) {
+			var merged = to[w] | from[w];
+			changed |= merged ^ to[w];
+			to[w] = merged;
+		}
+		return changed != 0;
+	}
+
+	/**
+	 * row[i] &= mask.
+	 *
+	 * @param mask
+	 *            words of the same length as the row.
+	 */
+	public void andRow(final int i, final long[] mask) {
+		var row = rows[i];
+		for (int w = 0; w < row.length; w++) {
+			row[w] &= mask[w];
+		}
+	}
+
+	/**
+	 * Replaces this matrix with its transitive closure by Warshall's algorithm,
+	 * that is, [i][j] becomes true if there is a path from i to j. The
+	 * computation takes O(n^3 / 64) time.
+	 */
+	public void closeTransitively() {
+		for (int k = 0; k < size; k++) {
+			var kWord = k / WORD_BITS;
+			var kBit = 1L << k;
+			for (int i = 0; i < size; i++) {
+				if ((rows[i][kWord] & kBit) != 0) {
+					orRow(i, k);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the index of the first true column at or after {@code from} in
+	 *         i-th row, or -1 if there is no such column.
+	 */
+	public int nextSetColumn(final int i, final int from) {
+		return nextSetBit(rows[i], from);
+	}
+
+	/**
+	 * @return the index of the first true bit at or after {@code from}, or -1
+	 *         if there is no such bit.
+	 */
+	public static int nextSetBit(final long[] words, final int from) {
+		var w = from / WORD_BITS;
+		if (w >= words.length) {
+			return -1;
+		}
+		var word = words[w] & (-1L << from);
+		while (true) {
+			if (word != 0) {
+				return w * WORD_BITS + Long.numberOfTrailingZeros(word);
+			}
+			if (++w == words.length) {
+				return -1;
+			}
+			word = words[w];
+		}
+	}
+
+	/**
+	 * @return the number of true cells in i-th row.
+	 */
+	public int countRow(final int i) {
+		int count = 0;
+		for (var word : rows[i]) {
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+
+	@Override
+	public String toString() {
+		var builder = new StringBuilder();
+		for (int i = 0; i < size; i++) {
+			var chars = new char[size];
+			Arrays.fill(chars, '0');
+			for (int j = nextSetColumn(i, 0); j >= 0; j = nextSetColumn(i, j + 1)) {
+				chars[j] = '1';
+			}
+			builder.append(chars);
+			builder.append(System.lineSeparator());
+		}
+		return builder.toString();
+	}
+}
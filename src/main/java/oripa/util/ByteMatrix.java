@@ -41,6 +41,20 @@ public interface ByteMatrix {
 
 	ByteMatrix clone();
 
+	/**
+	 * Copies all values of this matrix to the given matrix.
+	 *
+	 * @param to
+	 *            should have the same size as this matrix.
+	 */
+	default void copyTo(final ByteMatrix to) {
+		for (int i = 0; i < rowCount(); i++) {
+			for (int j = 0; j < columnCount(); j++) {
+				to.set(i, j, get(i, j));
+			}
+		}
+	}
+
 	int rowCount();
 
 	int columnCount();
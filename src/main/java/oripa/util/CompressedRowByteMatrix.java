@@ -0,0 +1,161 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.util;
+
+import java.util.Arrays;
+
+/**
+ * Square matrix in compressed sparse row format for the cells above the
+ * diagonal. The positions of storable cells are given at construction and
+ * shared among the clones, so that each clone holds only the packed values of
+ * those cells. The other cells are read as 0 and accept only 0.
+ */
+public class CompressedRowByteMatrix implements ByteMatrix {
+	/**
+	 * [i] = the index of the first entry of i-th row in {@link #columns}.
+	 */
+	private final int[] rowStarts;
+	/**
+	 * Column indices of the entries sorted in each row.
+	 */
+	private final int[] columns;
+
+	private final long[] values;
+	private final int size;
+	private final int blockLength;
+	private final long mask;
+
+	/**
+	 *
+	 * @param pattern
+	 *            [i][j] (i < j) is storable if true.
+	 * @param blockLength
+	 *            the number of bits for each cell. should be 1, 2, 4 or 8.
+	 */
+	public CompressedRowByteMatrix(final BitRowMatrix pattern, final int blockLength) {
+		if (blockLength != 1 && blockLength != 2 && blockLength != 4 && blockLength != 8) {
+			throw new IllegalArgumentException("block length should be 1,2,4 or 8.");
+		}
+		size = pattern.size();
+		this.blockLength = blockLength;
+		mask = 0xFF >>> (8 - blockLength);
+
+		rowStarts = new int[size + 1];
+		for (int i = 0; i < size; i++) {
+			int count = 0;
+			for (int j = pattern.nextSetColumn(i, i + 1); j >= 0; j = pattern.nextSetColumn(i, j + 1)) {
+				count++;
+			}
+			rowStarts[i + 1] = rowStarts[i] + count;
+		}
+
+		columns = new int[rowStarts[size]];
+		for (int i = 0; i < size; i++) {
+			int index = rowStarts[i];
+			for (int j = pattern.nextSetColumn(i, i + 1); j >= 0; j = pattern.nextSetColumn(i, j + 1)) {
+				columns[index++] = j;
+			}
+		}
+
+		values = new long[(int) (((long) columns.length * blockLength + 63) / 64)];
+	}
+
+	private CompressedRowByteMatrix(final CompressedRowByteMatrix other) {
+		rowStarts = other.rowStarts;
+		columns = other.columns;
+		size = other.size;
+		blockLength = other.blockLength;
+		mask = other.mask;
+		values = other.values.clone();
+	}
+
+	@Override
+	public ByteMatrix clone() {
+		return new CompressedRowByteMatrix(this);
+	}
+
+	@Override
+	public void copyTo(final ByteMatrix to) {
+		if (to instanceof CompressedRowByteMatrix compressed && compressed.columns == columns
+				&& compressed.blockLength == blockLength) {
+			System.arraycopy(values, 0, compressed.values, 0, values.length);
+			return;
+		}
+		ByteMatrix.super.copyTo(to);
+	}
+
+	/**
+	 * @return the number of storable cells.
+	 */
+	public int getEntryCount() {
+		return columns.length;
+	}
+
+	/**
+	 * @return true if [i][j] can hold a value other than 0.
+	 */
+	public boolean isStorable(final int i, final int j) {
+		return findEntry(i, j) >= 0;
+	}
+
+	private int findEntry(final int i, final int j) {
+		if (i >= j) {
+			return -1;
+		}
+		return Arrays.binarySearch(columns, rowStarts[i], rowStarts[i + 1], j);
+	}
+
+	@Override
+	public byte get(final int i, final int j) {
+		int entry = findEntry(i, j);
+		if (entry < 0) {
+			return 0;
+		}
+		long bitIndex = (long) entry * blockLength;
+		int shift = (int) (bitIndex & 63);
+
+		return (byte) ((values[(int) (bitIndex >>> 6)] >>> shift) & mask);
+	}
+
+	@Override
+	public void set(final int i, final int j, final byte value) {
+		int entry = findEntry(i, j);
+		if (entry < 0) {
+			if (value != 0) {
+				throw new IllegalArgumentException("[" + i + "][" + j + "] is not storable.");
+			}
+			return;
+		}
+		long bitIndex = (long) entry * blockLength;
+		int arrayIndex = (int) (bitIndex >>> 6);
+		int shift = (int) (bitIndex & 63);
+
+		values[arrayIndex] = (values[arrayIndex] & ~(mask << shift)) | ((value & mask) << shift);
+	}
+
+	@Override
+	public int rowCount() {
+		return size;
+	}
+
+	@Override
+	public int columnCount() {
+		return size;
+	}
+}
@@ -0,0 +1,202 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.util;
+
+import java.util.Arrays;
+
+/**
+ * Square matrix stored as the difference from a shared base matrix. The base
+ * has "variable" cells which hold a specific value, and each of them is
+ * replaced with one of two values by one bit of this matrix. The other cells
+ * are the same as the base. Only the cells above the diagonal are handled.
+ */
+public class DeltaByteMatrix implements ByteMatrix {
+
+	/**
+	 * Immutable base shared among the delta matrices.
+	 */
+	public static class Base {
+		private final ByteMatrix matrix;
+		private final byte zeroValue;
+		private final byte oneValue;
+
+		/**
+		 * [i] = the index of the first variable cell of i-th row in
+		 * {@link #columns}.
+		 */
+		private final int[] rowStarts;
+		private final int[] columns;
+
+		/**
+		 *
+		 * @param matrix
+		 *            base values. It is copied.
+		 * @param variableValue
+		 *            the value of the variable cells in the base.
+		 * @param zeroValue
+		 *            the value of a variable cell whose bit is 0.
+		 * @param oneValue
+		 *            the value of a variable cell whose bit is 1.
+		 */
+		public Base(final ByteMatrix matrix, final byte variableValue, final byte zeroValue,
+				final byte oneValue) {
+			this.matrix = matrix.clone();
+			this.zeroValue = zeroValue;
+			this.oneValue = oneValue;
+
+			var size = matrix.rowCount();
+			rowStarts = new int[size + 1];
+			var columnList = new IntStack(size);
+			for (int i = 0; i < size; i++) {
+				for (int j = i + 1; j < size; j++) {
+					if (matrix.get(i, j) == variableValue) {
+						columnList.push(j);
+					}
+				}
+				rowStarts[i + 1] = columnList.size();
+			}
+			columns = new int[columnList.size()];
+			for (int k = 0; k < columns.length; k++) {
+				columns[k] = columnList.get(k);
+			}
+		}
+
+		/**
+		 * @return the number of the variable cells.
+		 */
+		public int getVariableCount() {
+			return columns.length;
+		}
+
+		private int findVariable(final int i, final int j) {
+			if (i >= j) {
+				return -1;
+			}
+			return Arrays.binarySearch(columns, rowStarts[i], rowStarts[i + 1], j);
+		}
+
+		/**
+		 * Encodes the given matrix as the difference from this base. Only the
+		 * variable cells are read, so the other cells of the given matrix
+		 * should be the same as this base. This method takes O(the number of
+		 * variable cells) time.
+		 *
+		 * @param source
+		 *            a matrix derived from the base by setting the variable
+		 *            cells.
+		 * @return encoded matrix, or null if a variable cell of the given
+		 *         matrix has neither of the two values.
+		 */
+		public DeltaByteMatrix encode(final ByteMatrix source) {
+			var delta = new DeltaByteMatrix(this);
+			var size = matrix.rowCount();
+
+			for (int i = 0; i < size; i++) {
+				for (int k = rowStarts[i]; k < rowStarts[i + 1]; k++) {
+					var value = source.get(i, columns[k]);
+					if (value == oneValue) {
+						delta.bits[k >>> 6] |= 1L << k;
+					} else if (value != zeroValue) {
+						return null;
+					}
+				}
+			}
+			return delta;
+		}
+	}
+
+	private final Base base;
+	private final long[] bits;
+
+	private DeltaByteMatrix(final Base base) {
+		this.base = base;
+		bits = new long[BitRowMatrix.wordCount(base.getVariableCount())];
+	}
+
+	private DeltaByteMatrix(final DeltaByteMatrix other) {
+		base = other.base;
+		bits = other.bits.clone();
+	}
+
+	@Override
+	public ByteMatrix clone() {
+		return new DeltaByteMatrix(this);
+	}
+
+	@Override
+	public void copyTo(final ByteMatrix to) {
+		if (to instanceof DeltaByteMatrix delta && delta.base == base) {
+			System.arraycopy(bits, 0, delta.bits, 0, bits.length);
+			return;
+		}
+		// decodes row by row without searching the variable cells.
+		base.matrix.copyTo(to);
+		var size = base.matrix.rowCount();
+		for (int i = 0; i < size; i++) {
+			for (int k = base.rowStarts[i]; k < base.rowStarts[i + 1]; k++) {
+				to.set(i, base.columns[k], (bits[k >>> 6] & (1L << k)) != 0 ? base.oneValue : base.zeroValue);
+			}
+		}
+	}
+
+	/**
+	 * @return true if [i][j] can hold the given value.
+	 */
+	public boolean isStorable(final int i, final int j, final byte value) {
+		if (base.findVariable(i, j) >= 0) {
+			return value == base.zeroValue || value == base.oneValue;
+		}
+		return value == base.matrix.get(i, j);
+	}
+
+	@Override
+	public byte get(final int i, final int j) {
+		int k = base.findVariable(i, j);
+		if (k < 0) {
+			return base.matrix.get(i, j);
+		}
+		return (bits[k >>> 6] & (1L << k)) != 0 ? base.oneValue : base.zeroValue;
+	}
+
+	@Override
+	public void set(final int i, final int j, final byte value) {
+		if (!isStorable(i, j, value)) {
+			throw new IllegalArgumentException("[" + i + "][" + j + "] cannot hold " + value + ".");
+		}
+		int k = base.findVariable(i, j);
+		if (k < 0) {
+			return;
+		}
+		if (value == base.oneValue) {
+			bits[k >>> 6] |= 1L << k;
+		} else {
+			bits[k >>> 6] &= ~(1L << k);
+		}
+	}
+
+	@Override
+	public int rowCount() {
+		return base.matrix.rowCount();
+	}
+
+	@Override
+	public int columnCount() {
+		return base.matrix.columnCount();
+	}
+}
@@ -0,0 +1,84 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.util;
+
+import java.util.Arrays;
+
+/**
+ * Growable stack of primitive int values. The storage is kept after popping
+ * so that repeated push and pop don't allocate.
+ */
+public class IntStack {
+	private int[] values;
+	private int size = 0;
+
+	public IntStack() {
+		this(16);
+	}
+
+	public IntStack(final int initialCapacity) {
+		values = new int[Math.max(initialCapacity, 1)];
+	}
+
+	public void push(final int value) {
+		if (size == values.length) {
+			values = Arrays.copyOf(values, values.length * 2);
+		}
+		values[size++] = value;
+	}
+
+	/**
+	 *
+	 * @return the top value which is removed from this stack.
+	 * @throws IllegalStateException
+	 *             if this stack is empty.
+	 */
+	public int pop() {
+		if (size == 0) {
+			throw new IllegalStateException("stack is empty.");
+		}
+		return values[--size];
+	}
+
+	public int peek() {
+		if (size == 0) {
+			throw new IllegalStateException("stack is empty.");
+		}
+		return values[size - 1];
+	}
+
+	public int get(final int index) {
+		if (index >= size) {
+			throw new IndexOutOfBoundsException(index);
+		}
+		return values[index];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+}
@@ -0,0 +1,119 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.util;
+
+/**
+ * Square matrix which stores only the cells above the diagonal, that is,
+ * [i][j] for i < j. The cells are packed into long words with the given block
+ * length. The other cells are read as 0 and accept only 0.
+ */
+public class UpperTriangularByteMatrix implements ByteMatrix {
+	private final long[] array;
+	private final int size;
+	private final int blockLength;
+	private final long mask;
+
+	/**
+	 *
+	 * @param size
+	 *            n of n x n matrix.
+	 * @param blockLength
+	 *            the number of bits for each cell. should be 1, 2, 4 or 8.
+	 */
+	public UpperTriangularByteMatrix(final int size, final int blockLength) {
+		if (blockLength != 1 && blockLength != 2 && blockLength != 4 && blockLength != 8) {
+			throw new IllegalArgumentException("block length should be 1,2,4 or 8.");
+		}
+		this.size = size;
+		this.blockLength = blockLength;
+
+		long necessaryBits = (long) size * (size - 1) / 2 * blockLength;
+		array = new long[(int) ((necessaryBits + 63) / 64)];
+
+		mask = 0xFF >>> (8 - blockLength);
+	}
+
+	private UpperTriangularByteMatrix(final UpperTriangularByteMatrix other) {
+		size = other.size;
+		blockLength = other.blockLength;
+		mask = other.mask;
+		array = other.array.clone();
+	}
+
+	@Override
+	public ByteMatrix clone() {
+		return new UpperTriangularByteMatrix(this);
+	}
+
+	@Override
+	public void copyTo(final ByteMatrix to) {
+		if (to instanceof UpperTriangularByteMatrix triangular && triangular.size == size
+				&& triangular.blockLength == blockLength) {
+			System.arraycopy(array, 0, triangular.array, 0, array.length);
+			return;
+		}
+		ByteMatrix.super.copyTo(to);
+	}
+
+	/**
+	 * @return the bit position of [i][j] where i < j.
+	 */
+	private long getBitIndex(final int i, final int j) {
+		// the number of cells in the rows before i-th row is
+		// (n - 1) + (n - 2) + ... + (n - i).
+		long cellIndex = (long) i * (2L * size - i - 1) / 2 + (j - i - 1);
+		return cellIndex * blockLength;
+	}
+
+	@Override
+	public byte get(final int i, final int j) {
+		if (i >= j) {
+			return 0;
+		}
+		long bitIndex = getBitIndex(i, j);
+		int shift = (int) (bitIndex & 63);
+
+		return (byte) ((array[(int) (bitIndex >>> 6)] >>> shift) & mask);
+	}
+
+	@Override
+	public void set(final int i, final int j, final byte value) {
+		if (i >= j) {
+			if (value != 0) {
+				throw new IllegalArgumentException("cannot set a value at or under the diagonal.");
+			}
+			return;
+		}
+		long bitIndex = getBitIndex(i, j);
+		int arrayIndex = (int) (bitIndex >>> 6);
+		int shift = (int) (bitIndex & 63);
+
+		array[arrayIndex] = (array[arrayIndex] & ~(mask << shift)) | ((value & mask) << shift);
+	}
+
+	@Override
+	public int rowCount() {
+		return size;
+	}
+
+	@Override
+	public int columnCount() {
+		return size;
+	}
+}
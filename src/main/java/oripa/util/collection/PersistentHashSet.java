@@ -0,0 +1,430 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.util.collection;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Immutable hash set which shares its structure with the sets derived from
+ * it. The elements are stored in a hash array mapped trie: each node has up to
+ * 32 entries chosen by 5 bits of the hash and an entry is an element or a
+ * child node. {@link #with(Object)} and {@link #without(Object)} copy only the
+ * nodes on the path to the element, so both take O(log n) time and the
+ * original set is unchanged. Bulk operations modify the nodes created during
+ * the operation in place.
+ *
+ * Methods of {@link java.util.Set} which modify the set throw
+ * {@link UnsupportedOperationException}. Null elements are not allowed.
+ * @param <E>
+ *            element type.
+ */
+public final class PersistentHashSet<E> extends AbstractSet<E> {
+	private static final int BITS = 5;
+	private static final int MASK = (1 << BITS) - 1;
+
+	private static final PersistentHashSet<?> EMPTY = new PersistentHashSet<>(BitmapNode.EMPTY, 0);
+
+	private final Node root;
+	private final int size;
+
+	private PersistentHashSet(final Node root, final int size) {
+		this.root = root;
+		this.size = size;
+	}
+
+	@SuppressWarnings("unchecked")
+	public static <E> PersistentHashSet<E> empty() {
+		return (PersistentHashSet<E>) EMPTY;
+	}
+
+	public static <E> PersistentHashSet<E> of(final Collection<? extends E> elements) {
+		return PersistentHashSet.<E> empty().withAll(elements);
+	}
+
+	/**
+	 * @return a set with the given element. This set itself if the element is
+	 *         already in this set.
+	 */
+	public PersistentHashSet<E> with(final E element) {
+		var counter = new SizeCounter();
+		var newRoot = root.with(Objects.requireNonNull(element), hash(element), 0, null, counter);
+		return newRoot == root ? this : new PersistentHashSet<>(newRoot, size + counter.diff);
+	}
+
+	/**
+	 * @return a set without the given element. This set itself if the element
+	 *         is not in this set.
+	 */
+	public PersistentHashSet<E> without(final Object element) {
+		if (element == null) {
+			return this;
+		}
+		var counter = new SizeCounter();
+		var newRoot = root.without(element, hash(element), 0, null, counter);
+		return newRoot == root ? this : new PersistentHashSet<>(toRoot(newRoot), size + counter.diff);
+	}
+
+	public PersistentHashSet<E> withAll(final Collection<? extends E> elements) {
+		var edit = new Object();
+		var counter = new SizeCounter();
+		var newRoot = root;
+		for (var element : elements) {
+			newRoot = newRoot.with(Objects.requireNonNull(element), hash(element), 0, edit, counter);
+		}
+		return counter.diff == 0 ? this : new PersistentHashSet<>(newRoot, size + counter.diff);
+	}
+
+	public PersistentHashSet<E> withoutAll(final Collection<?> elements) {
+		var edit = new Object();
+		var counter = new SizeCounter();
+		var newRoot = root;
+		for (var element : elements) {
+			if (element == null) {
+				continue;
+			}
+			newRoot = toRoot(newRoot.without(element, hash(element), 0, edit, counter));
+		}
+		return counter.diff == 0 ? this : new PersistentHashSet<>(newRoot, size + counter.diff);
+	}
+
+	@Override
+	public boolean contains(final Object o) {
+		return o != null && root.contains(o, hash(o), 0);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		return new TrieIterator<>(root);
+	}
+
+	private static int hash(final Object o) {
+		var h = o.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	private static Node toRoot(final Node node) {
+		return node == null ? BitmapNode.EMPTY : node;
+	}
+
+	private static class SizeCounter {
+		int diff;
+	}
+
+	private static abstract class Node {
+		abstract boolean contains(Object o, int hash, int shift);
+
+		/**
+		 * @return this node if nothing changed.
+		 */
+		abstract Node with(Object element, int hash, int shift, Object edit, SizeCounter counter);
+
+		/**
+		 * @return this node if nothing changed, {@code null} if the node gets
+		 *         empty.
+		 */
+		abstract Node without(Object element, int hash, int shift, Object edit, SizeCounter counter);
+
+		abstract Object[] entries();
+
+		abstract int entryCount();
+	}
+
+	private static class BitmapNode extends Node {
+		static final BitmapNode EMPTY = new BitmapNode(null, 0, new Object[0]);
+
+		/** nodes created in a bulk operation can be modified in place. */
+		final Object edit;
+		int bitmap;
+		Object[] entries;
+
+		BitmapNode(final Object edit, final int bitmap, final Object[] entries) {
+			this.edit = edit;
+			this.bitmap = bitmap;
+			this.entries = entries;
+		}
+
+		static int bit(final int hash, final int shift) {
+			return 1 << ((hash >>> shift) & MASK);
+		}
+
+		int index(final int bit) {
+			return Integer.bitCount(bitmap & (bit - 1));
+		}
+
+		@Override
+		boolean contains(final Object o, final int hash, final int shift) {
+			var bit = bit(hash, shift);
+			if ((bitmap & bit) == 0) {
+				return false;
+			}
+			var entry = entries[index(bit)];
+			if (entry instanceof Node node) {
+				return node.contains(o, hash, shift + BITS);
+			}
+			return entry.equals(o);
+		}
+
+		@Override
+		Node with(final Object element, final int hash, final int shift, final Object edit,
+				final SizeCounter counter) {
+			var bit = bit(hash, shift);
+			var index = index(bit);
+
+			if ((bitmap & bit) == 0) {
+				counter.diff++;
+				var newEntries = new Object[entries.length + 1];
+				System.arraycopy(entries, 0, newEntries, 0, index);
+				newEntries[index] = element;
+				System.arraycopy(entries, index, newEntries, index + 1, entries.length - index);
+				return update(edit, bitmap | bit, newEntries);
+			}
+
+			var entry = entries[index];
+			Object newEntry;
+			if (entry instanceof Node node) {
+				newEntry = node.with(element, hash, shift + BITS, edit, counter);
+			} else if (entry.equals(element)) {
+				return this;
+			} else {
+				counter.diff++;
+				newEntry = createNode(edit, entry, hash(entry), element, hash, shift + BITS);
+			}
+			if (newEntry == entry) {
+				return this;
+			}
+			return replace(edit, index, newEntry);
+		}
+
+		@Override
+		Node without(final Object element, final int hash, final int shift, final Object edit,
+				final SizeCounter counter) {
+			var bit = bit(hash, shift);
+			if ((bitmap & bit) == 0) {
+				return this;
+			}
+			var index = index(bit);
+			var entry = entries[index];
+
+			if (entry instanceof Node node) {
+				var newNode = node.without(element, hash, shift + BITS, edit, counter);
+				if (newNode == node) {
+					return this;
+				}
+				if (newNode == null) {
+					return removeEntry(edit, bit, index);
+				}
+				// an element alone in a node is moved up.
+				if (newNode.entryCount() == 1 && !(newNode.entries()[0] instanceof Node)) {
+					return replace(edit, index, newNode.entries()[0]);
+				}
+				return replace(edit, index, newNode);
+			}
+
+			if (!entry.equals(element)) {
+				return this;
+			}
+			counter.diff--;
+			return removeEntry(edit, bit, index);
+		}
+
+		private Node removeEntry(final Object edit, final int bit, final int index) {
+			if (entries.length == 1) {
+				return null;
+			}
+			var newEntries = new Object[entries.length - 1];
+			System.arraycopy(entries, 0, newEntries, 0, index);
+			System.arraycopy(entries, index + 1, newEntries, index, entries.length - index - 1);
+			return update(edit, bitmap & ~bit, newEntries);
+		}
+
+		private BitmapNode replace(final Object edit, final int index, final Object entry) {
+			if (edit != null && edit == this.edit) {
+				entries[index] = entry;
+				return this;
+			}
+			var newEntries = entries.clone();
+			newEntries[index] = entry;
+			return new BitmapNode(edit, bitmap, newEntries);
+		}
+
+		private BitmapNode update(final Object edit, final int bitmap, final Object[] entries) {
+			if (edit != null && edit == this.edit) {
+				this.bitmap = bitmap;
+				this.entries = entries;
+				return this;
+			}
+			return new BitmapNode(edit, bitmap, entries);
+		}
+
+		private static Node createNode(final Object edit, final Object e0, final int hash0,
+				final Object e1, final int hash1, final int shift) {
+			if (shift >= Integer.SIZE) {
+				return new CollisionNode(new Object[] { e0, e1 });
+			}
+			var bit0 = bit(hash0, shift);
+			var bit1 = bit(hash1, shift);
+			if (bit0 == bit1) {
+				var child = createNode(edit, e0, hash0, e1, hash1, shift + BITS);
+				return new BitmapNode(edit, bit0, new Object[] { child });
+			}
+			var entries = Integer.compareUnsigned(bit0, bit1) < 0
+					? new Object[] { e0, e1 }
+					: new Object[] { e1, e0 };
+			return new BitmapNode(edit, bit0 | bit1, entries);
+		}
+
+		@Override
+		Object[] entries() {
+			return entries;
+		}
+
+		@Override
+		int entryCount() {
+			return entries.length;
+		}
+	}
+
+	/**
+	 * Holds elements whose hashes are the same.
+	 */
+	private static class CollisionNode extends Node {
+		final Object[] elements;
+
+		CollisionNode(final Object[] elements) {
+			this.elements = elements;
+		}
+
+		private int indexOf(final Object o) {
+			for (int i = 0; i < elements.length; i++) {
+				if (elements[i].equals(o)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		@Override
+		boolean contains(final Object o, final int hash, final int shift) {
+			return indexOf(o) >= 0;
+		}
+
+		@Override
+		Node with(final Object element, final int hash, final int shift, final Object edit,
+				final SizeCounter counter) {
+			if (indexOf(element) >= 0) {
+				return this;
+			}
+			counter.diff++;
+			var newElements = Arrays.copyOf(elements, elements.length + 1);
+			newElements[elements.length] = element;
+			return new CollisionNode(newElements);
+		}
+
+		@Override
+		Node without(final Object element, final int hash, final int shift, final Object edit,
+				final SizeCounter counter) {
+			var index = indexOf(element);
+			if (index < 0) {
+				return this;
+			}
+			counter.diff--;
+			if (elements.length == 1) {
+				return null;
+			}
+			var newElements = new Object[elements.length - 1];
+			System.arraycopy(elements, 0, newElements, 0, index);
+			System.arraycopy(elements, index + 1, newElements, index, elements.length - index - 1);
+			return new CollisionNode(newElements);
+		}
+
+		@Override
+		Object[] entries() {
+			return elements;
+		}
+
+		@Override
+		int entryCount() {
+			return elements.length;
+		}
+	}
+
+	/**
+	 * Depth-first iterator with an explicit stack of entry arrays.
+	 */
+	private static class TrieIterator<E> implements Iterator<E> {
+		// 32 bits of hash need 7 levels, and a collision node is at most one
+		// level below.
+		private final Object[][] stack = new Object[Integer.SIZE / BITS + 3][];
+		private final int[] positions = new int[stack.length];
+		private int depth = 0;
+
+		private Object next;
+
+		TrieIterator(final Node root) {
+			stack[0] = root.entries();
+			advance();
+		}
+
+		private void advance() {
+			next = null;
+			while (depth >= 0) {
+				var entries = stack[depth];
+				if (positions[depth] >= entries.length) {
+					depth--;
+					continue;
+				}
+				var entry = entries[positions[depth]++];
+				if (entry instanceof Node node) {
+					depth++;
+					stack[depth] = node.entries();
+					positions[depth] = 0;
+					continue;
+				}
+				next = entry;
+				return;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public E next() {
+			if (next == null) {
+				throw new NoSuchElementException();
+			}
+			var current = next;
+			advance();
+			return (E) current;
+		}
+	}
+}
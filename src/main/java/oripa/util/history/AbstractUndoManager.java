@@ -40,16 +40,58 @@ public abstract class AbstractUndoManager<Backup> {
 	private int endIndex = 0;
 	private boolean changed = false;
 
+	private long storedSizeLimit = Long.MAX_VALUE;
+
 	/**
 	 * Constructor
 	 */
 	public AbstractUndoManager() {
 	}
 
+	/**
+	 * Constructor
+	 *
+	 * @param storedSizeLimit
+	 *            max stored size. See {@link #setStoredSizeLimit(long)}.
+	 */
+	public AbstractUndoManager(final long storedSizeLimit) {
+		this.storedSizeLimit = storedSizeLimit;
+	}
+
 	protected abstract UndoInfo<Backup> createUndoInfo(Backup info);
 
-	public void push(final Backup info) {
-		push(createUndoInfo(info));
+	/**
+	 * Creates undo info which may be stored as the difference from the given
+	 * previous one. This implementation ignores {@code previous}.
+	 *
+	 * @param info
+	 *            data to be stored.
+	 * @param previous
+	 *            the info just before the new one in the history.
+	 *            {@code null} if the new one is the first.
+	 */
+	protected UndoInfo<Backup> createUndoInfo(final Backup info, final UndoInfo<Backup> previous) {
+		return createUndoInfo(info);
+	}
+
+	/**
+	 * Sets the limit of the sum of {@link UndoInfo#getStoredSize()} in the
+	 * history. The oldest entries are discarded when the sum exceeds the limit.
+	 *
+	 * @param limit
+	 *            max stored size.
+	 */
+	public synchronized void setStoredSizeLimit(final long limit) {
+		storedSizeLimit = limit;
+		discardOldEntries();
+	}
+
+	public synchronized void push(final Backup info) {
+		push(createUndoInfo(info, getPrevious()));
+	}
+
+	private UndoInfo<Backup> getPrevious() {
+		return index == 0 ? null : undoList.get(index - 1);
 	}
 
 	private void set(final int i, final UndoInfo<Backup> info) {
@@ -65,9 +107,46 @@ public abstract class AbstractUndoManager<Backup> {
 		index++;
 		endIndex = index;
 
+		// entries for redo are no longer reachable.
+		undoList.subList(endIndex, undoList.size()).clear();
+
+		discardOldEntries();
+
 		changed = true;
 	}
 
+	/**
+	 * Discards the oldest entries while the stored size exceeds the limit. The
+	 * history is cut only just before a standalone entry so that the remaining
+	 * entries can be restored.
+	 */
+	private void discardOldEntries() {
+		var storedSize = undoList.stream()
+				.mapToLong(UndoInfo::getStoredSize)
+				.sum();
+
+		while (storedSize > storedSizeLimit) {
+			int head = 1;
+			while (head < index && !undoList.get(head).isStandalone()) {
+				head++;
+			}
+			if (head >= index) {
+				return;
+			}
+
+			var discarded = undoList.subList(0, head);
+			storedSize -= discarded.stream()
+					.mapToLong(UndoInfo::getStoredSize)
+					.sum();
+			discarded.clear();
+
+			index -= head;
+			endIndex -= head;
+
+			logger.debug("discarded {} entries: {}", head, indexLog());
+		}
+	}
+
 	/**
 	 *
 	 * @param info
@@ -85,7 +164,7 @@ public abstract class AbstractUndoManager<Backup> {
 
 		if (index == endIndex) {
 			logger.debug("set the start of undo sequence: " + indexLog());
-			set(index, createUndoInfo(info));
+			set(index, createUndoInfo(info, getPrevious()));
 
 		}
 
@@ -8,6 +8,11 @@ public class BasicUndoManager<Backup> extends AbstractUndoManager<Backup> {
 		this.factory = factory;
 	}
 
+	public BasicUndoManager(final UndoInfoFactory<Backup> factory, final long storedSizeLimit) {
+		super(storedSizeLimit);
+		this.factory = factory;
+	}
+
 	/*
 	 * (non Javadoc)
 	 *
@@ -17,4 +22,9 @@ public class BasicUndoManager<Backup> extends AbstractUndoManager<Backup> {
 	protected UndoInfo<Backup> createUndoInfo(final Backup info) {
 		return factory.create(info);
 	}
+
+	@Override
+	protected UndoInfo<Backup> createUndoInfo(final Backup info, final UndoInfo<Backup> previous) {
+		return factory.create(info, previous);
+	}
 }
@@ -28,4 +28,20 @@ public interface UndoInfo<Info> {
 
 	void setInfo(Info info);
 
+	/**
+	 * @return estimated size of the stored data, which is compared with the
+	 *         limit of the undo manager.
+	 */
+	default long getStoredSize() {
+		return 1;
+	}
+
+	/**
+	 * @return {@code true} if {@link #getInfo()} does not depend on other
+	 *         undo info.
+	 */
+	default boolean isStandalone() {
+		return true;
+	}
+
 }
\ No newline at end of file
@@ -24,4 +24,17 @@ package oripa.util.history;
  */
 public interface UndoInfoFactory<Info> {
 	UndoInfo<Info> create(Info info);
+
+	/**
+	 * Creates undo info which may be stored as the difference from
+	 * {@code previous}.
+	 *
+	 * @param info
+	 *            data to be stored.
+	 * @param previous
+	 *            the info just before the new one. can be {@code null}.
+	 */
+	default UndoInfo<Info> create(final Info info, final UndoInfo<Info> previous) {
+		return create(info);
+	}
 }
@@ -0,0 +1,96 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.cli;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+import oripa.geom.GeomUtil;
+import oripa.persistence.entity.loader.FoldedModelFrameIndexFOLD;
+
+class FoldedModelImageExporterTest {
+	private static final String MODEL = """
+			{
+			"frame_classes": ["foldedForm"],
+			"vertices_coords": [[0, 0], [1, 0], [1, 1], [0, 1]],
+			"edges_vertices": [[0, 1], [1, 2], [2, 0], [2, 3], [3, 0]],
+			"edges_assignment": ["B", "B", "V", "B", "B"],
+			"faces_vertices": [[0, 1, 2], [0, 2, 3]],
+			"faceOrders": [[0, 1, 1]],
+			"file_frames": [{"faceOrders": [[0, 1, -1]]}]
+			}
+			""";
+
+	FoldedModelImageExporter exporter = new FoldedModelImageExporter();
+
+	@Test
+	void testExport_allFrames() throws Exception {
+		var inputPath = write(MODEL);
+		var directory = Files.createTempDirectory("oripa-test");
+		directory.toFile().deleteOnExit();
+
+		var outputPath = directory.resolve("model.svg");
+		var frame0 = directory.resolve("model.0.svg");
+		var frame1 = directory.resolve("model.1.svg");
+		frame0.toFile().deleteOnExit();
+		frame1.toFile().deleteOnExit();
+
+		assertTrue(exporter.export(inputPath, "all", false, outputPath.toString(), GeomUtil.pointEps(), 100));
+
+		assertTrue(Files.exists(frame0));
+		assertTrue(Files.exists(frame1));
+	}
+
+	@Test
+	void testExport_imagesAreNotWritten() throws Exception {
+		var inputPath = write(MODEL);
+		var outputPath = Path.of(inputPath).resolveSibling("oripa-no-such-directory").resolve("model.svg");
+
+		assertFalse(exporter.export(inputPath, "all", false, outputPath.toString(), GeomUtil.pointEps(), 100));
+		assertFalse(exporter.export(inputPath, "1", false, outputPath.toString(), GeomUtil.pointEps(), 100));
+	}
+
+	@Test
+	void testParseIndices() {
+		assertArrayEquals(new int[] { 3 }, exporter.parseIndices("3", 10));
+		assertArrayEquals(new int[] { 0, 1, 2, 3 }, exporter.parseIndices("all", 4));
+		assertArrayEquals(new int[] { 7, 2, 3, 4, 9 }, exporter.parseIndices("7, 2-4,3,9-9", 10));
+	}
+
+	@Test
+	void testParseIndices_wrongText() {
+		assertThrows(IllegalArgumentException.class, () -> exporter.parseIndices("1-", 10));
+		assertThrows(IllegalArgumentException.class, () -> exporter.parseIndices("a", 10));
+		assertThrows(IllegalArgumentException.class, () -> exporter.parseIndices("5-3", 10));
+		assertThrows(IllegalArgumentException.class, () -> exporter.parseIndices("8-10", 10));
+	}
+
+	private String write(final String json) throws IOException {
+		var path = Files.createTempFile("oripa-test", ".fold");
+		path.toFile().deleteOnExit();
+		Path.of(path + FoldedModelFrameIndexFOLD.SIDECAR_EXTENSION).toFile().deleteOnExit();
+		Files.writeString(path, json);
+		return path.toString();
+	}
+}
@@ -20,7 +20,10 @@ package oripa.domain.cptool;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.jupiter.api.Test;
 
@@ -825,4 +828,97 @@ public class CrossingLineSplitterTest {
 		assertEquals(11, result.size());
 
 	}
+
+	@Test
+	void test_3_Lines_reversedDirection() {
+		var p00 = new Vector2d(2, 4);
+		var p01 = new Vector2d(1, 1);
+
+		var p10 = new Vector2d(3, 3);
+
+		var p20 = new Vector2d(1, 3);
+		var p21 = new Vector2d(3, 0);
+
+		// p0 is on the right side.
+		var line0 = new OriLine(p00, p01, Type.MOUNTAIN);
+		var line1 = new OriLine(p10, p00, Type.MOUNTAIN);
+		var line2 = new OriLine(p20, p21, Type.MOUNTAIN);
+
+		var result = new CrossingLineSplitter().splitIgnoringType(
+				List.of(line0, line1, line2), 1e-8);
+
+		assertEquals(5, result.size());
+		assertFalse(result.stream().anyMatch(line -> line.equals(line0, 1e-8)));
+	}
+
+	@Test
+	void test_partitioned_sameAsSingleSweep() {
+		var lines = List.of(
+				// cross exactly on the boundary x = 2 between end points.
+				new OriLine(0, 0, 4, 4, Type.MOUNTAIN),
+				new OriLine(0, 4, 4, 0, Type.MOUNTAIN),
+				// over some strips without crossing.
+				new OriLine(0, 5, 8, 5, Type.MOUNTAIN),
+				new OriLine(6, 0, 8, 2, Type.MOUNTAIN),
+				new OriLine(6, 2, 8, 0, Type.MOUNTAIN),
+				new OriLine(7, 0, 7, 6, Type.MOUNTAIN));
+
+		var expected = new CrossingLineSplitter().splitIgnoringType(lines, 1e-8, 1);
+		var result = new CrossingLineSplitter().splitIgnoringType(lines, 1e-8, 4);
+
+		assertEquals(expected.size(), result.size());
+		expected.forEach(line -> AssertionUtil.assertAnyMatch(line, result, (a, b) -> a.equals(b, 1e-8)));
+	}
+
+	/**
+	 * The partitioned split should give the same lines as the single sweep.
+	 * Long lines cross all strip boundaries and are cut and joined again
+	 * there.
+	 */
+	@Test
+	void test_partitioned_largeInput_sameAsSingleSweep() {
+		var eps = 1e-8;
+		var random = new Random(0);
+		var lines = new ArrayList<OriLine>();
+
+		// many end points and vertical lines share x so that a boundary has to
+		// skip them.
+		while (lines.size() < CrossingLineSplitter.PARTITION_THRESHOLD) {
+			var x = random.nextInt(400) - 200;
+			var y = random.nextDouble() * 400 - 200;
+			var angle = lines.size() % 10 == 0 ? Math.PI / 2 : random.nextDouble() * Math.PI;
+			var length = random.nextDouble() * 4;
+			lines.add(new OriLine(x, y, x + length * Math.cos(angle), y + length * Math.sin(angle),
+					Type.MOUNTAIN));
+		}
+		for (int i = 0; i < 10; i++) {
+			lines.add(new OriLine(-200, random.nextDouble() * 400 - 200, 200, random.nextDouble() * 400 - 200,
+					Type.MOUNTAIN));
+		}
+		for (int i = 0; i < 3; i++) {
+			var y = random.nextDouble() * 400 - 200;
+			lines.add(new OriLine(-200, y, 200, y, Type.MOUNTAIN));
+		}
+
+		var expected = sortCanonical(new CrossingLineSplitter().splitIgnoringType(lines, eps, 1));
+
+		assertTrue(expected.size() > lines.size());
+
+		assertSameLines(expected, sortCanonical(new CrossingLineSplitter().splitIgnoringType(lines, eps)), eps);
+		assertSameLines(expected, sortCanonical(new CrossingLineSplitter().splitIgnoringType(lines, eps, 7)), eps);
+	}
+
+	private List<OriLine> sortCanonical(final Collection<OriLine> lines) {
+		return lines.stream()
+				.map(OriLine::createCanonical)
+				.sorted()
+				.toList();
+	}
+
+	private void assertSameLines(final List<OriLine> expected, final List<OriLine> actual, final double eps) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertTrue(expected.get(i).equals(actual.get(i), eps));
+		}
+	}
 }
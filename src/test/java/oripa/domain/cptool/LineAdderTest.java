@@ -176,6 +176,29 @@ class LineAdderTest {
 		assertTypeCount(3, creasePattern, OriLine.Type.AUX);
 	}
 
+	@Test
+	void testAddAll_overlaps() {
+		var creasePattern = new ArrayList<>(List.of(
+				new OriLine(0, 0, 100, 0, OriLine.Type.MOUNTAIN),
+				new OriLine(50, -50, 50, 50, OriLine.Type.AUX)));
+
+		var line1 = new OriLine(20, 0, 80, 0, OriLine.Type.VALLEY);
+		var line2 = new OriLine(60, 0, 120, 0, OriLine.Type.CUT);
+
+		adder.addAll(List.of(line1, line2), creasePattern, POINT_EPS);
+
+		assertEquals(8, creasePattern.size());
+		assertTrue(creasePattern.contains(new OriLine(0, 0, 20, 0, OriLine.Type.MOUNTAIN)));
+		assertTrue(creasePattern.contains(new OriLine(20, 0, 50, 0, OriLine.Type.VALLEY)));
+		assertTrue(creasePattern.contains(new OriLine(50, 0, 60, 0, OriLine.Type.VALLEY)));
+		// the later input line wins.
+		assertTrue(creasePattern.contains(new OriLine(60, 0, 80, 0, OriLine.Type.CUT)));
+		assertTrue(creasePattern.contains(new OriLine(80, 0, 100, 0, OriLine.Type.CUT)));
+		assertTrue(creasePattern.contains(new OriLine(100, 0, 120, 0, OriLine.Type.CUT)));
+		assertTrue(creasePattern.contains(new OriLine(50, -50, 50, 0, OriLine.Type.AUX)));
+		assertTrue(creasePattern.contains(new OriLine(50, 0, 50, 50, OriLine.Type.AUX)));
+	}
+
 	void assertTypeCount(final long expectedCount, final Collection<OriLine> creasePattern,
 			final OriLine.Type type) {
 		assertEquals(expectedCount,
@@ -0,0 +1,95 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.cptool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import oripa.test.util.AssertionUtil;
+import oripa.value.OriLine;
+import oripa.value.OriLine.Type;
+
+class PrimitiveOverlappingLineMergerTest {
+
+	OverlappingLineMerger merger = new PrimitiveOverlappingLineMerger();
+
+	@Test
+	void test_VariousOverlap_45Degrees() {
+		var lines = List.of(
+				new OriLine(2, 2, 5, 5, Type.MOUNTAIN),
+				new OriLine(4, 4, 2, 2, Type.MOUNTAIN),
+				new OriLine(2, 2, 3, 3, Type.MOUNTAIN),
+				new OriLine(3, 3, 1, 1, Type.MOUNTAIN),
+				new OriLine(0, 0, 3, 3, Type.MOUNTAIN),
+				new OriLine(0, 0, 1, 1, Type.MOUNTAIN));
+
+		var result = merger.mergeIgnoringType(lines, 1e-8);
+
+		assertEquals(1, result.size());
+
+		AssertionUtil.assertSegmentEquals(
+				new OriLine(0, 0, 5, 5, Type.MOUNTAIN),
+				result.stream().findFirst().get(),
+				(a, b) -> a.equals(b, 1e-8));
+	}
+
+	@Test
+	void test_ParallelAndSeparatedLines() {
+		var lines = List.of(
+				new OriLine(0, 0, 1, 0, Type.VALLEY),
+				new OriLine(0, 1, 1, 1, Type.MOUNTAIN),
+				new OriLine(0.5, 1, 2, 1, Type.MOUNTAIN),
+				new OriLine(3, 1, 4, 1, Type.MOUNTAIN),
+				new OriLine(0, 0, 0, 2, Type.MOUNTAIN),
+				new OriLine(0, 2, 0, 3, Type.MOUNTAIN));
+
+		var result = merger.mergeIgnoringType(lines, 1e-8);
+
+		assertEquals(4, result.size());
+
+		// untouched lines are returned as they are.
+		assertTrue(result.contains(lines.get(0)));
+		assertTrue(result.contains(lines.get(3)));
+
+		AssertionUtil.assertAnyMatch(new OriLine(0, 1, 2, 1, Type.MOUNTAIN), result,
+				(a, b) -> a.equals(b, 1e-8));
+		AssertionUtil.assertAnyMatch(new OriLine(0, 0, 0, 3, Type.MOUNTAIN), result,
+				(a, b) -> a.equals(b, 1e-8));
+	}
+
+	@Test
+	void test_ManyChainedLines() {
+		var lines = new ArrayList<OriLine>();
+		for (int i = 0; i < 1000; i++) {
+			lines.add(new OriLine(i, 2 * i, i + 1.5, 2 * i + 3, Type.MOUNTAIN));
+			lines.add(new OriLine(i, 7, i + 0.5, 7, Type.MOUNTAIN));
+		}
+
+		var result = merger.mergeIgnoringType(lines, 1e-8);
+
+		assertEquals(1001, result.size());
+
+		AssertionUtil.assertAnyMatch(new OriLine(0, 0, 1000.5, 2001, Type.MOUNTAIN), result,
+				(a, b) -> a.equals(b, 1e-8));
+	}
+}
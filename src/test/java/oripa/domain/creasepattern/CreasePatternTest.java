@@ -41,4 +41,28 @@ public class CreasePatternTest {
 		assertTrue(cp.isEmpty());
 	}
 
+	@Test
+	public void testSnapshot_notAffectedByLaterChanges() {
+		var lines = List.of(
+				new OriLine(0.0, 0.0, 100.0, 100.0, OriLine.Type.MOUNTAIN),
+				new OriLine(0.0, 100.0, 100.0, 0.0, OriLine.Type.VALLEY));
+
+		var domain = RectangleDomain.createFromSegments(lines);
+		CreasePatternImpl cp = new CreasePatternImpl(domain);
+		cp.addAll(lines);
+
+		var snapshot = cp.snapshot();
+
+		cp.remove(lines.get(0));
+		cp.add(new OriLine(0.0, 50.0, 100.0, 50.0, OriLine.Type.AUX));
+
+		assertEquals(2, snapshot.size());
+		assertTrue(snapshot.containsAll(lines));
+		assertEquals(1, snapshot.getVerticesAround(lines.get(0).getP0()).size());
+		assertEquals(2, snapshot.clip(domain, 1e-6).size());
+		assertEquals(100.0, snapshot.getPaperSize());
+
+		assertThrows(UnsupportedOperationException.class, () -> snapshot.add(lines.get(0)));
+		assertThrows(UnsupportedOperationException.class, () -> snapshot.replaceWith(lines));
+	}
 }
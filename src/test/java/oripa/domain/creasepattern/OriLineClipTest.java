@@ -20,6 +20,8 @@ package oripa.domain.creasepattern;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.List;
+
 import org.junit.jupiter.api.Test;
 
 import oripa.geom.RectangleDomain;
@@ -33,14 +35,15 @@ class OriLineClipTest {
 
 	@Test
 	void testPositveSlope_2() {
-		var clip = new OriLineClip(new RectangleDomain(0, 0, 16, 16));
+		var clip = new OriLineClip();
 
 		clip.add(new OriLine(1.2, 1.2, 3.2, 5.2, OriLine.Type.MOUNTAIN));
 
-		// clip is inclusive.
+		// clip is by bounding box, which starts at (1.2, 1.2).
 		var clipped = clip.clip(new RectangleDomain(0, 0, 1, 1), 0);
-		assertTrue(!clipped.isEmpty());
+		assertTrue(clipped.isEmpty());
 
+		// clip is inclusive.
 		clipped = clip.clip(new RectangleDomain(1, 1, 2, 2), 0);
 		assertTrue(!clipped.isEmpty());
 
@@ -61,7 +64,7 @@ class OriLineClipTest {
 
 	@Test
 	void testNegativeSlope_2() {
-		var clip = new OriLineClip(new RectangleDomain(0, 0, 16, 16));
+		var clip = new OriLineClip();
 
 		clip.add(new OriLine(1.2, 5.2, 3.2, 1.2, OriLine.Type.MOUNTAIN));
 
@@ -88,7 +91,7 @@ class OriLineClipTest {
 
 	@Test
 	void testVertical() {
-		var clip = new OriLineClip(new RectangleDomain(0, 0, 16, 16));
+		var clip = new OriLineClip();
 
 		clip.add(new OriLine(2.9, 4.5, 2.9, 8.9, OriLine.Type.MOUNTAIN));
 
@@ -96,8 +99,9 @@ class OriLineClipTest {
 		var clipped = clip.clip(new RectangleDomain(2, 2, 3, 3), 0);
 		assertTrue(clipped.isEmpty());
 
+		// bounding box starts at y = 4.5.
 		clipped = clip.clip(new RectangleDomain(2, 3, 3, 4), 0);
-		assertTrue(!clipped.isEmpty());
+		assertTrue(clipped.isEmpty());
 		clipped = clip.clip(new RectangleDomain(2, 4, 3, 5), 0);
 		assertTrue(!clipped.isEmpty());
 		clipped = clip.clip(new RectangleDomain(2, 5, 3, 6), 0);
@@ -115,7 +119,7 @@ class OriLineClipTest {
 
 	@Test
 	void testHorizontal() {
-		var clip = new OriLineClip(new RectangleDomain(0, 0, 16, 16));
+		var clip = new OriLineClip();
 
 		clip.add(new OriLine(2.2, 3.4, 5.6, 3.4, OriLine.Type.MOUNTAIN));
 
@@ -123,8 +127,9 @@ class OriLineClipTest {
 		var clipped = clip.clip(new RectangleDomain(0, 3, 1, 4), 0);
 		assertTrue(clipped.isEmpty());
 
+		// bounding box starts at x = 2.2.
 		clipped = clip.clip(new RectangleDomain(1, 3, 2, 4), 0);
-		assertTrue(!clipped.isEmpty());
+		assertTrue(clipped.isEmpty());
 		clipped = clip.clip(new RectangleDomain(2, 3, 3, 4), 0);
 		assertTrue(!clipped.isEmpty());
 		clipped = clip.clip(new RectangleDomain(4, 3, 5, 4), 0);
@@ -136,4 +141,16 @@ class OriLineClipTest {
 		assertTrue(clipped.isEmpty());
 	}
 
+	@Test
+	void testClipAlong() {
+		var clip = new OriLineClip(List.of(
+				new OriLine(0, 0, 1, 1, OriLine.Type.MOUNTAIN),
+				new OriLine(9, 0, 10, 1, OriLine.Type.MOUNTAIN),
+				new OriLine(9, 9, 10, 10, OriLine.Type.MOUNTAIN)));
+
+		var clipped = clip.clipAlong(new OriLine(0, 0, 10, 10, OriLine.Type.AUX), 1e-6);
+		assertEquals(2, clipped.size());
+		assertFalse(clipped.contains(new OriLine(9, 0, 10, 1, OriLine.Type.MOUNTAIN)));
+	}
+
 }
@@ -3,6 +3,7 @@ package oripa.domain.creasepattern;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.Collection;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.Test;
 
@@ -69,4 +70,58 @@ public class VerticesManagerTest {
 		assertFalse(managerContains(manager, p));
 	}
 
+	@Test
+	public void testDenseVertices() {
+		final double paperSize = 400;
+
+		VerticesManager manager = new VerticesManager(
+				new RectangleDomain(-paperSize / 2, -paperSize / 2, paperSize / 2, paperSize / 2));
+
+		// all in one area of the former 32x32 grid.
+		int n = 100;
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				manager.add(new Vector2d(i * 0.1, j * 0.1));
+			}
+		}
+
+		var target = new Vector2d(5, 5);
+		var around = manager.getVerticesAround(target);
+		assertTrue(around.contains(target));
+		assertTrue(around.size() < n * n / 10);
+
+		var inArea = manager.getVerticesInArea(5, 5, 0.15).stream()
+				.flatMap(Collection::stream)
+				.collect(Collectors.toSet());
+		assertTrue(inArea.contains(target));
+		assertTrue(inArea.contains(new Vector2d(51 * 0.1, 49 * 0.1)));
+		assertTrue(inArea.size() < n * n / 10);
+
+		manager.remove(target);
+		assertFalse(managerContains(manager, target));
+	}
+
+	@Test
+	public void testVerticesAroundAcrossAreaBoundary() {
+		final double paperSize = 400;
+
+		VerticesManager manager = new VerticesManager(
+				new RectangleDomain(-paperSize / 2, -paperSize / 2, paperSize / 2, paperSize / 2));
+
+		double interval = manager.getInterval();
+
+		// x = 0 is a boundary of the areas.
+		var left = new Vector2d(-0.01, 5);
+		var right = new Vector2d(0.01, 5);
+		var far = new Vector2d(3 * interval, 5);
+		manager.add(left);
+		manager.add(right);
+		manager.add(far);
+
+		var around = manager.getVerticesAround(left);
+		assertTrue(around.contains(left));
+		assertTrue(around.contains(right));
+		assertFalse(around.contains(far));
+	}
+
 }
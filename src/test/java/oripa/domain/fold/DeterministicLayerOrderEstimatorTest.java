@@ -0,0 +1,75 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold;
+
+import static oripa.domain.fold.test.LayerOrderFactoryForTest.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import oripa.domain.fold.halfedge.OriFace;
+import oripa.domain.fold.subface.SubFace;
+
+class DeterministicLayerOrderEstimatorTest {
+	static final int FACE_COUNT = 4;
+
+	List<OriFace> faces = createFaces(FACE_COUNT);
+
+	@Test
+	void testEstimate_propagatesAndStopsJournal() {
+		var estimator = createEstimator(List.of(createSubface(faces, 0, 1, 2, 3)));
+		var overlapRelation = createUndefinedRelation(FACE_COUNT);
+		overlapRelation.setUpper(0, 1);
+		overlapRelation.setUpper(1, 2);
+		overlapRelation.setUpper(2, 3);
+
+		var result = estimator.estimate(overlapRelation, 1e-6);
+
+		assertFalse(result.isUnfoldable());
+		assertTrue(overlapRelation.isUpper(0, 3));
+		assertEquals(3, estimator.getStatistics().getChangeCount(LayerOrderPropagator.Rule.TRANSITIVITY));
+
+		overlapRelation.setUpper(3, 2);
+		assertEquals(0, overlapRelation.getChangeCount());
+	}
+
+	@Test
+	void testEstimate_unfoldable() {
+		var estimator = createEstimator(List.of(createSubface(faces, 0, 1, 2)));
+		var overlapRelation = createUndefinedRelation(FACE_COUNT);
+		overlapRelation.setUpper(0, 1);
+		overlapRelation.setUpper(1, 2);
+		overlapRelation.setUpper(2, 0);
+
+		var result = estimator.estimate(overlapRelation, 1e-6);
+
+		assertTrue(result.isUnfoldable());
+		assertEquals(0, overlapRelation.getChangeCount());
+	}
+
+	private DeterministicLayerOrderEstimator createEstimator(final List<SubFace> subfaces) {
+		var intersections = createEmptyIntersections(FACE_COUNT);
+		var propagator = new LayerOrderPropagator(faces, subfaces, intersections, Map.of(), List.of());
+		return new DeterministicLayerOrderEstimator(faces, subfaces, intersections, Map.of(), List.of(),
+				propagator);
+	}
+}
@@ -0,0 +1,178 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold;
+
+import static oripa.domain.fold.test.LayerOrderFactoryForTest.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import oripa.domain.fold.halfedge.OriFace;
+import oripa.domain.fold.origeom.EstimationResult;
+import oripa.domain.fold.stackcond.StackConditionOf4Faces;
+import oripa.domain.fold.subface.SubFace;
+
+class LayerOrderPropagatorTest {
+	static final int FACE_COUNT = 4;
+
+	List<OriFace> faces = createFaces(FACE_COUNT);
+
+	@Test
+	void testPropagateAll_fixedPoint() {
+		var propagator = createPropagator(List.of(createSubface(faces, 0, 1, 2, 3)), List.of());
+		var overlapRelation = createUndefinedRelation(FACE_COUNT);
+		overlapRelation.setUpper(0, 1);
+		overlapRelation.setUpper(1, 2);
+		overlapRelation.setUpper(2, 3);
+
+		assertEquals(EstimationResult.CHANGED, propagator.propagateAll(overlapRelation, null));
+
+		assertTrue(overlapRelation.isUpper(0, 2));
+		assertTrue(overlapRelation.isUpper(0, 3));
+		assertTrue(overlapRelation.isUpper(1, 3));
+
+		assertEquals(EstimationResult.NOT_CHANGED, propagator.propagateAll(overlapRelation, null));
+	}
+
+	@Test
+	void testPropagateAll_statistics() {
+		var propagator = createPropagator(List.of(createSubface(faces, 0, 1, 2, 3)), List.of());
+		var overlapRelation = createUndefinedRelation(FACE_COUNT);
+		overlapRelation.setUpper(0, 1);
+		overlapRelation.setUpper(1, 2);
+		overlapRelation.setUpper(2, 3);
+
+		var statistics = new LayerOrderPropagator.Statistics();
+		propagator.propagateAll(overlapRelation, statistics);
+
+		assertEquals(3, statistics.getChangeCount(LayerOrderPropagator.Rule.TRANSITIVITY));
+		assertEquals(0, statistics.getChangeCount(LayerOrderPropagator.Rule.COVER_3_FACES));
+		assertEquals(0, statistics.getChangeCount(LayerOrderPropagator.Rule.STACK_4_FACES));
+		// all 6 pairs are determined by the closure and no other rule
+		// changes the relation. The 3 changes of the closure are checked
+		// again for the transitivity.
+		assertEquals(9, statistics.getPairCount());
+	}
+
+	@Test
+	void testPropagateAll_closureEnablesTransitivityOnSubfaceClosedBefore() {
+		// the first subface is closed before 0 > 2 is found on the second
+		// one.
+		var propagator = createPropagator(List.of(createSubface(faces, 0, 2, 3), createSubface(faces, 0, 1, 2)), List.of());
+		var overlapRelation = createUndefinedRelation(FACE_COUNT);
+		overlapRelation.setUpper(2, 3);
+		overlapRelation.setUpper(0, 1);
+		overlapRelation.setUpper(1, 2);
+
+		assertEquals(EstimationResult.CHANGED, propagator.propagateAll(overlapRelation, null));
+
+		assertTrue(overlapRelation.isUpper(0, 2));
+		assertTrue(overlapRelation.isUpper(0, 3));
+		assertTrue(overlapRelation.isUndefined(1, 3));
+
+		assertEquals(EstimationResult.NOT_CHANGED, propagator.propagateAll(overlapRelation, null));
+	}
+
+	@Test
+	void testPropagateAll_transitivityIsLimitedToSubface() {
+		var propagator = createPropagator(List.of(createSubface(faces, 0, 1), createSubface(faces, 1, 2)), List.of());
+		var overlapRelation = createUndefinedRelation(FACE_COUNT);
+		overlapRelation.setUpper(0, 1);
+		overlapRelation.setUpper(1, 2);
+
+		assertEquals(EstimationResult.NOT_CHANGED, propagator.propagateAll(overlapRelation, null));
+		assertTrue(overlapRelation.isUndefined(0, 2));
+	}
+
+	@Test
+	void testPropagateAll_conflict() {
+		var propagator = createPropagator(List.of(createSubface(faces, 0, 1, 2)), List.of());
+		var overlapRelation = createUndefinedRelation(FACE_COUNT);
+		overlapRelation.setUpper(0, 1);
+		overlapRelation.setUpper(1, 2);
+		overlapRelation.setUpper(2, 0);
+
+		assertEquals(EstimationResult.UNFOLDABLE, propagator.propagateAll(overlapRelation, null));
+	}
+
+	@Test
+	void testPropagateAll_4FaceStackCondition() {
+		var propagator = createPropagator(List.of(),
+				List.of(new StackConditionOf4Faces(0, 1, 2, 3)));
+		var overlapRelation = createUndefinedRelation(FACE_COUNT);
+		overlapRelation.setLower(1, 2);
+
+		assertEquals(EstimationResult.CHANGED, propagator.propagateAll(overlapRelation, null));
+
+		assertTrue(overlapRelation.isLower(0, 2));
+		assertTrue(overlapRelation.isLower(0, 3));
+		assertTrue(overlapRelation.isLower(1, 3));
+	}
+
+	@Test
+	void testPropagate_rollback() {
+		var propagator = createPropagator(List.of(createSubface(faces, 0, 1, 2, 3)), List.of());
+		var overlapRelation = createUndefinedRelation(FACE_COUNT);
+		overlapRelation.setUpper(0, 1);
+		assertEquals(EstimationResult.NOT_CHANGED, propagator.propagateAll(overlapRelation, null));
+
+		int mark = overlapRelation.mark();
+		overlapRelation.setUpper(1, 2);
+
+		assertEquals(EstimationResult.CHANGED, propagator.propagate(overlapRelation, mark));
+		assertTrue(overlapRelation.isUpper(0, 2));
+
+		overlapRelation.rollbackTo(mark);
+
+		assertTrue(overlapRelation.isUpper(0, 1));
+		assertTrue(overlapRelation.isUndefined(1, 2));
+		assertTrue(overlapRelation.isUndefined(0, 2));
+	}
+
+	@Test
+	void testPropagate_rollbackAfterConflict() {
+		var propagator = createPropagator(List.of(createSubface(faces, 0, 1, 2, 3)), List.of());
+		var overlapRelation = createUndefinedRelation(FACE_COUNT);
+		overlapRelation.setUpper(0, 1);
+		overlapRelation.setUpper(2, 3);
+		overlapRelation.setUpper(3, 0);
+		assertEquals(EstimationResult.CHANGED, propagator.propagateAll(overlapRelation, null));
+		assertTrue(overlapRelation.isUpper(2, 1));
+
+		int mark = overlapRelation.mark();
+		overlapRelation.setUpper(1, 3);
+
+		assertEquals(EstimationResult.UNFOLDABLE, propagator.propagate(overlapRelation, mark));
+
+		overlapRelation.rollbackTo(mark);
+
+		assertTrue(overlapRelation.isUpper(3, 1));
+		assertTrue(overlapRelation.isUpper(2, 0));
+		assertTrue(overlapRelation.isUpper(2, 1));
+	}
+
+	private LayerOrderPropagator createPropagator(final List<SubFace> subfaces,
+			final List<StackConditionOf4Faces> condition4s) {
+		var intersections = createEmptyIntersections(FACE_COUNT);
+		return new LayerOrderPropagator(faces, subfaces, intersections, Map.of(), condition4s);
+	}
+}
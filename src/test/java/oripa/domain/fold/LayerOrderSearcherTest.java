@@ -0,0 +1,97 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import oripa.domain.cptool.AnalyticOverlappingLineMerger;
+import oripa.domain.cptool.CrossingLineSplitter;
+import oripa.domain.cptool.ElementRemover;
+import oripa.domain.cptool.LineAdder;
+import oripa.domain.cptool.PointsMerger;
+import oripa.domain.creasepattern.CreasePatternFactory;
+import oripa.domain.fold.halfedge.OrigamiModelFactory;
+import oripa.domain.fold.subface.FacesToCreasePatternConverter;
+import oripa.domain.fold.subface.ParentFacesCollector;
+import oripa.domain.fold.subface.SplitFacesToSubFacesConverter;
+import oripa.value.OriLine;
+
+class LayerOrderSearcherTest {
+	static final double EPS = 1e-6;
+
+	/**
+	 * A strip of 6 squares with unassigned creases has 144 flat folded
+	 * states.
+	 */
+	@Test
+	void testSearch_forkedSearchFindsSameAnswersAsSequentialOne() throws Exception {
+		var pool = new ForkJoinPool(4);
+		try {
+			var forked = pool.submit(() -> fold(LayerOrderSearcher.DEFAULT_FORK_DEPTH_LIMIT)).get();
+			var sequential = fold(0);
+
+			assertEquals(144, sequential.size());
+			assertEquals(sequential, forked);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private Set<String> fold(final int forkDepthLimit) {
+		var lines = new ArrayList<OriLine>();
+		int cellCount = 6;
+		for (int i = 0; i < cellCount; i++) {
+			lines.add(new OriLine(40 * i, 0, 40 * i + 40, 0, OriLine.Type.CUT));
+			lines.add(new OriLine(40 * i, 40, 40 * i + 40, 40, OriLine.Type.CUT));
+		}
+		lines.add(new OriLine(0, 0, 0, 40, OriLine.Type.CUT));
+		lines.add(new OriLine(40 * cellCount, 0, 40 * cellCount, 40, OriLine.Type.CUT));
+		for (int i = 1; i < cellCount; i++) {
+			lines.add(new OriLine(40 * i, 0, 40 * i, 40, OriLine.Type.UNASSIGNED));
+		}
+		var creasePattern = new CreasePatternFactory().createCreasePattern(lines);
+		var origamiModel = new TestedOrigamiModelFactory().createOrigamiModels(creasePattern, EPS).get(0);
+
+		var subfacesFactory = new SubfacesOneTimeFactory(
+				new FacesToCreasePatternConverter(
+						new CreasePatternFactory(),
+						new CrossingLineSplitter(),
+						new ElementRemover(),
+						new PointsMerger(new LineAdder()),
+						new AnalyticOverlappingLineMerger()),
+				new OrigamiModelFactory(),
+				new SplitFacesToSubFacesConverter(),
+				new ParentFacesCollector());
+		var folder = new UnassignedModelFolder(new SimpleFolder(),
+				new LayerOrderEnumerator(subfacesFactory, false, forkDepthLimit));
+
+		var answers = Collections.synchronizedSet(new HashSet<String>());
+		folder.fold(origamiModel, EPS, Folder.EstimationType.FULL, answer -> answers.add(answer.toString()));
+
+		return answers;
+	}
+}
@@ -0,0 +1,84 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold.origeom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class FaceLayerSorterTest {
+	FaceLayerSorter sorter = new FaceLayerSorter();
+
+	@Test
+	void testSortFromTop() {
+		var overlapRelation = new OverlapRelation(5);
+		overlapRelation.setUpper(3, 0);
+		overlapRelation.setUpper(0, 4);
+		overlapRelation.setUpper(2, 1);
+
+		// the smallest face among the ones without unsorted upper face goes
+		// first.
+		assertArrayEquals(new int[] { 2, 1, 3, 0, 4 }, sorter.sortFromTop(overlapRelation));
+	}
+
+	@Test
+	void testSortFromTop_cycleIsExcluded() {
+		var overlapRelation = new OverlapRelation(4);
+		overlapRelation.setUpper(0, 1);
+		overlapRelation.setUpper(1, 2);
+		overlapRelation.setUpper(2, 0);
+
+		assertArrayEquals(new int[] { 3 }, sorter.sortFromTop(overlapRelation));
+	}
+
+	@Test
+	void testSortFromBottom_facesAboveCycleAreExcluded() {
+		var overlapRelation = new OverlapRelation(5);
+		overlapRelation.setUpper(0, 1);
+		overlapRelation.setUpper(1, 2);
+		overlapRelation.setUpper(2, 0);
+		overlapRelation.setUpper(0, 3);
+		overlapRelation.setUpper(4, 0);
+
+		assertArrayEquals(new int[] { 3 }, sorter.sortFromBottom(overlapRelation));
+		assertArrayEquals(new int[] { 4 }, sorter.sortFromTop(overlapRelation));
+	}
+
+	@Test
+	void testComputeDepths() {
+		var overlapRelation = new OverlapRelation(5);
+		overlapRelation.setUpper(3, 0);
+		overlapRelation.setUpper(0, 4);
+		overlapRelation.setUpper(3, 4);
+		overlapRelation.setUpper(2, 1);
+
+		assertArrayEquals(new int[] { 1, 1, 0, 0, 2 }, sorter.computeDepths(overlapRelation, true));
+		assertArrayEquals(new int[] { 1, 0, 1, 2, 0 }, sorter.computeDepths(overlapRelation, false));
+	}
+
+	@Test
+	void testComputeDepths_cycle() {
+		var overlapRelation = new OverlapRelation(4);
+		overlapRelation.setUpper(0, 1);
+		overlapRelation.setUpper(1, 2);
+		overlapRelation.setUpper(2, 0);
+
+		assertArrayEquals(new int[] { -1, -1, -1, 0 }, sorter.computeDepths(overlapRelation, true));
+	}
+}
@@ -0,0 +1,144 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold.origeom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import oripa.util.BitRowMatrix;
+
+class OverlapRelationTest {
+	OverlapRelation overlapRelation;
+
+	@BeforeEach
+	void setUp() {
+		overlapRelation = new OverlapRelation(4);
+		overlapRelation.setUndefined(0, 1);
+		overlapRelation.setUndefined(0, 2);
+		overlapRelation.setUndefined(1, 2);
+		overlapRelation.setUpper(2, 3);
+	}
+
+	@Test
+	void testSet_mirror() {
+		assertTrue(overlapRelation.isUpper(2, 3));
+		assertTrue(overlapRelation.isLower(3, 2));
+		assertTrue(overlapRelation.isNoOverlap(0, 3));
+	}
+
+	@Test
+	void testSparse() {
+		var overlappingPairs = new BitRowMatrix(10);
+		overlappingPairs.set(2, 3);
+
+		var sparse = new OverlapRelation(overlappingPairs);
+		assertTrue(sparse.isSparse());
+
+		sparse.setLower(3, 2);
+		assertTrue(sparse.isUpper(2, 3));
+		assertTrue(sparse.isLower(3, 2));
+		assertTrue(sparse.isNoOverlap(0, 1));
+
+		// out of the pattern
+		sparse.setUndefined(0, 1);
+		assertFalse(sparse.isSparse());
+		assertTrue(sparse.isUndefined(1, 0));
+		assertTrue(sparse.isUpper(2, 3));
+	}
+
+	@Test
+	void testCompressAgainst() {
+		var base = overlapRelation.createDeltaBase();
+
+		var answer = overlapRelation.clone();
+		answer.setUpper(0, 1);
+		answer.setLower(0, 2);
+		answer.setUpper(1, 2);
+
+		var compressed = answer.compressAgainst(base);
+		assertEquals(answer.toString(), compressed.toString());
+
+		// not fitting the base
+		compressed.setNoOverlap(0, 1);
+		assertTrue(compressed.isNoOverlap(1, 0));
+		assertTrue(compressed.isLower(0, 2));
+		assertTrue(compressed.isUpper(2, 3));
+		assertEquals(compressed.toString(), compressed.materialize().toString());
+
+		// undefined cell remains
+		answer.setUndefined(0, 1);
+		assertTrue(answer.compressAgainst(base).isUndefined(0, 1));
+	}
+
+	@Test
+	void testRollbackTo() {
+		var mark0 = overlapRelation.mark();
+
+		assertEquals(EstimationResult.CHANGED, overlapRelation.setUpperIfPossible(0, 1));
+
+		var mark1 = overlapRelation.mark();
+
+		assertEquals(EstimationResult.CHANGED, overlapRelation.setLowerIfPossible(0, 2));
+		assertEquals(EstimationResult.NOT_CHANGED, overlapRelation.setUpperIfPossible(0, 1));
+		assertEquals(EstimationResult.UNFOLDABLE, overlapRelation.setLowerIfPossible(0, 1));
+
+		overlapRelation.rollbackTo(mark1);
+
+		assertTrue(overlapRelation.isUpper(0, 1));
+		assertTrue(overlapRelation.isUndefined(0, 2));
+		assertTrue(overlapRelation.isUndefined(2, 0));
+
+		overlapRelation.rollbackTo(mark0);
+
+		assertTrue(overlapRelation.isUndefined(0, 1));
+		assertTrue(overlapRelation.isUndefined(1, 0));
+		assertTrue(overlapRelation.isUpper(2, 3));
+	}
+
+	@Test
+	void testGetChanged() {
+		var mark = overlapRelation.mark();
+		assertEquals(0, overlapRelation.getChangeCount());
+
+		overlapRelation.setUpper(0, 1);
+		overlapRelation.setUpper(0, 1);
+		overlapRelation.setLower(2, 1);
+
+		assertEquals(2, overlapRelation.getChangeCount());
+		assertEquals(0, overlapRelation.getChangedRow(0));
+		assertEquals(1, overlapRelation.getChangedColumn(0));
+		assertEquals(2, overlapRelation.getChangedRow(1));
+		assertEquals(1, overlapRelation.getChangedColumn(1));
+
+		overlapRelation.rollbackTo(mark);
+		assertEquals(0, overlapRelation.getChangeCount());
+	}
+
+	@Test
+	void testCopyTo() {
+		var copied = new OverlapRelation(4);
+		overlapRelation.copyTo(copied);
+
+		assertTrue(copied.isUndefined(0, 1));
+		assertTrue(copied.isUpper(2, 3));
+		assertTrue(copied.isLower(3, 2));
+	}
+}
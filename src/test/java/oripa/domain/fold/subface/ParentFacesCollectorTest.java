@@ -68,4 +68,26 @@ class ParentFacesCollectorTest {
 		assertTrue(parents.contains(face4));
 	}
 
+	@Test
+	void testCollect_grid() {
+		var face1 = OriFaceFactoryForTest.create10PxSquareMock(0, 0);
+		var face2 = OriFaceFactoryForTest.create10PxSquareMock(40, 0); // far
+		var face3 = OriFaceFactoryForTest.create10PxSquareMock(0, 40); // far
+		var face4 = OriFaceFactoryForTest.create10PxSquareMock(5, 5); // overlap
+
+		var grid = new FaceGrid(List.of(face1, face2, face3, face4), 1e-6);
+
+		var subface = mock(SubFace.class);
+		var innerPoint = new Vector2d(8, 8);
+		when(subface.getInnerPoints(1e-6)).thenReturn(List.of(innerPoint));
+
+		when(face1.includesExclusively(eq(innerPoint), anyDouble())).thenReturn(true);
+		when(face4.includesExclusively(eq(innerPoint), anyDouble())).thenReturn(true);
+
+		var parents = collector.collect(grid, subface, 1e-6);
+
+		assertEquals(List.of(face1, face4), parents);
+		verify(face2, never()).includesExclusively(any(), anyDouble());
+		verify(face3, never()).includesExclusively(any(), anyDouble());
+	}
 }
@@ -0,0 +1,93 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import oripa.domain.fold.halfedge.OriFace;
+import oripa.domain.fold.origeom.OverlapRelation;
+import oripa.domain.fold.subface.SubFace;
+
+/**
+ * Creates the inputs of the layer order estimation without geometry.
+ */
+public class LayerOrderFactoryForTest {
+	/**
+	 *
+	 * @param count
+	 *            the number of faces.
+	 * @return empty faces whose IDs are 0 to count - 1.
+	 */
+	public static List<OriFace> createFaces(final int count) {
+		var faces = new ArrayList<OriFace>();
+		for (int i = 0; i < count; i++) {
+			var face = new OriFace();
+			face.setFaceID(i);
+			faces.add(face);
+		}
+		return faces;
+	}
+
+	/**
+	 *
+	 * @param faces
+	 *            faces created by {@link #createFaces(int)}.
+	 * @param faceIDs
+	 *            IDs of the parent faces.
+	 * @return a subface with the given parent faces.
+	 */
+	public static SubFace createSubface(final List<OriFace> faces, final int... faceIDs) {
+		var subface = new SubFace(new OriFace(), 1e-6);
+		subface.addParentFaces(Arrays.stream(faceIDs).mapToObj(faces::get).toList());
+		return subface;
+	}
+
+	/**
+	 *
+	 * @param count
+	 *            the number of faces.
+	 * @return a relation whose all pairs are undefined.
+	 */
+	public static OverlapRelation createUndefinedRelation(final int count) {
+		var overlapRelation = new OverlapRelation(count);
+		for (int i = 0; i < count; i++) {
+			for (int j = i + 1; j < count; j++) {
+				overlapRelation.setUndefined(i, j);
+			}
+		}
+		return overlapRelation;
+	}
+
+	/**
+	 *
+	 * @param count
+	 *            the number of faces.
+	 * @return [FaceID1][FaceID2] = empty list.
+	 */
+	@SuppressWarnings("unchecked")
+	public static List<Integer>[][] createEmptyIntersections(final int count) {
+		var intersections = new List[count][count];
+		for (var row : intersections) {
+			Arrays.fill(row, List.of());
+		}
+		return intersections;
+	}
+}
@@ -22,6 +22,8 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
@@ -109,4 +111,79 @@ public class CreasePatternUndoManagerTest {
 		assertFalse(manager.canRedo());
 		assertTrue(manager.redo().isEmpty());
 	}
+
+	@Test
+	public void testUndoRedo_manyLinesWithSmallChanges() {
+		var manager = new CreasePatternUndoManager();
+
+		var lines = new HashSet<OriLine>();
+		for (int i = 0; i < 100; i++) {
+			lines.add(new OriLine(i, 0, i, 1, OriLine.Type.MOUNTAIN));
+		}
+
+		var history = new ArrayList<List<OriLine>>();
+		for (int i = 0; i < 80; i++) {
+			manager.push(lines);
+			history.add(copy(lines));
+
+			lines.add(new OriLine(i, 2, i + 1, 2, OriLine.Type.VALLEY));
+			lines.remove(new OriLine(i, 0, i, 1, OriLine.Type.MOUNTAIN));
+			var x = i + 1;
+			lines.stream()
+					.filter(line -> line.getP0().getX() == x)
+					.forEach(line -> line.setSelected(!line.isSelected()));
+		}
+		var last = copy(lines);
+
+		Collection<OriLine> current = lines;
+		for (int i = history.size() - 1; i >= 0; i--) {
+			current = manager.undo(current).get().getInfo();
+			assertSameLines(history.get(i), current);
+		}
+		assertFalse(manager.canUndo());
+
+		for (int i = 1; i < history.size(); i++) {
+			assertSameLines(history.get(i), manager.redo().get().getInfo());
+		}
+		assertSameLines(last, manager.redo().get().getInfo());
+		assertFalse(manager.canRedo());
+	}
+
+	@Test
+	public void testStoredLineLimit() {
+		var manager = new CreasePatternUndoManager(1000);
+
+		for (int i = 0; i < 10; i++) {
+			// all lines change and each step stores 300 lines.
+			var lines = new HashSet<OriLine>();
+			for (int j = 0; j < 300; j++) {
+				lines.add(new OriLine(j, i, j, i + 1, OriLine.Type.MOUNTAIN));
+			}
+			manager.push(lines);
+		}
+
+		var undoCount = 0;
+		Collection<OriLine> current = List.of();
+		while (manager.canUndo()) {
+			current = manager.undo(current).get().getInfo();
+			undoCount++;
+		}
+
+		assertEquals(3, undoCount);
+		assertEquals(7.0, current.iterator().next().getP0().getY());
+	}
+
+	List<OriLine> copy(final Collection<OriLine> lines) {
+		return lines.stream()
+				.map(OriLine::new)
+				.toList();
+	}
+
+	void assertSameLines(final Collection<OriLine> expected, final Collection<OriLine> actual) {
+		assertEquals(expected.size(), actual.size());
+		assertEquals(new HashSet<>(expected), new HashSet<>(actual));
+
+		var selected = new HashSet<>(actual.stream().filter(OriLine::isSelected).toList());
+		expected.forEach(line -> assertEquals(line.isSelected(), selected.contains(line), line::toString));
+	}
 }
@@ -0,0 +1,109 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.geom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class SegmentRTreeTest {
+
+	@Test
+	void testSearch_sameAsBruteForce() {
+		var random = new Random(0);
+		var segments = new ArrayList<Segment>();
+		for (int i = 0; i < 1000; i++) {
+			var x = random.nextDouble() * 100;
+			var y = random.nextDouble() * 100;
+			segments.add(new Segment(x, y,
+					x + random.nextDouble() * 10, y + random.nextDouble() * 10));
+		}
+
+		var bulkLoaded = new SegmentRTree<Segment>(segments);
+		var inserted = new SegmentRTree<Segment>();
+		segments.forEach(inserted::add);
+
+		// remove a half by identity.
+		var removed = new HashSet<Segment>();
+		for (int i = 0; i < segments.size(); i += 2) {
+			assertTrue(bulkLoaded.remove(segments.get(i)));
+			assertTrue(inserted.remove(segments.get(i)));
+			removed.add(segments.get(i));
+		}
+		assertFalse(inserted.remove(segments.get(0)));
+		assertEquals(500, bulkLoaded.size());
+		assertEquals(500, inserted.size());
+
+		for (int i = 0; i < 100; i++) {
+			var minX = random.nextDouble() * 100;
+			var minY = random.nextDouble() * 100;
+			var maxX = minX + random.nextDouble() * 20;
+			var maxY = minY + random.nextDouble() * 20;
+
+			var expected = new HashSet<Segment>();
+			for (var s : segments) {
+				if (!removed.contains(s)
+						&& Math.min(s.getP0().getX(), s.getP1().getX()) <= maxX
+						&& minX <= Math.max(s.getP0().getX(), s.getP1().getX())
+						&& Math.min(s.getP0().getY(), s.getP1().getY()) <= maxY
+						&& minY <= Math.max(s.getP0().getY(), s.getP1().getY())) {
+					expected.add(s);
+				}
+			}
+
+			assertEquals(expected, new HashSet<>(bulkLoaded.search(minX, minY, maxX, maxY)));
+			assertEquals(expected, new HashSet<>(inserted.search(minX, minY, maxX, maxY)));
+		}
+	}
+
+	@Test
+	void testRemoveAll() {
+		var tree = new SegmentRTree<Segment>();
+		var segments = new ArrayList<Segment>();
+		for (int i = 0; i < 100; i++) {
+			var s = new Segment(i, 0, i + 1, 1);
+			segments.add(s);
+			tree.add(s);
+		}
+		segments.forEach(tree::remove);
+
+		assertTrue(tree.isEmpty());
+		assertTrue(tree.search(-1, -1, 200, 200).isEmpty());
+
+		tree.add(segments.get(0));
+		assertEquals(1, tree.search(0, 0, 1, 1).size());
+	}
+
+	@Test
+	void testSearchAlong() {
+		var tree = new SegmentRTree<Segment>();
+		var near = new Segment(5, 5.5, 6, 5.5);
+		var far = new Segment(8, 1, 9, 2);
+		tree.add(near);
+		tree.add(far);
+
+		var found = tree.searchAlong(new Segment(0, 0, 10, 10), 0.1);
+		assertEquals(1, found.size());
+		assertSame(near, found.get(0));
+	}
+}
@@ -0,0 +1,49 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.geom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import oripa.util.IntPair;
+
+class SweepAndPruneTest {
+
+	@Test
+	void testFindIntersectingPairs() {
+		var domains = List.of(
+				new RectangleDomain(0, 0, 10, 10),
+				new RectangleDomain(20, 0, 30, 10),
+				new RectangleDomain(5, 5, 25, 8),
+				// touches domain 1
+				new RectangleDomain(30, 10, 40, 20),
+				// x-overlap with domain 0 only
+				new RectangleDomain(0, 50, 10, 60),
+				RectangleDomain.voidDomain());
+
+		var pairs = new SweepAndPrune().findIntersectingPairs(domains, 1e-6);
+
+		assertEquals(Set.of(new IntPair(0, 2), new IntPair(1, 2), new IntPair(1, 3)), Set.copyOf(pairs));
+		assertEquals(3, pairs.size());
+	}
+}
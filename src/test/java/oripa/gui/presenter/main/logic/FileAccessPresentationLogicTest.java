@@ -33,6 +33,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import oripa.application.FileAccessService;
 import oripa.application.main.PaintContextService;
+import oripa.domain.creasepattern.CreasePattern;
 import oripa.domain.cutmodel.CutModelOutlinesHolder;
 import oripa.domain.paint.PaintContext;
 import oripa.domain.projectprop.Property;
@@ -82,6 +83,8 @@ class FileAccessPresentationLogicTest {
 	class TestSaveFile {
 		@Test
 		void succeeds() {
+			CreasePattern creasePattern = mock();
+			when(paintContextService.getCreasePattern()).thenReturn(creasePattern);
 
 			// execute
 			var selectedPath = presentationLogic.saveFile("path", mock());
@@ -0,0 +1,49 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.persistence.entity.exporter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import oripa.domain.fold.halfedge.OriFace;
+import oripa.domain.fold.origeom.OverlapRelation;
+
+class FaceSorterTest {
+
+	@Test
+	void testSortFaces() {
+		var faces = IntStream.range(0, 4).mapToObj(i -> new OriFace()).toList();
+
+		var overlapRelation = new OverlapRelation(4);
+		overlapRelation.setUpper(2, 0);
+		overlapRelation.setUpper(0, 3);
+		overlapRelation.setUpper(1, 3);
+
+		var sorter = new FaceSorter(faces, overlapRelation);
+
+		assertEquals(List.of(faces.get(1), faces.get(2), faces.get(0), faces.get(3)),
+				sorter.sortFaces(true));
+		assertEquals(List.of(faces.get(3), faces.get(0), faces.get(2), faces.get(1)),
+				sorter.sortFaces(false));
+	}
+}
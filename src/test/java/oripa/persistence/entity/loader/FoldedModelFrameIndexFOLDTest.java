@@ -0,0 +1,114 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.persistence.entity.loader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+import oripa.persistence.filetool.WrongDataFormatException;
+
+class FoldedModelFrameIndexFOLDTest {
+	private static final String MODEL = """
+			"frame_title": "{[\\"faceOrders\\": ]}",
+			"frame_classes": ["foldedForm"],
+			"vertices_coords": [[0, 0], [1, 0], [1, 1], [0, 1]],
+			"edges_vertices": [[0, 1], [1, 2], [2, 0], [2, 3], [3, 0]],
+			"edges_assignment": ["B", "B", "V", "B", "B"],
+			"faces_vertices": [[0, 1, 2], [0, 2, 3]]
+			""";
+
+	private static final String FRAMES = """
+			"file_frames": [
+				{"frame_title": "}", "faceOrders": [[0, 1, -1]]},
+				{"frame_title": "no orders", "faceOrders": null},
+				{"faceOrders": [[0, 1, 1]], "frame_attributes": [{"faceOrders": null}]},
+				{"frame_parent": 1, "frame_inherit": true},
+				{"frame_parent": 2, "frame_inherit": true}
+			]
+			""";
+
+	@Test
+	void testScan() throws Exception {
+		var path = write("{" + FRAMES + "," + MODEL + "}");
+
+		var index = FoldedModelFrameIndexFOLD.scan(path);
+
+		assertEquals(6, index.getFrameCount());
+		assertEquals(3, index.getRelationCount());
+		assertEquals(1, index.findOrderSource(0));
+		assertEquals(3, index.findOrderSource(1));
+		assertEquals(1, index.findOrderSource(2));
+	}
+
+	@Test
+	void testRead_sameAsLoader() throws Exception {
+		var path = write("{" + MODEL + ", \"faceOrders\": [[0, 1, 1]]," + FRAMES + "}");
+
+		var loaded = new FoldedModelLoaderFOLD().load(path).orElseThrow().getOverlapRelations();
+
+		var index = FoldedModelFrameIndexFOLD.load(path);
+		assertTrue(Files.exists(Path.of(path + FoldedModelFrameIndexFOLD.SIDECAR_EXTENSION)));
+
+		try (var reader = new FoldedModelFrameReaderFOLD(path, index)) {
+			assertEquals(loaded.size(), index.getRelationCount());
+			for (int i = loaded.size() - 1; i >= 0; i--) {
+				assertEquals(loaded.get(i).get(0, 1), reader.read(i).get(0, 1));
+			}
+		}
+	}
+
+	@Test
+	void testLoad_usesFreshCacheOnly() throws Exception {
+		var path = write("{" + MODEL + "}");
+		assertEquals(0, FoldedModelFrameIndexFOLD.load(path).getRelationCount());
+
+		Files.writeString(Path.of(path), "{" + MODEL + ", \"faceOrders\": [[0, 1, 1]], \"file_frames\": [{}]}");
+
+		var index = FoldedModelFrameIndexFOLD.load(path);
+		assertEquals(1, index.getRelationCount());
+		assertEquals(2, index.getFrameCount());
+
+		// the cache is replaced without leaving the temporary file.
+		var sidecarPath = Path.of(path + FoldedModelFrameIndexFOLD.SIDECAR_EXTENSION);
+		try (var files = Files.list(sidecarPath.getParent())) {
+			assertEquals(1, files.filter(file -> file.getFileName().toString()
+					.startsWith(sidecarPath.getFileName().toString())).count());
+		}
+	}
+
+	@Test
+	void testScan_wrongParent() throws Exception {
+		var path = write("{" + MODEL + ", \"file_frames\": [{\"frame_parent\": 1, \"frame_inherit\": true}]}");
+
+		assertThrows(WrongDataFormatException.class, () -> FoldedModelFrameIndexFOLD.scan(path));
+	}
+
+	private String write(final String json) throws IOException {
+		var path = Files.createTempFile("oripa-test", ".fold");
+		path.toFile().deleteOnExit();
+		Path.of(path + FoldedModelFrameIndexFOLD.SIDECAR_EXTENSION).toFile().deleteOnExit();
+		Files.writeString(path, json);
+		return path.toString();
+	}
+}
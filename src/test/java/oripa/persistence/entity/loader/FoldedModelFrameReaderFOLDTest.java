@@ -0,0 +1,107 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.persistence.entity.loader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Test;
+
+import oripa.persistence.filetool.WrongDataFormatException;
+
+class FoldedModelFrameReaderFOLDTest {
+	private static final String MODEL = """
+			"frame_classes": ["foldedForm"],
+			"vertices_coords": [[0, 0], [1, 0], [1, 1], [0, 1]],
+			"edges_vertices": [[0, 1], [1, 2], [2, 0], [2, 3], [3, 0]],
+			"edges_assignment": ["B", "B", "V", "B", "B"],
+			"faces_vertices": [[0, 1, 2], [0, 2, 3]],
+			"faceOrders": [[0, 1, 1]]
+			""";
+
+	@Test
+	void testNext_framesBeforeModel() throws Exception {
+		var path = write("""
+				{
+				"file_frames": [
+					{"faceOrders": [[0, 1, -1]], "frame_parent": 0, "frame_inherit": true},
+					{"frame_parent": 0, "frame_inherit": true},
+					{"frame_parent": 2, "frame_inherit": true},
+					{"frame_title": "no orders"}
+				],
+				""" + MODEL + "}");
+
+		try (var reader = new FoldedModelFrameReaderFOLD(path)) {
+			assertEquals(2, reader.getOrigamiModel().getFaces().size());
+
+			assertTrue(reader.next().orElseThrow().isUpper(0, 1));
+			assertTrue(reader.next().orElseThrow().isLower(0, 1));
+			assertTrue(reader.next().orElseThrow().isUpper(0, 1));
+			assertTrue(reader.next().orElseThrow().isUpper(0, 1));
+			assertTrue(reader.next().isEmpty());
+		}
+	}
+
+	@Test
+	void testNext_olderParentIsNotKept() throws Exception {
+		var path = write("{" + MODEL + """
+				,"file_frames": [
+					{"faceOrders": [[0, 1, -1]]},
+					{"faceOrders": [[0, 1, 1]]},
+					{"frame_parent": 1, "frame_inherit": true}
+				]}
+				""");
+
+		try (var reader = new FoldedModelFrameReaderFOLD(path)) {
+			reader.next();
+			reader.next();
+			reader.next();
+			assertThrows(WrongDataFormatException.class, () -> reader.next());
+		}
+
+		var relations = new FoldedModelLoaderFOLD().load(path).orElseThrow().getOverlapRelations();
+		assertEquals(4, relations.size());
+		assertTrue(relations.get(3).isLower(0, 1));
+	}
+
+	@Test
+	void testConstructor_noEdgesVertices() throws Exception {
+		var path = write("""
+				{"vertices_coords": [[0, 0]], "edges_assignment": [], "faces_vertices": []}
+				""");
+
+		assertThrows(WrongDataFormatException.class, () -> new FoldedModelFrameReaderFOLD(path));
+	}
+
+	@Test
+	void testConstructor_notJSON() throws Exception {
+		var path = write("{\"vertices_coords\": [[0, 0]");
+
+		assertThrows(WrongDataFormatException.class, () -> new FoldedModelFrameReaderFOLD(path));
+	}
+
+	private String write(final String json) throws IOException {
+		var path = Files.createTempFile("oripa-test", ".fold");
+		path.toFile().deleteOnExit();
+		Files.writeString(path, json);
+		return path.toString();
+	}
+}
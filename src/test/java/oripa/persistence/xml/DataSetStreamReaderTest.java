@@ -0,0 +1,165 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.persistence.xml;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.beans.XMLDecoder;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import oripa.DataSet;
+import oripa.OriLineProxy;
+
+class DataSetStreamReaderTest {
+
+	/**
+	 * The lines are written as a property.
+	 */
+	@Test
+	void testRead_craneBase() throws Exception {
+		var bytes = readResource("/crane_base_mitani.opx");
+
+		var dataSet = new DataSetStreamReader().read(new ByteArrayInputStream(bytes)).get();
+
+		assertEquals(20, dataSet.getLines().length);
+		assertEquals(Map.of(1, 4L, 2, 12L, 3, 4L), countTypes(dataSet));
+		assertEquals(1, dataSet.getMainVersion());
+		assertEquals(400.0, dataSet.getPaperSize());
+
+		assertSameLines(decode(bytes), dataSet);
+	}
+
+	/**
+	 * The lines are written as a field.
+	 */
+	@Test
+	void testRead_waterbombBase() throws Exception {
+		var bytes = readResource("/waterbomb_base_collapse.opx");
+
+		var dataSet = new DataSetStreamReader().read(new ByteArrayInputStream(bytes)).get();
+
+		assertEquals(10, dataSet.getLines().length);
+		assertEquals(Map.of(1, 5L, 2, 4L, 3, 1L), countTypes(dataSet));
+		assertEquals(1, dataSet.getMainVersion());
+		assertEquals(1, dataSet.getSubVersion());
+		assertEquals(400.0, dataSet.getPaperSize());
+
+		assertSameLines(decode(bytes), dataSet);
+	}
+
+	/**
+	 * Old versions write the texts as properties.
+	 */
+	@Test
+	void testRead_legacyProperties() throws Exception {
+		var bytes = """
+				<?xml version="1.0" encoding="UTF-8"?>
+				<java version="1.5.0_02" class="java.beans.XMLDecoder">
+				 <object class="oripa.DataSet">
+				  <void property="editorName">
+				   <string>editor</string>
+				  </void>
+				  <void property="lines">
+				   <array class="oripa.OriLineProxy" length="2">
+				    <void index="0">
+				     <object class="oripa.OriLineProxy">
+				      <void property="type">
+				       <int>2</int>
+				      </void>
+				      <void property="x0">
+				       <double>-200.0</double>
+				      </void>
+				      <void property="y1">
+				       <double>200.0</double>
+				      </void>
+				     </object>
+				    </void>
+				    <void index="1">
+				     <object class="oripa.OriLineProxy"/>
+				    </void>
+				   </array>
+				  </void>
+				  <void property="mainVersion">
+				   <int>1</int>
+				  </void>
+				  <void property="memo">
+				   <string>memo<char code="#1"/></string>
+				  </void>
+				  <void property="title">
+				   <string>title</string>
+				  </void>
+				 </object>
+				</java>
+				""".getBytes();
+
+		var dataSet = new DataSetStreamReader().read(new ByteArrayInputStream(bytes)).get();
+
+		assertEquals("editor", dataSet.editorName);
+		assertEquals("memo\u0001", dataSet.memo);
+		assertEquals("title", dataSet.title);
+		assertNull(dataSet.reference);
+		assertEquals(1, dataSet.getMainVersion());
+
+		assertEquals(2, dataSet.getLines().length);
+		assertEquals(Map.of(2, 1L, 0, 1L), countTypes(dataSet));
+		var line = dataSet.getLines()[0];
+		assertEquals(-200.0, line.getX0());
+		assertEquals(0.0, line.getY0());
+		assertEquals(0.0, line.getX1());
+		assertEquals(200.0, line.getY1());
+
+		assertSameLines(decode(bytes), dataSet);
+	}
+
+	private byte[] readResource(final String name) throws IOException {
+		try (var input = getClass().getResourceAsStream(name)) {
+			return input.readAllBytes();
+		}
+	}
+
+	private DataSet decode(final byte[] bytes) {
+		try (var decoder = new XMLDecoder(new ByteArrayInputStream(bytes))) {
+			return (DataSet) decoder.readObject();
+		}
+	}
+
+	private Map<Integer, Long> countTypes(final DataSet dataSet) {
+		return Arrays.stream(dataSet.getLines())
+				.collect(Collectors.groupingBy(OriLineProxy::getType, Collectors.counting()));
+	}
+
+	private void assertSameLines(final DataSet expected, final DataSet actual) {
+		assertEquals(expected.getLines().length, actual.getLines().length);
+		for (int i = 0; i < expected.getLines().length; i++) {
+			var e = expected.getLines()[i];
+			var a = actual.getLines()[i];
+			assertEquals(e.getType(), a.getType());
+			assertEquals(e.getX0(), a.getX0());
+			assertEquals(e.getY0(), a.getY0());
+			assertEquals(e.getX1(), a.getX1());
+			assertEquals(e.getY1(), a.getY1());
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.persistence.xml;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.beans.XMLDecoder;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import org.junit.jupiter.api.Test;
+
+import oripa.DataSet;
+import oripa.OriLineProxy;
+
+class DataSetStreamWriterTest {
+
+	@Test
+	void testWriteAndRead() throws Exception {
+		var dataSet = createDataSet();
+
+		var output = new ByteArrayOutputStream();
+		new DataSetStreamWriter().write(dataSet, output);
+
+		var read = new DataSetStreamReader().read(new ByteArrayInputStream(output.toByteArray())).get();
+
+		assertSameDataSet(dataSet, read);
+	}
+
+	@Test
+	void testWrittenDataCanBeDecodedByXMLDecoder() throws Exception {
+		var dataSet = createDataSet();
+
+		var output = new ByteArrayOutputStream();
+		new DataSetStreamWriter().write(dataSet, output);
+
+		try (var decoder = new XMLDecoder(new ByteArrayInputStream(output.toByteArray()))) {
+			assertSameDataSet(dataSet, (DataSet) decoder.readObject());
+		}
+	}
+
+	@Test
+	void testReadWithoutDataSet() throws Exception {
+		var xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><java><object class=\"java.lang.Object\"/></java>";
+
+		assertTrue(new DataSetStreamReader().read(new ByteArrayInputStream(xml.getBytes())).isEmpty());
+	}
+
+	private DataSet createDataSet() {
+		var dataSet = new DataSet();
+		dataSet.setMainVersion(1);
+		dataSet.setSubVersion(2);
+		dataSet.setPaperSize(400);
+		dataSet.title = "<title> & \"quote\"";
+		dataSet.memo = "line1\nline2\u0001";
+
+		var line0 = new OriLineProxy();
+		line0.setType(2);
+		line0.setX0(-200);
+		line0.setY0(3.6415315207705135E-14);
+		line0.setX1(200);
+
+		// all values are default.
+		var line1 = new OriLineProxy();
+
+		dataSet.setLines(new OriLineProxy[] { line0, line1 });
+
+		return dataSet;
+	}
+
+	private void assertSameDataSet(final DataSet expected, final DataSet actual) {
+		assertEquals(expected.getMainVersion(), actual.getMainVersion());
+		assertEquals(expected.getSubVersion(), actual.getSubVersion());
+		assertEquals(expected.getPaperSize(), actual.getPaperSize());
+		assertEquals(expected.title, actual.title);
+		assertEquals(expected.memo, actual.memo);
+		assertNull(actual.editorName);
+
+		assertEquals(expected.getLines().length, actual.getLines().length);
+		for (int i = 0; i < expected.getLines().length; i++) {
+			var e = expected.getLines()[i];
+			var a = actual.getLines()[i];
+			assertEquals(e.getType(), a.getType());
+			assertEquals(e.getX0(), a.getX0());
+			assertEquals(e.getY0(), a.getY0());
+			assertEquals(e.getX1(), a.getX1());
+			assertEquals(e.getY1(), a.getY1());
+		}
+	}
+}
@@ -0,0 +1,322 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.renderer.estimation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import oripa.domain.fold.FoldedModel;
+import oripa.domain.fold.Folder;
+import oripa.domain.fold.FolderFactory;
+import oripa.domain.fold.TestedOrigamiModelFactory;
+import oripa.domain.fold.origeom.OverlapRelation;
+import oripa.domain.fold.origeom.OverlapRelationValues;
+import oripa.geom.GeomUtil;
+import oripa.persistence.doc.loader.LoaderXML;
+import oripa.value.OriLine;
+
+class FoldedModelPixelRendererTest {
+	static final int SIZE = 100;
+	static final int BELOW_CYCLE = 3;
+
+	/**
+	 * The faces of an accordion-folded strip are stacked on the same place.
+	 * The relation has a cycle 0 > 1 > 2 > 0 and face 3 is below all of
+	 * them. Face 3 is drawn first.
+	 */
+	@Test
+	void testRender_faceBelowCycleIsHidden() {
+		var faceIDs = render(false);
+
+		int drawnCount = 0;
+		for (int y = 1; y < SIZE - 1; y++) {
+			for (int x = 1; x < SIZE - 1; x++) {
+				if (!isInside(faceIDs, x, y)) {
+					continue;
+				}
+				drawnCount++;
+				assertNotEquals(BELOW_CYCLE, faceIDs[y * SIZE + x]);
+			}
+		}
+		assertTrue(drawnCount > 0);
+	}
+
+	@Test
+	void testRender_faceBelowCycleIsVisibleFromBottom() {
+		var faceIDs = render(true);
+
+		int drawnCount = 0;
+		for (int y = 1; y < SIZE - 1; y++) {
+			for (int x = 1; x < SIZE - 1; x++) {
+				if (!isInside(faceIDs, x, y)) {
+					continue;
+				}
+				drawnCount++;
+				assertEquals(BELOW_CYCLE, faceIDs[y * SIZE + x]);
+			}
+		}
+		assertTrue(drawnCount > 0);
+	}
+
+	/**
+	 * The faces of a stair-like accordion overlap each other and the widest
+	 * one sticks out of the others. The others form a cycle and the widest
+	 * one is below all of them. The ambient occlusion should count the pixels
+	 * closer by the overlap relation.
+	 */
+	@Test
+	void testRender_ambientOcclusionWithCycle() {
+		for (var faceOrderFlipped : List.of(false, true)) {
+			var origamiModel = fold(createStairLines()).origamiModel();
+			var faces = origamiModel.getFaces();
+			assertEquals(4, faces.size());
+
+			var widest = faces.stream()
+					.max(Comparator.comparing(face -> face.createOutlineVerticesBeforeFolding().stream()
+							.mapToDouble(v -> v.getX()).summaryStatistics().getMax()
+							- face.createOutlineVerticesBeforeFolding().stream()
+									.mapToDouble(v -> v.getX()).summaryStatistics().getMin()))
+					.get().getFaceID();
+			var others = faces.stream()
+					.map(face -> face.getFaceID())
+					.filter(id -> id != widest)
+					.toList();
+
+			var overlapRelation = new OverlapRelation(4);
+			overlapRelation.setUpper(others.get(0), others.get(1));
+			overlapRelation.setUpper(others.get(1), others.get(2));
+			overlapRelation.setUpper(others.get(2), others.get(0));
+			for (var id : others) {
+				overlapRelation.setUpper(id, widest);
+			}
+
+			var modelDomain = origamiModel.createDomainOfFoldedModel();
+			var distortion = new Distortion(modelDomain, SIZE, SIZE);
+			var converter = distortion.createCoordinateConverter(DistortionMethod.NONE, null,
+					SIZE / modelDomain.getWidth() / 1.5);
+			var distortedModel = distortion.prepare(origamiModel, converter, Map.of(), GeomUtil.pointEps());
+			var result = distortedModel.apply(overlapRelation);
+
+			var option = new FoldedModelPixelRenderer.Option()
+					.setFaceOrderFlipped(faceOrderFlipped)
+					.setFillFace(true)
+					.setColors(Color.GRAY, Color.WHITE);
+
+			var renderer = new FoldedModelPixelRenderer(SIZE, SIZE);
+			renderer.render(result.faces(), result.interpolatedOverlapRelation(), distortedModel.getPaperDomain(),
+					option);
+			var expected = renderer.getPixels().clone();
+			applyOcclusionByRelation(expected, renderer.getFaceIDs(), result.interpolatedOverlapRelation(),
+					faceOrderFlipped);
+
+			renderer.render(result.faces(), result.interpolatedOverlapRelation(), distortedModel.getPaperDomain(),
+					option.setAmbientOcclusion(true));
+
+			assertTrue(Arrays.stream(renderer.getFaceIDs()).anyMatch(id -> id == widest));
+			assertArrayEquals(expected, renderer.getPixels());
+		}
+	}
+
+	/**
+	 * Darkens each pixel by the pixels within the circle whose faces are
+	 * closer by the overlap relation, pixel by pixel.
+	 */
+	private void applyOcclusionByRelation(final int[] pixels, final int[] faceIDs,
+			final OverlapRelation overlapRelation, final boolean faceOrderFlipped) {
+		byte renderFace = faceOrderFlipped ? OverlapRelationValues.UPPER : OverlapRelationValues.LOWER;
+		int r = 10;
+		int s = (int) (r * r * Math.PI);
+		var original = pixels.clone();
+
+		for (int y = 1; y < SIZE - 1; y++) {
+			for (int x = 1; x < SIZE - 1; x++) {
+				int faceID = faceIDs[y * SIZE + x];
+				int cnt = 0;
+				for (int dy = -r; dy <= r; dy++) {
+					for (int dx = -r; dx <= r; dx++) {
+						if (dx * dx + dy * dy > r * r
+								|| y + dy < 0 || y + dy > SIZE - 1 || x + dx < 0 || x + dx > SIZE - 1) {
+							continue;
+						}
+						int faceID2 = faceIDs[(y + dy) * SIZE + x + dx];
+						if (faceID2 != -1 && (faceID == -1 || overlapRelation.get(faceID, faceID2) == renderFace)) {
+							cnt++;
+						}
+					}
+				}
+				if (cnt > 0) {
+					int prev = original[y * SIZE + x];
+					double ratio = 1.0 - ((double) cnt) / s;
+					int p_r = (int) Math.max(0, ((prev & 0x00ff0000) >> 16) * ratio);
+					int p_g = (int) Math.max(0, ((prev & 0x0000ff00) >> 8) * ratio);
+					int p_b = (int) Math.max(0, (prev & 0x000000ff) * ratio);
+					pixels[y * SIZE + x] = (p_r << 16) | (p_g << 8) | p_b | 0xff000000;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Drawing in tiles should give the same pixels as drawing in one tile,
+	 * for the model inside the image and for the model sticking out of it.
+	 */
+	@Test
+	void testRender_tilesGiveSameResultAsWholeImage() throws Exception {
+		var path = Paths.get(getClass().getResource("/crane_base_mitani.opx").toURI()).toString();
+		var crane = fold(new LoaderXML().load(path).get().getCreasePattern());
+		var craneDomain = crane.origamiModel().createDomainOfFoldedModel();
+
+		int width = 300;
+		int height = 201;
+
+		assertTilesGiveSameResult(crane, width, height, 0.53 * height / craneDomain.getHeight());
+		// sticks out of the image.
+		assertTilesGiveSameResult(crane, width, height, 1.2 * height / craneDomain.getHeight());
+
+		// the vertical left edge is slightly right of x = 100, where the fixed
+		// point rounds down to the pixel column 99.
+		var accordion = fold(createAccordionLines());
+		var accordionDomain = accordion.origamiModel().createDomainOfFoldedModel();
+		assertTilesGiveSameResult(accordion, width, height,
+				(width / 2 - 100.0001) / (accordionDomain.getWidth() / 2));
+	}
+
+	private void assertTilesGiveSameResult(final FoldedModel foldedModel, final int width, final int height,
+			final double scale) {
+		var origamiModel = foldedModel.origamiModel();
+		var overlapRelation = foldedModel.overlapRelations().get(0);
+		var modelDomain = origamiModel.createDomainOfFoldedModel();
+		var distortion = new Distortion(modelDomain, width, height);
+		var converter = distortion.createCoordinateConverter(DistortionMethod.NONE, null, scale);
+		var distortedModel = distortion.prepare(origamiModel, converter, Map.of(), GeomUtil.pointEps());
+		var result = distortedModel.apply(overlapRelation);
+
+		var option = new FoldedModelPixelRenderer.Option()
+				.setFillFace(true)
+				.setColors(Color.GRAY, Color.WHITE);
+
+		var whole = new FoldedModelPixelRenderer(width, height, width);
+		whole.render(result.faces(), result.interpolatedOverlapRelation(), distortedModel.getPaperDomain(), option);
+
+		for (var tileSize : List.of(64, 7, 1)) {
+			var tiled = new FoldedModelPixelRenderer(width, height, tileSize);
+			tiled.render(result.faces(), result.interpolatedOverlapRelation(), distortedModel.getPaperDomain(),
+					option);
+
+			assertArrayEquals(whole.getPixels(), tiled.getPixels());
+			assertArrayEquals(whole.getFaceIDs(), tiled.getFaceIDs());
+		}
+	}
+
+	private boolean isInside(final int[] faceIDs, final int x, final int y) {
+		return faceIDs[y * SIZE + x] != -1
+				&& faceIDs[y * SIZE + x - 1] != -1 && faceIDs[y * SIZE + x + 1] != -1
+				&& faceIDs[(y - 1) * SIZE + x] != -1 && faceIDs[(y + 1) * SIZE + x] != -1;
+	}
+
+	private int[] render(final boolean faceOrderFlipped) {
+		var origamiModel = fold(createAccordionLines()).origamiModel();
+		assertEquals(4, origamiModel.getFaces().size());
+
+		var overlapRelation = new OverlapRelation(4);
+		overlapRelation.setUpper(0, 1);
+		overlapRelation.setUpper(1, 2);
+		overlapRelation.setUpper(2, 0);
+		for (int i = 0; i < BELOW_CYCLE; i++) {
+			overlapRelation.setUpper(i, BELOW_CYCLE);
+		}
+
+		var modelDomain = origamiModel.createDomainOfFoldedModel();
+		var distortion = new Distortion(modelDomain, SIZE, SIZE);
+		var converter = distortion.createCoordinateConverter(DistortionMethod.NONE, null,
+				SIZE / modelDomain.getWidth() / 1.5);
+		var distortedModel = distortion.prepare(origamiModel, converter, Map.of(), GeomUtil.pointEps());
+		var result = distortedModel.apply(overlapRelation);
+
+		// face 3 first.
+		var faces = result.faces().stream()
+				.sorted(Comparator.comparing(face -> face.getFaceID() != BELOW_CYCLE))
+				.toList();
+
+		var renderer = new FoldedModelPixelRenderer(SIZE, SIZE);
+		renderer.render(faces, result.interpolatedOverlapRelation(), distortedModel.getPaperDomain(),
+				new FoldedModelPixelRenderer.Option()
+						.setFaceOrderFlipped(faceOrderFlipped)
+						.setFillFace(true)
+						.setColors(Color.GRAY, Color.WHITE));
+
+		return renderer.getFaceIDs();
+	}
+
+	private List<OriLine> createAccordionLines() {
+		var lines = new ArrayList<OriLine>();
+		int cellCount = 4;
+		for (int i = 0; i < cellCount; i++) {
+			lines.add(new OriLine(40 * i, 0, 40 * i + 40, 0, OriLine.Type.CUT));
+			lines.add(new OriLine(40 * i, 40, 40 * i + 40, 40, OriLine.Type.CUT));
+		}
+		lines.add(new OriLine(0, 0, 0, 40, OriLine.Type.CUT));
+		lines.add(new OriLine(40 * cellCount, 0, 40 * cellCount, 40, OriLine.Type.CUT));
+		for (int i = 1; i < cellCount; i++) {
+			lines.add(new OriLine(40 * i, 0, 40 * i, 40,
+					i % 2 == 0 ? OriLine.Type.MOUNTAIN : OriLine.Type.VALLEY));
+		}
+		return lines;
+	}
+
+	/**
+	 * An accordion whose panels get narrower so that each panel lies within
+	 * the previous one.
+	 */
+	private List<OriLine> createStairLines() {
+		var lines = new ArrayList<OriLine>();
+		var widths = List.of(100.0, 80.0, 60.0, 40.0);
+		double x = 0;
+		for (int i = 0; i < widths.size(); i++) {
+			if (i > 0) {
+				lines.add(new OriLine(x, 0, x, 40, i % 2 == 0 ? OriLine.Type.MOUNTAIN : OriLine.Type.VALLEY));
+			}
+			lines.add(new OriLine(x, 0, x + widths.get(i), 0, OriLine.Type.CUT));
+			lines.add(new OriLine(x, 40, x + widths.get(i), 40, OriLine.Type.CUT));
+			x += widths.get(i);
+		}
+		lines.add(new OriLine(0, 0, 0, 40, OriLine.Type.CUT));
+		lines.add(new OriLine(x, 0, x, 40, OriLine.Type.CUT));
+		return lines;
+	}
+
+	private FoldedModel fold(final Collection<OriLine> creasePattern) {
+		var eps = GeomUtil.pointEps();
+		var origamiModel = new TestedOrigamiModelFactory().createOrigamiModels(creasePattern, eps).get(0);
+
+		return new FolderFactory().create(origamiModel.getModelType())
+				.fold(origamiModel, eps, Folder.EstimationType.FIRST_ONLY)
+				.foldedModel();
+	}
+}
@@ -48,6 +48,23 @@ class BitBlockByteMatrixTest {
 
 	}
 
+	@Test
+	void testCopyTo() {
+		matrix.set(0, 0, (byte) 0x01);
+		matrix.set(1, 2, (byte) 0x03);
+		matrix.set(199, 99, (byte) 0x02);
+
+		var copied = new BitBlockByteMatrix(200, 100, 2);
+		copied.set(5, 5, (byte) 0x03);
+
+		matrix.copyTo(copied);
+
+		assertEquals((byte) 0x01, copied.get(0, 0));
+		assertEquals((byte) 0x03, copied.get(1, 2));
+		assertEquals((byte) 0x02, copied.get(199, 99));
+		assertEquals((byte) 0x00, copied.get(5, 5));
+	}
+
 	void assertSetAndGet(final int i, final int j, final byte value) {
 		matrix.set(i, j, value);
 		logger.debug(matrix.toBinaryString());
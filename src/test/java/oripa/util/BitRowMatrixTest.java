@@ -0,0 +1,85 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class BitRowMatrixTest {
+
+	@Test
+	void testSetAndGet() {
+		var matrix = new BitRowMatrix(130);
+
+		matrix.set(0, 0);
+		matrix.set(1, 63);
+		matrix.set(1, 64);
+		matrix.set(129, 129);
+
+		assertTrue(matrix.get(0, 0));
+		assertTrue(matrix.get(1, 63));
+		assertTrue(matrix.get(1, 64));
+		assertTrue(matrix.get(129, 129));
+		assertFalse(matrix.get(0, 64));
+		assertEquals(2, matrix.countRow(1));
+
+		matrix.clear(1, 63);
+		assertFalse(matrix.get(1, 63));
+		assertTrue(matrix.get(1, 64));
+	}
+
+	@Test
+	void testNextSetColumn() {
+		var matrix = new BitRowMatrix(200);
+
+		matrix.set(3, 5);
+		matrix.set(3, 70);
+		matrix.set(3, 199);
+
+		assertEquals(5, matrix.nextSetColumn(3, 0));
+		assertEquals(5, matrix.nextSetColumn(3, 5));
+		assertEquals(70, matrix.nextSetColumn(3, 6));
+		assertEquals(199, matrix.nextSetColumn(3, 71));
+		assertEquals(-1, matrix.nextSetColumn(3, 200));
+		assertEquals(-1, matrix.nextSetColumn(4, 0));
+	}
+
+	@Test
+	void testCloseTransitively() {
+		var matrix = new BitRowMatrix(100);
+
+		// 0 -> 70 -> 99 -> 1, 2 -> 2
+		matrix.set(0, 70);
+		matrix.set(70, 99);
+		matrix.set(99, 1);
+		matrix.set(2, 2);
+
+		matrix.closeTransitively();
+
+		assertTrue(matrix.get(0, 70));
+		assertTrue(matrix.get(0, 99));
+		assertTrue(matrix.get(0, 1));
+		assertTrue(matrix.get(70, 1));
+		assertFalse(matrix.get(1, 0));
+		assertFalse(matrix.get(0, 0));
+		assertTrue(matrix.get(2, 2));
+		assertEquals(3, matrix.countRow(0));
+	}
+}
@@ -0,0 +1,71 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class CompressedRowByteMatrixTest {
+
+	@Test
+	void testSetAndGet() {
+		var pattern = new BitRowMatrix(100);
+		pattern.set(0, 1);
+		pattern.set(0, 99);
+		pattern.set(50, 70);
+		// under the diagonal. should be ignored.
+		pattern.set(70, 50);
+
+		var matrix = new CompressedRowByteMatrix(pattern, 2);
+		assertEquals(3, matrix.getEntryCount());
+
+		matrix.set(0, 1, (byte) 0x01);
+		matrix.set(0, 99, (byte) 0x03);
+		matrix.set(50, 70, (byte) 0x02);
+
+		assertEquals((byte) 0x01, matrix.get(0, 1));
+		assertEquals((byte) 0x03, matrix.get(0, 99));
+		assertEquals((byte) 0x02, matrix.get(50, 70));
+		assertEquals((byte) 0x00, matrix.get(70, 50));
+		assertEquals((byte) 0x00, matrix.get(0, 2));
+
+		// zero can be set anywhere.
+		matrix.set(0, 2, (byte) 0x00);
+		assertThrows(IllegalArgumentException.class, () -> matrix.set(0, 2, (byte) 0x01));
+	}
+
+	@Test
+	void testClone_sharesNoValue() {
+		var pattern = new BitRowMatrix(10);
+		pattern.set(1, 2);
+
+		var matrix = new CompressedRowByteMatrix(pattern, 2);
+		matrix.set(1, 2, (byte) 0x01);
+
+		var cloned = matrix.clone();
+		cloned.set(1, 2, (byte) 0x02);
+
+		assertEquals((byte) 0x01, matrix.get(1, 2));
+		assertEquals((byte) 0x02, cloned.get(1, 2));
+
+		cloned.copyTo(matrix);
+		assertEquals((byte) 0x02, matrix.get(1, 2));
+	}
+}
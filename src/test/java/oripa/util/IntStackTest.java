@@ -16,32 +16,36 @@
     You should have received a copy of the GNU General Public License
     along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
-package oripa.persistence.xml;
+package oripa.util;
 
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
+import static org.junit.jupiter.api.Assertions.*;
 
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import org.junit.jupiter.api.Test;
 
-public class TypedXPath {
-	private final XPath xpath;
+class IntStackTest {
 
-	public TypedXPath() {
-		this(XPathFactory.newInstance().newXPath());
-	}
+	@Test
+	void testPushAndPop_growing() {
+		var stack = new IntStack(2);
 
-	public TypedXPath(final XPath xpath) {
-		this.xpath = xpath;
-	}
+		for (int i = 0; i < 10; i++) {
+			stack.push(i);
+		}
 
-	public Node evaluateAsNode(final String expression, final Node node) throws XPathExpressionException {
-		return (Node) xpath.evaluate(expression, node, XPathConstants.NODE);
+		assertEquals(10, stack.size());
+		assertEquals(9, stack.peek());
+		assertEquals(3, stack.get(3));
+
+		for (int i = 9; i >= 0; i--) {
+			assertEquals(i, stack.pop());
+		}
+		assertTrue(stack.isEmpty());
 	}
 
-	public NodeList evaluateAsNodeList(final String expression, final Node node) throws XPathExpressionException {
-		return (NodeList) xpath.evaluate(expression, node, XPathConstants.NODESET);
+	@Test
+	void testPop_empty() {
+		var stack = new IntStack();
+
+		assertThrows(IllegalStateException.class, () -> stack.pop());
 	}
-}
\ No newline at end of file
+}
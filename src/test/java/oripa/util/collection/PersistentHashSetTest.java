@@ -0,0 +1,119 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.util.collection;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class PersistentHashSetTest {
+
+	/**
+	 * Element with a poor hash to make collisions.
+	 */
+	record Key(int value) {
+		@Override
+		public int hashCode() {
+			return value % 7;
+		}
+	}
+
+	@Test
+	void testWithAndWithout_originalIsUnchanged() {
+		var set0 = PersistentHashSet.<Integer> empty();
+		var set1 = set0.with(1).with(2).with(3);
+		var set2 = set1.without(2);
+
+		assertEquals(0, set0.size());
+		assertEquals(3, set1.size());
+		assertEquals(2, set2.size());
+
+		assertTrue(set1.contains(2));
+		assertFalse(set2.contains(2));
+
+		assertSame(set2, set2.with(3));
+		assertSame(set2, set2.without(4));
+	}
+
+	@Test
+	void testSameAsHashSet_randomOperations() {
+		var random = new Random(0);
+
+		var expected = new HashSet<Key>();
+		var actual = PersistentHashSet.<Key> empty();
+		var snapshots = new ArrayList<PersistentHashSet<Key>>();
+		var expectedSnapshots = new ArrayList<HashSet<Key>>();
+
+		for (int i = 0; i < 20000; i++) {
+			var key = new Key(random.nextInt(3000));
+			if (random.nextInt(3) == 0) {
+				expected.remove(key);
+				actual = actual.without(key);
+			} else {
+				expected.add(key);
+				actual = actual.with(key);
+			}
+			if (i % 1000 == 0) {
+				snapshots.add(actual);
+				expectedSnapshots.add(new HashSet<>(expected));
+			}
+		}
+
+		assertEquals(expected, actual);
+		assertEquals(expected, new HashSet<>(actual));
+		for (int i = 0; i < snapshots.size(); i++) {
+			assertEquals(expectedSnapshots.get(i), new HashSet<>(snapshots.get(i)));
+			assertEquals(expectedSnapshots.get(i).size(), snapshots.get(i).size());
+		}
+	}
+
+	@Test
+	void testWithAllAndWithoutAll() {
+		var values = new ArrayList<Integer>();
+		for (int i = 0; i < 10000; i++) {
+			values.add(i);
+		}
+
+		var set = PersistentHashSet.of(values);
+		var half = set.withoutAll(values.subList(0, 5000));
+
+		assertEquals(10000, set.size());
+		assertEquals(5000, half.size());
+		assertTrue(set.containsAll(values));
+		assertFalse(half.contains(4999));
+		assertTrue(half.contains(5000));
+
+		var added = half.withAll(List.of(1, 5000, -1));
+		assertEquals(5002, added.size());
+		assertEquals(5000, half.size());
+	}
+
+	@Test
+	void testModificationIsUnsupported() {
+		var set = PersistentHashSet.of(List.of(1, 2));
+
+		assertThrows(UnsupportedOperationException.class, () -> set.add(3));
+		assertThrows(UnsupportedOperationException.class, () -> set.remove(1));
+	}
+}